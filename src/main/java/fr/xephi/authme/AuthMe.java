@@ -8,15 +8,18 @@ import fr.xephi.authme.api.NewAPI;
 import fr.xephi.authme.command.CommandHandler;
 import fr.xephi.authme.data.auth.PlayerCache;
 import fr.xephi.authme.datasource.DataSource;
+import fr.xephi.authme.initialization.BackgroundDataSourceProvider;
 import fr.xephi.authme.initialization.DataFolder;
 import fr.xephi.authme.initialization.DataSourceProvider;
 import fr.xephi.authme.initialization.OnShutdownPlayerSaver;
 import fr.xephi.authme.initialization.OnStartupTasks;
 import fr.xephi.authme.initialization.SettingsProvider;
+import fr.xephi.authme.initialization.StartupReport;
 import fr.xephi.authme.initialization.TaskCloser;
 import fr.xephi.authme.initialization.factory.FactoryDependencyHandler;
 import fr.xephi.authme.listener.BlockListener;
 import fr.xephi.authme.listener.EntityListener;
+import fr.xephi.authme.listener.ListenerProfiler;
 import fr.xephi.authme.listener.PlayerListener;
 import fr.xephi.authme.listener.PlayerListener111;
 import fr.xephi.authme.listener.PlayerListener16;
@@ -25,10 +28,13 @@ import fr.xephi.authme.listener.PlayerListener19;
 import fr.xephi.authme.listener.ServerListener;
 import fr.xephi.authme.permission.PermissionsManager;
 import fr.xephi.authme.permission.PermissionsSystemType;
+import fr.xephi.authme.process.PlayerTaskExecutor;
 import fr.xephi.authme.security.crypts.SHA256;
+import fr.xephi.authme.service.AsyncTaskRegistry;
 import fr.xephi.authme.service.BackupService;
 import fr.xephi.authme.service.BukkitService;
 import fr.xephi.authme.service.MigrationService;
+import fr.xephi.authme.service.PrometheusExporter;
 import fr.xephi.authme.settings.Settings;
 import fr.xephi.authme.settings.properties.EmailSettings;
 import fr.xephi.authme.settings.properties.PluginSettings;
@@ -69,6 +75,7 @@ public class AuthMe extends JavaPlugin {
     private PermissionsManager permsMan;
     private Settings settings;
     private DataSource database;
+    private BackgroundDataSourceProvider backgroundDataSourceProvider;
     private BukkitService bukkitService;
     private Injector injector;
 
@@ -132,8 +139,9 @@ public class AuthMe extends JavaPlugin {
         loadPluginInfo(getDescription().getVersion());
 
         // Initialize the plugin
+        StartupReport startupReport = new StartupReport();
         try {
-            initialize();
+            initialize(startupReport);
         } catch (Exception e) {
             ConsoleLogger.logException("Aborting initialization of AuthMe:", e);
             OnStartupTasks.displayLegacyJarHint(e);
@@ -149,12 +157,6 @@ public class AuthMe extends JavaPlugin {
             ConsoleLogger.warning("Warning! This server uses PermissionsBukkit for permissions. Some permissions features may not be supported!");
         }
 
-        // Do a backup on start
-        new BackupService(this, settings).doBackup(BackupService.BackupCause.START);
-
-        // Set up Metrics
-        OnStartupTasks.sendMetrics(this, settings);
-
         // Sponsor messages
         ConsoleLogger.info("Development builds are available on our jenkins, thanks to f14stelt.");
         ConsoleLogger.info("Do you want a good game server? Look at our sponsor GameHosting.it leader in Italy as Game Server Provider!");
@@ -162,13 +164,15 @@ public class AuthMe extends JavaPlugin {
         // Successful message
         ConsoleLogger.info("AuthMe " + getPluginVersion() + " build n." + getPluginBuildNumber() + " correctly enabled!");
 
-        // Purge on start if enabled
-        PurgeService purgeService = injector.getSingleton(PurgeService.class);
-        purgeService.runAutoPurge();
-
         // Schedule clean up task
         CleanupTask cleanupTask = injector.getSingleton(CleanupTask.class);
         cleanupTask.runTaskTimerAsynchronously(this, CLEANUP_INTERVAL, CLEANUP_INTERVAL);
+
+        // Backup, metrics and purge are not needed to accept players: run them once the plugin is enabled
+        scheduleDeferredStartupTasks();
+
+        ConsoleLogger.info("AuthMe enabled in " + startupReport.getElapsedMillis() + " ms ("
+            + startupReport.getPhases() + ")");
     }
 
     /**
@@ -189,8 +193,10 @@ public class AuthMe extends JavaPlugin {
 
     /**
      * Initialize the plugin and all the services.
+     *
+     * @param startupReport the report to record the duration of the initialization phases to
      */
-    private void initialize() {
+    private void initialize(StartupReport startupReport) {
         // Set the Logger instance and log file path
         ConsoleLogger.setLogger(getLogger());
         ConsoleLogger.setLogFile(new File(getDataFolder(), LOG_FILENAME));
@@ -209,33 +215,67 @@ public class AuthMe extends JavaPlugin {
         injector.register(BukkitScheduler.class, getServer().getScheduler());
         injector.provide(DataFolder.class, getDataFolder());
         injector.registerProvider(Settings.class, SettingsProvider.class);
-        injector.registerProvider(DataSource.class, DataSourceProvider.class);
 
         // Get settings and set up logger
-        settings = injector.getSingleton(Settings.class);
+        settings = startupReport.measure("settings", () -> injector.getSingleton(Settings.class));
         ConsoleLogger.setLoggingOptions(settings);
         OnStartupTasks.setupConsoleFilter(settings, getLogger());
 
+        // Connect to the data source in the background while the other services are created
+        registerBackgroundDataSource(startupReport);
+
         // Set all service fields on the AuthMe class
-        instantiateServices(injector);
+        startupReport.measure("services", () -> instantiateServices(injector));
 
-        // Convert deprecated PLAINTEXT hash entries
-        MigrationService.changePlainTextToSha256(settings, database, new SHA256());
-
-        // TODO: does this still make sense? -sgdc3
-        // If the server is empty (fresh start) just set all the players as unlogged
-        if (bukkitService.getOnlinePlayers().isEmpty()) {
-            database.purgeLogged();
-        }
+        // Convert deprecated PLAINTEXT hash entries; has to be done before any password is checked
+        startupReport.measure("plaintext migration",
+            () -> MigrationService.changePlainTextToSha256(settings, database, new SHA256()));
 
         // Register event listeners
-        registerEventListeners(injector);
+        startupReport.measure("listeners", () -> registerEventListeners(injector));
 
         // Start Email recall task if needed
         OnStartupTasks onStartupTasks = injector.newInstance(OnStartupTasks.class);
         onStartupTasks.scheduleRecallEmailTask();
     }
 
+    /**
+     * Registers a provider for the data source which creates it on a separate thread.
+     *
+     * @param startupReport the startup report
+     */
+    private void registerBackgroundDataSource(StartupReport startupReport) {
+        // TODO: does this still make sense? -sgdc3
+        // If the server is empty (fresh start) just set all the players as unlogged
+        final boolean isServerEmpty = injector.getSingleton(BukkitService.class).getOnlinePlayers().isEmpty();
+        DataSourceProvider dataSourceProvider = injector.newInstance(DataSourceProvider.class);
+        backgroundDataSourceProvider = new BackgroundDataSourceProvider(dataSourceProvider,
+            dataSource -> {
+                if (isServerEmpty) {
+                    dataSource.purgeLogged();
+                }
+            }, startupReport);
+        injector.registerProvider(DataSource.class, backgroundDataSourceProvider);
+    }
+
+    /**
+     * Schedules the startup tasks which are not needed for players to join the server.
+     */
+    private void scheduleDeferredStartupTasks() {
+        // Do a backup on start; this may run mysqldump, so it is done asynchronously
+        bukkitService.runTaskAsynchronously(
+            () -> new BackupService(this, settings).doBackup(BackupService.BackupCause.START));
+
+        bukkitService.scheduleSyncDelayedTask(() -> {
+            StartupReport deferredReport = new StartupReport();
+            deferredReport.measure("metrics", () -> OnStartupTasks.sendMetrics(this, settings));
+            deferredReport.measure("metrics exporter", () -> injector.getSingleton(PrometheusExporter.class).start());
+            deferredReport.measure("auto purge", () -> injector.getSingleton(PurgeService.class).runAutoPurge());
+            ConsoleLogger.info("Deferred startup tasks finished in " + deferredReport.getElapsedMillis() + " ms ("
+                + deferredReport.getPhases() + ")");
+        });
+    }
+
     /**
      * Instantiates all services.
      *
@@ -246,9 +286,12 @@ public class AuthMe extends JavaPlugin {
         PlayerCache playerCache = PlayerCache.getInstance();
         injector.register(PlayerCache.class, playerCache);
 
-        database = injector.getSingleton(DataSource.class);
+        // Create the services which do not need the data source first, as it may still be initializing
         permsMan = injector.getSingleton(PermissionsManager.class);
         bukkitService = injector.getSingleton(BukkitService.class);
+
+        // The commands and the API need the data source: this waits until it has been created
+        database = injector.getSingleton(DataSource.class);
         commandHandler = injector.getSingleton(CommandHandler.class);
 
         // Trigger construction of API classes; they will keep track of the singleton
@@ -284,33 +327,33 @@ public class AuthMe extends JavaPlugin {
      * @param injector the injector
      */
     protected void registerEventListeners(Injector injector) {
-        // Get the plugin manager instance
-        PluginManager pluginManager = getServer().getPluginManager();
+        // The profiler registers the listeners with the plugin manager and measures them if enabled
+        ListenerProfiler listenerProfiler = injector.getSingleton(ListenerProfiler.class);
 
         // Register event listeners
-        pluginManager.registerEvents(injector.getSingleton(PlayerListener.class), this);
-        pluginManager.registerEvents(injector.getSingleton(BlockListener.class), this);
-        pluginManager.registerEvents(injector.getSingleton(EntityListener.class), this);
-        pluginManager.registerEvents(injector.getSingleton(ServerListener.class), this);
+        listenerProfiler.registerEvents(injector.getSingleton(PlayerListener.class));
+        listenerProfiler.registerEvents(injector.getSingleton(BlockListener.class));
+        listenerProfiler.registerEvents(injector.getSingleton(EntityListener.class));
+        listenerProfiler.registerEvents(injector.getSingleton(ServerListener.class));
 
         // Try to register 1.6 player listeners
         if (isClassLoaded("org.bukkit.event.player.PlayerEditBookEvent")) {
-            pluginManager.registerEvents(injector.getSingleton(PlayerListener16.class), this);
+            listenerProfiler.registerEvents(injector.getSingleton(PlayerListener16.class));
         }
 
         // Try to register 1.8 player listeners
         if (isClassLoaded("org.bukkit.event.player.PlayerInteractAtEntityEvent")) {
-            pluginManager.registerEvents(injector.getSingleton(PlayerListener18.class), this);
+            listenerProfiler.registerEvents(injector.getSingleton(PlayerListener18.class));
         }
 
         // Try to register 1.9 player listeners
         if (isClassLoaded("org.bukkit.event.player.PlayerSwapHandItemsEvent")) {
-            pluginManager.registerEvents(injector.getSingleton(PlayerListener19.class), this);
+            listenerProfiler.registerEvents(injector.getSingleton(PlayerListener19.class));
         }
 
         // Register listener for 1.11 events if available
         if (isClassLoaded("org.bukkit.event.entity.EntityAirChangeEvent")) {
-            pluginManager.registerEvents(injector.getSingleton(PlayerListener111.class), this);
+            listenerProfiler.registerEvents(injector.getSingleton(PlayerListener111.class));
         }
     }
 
@@ -330,6 +373,14 @@ public class AuthMe extends JavaPlugin {
     @Override
     public void onDisable() {
         // onDisable is also called when we prematurely abort, so any field may be null
+        AsyncTaskRegistry asyncTaskRegistry = injector == null
+            ? null
+            : injector.getIfAvailable(AsyncTaskRegistry.class);
+        TaskCloser taskCloser = new TaskCloser(this, database, asyncTaskRegistry);
+        // Let the players' processes finish first, so that they do not access the data source concurrently
+        // with the saving of the players
+        taskCloser.awaitTasks();
+
         OnShutdownPlayerSaver onShutdownPlayerSaver = injector == null
             ? null
             : injector.createIfHasDependencies(OnShutdownPlayerSaver.class);
@@ -342,8 +393,26 @@ public class AuthMe extends JavaPlugin {
             new BackupService(this, settings).doBackup(BackupService.BackupCause.STOP);
         }
 
-        // Wait for tasks and close data source
-        new TaskCloser(this, database).run();
+        // Wait for tasks submitted in the meantime and close data source
+        taskCloser.run();
+        if (database == null && backgroundDataSourceProvider != null) {
+            // The initialization failed before the data source was retrieved, but it may have been created
+            backgroundDataSourceProvider.closeIfCreated();
+        }
+
+        PlayerTaskExecutor playerTaskExecutor = injector == null
+            ? null
+            : injector.getIfAvailable(PlayerTaskExecutor.class);
+        if (playerTaskExecutor != null) {
+            playerTaskExecutor.shutdown();
+        }
+
+        PrometheusExporter prometheusExporter = injector == null
+            ? null
+            : injector.getIfAvailable(PrometheusExporter.class);
+        if (prometheusExporter != null) {
+            prometheusExporter.stop();
+        }
 
         // Disabled correctly
         ConsoleLogger.info("AuthMe " + this.getDescription().getVersion() + " disabled!");
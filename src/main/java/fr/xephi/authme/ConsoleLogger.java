@@ -1,6 +1,7 @@
 package fr.xephi.authme;
 
 import com.google.common.base.Throwables;
+import fr.xephi.authme.output.AsyncLogWriter;
 import fr.xephi.authme.output.LogLevel;
 import fr.xephi.authme.settings.Settings;
 import fr.xephi.authme.settings.properties.PluginSettings;
@@ -8,12 +9,7 @@ import fr.xephi.authme.settings.properties.SecuritySettings;
 import fr.xephi.authme.util.StringUtils;
 
 import java.io.File;
-import java.io.FileWriter;
-import java.io.IOException;
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
 import java.util.Arrays;
-import java.util.Date;
 import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -23,13 +19,12 @@ import java.util.logging.Logger;
  */
 public final class ConsoleLogger {
 
-    private static final String NEW_LINE = System.getProperty("line.separator");
-    private static final DateFormat DATE_FORMAT = new SimpleDateFormat("[MM-dd HH:mm:ss]");
+    private static final long BYTES_PER_MEGABYTE = 1024 * 1024;
     private static Logger logger;
     private static LogLevel logLevel = LogLevel.INFO;
     private static boolean useLogging = false;
     private static File logFile;
-    private static FileWriter fileWriter;
+    private static volatile AsyncLogWriter logWriter;
 
     private ConsoleLogger() {
     }
@@ -65,13 +60,12 @@ public final class ConsoleLogger {
         ConsoleLogger.logLevel = settings.getProperty(PluginSettings.LOG_LEVEL);
         ConsoleLogger.useLogging = settings.getProperty(SecuritySettings.USE_LOGGING);
         if (useLogging) {
-            if (fileWriter == null) {
-                try {
-                    fileWriter = new FileWriter(logFile, true);
-                } catch (IOException e) {
-                    ConsoleLogger.logException("Failed to create the log file:", e);
-                }
+            if (logWriter == null) {
+                logWriter = new AsyncLogWriter(logFile, logger);
+                logWriter.start();
             }
+            logWriter.setRotation(settings.getProperty(SecuritySettings.LOG_FILE_MAX_SIZE) * BYTES_PER_MEGABYTE,
+                settings.getProperty(SecuritySettings.LOG_FILE_ROTATE_DAILY));
         } else {
             close();
         }
@@ -223,38 +217,25 @@ public final class ConsoleLogger {
     // --------
 
     /**
-     * Close all file handles.
+     * Write all pending messages to the log file and close it.
      */
     public static void close() {
-        if (fileWriter != null) {
-            try {
-                fileWriter.flush();
-                fileWriter.close();
-                fileWriter = null;
-            } catch (IOException ignored) {
-            }
+        if (logWriter != null) {
+            logWriter.close();
+            logWriter = null;
         }
     }
 
     /**
-     * Write a message into the log file with a TimeStamp if enabled.
+     * Write a message into the log file with a TimeStamp if enabled. The message is written
+     * asynchronously so that the logging thread is not blocked.
      *
      * @param message The message to write to the log
      */
     private static void writeLog(String message) {
-        if (useLogging) {
-            String dateTime;
-            synchronized (DATE_FORMAT) {
-                dateTime = DATE_FORMAT.format(new Date());
-            }
-            try {
-                fileWriter.write(dateTime);
-                fileWriter.write(": ");
-                fileWriter.write(message);
-                fileWriter.write(NEW_LINE);
-                fileWriter.flush();
-            } catch (IOException ignored) {
-            }
+        AsyncLogWriter writer = logWriter;
+        if (useLogging && writer != null) {
+            writer.write(message);
         }
     }
 }
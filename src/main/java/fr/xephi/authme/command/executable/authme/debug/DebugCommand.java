@@ -20,7 +20,8 @@ public class DebugCommand implements ExecutableCommand {
     private Factory<DebugSection> debugSectionFactory;
 
     private Set<Class<? extends DebugSection>> sectionClasses =
-        ImmutableSet.of(PermissionGroups.class, TestEmailSender.class);
+        ImmutableSet.of(PermissionGroups.class, TestEmailSender.class, HashingBudgetInfo.class,
+            PerformanceInfo.class, MainThreadCalls.class, ListenerProfile.class);
 
     private Map<String, DebugSection> sections;
 
@@ -0,0 +1,53 @@
+package fr.xephi.authme.command.executable.authme.debug;
+
+import fr.xephi.authme.data.HashingBudgetManager;
+import org.bukkit.ChatColor;
+import org.bukkit.command.CommandSender;
+
+import javax.inject.Inject;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shows the state of the hashing budget for logins.
+ */
+class HashingBudgetInfo implements DebugSection {
+
+    @Inject
+    private HashingBudgetManager hashingBudgetManager;
+
+    @Override
+    public String getName() {
+        return "hashing";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Shows the hashing time budget and rejected logins";
+    }
+
+    @Override
+    public void execute(CommandSender sender, List<String> arguments) {
+        if (!hashingBudgetManager.isEnabled()) {
+            sender.sendMessage(ChatColor.GOLD + "The hashing budget is disabled (Security.hashingBudget.enabled)");
+        }
+        sender.sendMessage("Average hashing time: " + toMillis(hashingBudgetManager.getCostEstimate()) + " ms");
+        long globalRate = hashingBudgetManager.getGlobalRate();
+        if (globalRate < 0) {
+            sender.sendMessage("Global budget: unlimited");
+        } else {
+            sender.sendMessage("Global budget: " + toMillis(hashingBudgetManager.getGlobalBudget()) + " ms available, "
+                + toMillis(globalRate) + " ms per second");
+        }
+        sender.sendMessage("Tracked subnets: " + hashingBudgetManager.getTrackedSubnets()
+            + ", tracked IP addresses: " + hashingBudgetManager.getTrackedAddresses());
+        sender.sendMessage("Admitted logins: " + hashingBudgetManager.getAdmittedCount());
+        sender.sendMessage("Rejected logins: " + hashingBudgetManager.getGlobalRejections() + " (global), "
+            + hashingBudgetManager.getSubnetRejections() + " (subnet), "
+            + hashingBudgetManager.getAddressRejections() + " (IP address)");
+    }
+
+    private static long toMillis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
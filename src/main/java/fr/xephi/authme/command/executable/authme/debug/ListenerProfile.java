@@ -0,0 +1,82 @@
+package fr.xephi.authme.command.executable.authme.debug;
+
+import fr.xephi.authme.ConsoleLogger;
+import fr.xephi.authme.initialization.DataFolder;
+import fr.xephi.authme.listener.ListenerProfiler;
+import org.bukkit.ChatColor;
+import org.bukkit.command.CommandSender;
+
+import javax.inject.Inject;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Shows the time spent in AuthMe's event handlers, or exports it to a file.
+ */
+class ListenerProfile implements DebugSection {
+
+    private static final int MAX_ENTRIES = 15;
+    private static final String EXPORT_FILE = "listener-profile.csv";
+
+    @Inject
+    private ListenerProfiler listenerProfiler;
+
+    @Inject
+    @DataFolder
+    private File dataFolder;
+
+    @Override
+    public String getName() {
+        return "listeners";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Shows the cost of AuthMe's event handlers (arguments: export, reset)";
+    }
+
+    @Override
+    public void execute(CommandSender sender, List<String> arguments) {
+        if (!listenerProfiler.isEnabled()) {
+            sender.sendMessage("Listener profiling is disabled (settings.listenerProfiling.enabled)");
+            return;
+        }
+
+        String action = arguments.isEmpty() ? "" : arguments.get(0);
+        if ("export".equalsIgnoreCase(action)) {
+            exportProfile(sender);
+        } else if ("reset".equalsIgnoreCase(action)) {
+            listenerProfiler.reset();
+            sender.sendMessage("Cleared the listener profile");
+        } else {
+            sender.sendMessage(ChatColor.BLUE + "Event types (by total time)");
+            showProfiles(sender, listenerProfiler.getEventTypeProfiles());
+            sender.sendMessage(ChatColor.BLUE + "Event handlers (by total time)");
+            showProfiles(sender, listenerProfiler.getHandlerProfiles());
+        }
+    }
+
+    private void exportProfile(CommandSender sender) {
+        File file = new File(dataFolder, EXPORT_FILE);
+        try {
+            listenerProfiler.exportCsv(file);
+            sender.sendMessage("Exported the listener profile to " + file.getPath());
+        } catch (IOException e) {
+            ConsoleLogger.logException("Could not export the listener profile:", e);
+            sender.sendMessage(ChatColor.RED + "Could not export the listener profile, see the logs");
+        }
+    }
+
+    private static void showProfiles(CommandSender sender, List<ListenerProfiler.Profile> profiles) {
+        profiles.stream().limit(MAX_ENTRIES).forEach(profile -> sender.sendMessage(
+            " " + profile.getEventType() + " " + profile.getHandler() + ": " + profile.getInvocations()
+            + " calls, " + profile.getCancellations() + " cancelled, total "
+            + formatMillis(profile.getTotalNanos()) + ", max " + formatMillis(profile.getMaxNanos())));
+    }
+
+    private static String formatMillis(long nanos) {
+        return String.format(Locale.ROOT, "%.2f ms", nanos / 1_000_000.0);
+    }
+}
@@ -0,0 +1,52 @@
+package fr.xephi.authme.command.executable.authme.debug;
+
+import fr.xephi.authme.service.MainThreadBlockingDetector;
+import org.bukkit.ChatColor;
+import org.bukkit.command.CommandSender;
+
+import javax.inject.Inject;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shows the call sites which have performed blocking calls on the main thread.
+ */
+class MainThreadCalls implements DebugSection {
+
+    private static final int MAX_CALL_SITES = 10;
+
+    @Inject
+    private MainThreadBlockingDetector blockingDetector;
+
+    @Override
+    public String getName() {
+        return "mainthread";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Shows blocking database and hashing calls made on the main thread";
+    }
+
+    @Override
+    public void execute(CommandSender sender, List<String> arguments) {
+        if (!blockingDetector.isEnabled()) {
+            sender.sendMessage("Main thread detection is disabled (settings.mainThreadDetection.enabled)");
+        }
+        List<MainThreadBlockingDetector.CallSiteStats> callSites =
+            blockingDetector.getWorstCallSites(MAX_CALL_SITES);
+        if (callSites.isEmpty()) {
+            sender.sendMessage("No blocking calls on the main thread have been recorded");
+            return;
+        }
+
+        sender.sendMessage(ChatColor.BLUE + "Blocking calls on the main thread (by total time)");
+        for (MainThreadBlockingDetector.CallSiteStats stats : callSites) {
+            sender.sendMessage(ChatColor.GOLD + stats.getOperation() + ChatColor.RESET + " from "
+                + stats.getCallSite() + ": " + stats.getCount() + " calls, total "
+                + TimeUnit.NANOSECONDS.toMillis(stats.getTotalNanos()) + " ms, max "
+                + TimeUnit.NANOSECONDS.toMillis(stats.getMaxNanos()) + " ms");
+            stats.getSampleStackTrace().forEach(frame -> sender.sendMessage("    at " + frame));
+        }
+    }
+}
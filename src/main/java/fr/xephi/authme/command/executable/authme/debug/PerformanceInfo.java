@@ -0,0 +1,137 @@
+package fr.xephi.authme.command.executable.authme.debug;
+
+import com.google.common.cache.CacheStats;
+import fr.xephi.authme.data.HashingBudgetManager;
+import fr.xephi.authme.data.SessionManager;
+import fr.xephi.authme.datasource.CacheDataSource;
+import fr.xephi.authme.datasource.DataSource;
+import fr.xephi.authme.datasource.DataSourceUtils;
+import fr.xephi.authme.datasource.InstrumentedDataSource;
+import fr.xephi.authme.datasource.MySQL;
+import fr.xephi.authme.listener.JoinVerdictCache;
+import fr.xephi.authme.process.PlayerTaskExecutor;
+import fr.xephi.authme.process.ProcessMetrics;
+import fr.xephi.authme.process.SyncTaskQueue;
+import fr.xephi.authme.process.join.JoinAdmissionController;
+import fr.xephi.authme.service.AsyncTaskRegistry;
+import fr.xephi.authme.service.BukkitService;
+import fr.xephi.authme.service.RecoveryCodeService;
+import org.bukkit.ChatColor;
+import org.bukkit.command.CommandSender;
+
+import javax.inject.Inject;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shows live performance data, such as queue lengths, cache statistics and process latencies.
+ */
+class PerformanceInfo implements DebugSection {
+
+    @Inject
+    private DataSource dataSource;
+
+    @Inject
+    private PlayerTaskExecutor playerTaskExecutor;
+
+    @Inject
+    private JoinAdmissionController joinAdmissionController;
+
+    @Inject
+    private SyncTaskQueue syncTaskQueue;
+
+    @Inject
+    private ProcessMetrics processMetrics;
+
+    @Inject
+    private HashingBudgetManager hashingBudgetManager;
+
+    @Inject
+    private SessionManager sessionManager;
+
+    @Inject
+    private JoinVerdictCache joinVerdictCache;
+
+    @Inject
+    private RecoveryCodeService recoveryCodeService;
+
+    @Inject
+    private AsyncTaskRegistry asyncTaskRegistry;
+
+    @Inject
+    private BukkitService bukkitService;
+
+    @Override
+    public String getName() {
+        return "perf";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Shows live performance data (caches, connection pool, queues, latencies)";
+    }
+
+    @Override
+    public void execute(CommandSender sender, List<String> arguments) {
+        sender.sendMessage(ChatColor.BLUE + "Data source (" + dataSource.getType() + ")");
+        showDataSourceInfo(sender);
+
+        sender.sendMessage(ChatColor.BLUE + "Processes");
+        sender.sendMessage("Login latency: " + processMetrics.getLoginLatency());
+        sender.sendMessage("Registration latency: " + processMetrics.getRegistrationLatency());
+        sender.sendMessage("Join latency: " + processMetrics.getJoinLatency());
+        sender.sendMessage("Player tasks: " + playerTaskExecutor.getPendingTasks() + " pending for "
+            + playerTaskExecutor.getQueuedPlayers() + " players, longest queue: "
+            + playerTaskExecutor.getMaxQueueDepth());
+        sender.sendMessage("Joins: " + joinAdmissionController.getActiveJoins() + " running, "
+            + joinAdmissionController.getQueueLength() + " waiting, "
+            + joinAdmissionController.getRejectedJoins() + " rejected");
+        sender.sendMessage("Sync task queue: " + syncTaskQueue.getQueueLength() + " waiting, last lag "
+            + syncTaskQueue.getLastLagMillis() + " ms, max lag " + syncTaskQueue.getMaxLagMillis() + " ms");
+        sender.sendMessage("Average hashing time: "
+            + TimeUnit.NANOSECONDS.toMillis(hashingBudgetManager.getCostEstimate()) + " ms");
+
+        sender.sendMessage(ChatColor.BLUE + "Expiring entries");
+        sender.sendMessage("Sessions: " + sessionManager.getSessionCount()
+            + ", join verdicts: " + joinVerdictCache.getVerdictCount()
+            + ", recovery codes: " + recoveryCodeService.getCodeCount());
+
+        sender.sendMessage(ChatColor.BLUE + "Scheduler");
+        sender.sendMessage("Bukkit tasks: " + bukkitService.countPendingTasks()
+            + ", async tasks in progress: " + asyncTaskRegistry.getPendingCount());
+    }
+
+    private void showDataSourceInfo(CommandSender sender) {
+        CacheDataSource cacheDataSource = DataSourceUtils.unwrap(dataSource, CacheDataSource.class);
+        if (cacheDataSource == null) {
+            sender.sendMessage("Cache: disabled");
+        } else {
+            CacheStats stats = cacheDataSource.getCachedAuths().stats();
+            sender.sendMessage("Cache: " + cacheDataSource.getCachedAuths().size() + " entries, "
+                + stats.hitCount() + " hits, " + stats.missCount() + " misses (hit rate "
+                + formatPercentage(stats.hitRate()) + ")");
+        }
+
+        MySQL mySql = DataSourceUtils.unwrap(dataSource, MySQL.class);
+        if (mySql != null) {
+            sender.sendMessage("Connection pool: " + mySql.getPoolMetrics().getSummary());
+        }
+
+        InstrumentedDataSource instrumentedDataSource = DataSourceUtils.unwrap(dataSource, InstrumentedDataSource.class);
+        if (instrumentedDataSource == null) {
+            sender.sendMessage("Operation metrics: disabled (DataSource.metrics.enabled)");
+        } else {
+            for (Map.Entry<String, InstrumentedDataSource.OperationStats> entry
+                : instrumentedDataSource.getStatistics().entrySet()) {
+                sender.sendMessage(" " + entry.getKey() + ": " + entry.getValue().getSnapshot()
+                    + ", errors " + entry.getValue().getErrorCount());
+            }
+        }
+    }
+
+    private static String formatPercentage(double ratio) {
+        return String.format(Locale.ROOT, "%.1f%%", ratio * 100);
+    }
+}
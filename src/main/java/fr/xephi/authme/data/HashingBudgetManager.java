@@ -0,0 +1,268 @@
+package fr.xephi.authme.data;
+
+import fr.xephi.authme.initialization.HasCleanup;
+import fr.xephi.authme.initialization.SettingsDependent;
+import fr.xephi.authme.settings.Settings;
+import fr.xephi.authme.settings.properties.SecuritySettings;
+import fr.xephi.authme.util.InternetProtocolUtils;
+
+import javax.inject.Inject;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits the CPU time spent on hashing passwords during login.
+ * <p>
+ * The hashing time is managed with token buckets: one for all players, one per subnet and one per
+ * IP address. A login attempt is only admitted if none of its buckets is exhausted; each admitted
+ * attempt reserves the average hashing time upfront, which is then corrected with the actual duration
+ * once the password has been checked.
+ */
+public class HashingBudgetManager implements SettingsDependent, HasCleanup {
+
+    /** Number of seconds' worth of budget a bucket can accumulate while it is not used. */
+    private static final long BURST_SECONDS = 5;
+    /** Maximum number of IP addresses (and subnets) for which a separate bucket is kept. */
+    private static final int MAX_TRACKED_BUCKETS = 10_000;
+    /** Hashing time assumed before the first password has been checked. */
+    private static final long INITIAL_COST_ESTIMATE = TimeUnit.MILLISECONDS.toNanos(20);
+
+    /** Returned by {@link #tryAcquire} if the attempt is rejected. */
+    public static final long REJECTED = -1;
+
+    private final Map<String, TokenBucket> subnetBuckets = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> addressBuckets = new ConcurrentHashMap<>();
+    private final AtomicLong costEstimate = new AtomicLong(INITIAL_COST_ESTIMATE);
+    private final AtomicLong admittedCount = new AtomicLong();
+    private final AtomicLong globalRejections = new AtomicLong();
+    private final AtomicLong subnetRejections = new AtomicLong();
+    private final AtomicLong addressRejections = new AtomicLong();
+
+    private boolean isEnabled;
+    private long subnetRate;
+    private long addressRate;
+    private TokenBucket globalBucket;
+
+    @Inject
+    HashingBudgetManager(Settings settings) {
+        reload(settings);
+    }
+
+    /**
+     * Checks whether the given IP address may have a password hashed now and reserves budget for it
+     * if so. Each successful call must be followed by {@link #recordHashDuration} with the returned
+     * reservation.
+     *
+     * @param address the IP address of the player who wants to log in
+     * @return the hashing time reserved for the attempt in nanoseconds if the password may be checked,
+     *         or {@link #REJECTED} if the attempt should be rejected
+     */
+    public long tryAcquire(String address) {
+        if (!isEnabled) {
+            return 0;
+        }
+
+        final long cost = costEstimate.get();
+        final long now = System.nanoTime();
+        final TokenBucket global = globalBucket;
+        if (global != null && !global.tryTake(cost, now)) {
+            globalRejections.incrementAndGet();
+            return REJECTED;
+        }
+
+        TokenBucket subnet = getBucket(subnetBuckets, InternetProtocolUtils.getSubnet(address), subnetRate);
+        if (subnet != null && !subnet.tryTake(cost, now)) {
+            giveBack(global, cost, now);
+            subnetRejections.incrementAndGet();
+            return REJECTED;
+        }
+
+        TokenBucket ip = getBucket(addressBuckets, address, addressRate);
+        if (ip != null && !ip.tryTake(cost, now)) {
+            giveBack(global, cost, now);
+            giveBack(subnet, cost, now);
+            addressRejections.incrementAndGet();
+            return REJECTED;
+        }
+        admittedCount.incrementAndGet();
+        return cost;
+    }
+
+    /**
+     * Charges the actual hashing time to the buckets of the given IP address, replacing the
+     * amount reserved by {@link #tryAcquire}.
+     *
+     * @param address the IP address of the player
+     * @param reservedNanos the hashing time reserved by {@link #tryAcquire}, in nanoseconds
+     * @param nanos the time it took to check the password, in nanoseconds
+     */
+    public void recordHashDuration(String address, long reservedNanos, long nanos) {
+        if (!isEnabled) {
+            return;
+        }
+
+        // Exponential moving average with weight 1/8 for the new sample
+        costEstimate.getAndUpdate(estimate -> estimate + (nanos - estimate) / 8);
+        final long correction = reservedNanos - nanos;
+        final long now = System.nanoTime();
+        giveBack(globalBucket, correction, now);
+        giveBack(subnetBuckets.get(InternetProtocolUtils.getSubnet(address)), correction, now);
+        giveBack(addressBuckets.get(address), correction, now);
+    }
+
+    /**
+     * @return whether the hashing budget is enabled
+     */
+    public boolean isEnabled() {
+        return isEnabled;
+    }
+
+    /**
+     * @return the hashing time currently assumed for one login attempt, in nanoseconds
+     */
+    public long getCostEstimate() {
+        return costEstimate.get();
+    }
+
+    /**
+     * @return the hashing time currently available to all players together in nanoseconds,
+     *         or -1 if there is no global limit
+     */
+    public long getGlobalBudget() {
+        TokenBucket global = globalBucket;
+        return global == null ? -1 : global.getAvailable(System.nanoTime());
+    }
+
+    /**
+     * @return the configured hashing time per second for all players together in nanoseconds,
+     *         or -1 if there is no global limit
+     */
+    public long getGlobalRate() {
+        TokenBucket global = globalBucket;
+        return global == null ? -1 : global.rate;
+    }
+
+    public long getAdmittedCount() {
+        return admittedCount.get();
+    }
+
+    public long getGlobalRejections() {
+        return globalRejections.get();
+    }
+
+    public long getSubnetRejections() {
+        return subnetRejections.get();
+    }
+
+    public long getAddressRejections() {
+        return addressRejections.get();
+    }
+
+    public int getTrackedSubnets() {
+        return subnetBuckets.size();
+    }
+
+    public int getTrackedAddresses() {
+        return addressBuckets.size();
+    }
+
+    @Override
+    public void reload(Settings settings) {
+        this.isEnabled = settings.getProperty(SecuritySettings.USE_HASHING_BUDGET);
+        this.subnetRate = toNanosPerSecond(settings.getProperty(SecuritySettings.HASHING_BUDGET_PER_SUBNET));
+        this.addressRate = toNanosPerSecond(settings.getProperty(SecuritySettings.HASHING_BUDGET_PER_IP));
+        long globalRate = toNanosPerSecond(settings.getProperty(SecuritySettings.HASHING_BUDGET_GLOBAL));
+        this.globalBucket = globalRate > 0 ? new TokenBucket(globalRate, System.nanoTime()) : null;
+        subnetBuckets.clear();
+        addressBuckets.clear();
+    }
+
+    @Override
+    public void performCleanup() {
+        // Buckets that have filled up again behave exactly like new ones, so we can drop them
+        final long now = System.nanoTime();
+        subnetBuckets.values().removeIf(bucket -> bucket.isFull(now));
+        addressBuckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    /**
+     * Returns the bucket for the given key, creating it if necessary. Returns null if the rate is not
+     * positive (no limit) or if the maximum number of buckets is reached, in which case only the
+     * remaining buckets apply.
+     */
+    private static TokenBucket getBucket(Map<String, TokenBucket> buckets, String key, long rate) {
+        if (rate <= 0) {
+            return null;
+        }
+        TokenBucket bucket = buckets.get(key);
+        if (bucket == null && buckets.size() < MAX_TRACKED_BUCKETS) {
+            bucket = buckets.computeIfAbsent(key, k -> new TokenBucket(rate, System.nanoTime()));
+        }
+        return bucket;
+    }
+
+    private static void giveBack(TokenBucket bucket, long amount, long now) {
+        if (bucket != null) {
+            bucket.give(amount, now);
+        }
+    }
+
+    private static long toNanosPerSecond(int millisPerSecond) {
+        return TimeUnit.MILLISECONDS.toNanos(millisPerSecond);
+    }
+
+    /**
+     * Token bucket whose tokens are nanoseconds of hashing time. The balance may become negative when
+     * a password check took longer than reserved; no further attempts are admitted until it has
+     * been refilled.
+     */
+    private static final class TokenBucket {
+
+        private final long rate;
+        private final long capacity;
+        private long available;
+        private long lastRefill;
+
+        TokenBucket(long rate, long now) {
+            this.rate = rate;
+            this.capacity = rate * BURST_SECONDS;
+            this.available = capacity;
+            this.lastRefill = now;
+        }
+
+        synchronized boolean tryTake(long amount, long now) {
+            refill(now);
+            if (available <= 0) {
+                return false;
+            }
+            available -= amount;
+            return true;
+        }
+
+        synchronized void give(long amount, long now) {
+            refill(now);
+            available = Math.min(capacity, available + amount);
+        }
+
+        synchronized long getAvailable(long now) {
+            refill(now);
+            return available;
+        }
+
+        synchronized boolean isFull(long now) {
+            refill(now);
+            return available >= capacity;
+        }
+
+        private void refill(long now) {
+            long elapsed = now - lastRefill;
+            if (elapsed > 0) {
+                lastRefill = now;
+                double refilled = elapsed * (rate / (double) TimeUnit.SECONDS.toNanos(1));
+                available = (long) Math.min(capacity, available + refilled);
+            }
+        }
+    }
+}
@@ -56,6 +56,13 @@ public class SessionManager implements SettingsDependent, HasCleanup {
         sessions.remove(name.toLowerCase());
     }
 
+    /**
+     * @return the number of stored sessions, including expired sessions which have not been removed yet
+     */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
     @Override
     public void reload(Settings settings) {
         long timeoutInMinutes = settings.getProperty(PluginSettings.SESSIONS_TIMEOUT);
@@ -16,6 +16,7 @@ import java.util.Date;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 import static fr.xephi.authme.settings.properties.SecuritySettings.TEMPBAN_MINUTES_BEFORE_RESET;
 import static fr.xephi.authme.util.Utils.MILLIS_PER_MINUTE;
@@ -28,6 +29,7 @@ public class TempbanManager implements SettingsDependent, HasCleanup {
     private final Map<String, TimedCounter<String>> ipLoginFailureCounts;
     private final BukkitService bukkitService;
     private final Messages messages;
+    private final LongAdder tempbans = new LongAdder();
 
     private boolean isEnabled;
     private int threshold;
@@ -51,7 +53,7 @@ public class TempbanManager implements SettingsDependent, HasCleanup {
     public void increaseCount(String address, String name) {
         if (isEnabled) {
             TimedCounter<String> countsByName = ipLoginFailureCounts.computeIfAbsent(
-                address, k -> new TimedCounter<>(resetThreshold, TimeUnit.MINUTES));
+                address, k -> new TimedCounter<>(resetThreshold, TimeUnit.MILLISECONDS));
             countsByName.increment(name);
         }
     }
@@ -111,9 +113,24 @@ public class TempbanManager implements SettingsDependent, HasCleanup {
             });
 
             ipLoginFailureCounts.remove(ip);
+            tempbans.increment();
         }
     }
 
+    /**
+     * @return the number of players which have been tempbanned since the start
+     */
+    public long getTempbanCount() {
+        return tempbans.sum();
+    }
+
+    /**
+     * @return the number of IP addresses with login failures which are being tracked
+     */
+    public int getTrackedAddressCount() {
+        return ipLoginFailureCounts.size();
+    }
+
     @Override
     public void reload(Settings settings) {
         this.isEnabled = settings.getProperty(SecuritySettings.TEMPBAN_ON_MAX_LOGINS);
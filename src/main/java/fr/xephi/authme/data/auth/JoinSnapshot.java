@@ -0,0 +1,59 @@
+package fr.xephi.authme.data.auth;
+
+/**
+ * Data of a player needed when he joins, as returned by a single data source query:
+ * the registered account, if any, and whether the player is marked as logged in.
+ */
+public final class JoinSnapshot {
+
+    private static final JoinSnapshot UNREGISTERED = new JoinSnapshot(null, false);
+
+    private final PlayerAuth auth;
+    private final boolean isLogged;
+
+    private JoinSnapshot(PlayerAuth auth, boolean isLogged) {
+        this.auth = auth;
+        this.isLogged = isLogged;
+    }
+
+    /**
+     * Creates a snapshot for a registered player.
+     *
+     * @param auth the auth of the player
+     * @param isLogged whether the player is marked as logged in
+     * @return the snapshot
+     */
+    public static JoinSnapshot registered(PlayerAuth auth, boolean isLogged) {
+        return new JoinSnapshot(auth, isLogged);
+    }
+
+    /**
+     * Returns the snapshot for a player who is not registered.
+     *
+     * @return the snapshot
+     */
+    public static JoinSnapshot unregistered() {
+        return UNREGISTERED;
+    }
+
+    /**
+     * @return true if the player is registered, false otherwise
+     */
+    public boolean isRegistered() {
+        return auth != null;
+    }
+
+    /**
+     * @return true if the player is marked as logged in, false otherwise
+     */
+    public boolean isLogged() {
+        return isLogged;
+    }
+
+    /**
+     * @return the auth of the player (with last IP and last login), or null if not registered
+     */
+    public PlayerAuth getAuth() {
+        return auth;
+    }
+}
@@ -84,7 +84,19 @@ public class LimboPlayerStorage {
      * @param player player to save
      */
     public void saveData(Player player) {
-        String id = PlayerUtils.getUUIDorName(player);
+        createSaveTask(player).run();
+    }
+
+    /**
+     * Reads the player data (OP, flying, location, etc) and returns a task which writes it to disk.
+     * Only the player data is accessed on the calling thread; the returned task may run on any thread.
+     *
+     * @param player player to save
+     * @return task writing the player's data
+     */
+    public Runnable createSaveTask(Player player) {
+        final String id = PlayerUtils.getUUIDorName(player);
+        final String name = player.getName();
         Location location = spawnLoader.getPlayerLocationOrSpawn(player);
         String group = "";
         if (permissionsManager.hasGroupSupport()) {
@@ -94,15 +106,17 @@ public class LimboPlayerStorage {
         boolean canFly = player.getAllowFlight();
         float walkSpeed = player.getWalkSpeed();
         float flySpeed = player.getFlySpeed();
-        LimboPlayer limboPlayer = new LimboPlayer(location, operator, group, canFly, walkSpeed, flySpeed);
-        try {
-            File file = new File(cacheDir, id + File.separator + "data.json");
-            Files.createParentDirs(file);
-            Files.touch(file);
-            Files.write(gson.toJson(limboPlayer), file, StandardCharsets.UTF_8);
-        } catch (IOException e) {
-            ConsoleLogger.logException("Failed to write " + player.getName() + " data.", e);
-        }
+        final LimboPlayer limboPlayer = new LimboPlayer(location, operator, group, canFly, walkSpeed, flySpeed);
+        return () -> {
+            try {
+                File file = new File(cacheDir, id + File.separator + "data.json");
+                Files.createParentDirs(file);
+                Files.touch(file);
+                Files.write(gson.toJson(limboPlayer), file, StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                ConsoleLogger.logException("Failed to write " + name + " data.", e);
+            }
+        };
     }
 
     /**
@@ -8,6 +8,7 @@ import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import fr.xephi.authme.ConsoleLogger;
+import fr.xephi.authme.data.auth.JoinSnapshot;
 import fr.xephi.authme.data.auth.PlayerAuth;
 import fr.xephi.authme.data.auth.PlayerCache;
 import fr.xephi.authme.security.crypts.HashedPassword;
@@ -42,6 +43,7 @@ public class CacheDataSource implements DataSource {
         cachedAuths = CacheBuilder.newBuilder()
             .refreshAfterWrite(5, TimeUnit.MINUTES)
             .expireAfterAccess(15, TimeUnit.MINUTES)
+            .recordStats()
             .build(new CacheLoader<String, Optional<PlayerAuth>>() {
                 @Override
                 public Optional<PlayerAuth> load(String key) {
@@ -59,6 +61,13 @@ public class CacheDataSource implements DataSource {
         return cachedAuths;
     }
 
+    /**
+     * @return the data source whose results are cached
+     */
+    public DataSource getSource() {
+        return source;
+    }
+
     @Override
     public void reload() {
         source.reload();
@@ -85,6 +94,12 @@ public class CacheDataSource implements DataSource {
         return cachedAuths.getUnchecked(user).orElse(null);
     }
 
+    @Override
+    public JoinSnapshot getJoinSnapshot(String user) {
+        PlayerAuth auth = getAuth(user);
+        return auth == null ? JoinSnapshot.unregistered() : JoinSnapshot.registered(auth, isLogged(user));
+    }
+
     @Override
     public boolean saveAuth(PlayerAuth auth) {
         boolean result = source.saveAuth(auth);
@@ -131,6 +146,15 @@ public class CacheDataSource implements DataSource {
         return result;
     }
 
+    @Override
+    public boolean updateQuitLocs(Collection<PlayerAuth> auths) {
+        boolean result = source.updateQuitLocs(auths);
+        for (PlayerAuth auth : auths) {
+            cachedAuths.invalidate(auth.getNickname());
+        }
+        return result;
+    }
+
     @Override
     public Set<String> getRecordsToPurge(long until, boolean includeEntriesWithLastLoginZero) {
         return source.getRecordsToPurge(until, includeEntriesWithLastLoginZero);
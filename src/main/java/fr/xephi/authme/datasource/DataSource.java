@@ -1,5 +1,6 @@
 package fr.xephi.authme.datasource;
 
+import fr.xephi.authme.data.auth.JoinSnapshot;
 import fr.xephi.authme.data.auth.PlayerAuth;
 import fr.xephi.authme.initialization.Reloadable;
 import fr.xephi.authme.security.crypts.HashedPassword;
@@ -37,6 +38,15 @@ public interface DataSource extends Reloadable {
      */
     PlayerAuth getAuth(String user);
 
+    /**
+     * Retrieve the data needed when the given user joins: the PlayerAuth, if registered,
+     * and whether the user is marked as logged in.
+     *
+     * @param user The user to retrieve
+     * @return The join snapshot of the given user
+     */
+    JoinSnapshot getJoinSnapshot(String user);
+
     /**
      * Save a new PlayerAuth object.
      *
@@ -103,6 +113,14 @@ public interface DataSource extends Reloadable {
      */
     boolean updateQuitLoc(PlayerAuth auth);
 
+    /**
+     * Update the quit location of multiple PlayerAuths in one batch.
+     *
+     * @param auths The entries to update
+     * @return True upon success, false upon failure
+     */
+    boolean updateQuitLocs(Collection<PlayerAuth> auths);
+
     /**
      * Return all usernames associated with the given IP address.
      *
@@ -0,0 +1,34 @@
+package fr.xephi.authme.datasource;
+
+/**
+ * Utilities for data sources.
+ */
+public final class DataSourceUtils {
+
+    private DataSourceUtils() {
+    }
+
+    /**
+     * Returns the data source of the given type from the chain of data source decorators.
+     *
+     * @param dataSource the data source to start from
+     * @param type the type to look for
+     * @param <T> the data source type
+     * @return the data source of the given type, or null if not present
+     */
+    public static <T extends DataSource> T unwrap(DataSource dataSource, Class<T> type) {
+        DataSource current = dataSource;
+        while (current != null) {
+            if (type.isInstance(current)) {
+                return type.cast(current);
+            } else if (current instanceof CacheDataSource) {
+                current = ((CacheDataSource) current).getSource();
+            } else if (current instanceof InstrumentedDataSource) {
+                current = ((InstrumentedDataSource) current).getSource();
+            } else {
+                current = null;
+            }
+        }
+        return null;
+    }
+}
@@ -1,6 +1,7 @@
 package fr.xephi.authme.datasource;
 
 import fr.xephi.authme.ConsoleLogger;
+import fr.xephi.authme.data.auth.JoinSnapshot;
 import fr.xephi.authme.data.auth.PlayerAuth;
 import fr.xephi.authme.data.auth.PlayerCache;
 import fr.xephi.authme.security.crypts.HashedPassword;
@@ -208,6 +209,15 @@ public class FlatFile implements DataSource {
         return true;
     }
 
+    @Override
+    public boolean updateQuitLocs(Collection<PlayerAuth> auths) {
+        boolean result = true;
+        for (PlayerAuth auth : auths) {
+            result &= updateQuitLoc(auth);
+        }
+        return result;
+    }
+
     @Override
     public Set<String> getRecordsToPurge(long until, boolean includeEntriesWithLastLoginZero) {
         throw new UnsupportedOperationException("Flat file no longer supported");
@@ -270,6 +280,12 @@ public class FlatFile implements DataSource {
         return null;
     }
 
+    @Override
+    public JoinSnapshot getJoinSnapshot(String user) {
+        PlayerAuth auth = getAuth(user);
+        return auth == null ? JoinSnapshot.unregistered() : JoinSnapshot.registered(auth, isLogged(user));
+    }
+
     @Override
     public synchronized void close() {
     }
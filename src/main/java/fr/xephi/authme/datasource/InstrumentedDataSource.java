@@ -0,0 +1,254 @@
+package fr.xephi.authme.datasource;
+
+import fr.xephi.authme.ConsoleLogger;
+import fr.xephi.authme.data.auth.JoinSnapshot;
+import fr.xephi.authme.data.auth.PlayerAuth;
+import fr.xephi.authme.security.crypts.HashedPassword;
+import fr.xephi.authme.service.MainThreadBlockingDetector;
+import fr.xephi.authme.util.LatencyHistogram;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Data source decorator which records the number of calls, the number of errors (thrown exceptions)
+ * and a latency histogram for each operation of the wrapped data source. Calls are also reported
+ * to the main thread blocking detector, if provided.
+ */
+public class InstrumentedDataSource implements DataSource {
+
+    private final DataSource source;
+    private final MainThreadBlockingDetector blockingDetector;
+    private final Map<String, OperationStats> statistics = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @param source the data source to measure
+     * @param blockingDetector the detector to report calls to (nullable)
+     */
+    public InstrumentedDataSource(DataSource source, MainThreadBlockingDetector blockingDetector) {
+        this.source = source;
+        this.blockingDetector = blockingDetector;
+    }
+
+    /**
+     * @return the data source which is measured
+     */
+    public DataSource getSource() {
+        return source;
+    }
+
+    /**
+     * @return the statistics of all operations which have been called, by operation name
+     */
+    public SortedMap<String, OperationStats> getStatistics() {
+        return new TreeMap<>(statistics);
+    }
+
+    /**
+     * Logs a summary line for each operation which has been called.
+     */
+    public void logSummary() {
+        for (Map.Entry<String, OperationStats> entry : getStatistics().entrySet()) {
+            OperationStats stats = entry.getValue();
+            ConsoleLogger.info("DataSource#" + entry.getKey() + ": " + stats.getSnapshot()
+                + ", errors " + stats.getErrorCount());
+        }
+    }
+
+    @Override
+    public void reload() {
+        source.reload();
+    }
+
+    @Override
+    public boolean isAuthAvailable(String user) {
+        return measure("isAuthAvailable", () -> source.isAuthAvailable(user));
+    }
+
+    @Override
+    public HashedPassword getPassword(String user) {
+        return measure("getPassword", () -> source.getPassword(user));
+    }
+
+    @Override
+    public PlayerAuth getAuth(String user) {
+        return measure("getAuth", () -> source.getAuth(user));
+    }
+
+    @Override
+    public JoinSnapshot getJoinSnapshot(String user) {
+        return measure("getJoinSnapshot", () -> source.getJoinSnapshot(user));
+    }
+
+    @Override
+    public boolean saveAuth(PlayerAuth auth) {
+        return measure("saveAuth", () -> source.saveAuth(auth));
+    }
+
+    @Override
+    public boolean updateSession(PlayerAuth auth) {
+        return measure("updateSession", () -> source.updateSession(auth));
+    }
+
+    @Override
+    public boolean updatePassword(PlayerAuth auth) {
+        return measure("updatePassword", () -> source.updatePassword(auth));
+    }
+
+    @Override
+    public boolean updatePassword(String user, HashedPassword password) {
+        return measure("updatePassword", () -> source.updatePassword(user, password));
+    }
+
+    @Override
+    public Set<String> getRecordsToPurge(long until, boolean includeEntriesWithLastLoginZero) {
+        return measure("getRecordsToPurge", () -> source.getRecordsToPurge(until, includeEntriesWithLastLoginZero));
+    }
+
+    @Override
+    public void purgeRecords(Collection<String> toPurge) {
+        measure("purgeRecords", () -> source.purgeRecords(toPurge));
+    }
+
+    @Override
+    public boolean removeAuth(String user) {
+        return measure("removeAuth", () -> source.removeAuth(user));
+    }
+
+    @Override
+    public boolean updateQuitLoc(PlayerAuth auth) {
+        return measure("updateQuitLoc", () -> source.updateQuitLoc(auth));
+    }
+
+    @Override
+    public boolean updateQuitLocs(Collection<PlayerAuth> auths) {
+        return measure("updateQuitLocs", () -> source.updateQuitLocs(auths));
+    }
+
+    @Override
+    public List<String> getAllAuthsByIp(String ip) {
+        return measure("getAllAuthsByIp", () -> source.getAllAuthsByIp(ip));
+    }
+
+    @Override
+    public int countAuthsByEmail(String email) {
+        return measure("countAuthsByEmail", () -> source.countAuthsByEmail(email));
+    }
+
+    @Override
+    public boolean updateEmail(PlayerAuth auth) {
+        return measure("updateEmail", () -> source.updateEmail(auth));
+    }
+
+    @Override
+    public void close() {
+        source.close();
+    }
+
+    @Override
+    public DataSourceType getType() {
+        return source.getType();
+    }
+
+    @Override
+    public boolean isLogged(String user) {
+        return measure("isLogged", () -> source.isLogged(user));
+    }
+
+    @Override
+    public void setLogged(String user) {
+        measure("setLogged", () -> source.setLogged(user));
+    }
+
+    @Override
+    public void setUnlogged(String user) {
+        measure("setUnlogged", () -> source.setUnlogged(user));
+    }
+
+    @Override
+    public void purgeLogged() {
+        measure("purgeLogged", source::purgeLogged);
+    }
+
+    @Override
+    public List<PlayerAuth> getLoggedPlayers() {
+        return measure("getLoggedPlayers", source::getLoggedPlayers);
+    }
+
+    @Override
+    public int getAccountsRegistered() {
+        return measure("getAccountsRegistered", source::getAccountsRegistered);
+    }
+
+    @Override
+    public boolean updateRealName(String user, String realName) {
+        return measure("updateRealName", () -> source.updateRealName(user, realName));
+    }
+
+    @Override
+    public List<PlayerAuth> getAllAuths() {
+        return measure("getAllAuths", source::getAllAuths);
+    }
+
+    private void measure(String operation, Runnable action) {
+        measure(operation, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    private <T> T measure(String operation, Supplier<T> action) {
+        OperationStats stats = statistics.computeIfAbsent(operation, k -> new OperationStats());
+        long start = System.nanoTime();
+        try {
+            return action.get();
+        } catch (RuntimeException e) {
+            stats.errors.increment();
+            throw e;
+        } finally {
+            stats.histogram.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (blockingDetector != null) {
+                blockingDetector.recordCall("DataSource#" + operation, start);
+            }
+        }
+    }
+
+    /**
+     * Statistics of one data source operation.
+     */
+    public static final class OperationStats {
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+
+        /**
+         * @return the number of calls of the operation
+         */
+        public long getCallCount() {
+            return histogram.getCount();
+        }
+
+        /**
+         * @return the number of calls which threw an exception
+         */
+        public long getErrorCount() {
+            return errors.sum();
+        }
+
+        /**
+         * @return snapshot of the latencies of the operation
+         */
+        public LatencyHistogram.Snapshot getSnapshot() {
+            return histogram.getSnapshot();
+        }
+    }
+}
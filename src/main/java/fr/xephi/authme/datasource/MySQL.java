@@ -4,6 +4,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.zaxxer.hikari.HikariDataSource;
 import com.zaxxer.hikari.pool.HikariPool.PoolInitializationException;
 import fr.xephi.authme.ConsoleLogger;
+import fr.xephi.authme.data.auth.JoinSnapshot;
 import fr.xephi.authme.data.auth.PlayerAuth;
 import fr.xephi.authme.security.HashAlgorithm;
 import fr.xephi.authme.security.crypts.HashedPassword;
@@ -43,6 +44,9 @@ public class MySQL implements DataSource {
     private Columns col;
     private HashAlgorithm hashAlgorithm;
     private HikariDataSource ds;
+    private final PoolMetrics poolMetrics = new PoolMetrics();
+    private SlowQueryLogger slowQueryLogger;
+    private long leakDetectionThreshold;
 
     private String phpBbPrefix;
     private int phpBbGroup;
@@ -102,11 +106,18 @@ public class MySQL implements DataSource {
             poolSize = Utils.getCoreCount()*3;
         }
         this.useSSL = settings.getProperty(DatabaseSettings.MYSQL_USE_SSL);
+        this.leakDetectionThreshold = settings.getProperty(DatabaseSettings.MYSQL_LEAK_DETECTION_THRESHOLD);
+        long slowQueryThreshold = settings.getProperty(DatabaseSettings.MYSQL_SLOW_QUERY_THRESHOLD);
+        this.slowQueryLogger = slowQueryThreshold > 0 ? new SlowQueryLogger(slowQueryThreshold, MySQL.class) : null;
     }
 
     private void setConnectionArguments() {
         ds = new HikariDataSource();
         ds.setPoolName("AuthMeMYSQLPool");
+        ds.setMetricsTrackerFactory(poolMetrics);
+        if (leakDetectionThreshold > 0) {
+            ds.setLeakDetectionThreshold(leakDetectionThreshold);
+        }
 
         // Pool size
         ds.setMaximumPoolSize(poolSize);
@@ -148,7 +159,8 @@ public class MySQL implements DataSource {
     }
 
     private Connection getConnection() throws SQLException {
-        return ds.getConnection();
+        Connection connection = ds.getConnection();
+        return slowQueryLogger == null ? connection : slowQueryLogger.wrap(connection);
     }
 
     private void checkTablesAndColumns() throws SQLException {
@@ -278,19 +290,7 @@ public class MySQL implements DataSource {
                 id = rs.getInt(col.ID);
                 auth = buildAuthFromResultSet(rs);
             }
-            if (hashAlgorithm == HashAlgorithm.XFBCRYPT) {
-                try (PreparedStatement pst2 = con.prepareStatement(
-                    "SELECT data FROM xf_user_authenticate WHERE " + col.ID + "=?;")) {
-                    pst2.setInt(1, id);
-                    try (ResultSet rs = pst2.executeQuery()) {
-                        if (rs.next()) {
-                            Blob blob = rs.getBlob("data");
-                            byte[] bytes = blob.getBytes(1, (int) blob.length());
-                            auth.setPassword(new HashedPassword(XFBCRYPT.getHashFromBlob(bytes)));
-                        }
-                    }
-                }
-            }
+            loadXfBcryptPassword(con, id, auth);
             return auth;
         } catch (SQLException ex) {
             logSqlException(ex);
@@ -298,6 +298,54 @@ public class MySQL implements DataSource {
         return null;
     }
 
+    @Override
+    public JoinSnapshot getJoinSnapshot(String user) {
+        String sql = "SELECT * FROM " + tableName + " WHERE " + col.NAME + "=?;";
+        try (Connection con = getConnection(); PreparedStatement pst = con.prepareStatement(sql)) {
+            pst.setString(1, user.toLowerCase());
+            int id;
+            PlayerAuth auth;
+            boolean isLogged;
+            try (ResultSet rs = pst.executeQuery()) {
+                if (!rs.next()) {
+                    return JoinSnapshot.unregistered();
+                }
+                id = rs.getInt(col.ID);
+                auth = buildAuthFromResultSet(rs);
+                isLogged = rs.getInt(col.IS_LOGGED) == 1;
+            }
+            loadXfBcryptPassword(con, id, auth);
+            return JoinSnapshot.registered(auth, isLogged);
+        } catch (SQLException ex) {
+            logSqlException(ex);
+        }
+        return JoinSnapshot.unregistered();
+    }
+
+    /**
+     * Sets the password of the given auth from the XenForo authentication table if XFBCRYPT is used.
+     *
+     * @param con the connection to use
+     * @param id the ID of the player's row
+     * @param auth the auth to update
+     * @throws SQLException if the query fails
+     */
+    private void loadXfBcryptPassword(Connection con, int id, PlayerAuth auth) throws SQLException {
+        if (hashAlgorithm == HashAlgorithm.XFBCRYPT) {
+            try (PreparedStatement pst = con.prepareStatement(
+                "SELECT data FROM xf_user_authenticate WHERE " + col.ID + "=?;")) {
+                pst.setInt(1, id);
+                try (ResultSet rs = pst.executeQuery()) {
+                    if (rs.next()) {
+                        Blob blob = rs.getBlob("data");
+                        byte[] bytes = blob.getBytes(1, (int) blob.length());
+                        auth.setPassword(new HashedPassword(XFBCRYPT.getHashFromBlob(bytes)));
+                    }
+                }
+            }
+        }
+    }
+
     @Override
     public boolean saveAuth(PlayerAuth auth) {
         try (Connection con = getConnection()) {
@@ -656,6 +704,37 @@ public class MySQL implements DataSource {
         return false;
     }
 
+    @Override
+    public boolean updateQuitLocs(Collection<PlayerAuth> auths) {
+        String sql = "UPDATE " + tableName
+            + " SET " + col.LASTLOC_X + " =?, " + col.LASTLOC_Y + "=?, " + col.LASTLOC_Z + "=?, " + col.LASTLOC_WORLD + "=?"
+            + " WHERE " + col.NAME + "=?;";
+        try (Connection con = getConnection()) {
+            con.setAutoCommit(false);
+            try (PreparedStatement pst = con.prepareStatement(sql)) {
+                for (PlayerAuth auth : auths) {
+                    pst.setDouble(1, auth.getQuitLocX());
+                    pst.setDouble(2, auth.getQuitLocY());
+                    pst.setDouble(3, auth.getQuitLocZ());
+                    pst.setString(4, auth.getWorld());
+                    pst.setString(5, auth.getNickname());
+                    pst.addBatch();
+                }
+                pst.executeBatch();
+                con.commit();
+                return true;
+            } catch (SQLException ex) {
+                con.rollback();
+                throw ex;
+            } finally {
+                con.setAutoCommit(true);
+            }
+        } catch (SQLException ex) {
+            logSqlException(ex);
+        }
+        return false;
+    }
+
     @Override
     public boolean updateEmail(PlayerAuth auth) {
         String sql = "UPDATE " + tableName + " SET " + col.EMAIL + " =? WHERE " + col.NAME + "=?;";
@@ -670,6 +749,20 @@ public class MySQL implements DataSource {
         return false;
     }
 
+    /**
+     * @return the metrics of the connection pool
+     */
+    public PoolMetrics getPoolMetrics() {
+        return poolMetrics;
+    }
+
+    /**
+     * Logs a snapshot of the connection pool metrics.
+     */
+    public void logPoolMetrics() {
+        ConsoleLogger.info("MySQL connection pool: " + poolMetrics.getSummary());
+    }
+
     @Override
     public void close() {
         if (ds != null && !ds.isClosed()) {
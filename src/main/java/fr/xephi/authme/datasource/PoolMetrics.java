@@ -0,0 +1,71 @@
+package fr.xephi.authme.datasource;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import fr.xephi.authme.util.LatencyHistogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects the metrics of a Hikari connection pool: the time needed to acquire a connection,
+ * the number of timeouts and the number of active, idle and pending connections.
+ */
+public class PoolMetrics implements MetricsTrackerFactory {
+
+    private final LatencyHistogram acquireTime = new LatencyHistogram();
+    private final LongAdder timeouts = new LongAdder();
+    private volatile PoolStats poolStats;
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        this.poolStats = poolStats;
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                acquireTime.record(elapsedAcquiredNanos, TimeUnit.NANOSECONDS);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                timeouts.increment();
+            }
+        };
+    }
+
+    /**
+     * @return the time needed to acquire a connection from the pool
+     */
+    public LatencyHistogram.Snapshot getAcquireTime() {
+        return acquireTime.getSnapshot();
+    }
+
+    /**
+     * @return the number of times no connection could be acquired within the connection timeout
+     */
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    /**
+     * @return the statistics of the pool, or null if the pool has not been started
+     */
+    public PoolStats getPoolStats() {
+        return poolStats;
+    }
+
+    /**
+     * Returns a summary of the pool metrics, e.g. for logging.
+     *
+     * @return summary of the metrics
+     */
+    public String getSummary() {
+        PoolStats stats = poolStats;
+        String connections = stats == null
+            ? "not started"
+            : stats.getActiveConnections() + " active, " + stats.getIdleConnections() + " idle, "
+                + stats.getPendingThreads() + " pending, " + stats.getTotalConnections() + " total";
+        return connections + "; acquire time: " + getAcquireTime() + "; timeouts: " + getTimeouts();
+    }
+}
@@ -2,6 +2,7 @@ package fr.xephi.authme.datasource;
 
 import com.google.common.annotations.VisibleForTesting;
 import fr.xephi.authme.ConsoleLogger;
+import fr.xephi.authme.data.auth.JoinSnapshot;
 import fr.xephi.authme.data.auth.PlayerAuth;
 import fr.xephi.authme.security.crypts.HashedPassword;
 import fr.xephi.authme.settings.Settings;
@@ -22,6 +23,8 @@ import java.util.List;
 import java.util.Set;
 
 /**
+ * SQLite data source. All statements are executed on a single connection, so the methods are synchronized:
+ * this keeps other statements out of the transaction of {@link #updateQuitLocs}.
  */
 public class SQLite implements DataSource {
 
@@ -138,7 +141,7 @@ public class SQLite implements DataSource {
     }
 
     @Override
-    public void reload() {
+    public synchronized void reload() {
         close(con);
         try {
             this.connect();
@@ -149,7 +152,7 @@ public class SQLite implements DataSource {
     }
 
     @Override
-    public boolean isAuthAvailable(String user) {
+    public synchronized boolean isAuthAvailable(String user) {
         PreparedStatement pst = null;
         ResultSet rs = null;
         try {
@@ -167,7 +170,7 @@ public class SQLite implements DataSource {
     }
 
     @Override
-    public HashedPassword getPassword(String user) {
+    public synchronized HashedPassword getPassword(String user) {
         boolean useSalt = !col.SALT.isEmpty();
         String sql = "SELECT " + col.PASSWORD
             + (useSalt ? ", " + col.SALT : "")
@@ -187,7 +190,7 @@ public class SQLite implements DataSource {
     }
 
     @Override
-    public PlayerAuth getAuth(String user) {
+    public synchronized PlayerAuth getAuth(String user) {
         PreparedStatement pst = null;
         ResultSet rs = null;
         try {
@@ -207,7 +210,27 @@ public class SQLite implements DataSource {
     }
 
     @Override
-    public boolean saveAuth(PlayerAuth auth) {
+    public synchronized JoinSnapshot getJoinSnapshot(String user) {
+        PreparedStatement pst = null;
+        ResultSet rs = null;
+        try {
+            pst = con.prepareStatement("SELECT * FROM " + tableName + " WHERE LOWER(" + col.NAME + ")=LOWER(?);");
+            pst.setString(1, user);
+            rs = pst.executeQuery();
+            if (rs.next()) {
+                return JoinSnapshot.registered(buildAuthFromResultSet(rs), rs.getInt(col.IS_LOGGED) == 1);
+            }
+        } catch (SQLException ex) {
+            logSqlException(ex);
+        } finally {
+            close(rs);
+            close(pst);
+        }
+        return JoinSnapshot.unregistered();
+    }
+
+    @Override
+    public synchronized boolean saveAuth(PlayerAuth auth) {
         PreparedStatement pst = null;
         try {
             HashedPassword password = auth.getPassword();
@@ -248,12 +271,12 @@ public class SQLite implements DataSource {
     }
 
     @Override
-    public boolean updatePassword(PlayerAuth auth) {
+    public synchronized boolean updatePassword(PlayerAuth auth) {
         return updatePassword(auth.getNickname(), auth.getPassword());
     }
 
     @Override
-    public boolean updatePassword(String user, HashedPassword password) {
+    public synchronized boolean updatePassword(String user, HashedPassword password) {
         user = user.toLowerCase();
         PreparedStatement pst = null;
         try {
@@ -280,7 +303,7 @@ public class SQLite implements DataSource {
     }
 
     @Override
-    public boolean updateSession(PlayerAuth auth) {
+    public synchronized boolean updateSession(PlayerAuth auth) {
         PreparedStatement pst = null;
         try {
             pst = con.prepareStatement("UPDATE " + tableName + " SET " + col.IP + "=?, " + col.LAST_LOGIN + "=?, " + col.REAL_NAME + "=? WHERE " + col.NAME + "=?;");
@@ -299,7 +322,7 @@ public class SQLite implements DataSource {
     }
 
     @Override
-    public Set<String> getRecordsToPurge(long until, boolean includeEntriesWithLastLoginZero) {
+    public synchronized Set<String> getRecordsToPurge(long until, boolean includeEntriesWithLastLoginZero) {
         Set<String> list = new HashSet<>();
 
         String select = "SELECT " + col.NAME + " FROM " + tableName + " WHERE " + col.LAST_LOGIN + " < ?";
@@ -321,7 +344,7 @@ public class SQLite implements DataSource {
     }
 
     @Override
-    public void purgeRecords(Collection<String> toPurge) {
+    public synchronized void purgeRecords(Collection<String> toPurge) {
         String delete = "DELETE FROM " + tableName + " WHERE " + col.NAME + "=?;";
         try (PreparedStatement deletePst = con.prepareStatement(delete)) {
             for (String name : toPurge) {
@@ -334,7 +357,7 @@ public class SQLite implements DataSource {
     }
 
     @Override
-    public boolean removeAuth(String user) {
+    public synchronized boolean removeAuth(String user) {
         PreparedStatement pst = null;
         try {
             pst = con.prepareStatement("DELETE FROM " + tableName + " WHERE " + col.NAME + "=?;");
@@ -350,7 +373,7 @@ public class SQLite implements DataSource {
     }
 
     @Override
-    public boolean updateQuitLoc(PlayerAuth auth) {
+    public synchronized boolean updateQuitLoc(PlayerAuth auth) {
         PreparedStatement pst = null;
         try {
             pst = con.prepareStatement("UPDATE " + tableName + " SET " + col.LASTLOC_X + "=?, " + col.LASTLOC_Y + "=?, " + col.LASTLOC_Z + "=?, " + col.LASTLOC_WORLD + "=? WHERE " + col.NAME + "=?;");
@@ -370,7 +393,37 @@ public class SQLite implements DataSource {
     }
 
     @Override
-    public boolean updateEmail(PlayerAuth auth) {
+    public synchronized boolean updateQuitLocs(Collection<PlayerAuth> auths) {
+        String sql = "UPDATE " + tableName + " SET " + col.LASTLOC_X + "=?, " + col.LASTLOC_Y + "=?, "
+            + col.LASTLOC_Z + "=?, " + col.LASTLOC_WORLD + "=? WHERE " + col.NAME + "=?;";
+        try {
+            con.setAutoCommit(false);
+            try (PreparedStatement pst = con.prepareStatement(sql)) {
+                for (PlayerAuth auth : auths) {
+                    pst.setDouble(1, auth.getQuitLocX());
+                    pst.setDouble(2, auth.getQuitLocY());
+                    pst.setDouble(3, auth.getQuitLocZ());
+                    pst.setString(4, auth.getWorld());
+                    pst.setString(5, auth.getNickname());
+                    pst.addBatch();
+                }
+                pst.executeBatch();
+                con.commit();
+                return true;
+            } catch (SQLException ex) {
+                con.rollback();
+                throw ex;
+            } finally {
+                con.setAutoCommit(true);
+            }
+        } catch (SQLException ex) {
+            logSqlException(ex);
+        }
+        return false;
+    }
+
+    @Override
+    public synchronized boolean updateEmail(PlayerAuth auth) {
         String sql = "UPDATE " + tableName + " SET " + col.EMAIL + "=? WHERE " + col.NAME + "=?;";
         try (PreparedStatement pst = con.prepareStatement(sql)) {
             pst.setString(1, auth.getEmail());
@@ -384,7 +437,7 @@ public class SQLite implements DataSource {
     }
 
     @Override
-    public void close() {
+    public synchronized void close() {
         try {
             if (con != null && !con.isClosed()) {
                 con.close();
@@ -425,7 +478,7 @@ public class SQLite implements DataSource {
     }
 
     @Override
-    public List<String> getAllAuthsByIp(String ip) {
+    public synchronized List<String> getAllAuthsByIp(String ip) {
         PreparedStatement pst = null;
         ResultSet rs = null;
         List<String> countIp = new ArrayList<>();
@@ -447,7 +500,7 @@ public class SQLite implements DataSource {
     }
 
     @Override
-    public int countAuthsByEmail(String email) {
+    public synchronized int countAuthsByEmail(String email) {
         String sql = "SELECT COUNT(1) FROM " + tableName + " WHERE " + col.EMAIL + " = ? COLLATE NOCASE;";
         try (PreparedStatement pst = con.prepareStatement(sql)) {
             pst.setString(1, email);
@@ -468,7 +521,7 @@ public class SQLite implements DataSource {
     }
 
     @Override
-    public boolean isLogged(String user) {
+    public synchronized boolean isLogged(String user) {
         PreparedStatement pst = null;
         ResultSet rs = null;
         try {
@@ -487,7 +540,7 @@ public class SQLite implements DataSource {
     }
 
     @Override
-    public void setLogged(String user) {
+    public synchronized void setLogged(String user) {
         PreparedStatement pst = null;
         try {
             pst = con.prepareStatement("UPDATE " + tableName + " SET " + col.IS_LOGGED + "=? WHERE LOWER(" + col.NAME + ")=?;");
@@ -502,7 +555,7 @@ public class SQLite implements DataSource {
     }
 
     @Override
-    public void setUnlogged(String user) {
+    public synchronized void setUnlogged(String user) {
         PreparedStatement pst = null;
         if (user != null)
             try {
@@ -518,7 +571,7 @@ public class SQLite implements DataSource {
     }
 
     @Override
-    public void purgeLogged() {
+    public synchronized void purgeLogged() {
         PreparedStatement pst = null;
         try {
             pst = con.prepareStatement("UPDATE " + tableName + " SET " + col.IS_LOGGED + "=? WHERE " + col.IS_LOGGED + "=?;");
@@ -533,7 +586,7 @@ public class SQLite implements DataSource {
     }
 
     @Override
-    public int getAccountsRegistered() {
+    public synchronized int getAccountsRegistered() {
         String sql = "SELECT COUNT(*) FROM " + tableName + ";";
         try (PreparedStatement pst = con.prepareStatement(sql); ResultSet rs = pst.executeQuery()) {
             if (rs.next()) {
@@ -546,7 +599,7 @@ public class SQLite implements DataSource {
     }
 
     @Override
-    public boolean updateRealName(String user, String realName) {
+    public synchronized boolean updateRealName(String user, String realName) {
         String sql = "UPDATE " + tableName + " SET " + col.REAL_NAME + "=? WHERE " + col.NAME + "=?;";
         try (PreparedStatement pst = con.prepareStatement(sql)) {
             pst.setString(1, realName);
@@ -560,7 +613,7 @@ public class SQLite implements DataSource {
     }
 
     @Override
-    public List<PlayerAuth> getAllAuths() {
+    public synchronized List<PlayerAuth> getAllAuths() {
         List<PlayerAuth> auths = new ArrayList<>();
         String sql = "SELECT * FROM " + tableName + ";";
         try (PreparedStatement pst = con.prepareStatement(sql); ResultSet rs = pst.executeQuery()) {
@@ -575,7 +628,7 @@ public class SQLite implements DataSource {
     }
 
     @Override
-    public List<PlayerAuth> getLoggedPlayers() {
+    public synchronized List<PlayerAuth> getLoggedPlayers() {
         List<PlayerAuth> auths = new ArrayList<>();
         String sql = "SELECT * FROM " + tableName + " WHERE " + col.IS_LOGGED + "=1;";
         try (PreparedStatement pst = con.prepareStatement(sql); ResultSet rs = pst.executeQuery()) {
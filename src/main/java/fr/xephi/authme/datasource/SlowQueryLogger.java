@@ -0,0 +1,132 @@
+package fr.xephi.authme.datasource;
+
+import com.google.common.annotations.VisibleForTesting;
+import fr.xephi.authme.ConsoleLogger;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Wraps JDBC connections so that statements taking longer than a threshold are logged with the
+ * data source operation, the duration and the shape of the parameters. Only the types of the
+ * parameters are logged, never their values.
+ */
+class SlowQueryLogger {
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^'\\\\]|\\\\.)*'");
+
+    private final long thresholdNanos;
+    private final String dataSourceClass;
+
+    /**
+     * Constructor.
+     *
+     * @param thresholdMillis the duration in milliseconds above which a statement is logged
+     * @param dataSourceClass the data source class whose method is reported as operation name
+     */
+    SlowQueryLogger(long thresholdMillis, Class<? extends DataSource> dataSourceClass) {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.dataSourceClass = dataSourceClass.getName();
+    }
+
+    /**
+     * Wraps the given connection so that the statements it creates are measured.
+     *
+     * @param connection the connection to wrap
+     * @return the wrapped connection
+     */
+    Connection wrap(Connection connection) {
+        return createProxy(Connection.class, (proxy, method, args) -> {
+            Object result = invoke(connection, method, args);
+            if (result instanceof Statement) {
+                return wrapStatement((Statement) result, getSqlArgument(args));
+            }
+            return result;
+        });
+    }
+
+    private Statement wrapStatement(Statement statement, String preparedSql) {
+        Class<? extends Statement> type = statement instanceof CallableStatement ? CallableStatement.class
+            : statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+        Map<Integer, String> parameters = new TreeMap<>();
+        return createProxy(type, (proxy, method, args) -> {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                parameters.put((Integer) args[0], describeParameter(name, args[1]));
+            } else if (name.startsWith("execute")) {
+                long start = System.nanoTime();
+                try {
+                    return invoke(statement, method, args);
+                } finally {
+                    long duration = System.nanoTime() - start;
+                    if (duration >= thresholdNanos) {
+                        String sql = preparedSql == null ? getSqlArgument(args) : preparedSql;
+                        logSlowStatement(duration, sql, parameters.values().toString());
+                    }
+                }
+            } else if ("clearParameters".equals(name)) {
+                parameters.clear();
+            }
+            return invoke(statement, method, args);
+        });
+    }
+
+    private void logSlowStatement(long durationNanos, String sql, String parameterShape) {
+        ConsoleLogger.warning("Slow query in " + findOperation() + ": took "
+            + TimeUnit.NANOSECONDS.toMillis(durationNanos) + " ms; "
+            + anonymize(sql) + " with parameters " + parameterShape);
+    }
+
+    /**
+     * Returns the name of the data source method that is running the statement.
+     *
+     * @return the operation name
+     */
+    private String findOperation() {
+        for (StackTraceElement element : new Throwable().getStackTrace()) {
+            if (dataSourceClass.equals(element.getClassName()) && !element.getMethodName().startsWith("lambda$")) {
+                return "DataSource#" + element.getMethodName();
+            }
+        }
+        return "unknown operation";
+    }
+
+    @VisibleForTesting
+    static String describeParameter(String setterName, Object value) {
+        if ("setNull".equals(setterName) || value == null) {
+            return "null";
+        }
+        return value.getClass().getSimpleName();
+    }
+
+    @VisibleForTesting
+    static String anonymize(String sql) {
+        return sql == null ? "(batch)" : STRING_LITERAL.matcher(sql).replaceAll("'?'");
+    }
+
+    private static String getSqlArgument(Object[] args) {
+        return args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static <T> T createProxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(SlowQueryLogger.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+}
@@ -0,0 +1,65 @@
+package fr.xephi.authme.initialization;
+
+import fr.xephi.authme.datasource.DataSource;
+
+import javax.inject.Provider;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
+/**
+ * Creates the data source on a separate thread so that the connection and the table checks
+ * run while the main thread sets up the other services. {@link #get()} waits for the data
+ * source to be ready.
+ */
+public class BackgroundDataSourceProvider implements Provider<DataSource> {
+
+    private final CompletableFuture<DataSource> dataSource;
+
+    /**
+     * Constructor. Starts the creation of the data source immediately.
+     *
+     * @param provider the provider creating the data source
+     * @param initializer action to run on the data source before it is returned
+     * @param startupReport the startup report to record the durations to
+     */
+    public BackgroundDataSourceProvider(Provider<DataSource> provider, Consumer<DataSource> initializer,
+                                        StartupReport startupReport) {
+        this.dataSource = CompletableFuture.supplyAsync(() -> {
+            DataSource source = startupReport.measure("data source", provider::get);
+            startupReport.measure("data source init", () -> initializer.accept(source));
+            return source;
+        }, task -> {
+            Thread thread = new Thread(task, "AuthMe-Startup");
+            thread.setDaemon(true);
+            thread.start();
+        });
+    }
+
+    @Override
+    public DataSource get() {
+        try {
+            return dataSource.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Error during initialization of data source", e.getCause());
+        }
+    }
+
+    /**
+     * Closes the data source once it has been created. To be used if the plugin is disabled before
+     * the data source has been retrieved, e.g. because the initialization failed. Does nothing if the
+     * creation of the data source failed.
+     */
+    public void closeIfCreated() {
+        final DataSource source;
+        try {
+            source = dataSource.join();
+        } catch (CompletionException e) {
+            return;
+        }
+        source.close();
+    }
+}
@@ -5,10 +5,12 @@ import fr.xephi.authme.datasource.CacheDataSource;
 import fr.xephi.authme.datasource.DataSource;
 import fr.xephi.authme.datasource.DataSourceType;
 import fr.xephi.authme.datasource.FlatFile;
+import fr.xephi.authme.datasource.InstrumentedDataSource;
 import fr.xephi.authme.datasource.MySQL;
 import fr.xephi.authme.datasource.SQLite;
 import fr.xephi.authme.datasource.converter.ForceFlatToSqlite;
 import fr.xephi.authme.service.BukkitService;
+import fr.xephi.authme.service.MainThreadBlockingDetector;
 import fr.xephi.authme.settings.Settings;
 import fr.xephi.authme.settings.properties.DatabaseSettings;
 
@@ -18,6 +20,8 @@ import java.io.File;
 import java.io.IOException;
 import java.sql.SQLException;
 
+import static fr.xephi.authme.service.BukkitService.TICKS_PER_MINUTE;
+
 /**
  * Creates the AuthMe data source.
  */
@@ -33,6 +37,8 @@ public class DataSourceProvider implements Provider<DataSource> {
     private Settings settings;
     @Inject
     private BukkitService bukkitService;
+    @Inject
+    private MainThreadBlockingDetector blockingDetector;
 
     DataSourceProvider() {
     }
@@ -74,7 +80,13 @@ public class DataSourceProvider implements Provider<DataSource> {
         }
 
         dataSource = convertFlatfileToSqlite(dataSource);
+        if (dataSource instanceof MySQL) {
+            schedulePoolMetricsLogging((MySQL) dataSource);
+        }
 
+        if (settings.getProperty(DatabaseSettings.ENABLE_METRICS) || blockingDetector.isEnabled()) {
+            dataSource = createInstrumentedDataSource(dataSource);
+        }
         if (settings.getProperty(DatabaseSettings.USE_CACHING)) {
             dataSource = new CacheDataSource(dataSource);
         }
@@ -84,6 +96,29 @@ public class DataSourceProvider implements Provider<DataSource> {
         return dataSource;
     }
 
+    /**
+     * Wraps the data source to record metrics of its operations and to detect calls on the main thread.
+     * Schedules the logging of the metrics if enabled.
+     *
+     * @param dataSource the data source to measure
+     * @return the instrumented data source
+     */
+    private DataSource createInstrumentedDataSource(DataSource dataSource) {
+        InstrumentedDataSource instrumentedDataSource = new InstrumentedDataSource(dataSource, blockingDetector);
+        long logInterval = settings.getProperty(DatabaseSettings.METRICS_LOG_INTERVAL) * TICKS_PER_MINUTE;
+        if (settings.getProperty(DatabaseSettings.ENABLE_METRICS) && logInterval > 0) {
+            bukkitService.runTaskTimerAsynchronously(instrumentedDataSource::logSummary, logInterval, logInterval);
+        }
+        return instrumentedDataSource;
+    }
+
+    private void schedulePoolMetricsLogging(MySQL mySql) {
+        long logInterval = settings.getProperty(DatabaseSettings.MYSQL_POOL_LOG_INTERVAL) * TICKS_PER_MINUTE;
+        if (logInterval > 0) {
+            bukkitService.runTaskTimerAsynchronously(mySql::logPoolMetrics, logInterval, logInterval);
+        }
+    }
+
     private void checkDataSourceSize(final DataSource dataSource, BukkitService bukkitService) {
         bukkitService.runTaskAsynchronously(() -> {
             int accounts = dataSource.getAccountsRegistered();
@@ -1,5 +1,7 @@
 package fr.xephi.authme.initialization;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import fr.xephi.authme.ConsoleLogger;
 import fr.xephi.authme.data.auth.PlayerAuth;
 import fr.xephi.authme.data.auth.PlayerCache;
 import fr.xephi.authme.data.limbo.LimboPlayerStorage;
@@ -15,12 +17,26 @@ import org.bukkit.Location;
 import org.bukkit.entity.Player;
 
 import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Saves all players' data when the plugin shuts down.
+ * <p>
+ * The players' state is read on the main thread; afterwards, all quit locations are saved in one batch
+ * while the limbo player files are written in parallel. The writing of the limbo player files is limited
+ * by a deadline; the database write is not, as it must be finished before the data source is closed.
  */
 public class OnShutdownPlayerSaver {
 
+    /** Maximum number of seconds to wait for the limbo player files to be written. */
+    private static final long SAVE_TIMEOUT_SECONDS = 20;
+    private static final int MAX_WRITER_THREADS = 4;
+
     @Inject
     private BukkitService bukkitService;
     @Inject
@@ -47,12 +63,31 @@ public class OnShutdownPlayerSaver {
      * Saves the data of all online players.
      */
     public void saveAllPlayers() {
+        final long start = System.nanoTime();
+        final List<PlayerAuth> quitLocations = new ArrayList<>();
+        final List<Runnable> limboWrites = new ArrayList<>();
+        int playerCount = 0;
         for (Player player : bukkitService.getOnlinePlayers()) {
-            savePlayer(player);
+            savePlayer(player, quitLocations, limboWrites);
+            ++playerCount;
+        }
+        final long collectEnd = System.nanoTime();
+
+        final AtomicInteger finishedWrites = new AtomicInteger();
+        final ExecutorService limboWriter = startWrites(limboWrites, finishedWrites);
+        if (!quitLocations.isEmpty()) {
+            dataSource.updateQuitLocs(quitLocations);
         }
+        awaitWrites(limboWriter, limboWrites.size(), finishedWrites,
+            TimeUnit.SECONDS.toNanos(SAVE_TIMEOUT_SECONDS) - (System.nanoTime() - start));
+        final long end = System.nanoTime();
+
+        ConsoleLogger.info("Saved data of " + playerCount + " players in " + toMillis(end - start) + " ms (collect: "
+            + toMillis(collectEnd - start) + " ms, " + quitLocations.size() + " quit locations and "
+            + limboWrites.size() + " limbo files: " + toMillis(end - collectEnd) + " ms)");
     }
 
-    private void savePlayer(Player player) {
+    private void savePlayer(Player player, List<PlayerAuth> quitLocations, List<Runnable> limboWrites) {
         final String name = player.getName().toLowerCase();
         if (pluginHookService.isNpc(player) || validationService.isUnrestricted(name)) {
             return;
@@ -61,23 +96,79 @@ public class OnShutdownPlayerSaver {
             limboCache.restoreData(player);
             limboCache.removeFromCache(player);
         } else {
-            saveLoggedinPlayer(player);
+            saveLoggedinPlayer(player, quitLocations, limboWrites);
         }
         playerCache.removePlayer(name);
     }
 
-    private void saveLoggedinPlayer(Player player) {
+    private void saveLoggedinPlayer(Player player, List<PlayerAuth> quitLocations, List<Runnable> limboWrites) {
         if (settings.getProperty(RestrictionSettings.SAVE_QUIT_LOCATION)) {
             Location loc = spawnLoader.getPlayerLocationOrSpawn(player);
             final PlayerAuth auth = PlayerAuth.builder()
                 .name(player.getName().toLowerCase())
                 .realName(player.getName())
                 .location(loc).build();
-            dataSource.updateQuitLoc(auth);
+            quitLocations.add(auth);
         }
         if (settings.getProperty(RestrictionSettings.TELEPORT_UNAUTHED_TO_SPAWN)
             && !settings.getProperty(RestrictionSettings.NO_TELEPORT) && !limboPlayerStorage.hasData(player)) {
-            limboPlayerStorage.saveData(player);
+            limboWrites.add(limboPlayerStorage.createSaveTask(player));
+        }
+    }
+
+    /**
+     * Starts the given writes in parallel.
+     *
+     * @param writes the writes to perform
+     * @param finishedWrites counter incremented whenever a write has finished
+     * @return the executor running the writes, or null if there are no writes
+     */
+    private static ExecutorService startWrites(List<Runnable> writes, AtomicInteger finishedWrites) {
+        if (writes.isEmpty()) {
+            return null;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(writes.size(), MAX_WRITER_THREADS),
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("AuthMe-ShutdownSaver-%d").build());
+        for (Runnable write : writes) {
+            executor.execute(() -> {
+                try {
+                    write.run();
+                } finally {
+                    finishedWrites.incrementAndGet();
+                }
+            });
         }
+        executor.shutdown();
+        return executor;
+    }
+
+    /**
+     * Waits for the writes started with {@link #startWrites} until the timeout has elapsed. Writes which
+     * have not finished by then are reported; the ones which are still running are not waited for.
+     *
+     * @param executor the executor running the writes (nullable)
+     * @param totalWrites the number of started writes
+     * @param finishedWrites the number of finished writes
+     * @param timeoutNanos the maximum time to wait in nanoseconds
+     */
+    private static void awaitWrites(ExecutorService executor, int totalWrites, AtomicInteger finishedWrites,
+                                    long timeoutNanos) {
+        if (executor == null) {
+            return;
+        }
+        try {
+            if (!executor.awaitTermination(Math.max(timeoutNanos, 0), TimeUnit.NANOSECONDS)) {
+                int notStarted = executor.shutdownNow().size();
+                int running = totalWrites - notStarted - finishedWrites.get();
+                ConsoleLogger.warning("Could not write all limbo player files before the timeout: " + notStarted
+                    + " writes were not started and " + running + " were still running");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static long toMillis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
     }
 }
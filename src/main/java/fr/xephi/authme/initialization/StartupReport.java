@@ -0,0 +1,75 @@
+package fr.xephi.authme.initialization;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Records the duration of the phases of the plugin startup. Phases may be measured from
+ * different threads, e.g. when the data source is initialized in the background.
+ */
+public class StartupReport {
+
+    private final List<String> entries = new ArrayList<>();
+    private final long startTime = System.nanoTime();
+
+    /**
+     * Runs the given task and records its duration.
+     *
+     * @param phase the name of the phase
+     * @param task the task to run
+     */
+    public void measure(String phase, Runnable task) {
+        measure(phase, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * Runs the given supplier and records its duration.
+     *
+     * @param phase the name of the phase
+     * @param supplier the supplier to run
+     * @param <T> the type of the result
+     * @return the result of the supplier
+     */
+    public <T> T measure(String phase, Supplier<T> supplier) {
+        long start = System.nanoTime();
+        try {
+            return supplier.get();
+        } finally {
+            record(phase, toMillis(System.nanoTime() - start));
+        }
+    }
+
+    /**
+     * Records the duration of a phase.
+     *
+     * @param phase the name of the phase
+     * @param millis the duration in milliseconds
+     */
+    public synchronized void record(String phase, long millis) {
+        entries.add(phase + ": " + millis + " ms");
+    }
+
+    /**
+     * @return the number of milliseconds since the creation of the report
+     */
+    public long getElapsedMillis() {
+        return toMillis(System.nanoTime() - startTime);
+    }
+
+    /**
+     * Returns the recorded phases in the order they finished, e.g. "settings: 12 ms, data source: 340 ms".
+     *
+     * @return the recorded phases
+     */
+    public synchronized String getPhases() {
+        return String.join(", ", entries);
+    }
+
+    private static long toMillis(long nanos) {
+        return nanos / 1_000_000L;
+    }
+}
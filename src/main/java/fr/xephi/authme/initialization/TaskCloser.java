@@ -1,14 +1,11 @@
 package fr.xephi.authme.initialization;
 
-import com.google.common.annotations.VisibleForTesting;
 import fr.xephi.authme.AuthMe;
 import fr.xephi.authme.datasource.DataSource;
-import org.bukkit.scheduler.BukkitScheduler;
-import org.bukkit.scheduler.BukkitWorker;
+import fr.xephi.authme.service.AsyncTaskRegistry;
 
-import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -18,78 +15,45 @@ import java.util.logging.Logger;
  */
 public class TaskCloser implements Runnable {
 
-    private final BukkitScheduler scheduler;
+    /** Maximum number of seconds to wait for the pending tasks. */
+    private static final long TIMEOUT_SECONDS = 60;
+
     private final Logger logger;
-    private final AuthMe plugin;
     private final DataSource dataSource;
+    private final AsyncTaskRegistry taskRegistry;
 
     /**
      * Constructor.
      *
      * @param plugin the plugin instance
      * @param dataSource the data source (nullable)
+     * @param taskRegistry the registry of the asynchronous tasks (nullable)
      */
-    public TaskCloser(AuthMe plugin, DataSource dataSource) {
-        this.scheduler = plugin.getServer().getScheduler();
+    public TaskCloser(AuthMe plugin, DataSource dataSource, AsyncTaskRegistry taskRegistry) {
         this.logger = plugin.getLogger();
-        this.plugin = plugin;
         this.dataSource = dataSource;
+        this.taskRegistry = taskRegistry;
     }
 
     @Override
     public void run() {
-        List<Integer> pendingTasks = getPendingTasks();
-        logger.log(Level.INFO, "Waiting for {0} tasks to finish", pendingTasks.size());
-        int progress = 0;
-
-        //one minute + some time checking the running state
-        int tries = 60;
-        while (!pendingTasks.isEmpty()) {
-            if (tries <= 0) {
-                logger.log(Level.INFO, "Async tasks times out after to many tries {0}", pendingTasks);
-                break;
-            }
-
-            try {
-                sleep();
-            } catch (InterruptedException ignored) {
-                Thread.currentThread().interrupt();
-                break;
-            }
-
-            for (Iterator<Integer> iterator = pendingTasks.iterator(); iterator.hasNext(); ) {
-                int taskId = iterator.next();
-                if (!scheduler.isCurrentlyRunning(taskId)) {
-                    iterator.remove();
-                    progress++;
-                    logger.log(Level.INFO, "Progress: {0} / {1}", new Object[]{progress, pendingTasks.size()});
-                }
-            }
-
-            tries--;
-        }
+        awaitTasks();
 
         if (dataSource != null) {
             dataSource.close();
         }
     }
 
-    /** Makes the current thread sleep for one second. */
-    @VisibleForTesting
-    void sleep() throws InterruptedException {
-        Thread.sleep(1000);
-    }
-
-    private List<Integer> getPendingTasks() {
-        List<Integer> pendingTasks = new ArrayList<>();
-        //returns only the async tasks
-        for (BukkitWorker pendingTask : scheduler.getActiveWorkers()) {
-            if (pendingTask.getOwner().equals(plugin)
-                //it's not a periodic task
-                && !scheduler.isQueued(pendingTask.getTaskId())) {
-                pendingTasks.add(pendingTask.getTaskId());
+    /**
+     * Waits for the pending asynchronous tasks without closing the data source.
+     */
+    public void awaitTasks() {
+        if (taskRegistry != null && taskRegistry.getPendingCount() > 0) {
+            logger.log(Level.INFO, "Waiting for {0} tasks to finish", taskRegistry.getPendingCount());
+            List<String> unfinishedTasks = taskRegistry.awaitAll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            if (!unfinishedTasks.isEmpty()) {
+                logger.log(Level.WARNING, "Async tasks did not finish in time: {0}", unfinishedTasks);
             }
         }
-        return pendingTasks;
     }
 }
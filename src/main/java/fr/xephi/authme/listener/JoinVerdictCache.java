@@ -0,0 +1,66 @@
+package fr.xephi.authme.listener;
+
+import fr.xephi.authme.initialization.HasCleanup;
+import fr.xephi.authme.util.expiring.ExpiringMap;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the result of the join verifications performed in the AsyncPlayerPreLoginEvent
+ * until the PlayerLoginEvent of the same connection is handled.
+ */
+public class JoinVerdictCache implements HasCleanup {
+
+    /** Seconds after which a verdict is discarded if the player did not reach the login event. */
+    private static final long VERDICT_TIMEOUT_SECONDS = 30;
+
+    private final ExpiringMap<String, Boolean> verdicts =
+        new ExpiringMap<>(VERDICT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+    JoinVerdictCache() {
+    }
+
+    /**
+     * Saves that the player with the given name and address has passed the pre-login verifications.
+     *
+     * @param name the name of the player
+     * @param address the IP address of the player
+     * @param isAuthAvailable whether the player is registered
+     */
+    public void addVerifiedJoin(String name, String address, boolean isAuthAvailable) {
+        verdicts.put(createKey(name, address), isAuthAvailable);
+    }
+
+    /**
+     * Returns and removes the verdict for the given player name and address.
+     *
+     * @param name the name of the player
+     * @param address the IP address of the player
+     * @return whether the player is registered if the player passed the pre-login verifications,
+     *         null if no verdict is available
+     */
+    public Boolean removeVerifiedJoin(String name, String address) {
+        String key = createKey(name, address);
+        Boolean isAuthAvailable = verdicts.get(key);
+        if (isAuthAvailable != null) {
+            verdicts.remove(key);
+        }
+        return isAuthAvailable;
+    }
+
+    /**
+     * @return the number of stored verdicts, including expired verdicts which have not been removed yet
+     */
+    public int getVerdictCount() {
+        return verdicts.size();
+    }
+
+    @Override
+    public void performCleanup() {
+        verdicts.removeExpiredEntries();
+    }
+
+    private static String createKey(String name, String address) {
+        return name + "/" + address;
+    }
+}
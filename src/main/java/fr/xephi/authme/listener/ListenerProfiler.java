@@ -0,0 +1,236 @@
+package fr.xephi.authme.listener;
+
+import fr.xephi.authme.AuthMe;
+import fr.xephi.authme.settings.Settings;
+import fr.xephi.authme.settings.properties.PluginSettings;
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventException;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.EventExecutor;
+import org.bukkit.plugin.PluginManager;
+
+import javax.inject.Inject;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Registers AuthMe's event listeners. If listener profiling is enabled, each event handler is registered
+ * with an executor which records the number of invocations, the number of cancellations and the time
+ * spent in the handler, per handler method and event type.
+ */
+public class ListenerProfiler {
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    @Inject
+    private PluginManager pluginManager;
+
+    @Inject
+    private AuthMe plugin;
+
+    @Inject
+    private Settings settings;
+
+    private boolean isEnabled;
+
+    ListenerProfiler() {
+    }
+
+    /**
+     * Registers all event handlers of the given listener.
+     *
+     * @param listener the listener to register
+     */
+    public void registerEvents(Listener listener) {
+        if (!settings.getProperty(PluginSettings.PROFILE_LISTENERS)) {
+            pluginManager.registerEvents(listener, plugin);
+            return;
+        }
+
+        isEnabled = true;
+        for (Method method : listener.getClass().getDeclaredMethods()) {
+            EventHandler annotation = method.getAnnotation(EventHandler.class);
+            if (annotation != null && !method.isBridge() && !method.isSynthetic()
+                && method.getParameterCount() == 1 && Event.class.isAssignableFrom(method.getParameterTypes()[0])) {
+                Class<? extends Event> eventClass = method.getParameterTypes()[0].asSubclass(Event.class);
+                method.setAccessible(true);
+                pluginManager.registerEvent(eventClass, listener, annotation.priority(),
+                    createExecutor(method, eventClass), plugin, annotation.ignoreCancelled());
+            }
+        }
+    }
+
+    /**
+     * @return true if the event handlers have been registered with profiling, false otherwise
+     */
+    public boolean isEnabled() {
+        return isEnabled;
+    }
+
+    /**
+     * Returns the profile of each event handler and event type, sorted by total time descending.
+     *
+     * @return the handler profiles
+     */
+    public List<Profile> getHandlerProfiles() {
+        return counters.values().stream()
+            .map(counter -> new Profile(counter.handler, counter.eventType, counter.invocations.sum(),
+                counter.cancellations.sum(), counter.totalNanos.sum(), counter.maxNanos.get()))
+            .sorted(Comparator.comparingLong(Profile::getTotalNanos).reversed())
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the profile of each event type over all handlers, sorted by total time descending.
+     * The handler of the returned profiles states the number of handlers which were invoked.
+     *
+     * @return the event type profiles
+     */
+    public List<Profile> getEventTypeProfiles() {
+        Map<String, List<Profile>> profilesByEventType = getHandlerProfiles().stream()
+            .collect(Collectors.groupingBy(Profile::getEventType));
+        return profilesByEventType.entrySet().stream()
+            .map(entry -> aggregate(entry.getKey(), entry.getValue()))
+            .sorted(Comparator.comparingLong(Profile::getTotalNanos).reversed())
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Writes the handler profiles as CSV to the given file.
+     *
+     * @param file the file to write to
+     * @throws IOException if the file could not be written
+     */
+    public void exportCsv(File file) throws IOException {
+        try (PrintWriter writer = new PrintWriter(file, StandardCharsets.UTF_8.name())) {
+            writer.println("handler,event,invocations,cancellations,total_ns,max_ns");
+            for (Profile profile : getHandlerProfiles()) {
+                writer.println(profile.getHandler() + "," + profile.getEventType() + ","
+                    + profile.getInvocations() + "," + profile.getCancellations() + ","
+                    + profile.getTotalNanos() + "," + profile.getMaxNanos());
+            }
+        }
+    }
+
+    /**
+     * Clears all recorded data.
+     */
+    public void reset() {
+        counters.clear();
+    }
+
+    private EventExecutor createExecutor(Method method, Class<? extends Event> eventClass) {
+        String handler = method.getDeclaringClass().getSimpleName() + "#" + method.getName();
+        return (listener, event) -> {
+            // Handler lists are shared with subclasses of the event, as in Bukkit's own executor
+            if (!eventClass.isInstance(event)) {
+                return;
+            }
+            boolean wasCancelled = isCancelled(event);
+            long start = System.nanoTime();
+            try {
+                method.invoke(listener, event);
+            } catch (InvocationTargetException e) {
+                throw new EventException(e.getCause());
+            } catch (IllegalAccessException e) {
+                throw new EventException(e);
+            } finally {
+                long duration = System.nanoTime() - start;
+                String eventType = event.getClass().getSimpleName();
+                Counter counter = counters.computeIfAbsent(handler + " " + eventType,
+                    k -> new Counter(handler, eventType));
+                counter.invocations.increment();
+                counter.totalNanos.add(duration);
+                counter.maxNanos.accumulateAndGet(duration, Math::max);
+                if (!wasCancelled && isCancelled(event)) {
+                    counter.cancellations.increment();
+                }
+            }
+        };
+    }
+
+    private static Profile aggregate(String eventType, List<Profile> profiles) {
+        return new Profile(profiles.size() + " handlers", eventType,
+            profiles.stream().mapToLong(Profile::getInvocations).sum(),
+            profiles.stream().mapToLong(Profile::getCancellations).sum(),
+            profiles.stream().mapToLong(Profile::getTotalNanos).sum(),
+            profiles.stream().mapToLong(Profile::getMaxNanos).max().orElse(0));
+    }
+
+    private static boolean isCancelled(Event event) {
+        return event instanceof Cancellable && ((Cancellable) event).isCancelled();
+    }
+
+    private static final class Counter {
+        private final String handler;
+        private final String eventType;
+        private final LongAdder invocations = new LongAdder();
+        private final LongAdder cancellations = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        Counter(String handler, String eventType) {
+            this.handler = handler;
+            this.eventType = eventType;
+        }
+    }
+
+    /**
+     * Recorded data of an event handler (or of all handlers of an event type).
+     */
+    public static final class Profile {
+        private final String handler;
+        private final String eventType;
+        private final long invocations;
+        private final long cancellations;
+        private final long totalNanos;
+        private final long maxNanos;
+
+        Profile(String handler, String eventType, long invocations, long cancellations,
+                long totalNanos, long maxNanos) {
+            this.handler = handler;
+            this.eventType = eventType;
+            this.invocations = invocations;
+            this.cancellations = cancellations;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+        }
+
+        public String getHandler() {
+            return handler;
+        }
+
+        public String getEventType() {
+            return eventType;
+        }
+
+        public long getInvocations() {
+            return invocations;
+        }
+
+        public long getCancellations() {
+            return cancellations;
+        }
+
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+    }
+}
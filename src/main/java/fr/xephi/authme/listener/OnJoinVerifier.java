@@ -66,13 +66,19 @@ class OnJoinVerifier implements Reloadable {
      *
      * @param player          the player
      * @param isAuthAvailable whether or not the player is registered
+     * @param playerIp        the ip address of the player
      */
-    public void checkAntibot(Player player, boolean isAuthAvailable) throws FailedVerificationException {
+    public void checkAntibot(Player player, boolean isAuthAvailable,
+                             String playerIp) throws FailedVerificationException {
         if (isAuthAvailable || permissionsManager.hasPermission(player, PlayerStatePermission.BYPASS_ANTIBOT)) {
             return;
         }
-        if (antiBotService.shouldKick()) {
-            antiBotService.addPlayerKick(player.getName());
+        if (antiBotService.shouldKick(playerIp)) {
+            // The kicked players are only forgotten when the protection is stopped, so kicks because of the
+            // subnet join rate, which also happen while the protection is not active, are not recorded
+            if (antiBotService.getAntiBotStatus() == AntiBotService.AntiBotStatus.ACTIVE) {
+                antiBotService.addPlayerKick(player.getName());
+            }
             throw new FailedVerificationException(MessageKey.KICK_ANTIBOT);
         }
     }
@@ -149,9 +155,18 @@ class OnJoinVerifier implements Reloadable {
      * @param auth   the auth object associated with the player
      */
     public void checkNameCasing(Player player, PlayerAuth auth) throws FailedVerificationException {
+        checkNameCasing(player.getName(), auth);
+    }
+
+    /**
+     * Checks that the casing in the username corresponds to the one in the database, if so configured.
+     *
+     * @param connectingName the name of the joining player
+     * @param auth           the auth object associated with the player
+     */
+    public void checkNameCasing(String connectingName, PlayerAuth auth) throws FailedVerificationException {
         if (auth != null && settings.getProperty(RegistrationSettings.PREVENT_OTHER_CASE)) {
             String realName = auth.getRealName(); // might be null or "Player"
-            String connectingName = player.getName();
 
             if (StringUtils.isEmpty(realName) || "Player".equals(realName)) {
                 dataSource.updateRealName(connectingName.toLowerCase(), connectingName);
@@ -24,6 +24,7 @@ import org.bukkit.event.entity.EntityDamageByEntityEvent;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.event.inventory.InventoryOpenEvent;
 import org.bukkit.event.player.AsyncPlayerChatEvent;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
 import org.bukkit.event.player.PlayerBedEnterEvent;
 import org.bukkit.event.player.PlayerCommandPreprocessEvent;
 import org.bukkit.event.player.PlayerDropItemEvent;
@@ -78,6 +79,8 @@ public class PlayerListener implements Listener {
     private TeleportationService teleportationService;
     @Inject
     private ValidationService validationService;
+    @Inject
+    private JoinVerdictCache joinVerdictCache;
 
     @EventHandler(ignoreCancelled = true, priority = EventPriority.LOWEST)
     public void onPlayerCommandPreprocess(PlayerCommandPreprocessEvent event) {
@@ -204,6 +207,34 @@ public class PlayerListener implements Listener {
     // Single session feature can be implemented for Spigot and CraftBukkit by canceling a kick
     // event caused by "logged in from another location". The nicer way, but only for Spigot, would be
     // to check in the AsyncPlayerPreLoginEvent. To support all servers, we use the less nice way.
+    // The checks which need the database or GeoIP are run in AsyncPlayerPreLoginEvent where it is fired;
+    // PlayerLoginEvent then only runs the remaining checks, or all of them if no verdict is available.
+
+    @EventHandler(priority = EventPriority.LOW)
+    public void onAsyncPlayerPreLogin(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+            return;
+        }
+        final String name = event.getName();
+        if (validationService.isUnrestricted(name)) {
+            return;
+        }
+
+        try {
+            onJoinVerifier.checkIsValidName(name);
+
+            final PlayerAuth auth = dataSource.getAuth(name);
+            final boolean isAuthAvailable = auth != null;
+            final String playerIp = event.getAddress().getHostAddress();
+            onJoinVerifier.checkKickNonRegistered(isAuthAvailable);
+            onJoinVerifier.checkNameCasing(name, auth);
+            onJoinVerifier.checkPlayerCountry(isAuthAvailable, playerIp);
+            joinVerdictCache.addVerifiedJoin(name, playerIp, isAuthAvailable);
+        } catch (FailedVerificationException e) {
+            event.disallow(AsyncPlayerPreLoginEvent.Result.KICK_OTHER,
+                m.retrieveSingle(e.getReason(), e.getArgs()));
+        }
+    }
 
     @EventHandler(priority = EventPriority.LOW)
     public void onPlayerLogin(PlayerLoginEvent event) {
@@ -224,14 +255,21 @@ public class PlayerListener implements Listener {
             onJoinVerifier.checkSingleSession(name);
             onJoinVerifier.checkIsValidName(name);
 
-            // Get the auth later as this may cause the single session check to fail
-            // Slow stuff
-            final PlayerAuth auth = dataSource.getAuth(name);
-            final boolean isAuthAvailable = auth != null;
-            onJoinVerifier.checkKickNonRegistered(isAuthAvailable);
-            onJoinVerifier.checkAntibot(player, isAuthAvailable);
-            onJoinVerifier.checkNameCasing(player, auth);
-            onJoinVerifier.checkPlayerCountry(isAuthAvailable, event.getAddress().getHostAddress());
+            final String playerIp = event.getAddress().getHostAddress();
+            final Boolean verifiedAuthAvailable = joinVerdictCache.removeVerifiedJoin(name, playerIp);
+            if (verifiedAuthAvailable != null) {
+                // The slow checks have already been run in the AsyncPlayerPreLoginEvent
+                onJoinVerifier.checkAntibot(player, verifiedAuthAvailable, playerIp);
+            } else {
+                // Get the auth later as this may cause the single session check to fail
+                // Slow stuff
+                final PlayerAuth auth = dataSource.getAuth(name);
+                final boolean isAuthAvailable = auth != null;
+                onJoinVerifier.checkKickNonRegistered(isAuthAvailable);
+                onJoinVerifier.checkAntibot(player, isAuthAvailable, playerIp);
+                onJoinVerifier.checkNameCasing(player, auth);
+                onJoinVerifier.checkPlayerCountry(isAuthAvailable, playerIp);
+            }
         } catch (FailedVerificationException e) {
             event.setKickMessage(m.retrieveSingle(e.getReason(), e.getArgs()));
             event.setResult(PlayerLoginEvent.Result.KICK_OTHER);
@@ -206,6 +206,15 @@ public enum MessageKey {
     /** You have been temporarily banned for failing to log in too many times. */
     TEMPBAN_MAX_LOGINS("tempban_max_logins"),
 
+    /** The server is busy processing logins. Please try again in a few seconds. */
+    LOGIN_THROTTLED("login_throttled"),
+
+    /** Many players are joining right now. Please wait, you are number %position in the queue. */
+    JOIN_QUEUED("join_queued", "%position"),
+
+    /** The server is too busy to process your join. Please try again in a moment. */
+    JOIN_QUEUE_FULL("join_queue_full"),
+
     /** You own %count accounts: */
     ACCOUNTS_OWNED_SELF("accounts_owned_self", "%count"),
 
@@ -0,0 +1,243 @@
+package fr.xephi.authme.output;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes log lines to a file on a dedicated thread. Logging threads only format the line and add it to
+ * a lock-free queue; the writer thread drains the queue into a large buffer which is written to the file
+ * whenever it is full or the queue is empty. The file can be rotated when it exceeds a maximum size or
+ * when the day changes, in which case the old file is compressed with gzip.
+ */
+public class AsyncLogWriter {
+
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("'['MM-dd HH:mm:ss']'");
+    private static final String NEW_LINE = System.getProperty("line.separator");
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long IDLE_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+    private static final long CLOSE_TIMEOUT_MILLIS = 5000;
+
+    private final File logFile;
+    private final Logger logger;
+    private final Queue<String> queue = new ConcurrentLinkedQueue<>();
+    private final Thread writerThread;
+    private volatile boolean isWaiting;
+    private volatile boolean isClosed;
+    private volatile long maxFileSize;
+    private volatile boolean rotateDaily;
+
+    // Only accessed by the writer thread
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private FileChannel channel;
+    private long fileSize;
+    private LocalDate fileDate;
+    private boolean hasFailed;
+
+    /**
+     * Constructor. Call {@link #start()} to start writing.
+     *
+     * @param logFile the file to write to
+     * @param logger the logger to report write errors to
+     */
+    public AsyncLogWriter(File logFile, Logger logger) {
+        this.logFile = logFile;
+        this.logger = logger;
+        this.writerThread = new Thread(this::run, "AuthMe-LogWriter");
+        writerThread.setDaemon(true);
+    }
+
+    /**
+     * Starts the writer thread.
+     */
+    public void start() {
+        writerThread.start();
+    }
+
+    /**
+     * Sets when the log file should be rotated.
+     *
+     * @param maxFileSize the size in bytes after which the file is rotated, or 0 for no size limit
+     * @param rotateDaily whether the file should be rotated when the day changes
+     */
+    public void setRotation(long maxFileSize, boolean rotateDaily) {
+        this.maxFileSize = maxFileSize;
+        this.rotateDaily = rotateDaily;
+    }
+
+    /**
+     * Adds a message with the current time to the log file. Does not block.
+     *
+     * @param message the message to log
+     */
+    public void write(String message) {
+        if (isClosed) {
+            return;
+        }
+        queue.add(LocalDateTime.now().format(TIMESTAMP_FORMAT) + ": " + message + NEW_LINE);
+        if (isWaiting) {
+            LockSupport.unpark(writerThread);
+        }
+    }
+
+    /**
+     * Writes all pending messages, closes the file and stops the writer thread.
+     */
+    public void close() {
+        isClosed = true;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        while (!isClosed || !queue.isEmpty()) {
+            String line = queue.poll();
+            if (line == null) {
+                writeBuffer();
+                isWaiting = true;
+                if (queue.isEmpty() && !isClosed) {
+                    LockSupport.parkNanos(this, IDLE_WAIT_NANOS);
+                }
+                isWaiting = false;
+            } else {
+                append(line.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        writeBuffer();
+        closeChannel();
+    }
+
+    private void append(byte[] line) {
+        try {
+            if (channel == null) {
+                openFile();
+            }
+            rotateIfNecessary(line.length);
+            if (line.length > buffer.remaining()) {
+                flushBuffer();
+            }
+            if (line.length > buffer.capacity()) {
+                writeFully(ByteBuffer.wrap(line));
+            } else {
+                buffer.put(line);
+            }
+            fileSize += line.length;
+        } catch (IOException e) {
+            handleError(e);
+        }
+    }
+
+    private void writeBuffer() {
+        try {
+            flushBuffer();
+        } catch (IOException e) {
+            handleError(e);
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        if (buffer.position() > 0 && channel != null) {
+            buffer.flip();
+            writeFully(buffer);
+            buffer.clear();
+            hasFailed = false;
+        }
+    }
+
+    private void writeFully(ByteBuffer source) throws IOException {
+        while (source.hasRemaining()) {
+            channel.write(source);
+        }
+    }
+
+    private void openFile() throws IOException {
+        channel = FileChannel.open(logFile.toPath(),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        fileSize = channel.size();
+        fileDate = fileSize == 0 ? LocalDate.now() : toLocalDate(logFile.lastModified());
+    }
+
+    private void rotateIfNecessary(int nextLineLength) throws IOException {
+        boolean isTooLarge = maxFileSize > 0 && fileSize > 0 && fileSize + nextLineLength > maxFileSize;
+        boolean isNewDay = rotateDaily && fileSize > 0 && !LocalDate.now().equals(fileDate);
+        if (isTooLarge || isNewDay) {
+            flushBuffer();
+            closeChannel();
+            archiveLogFile();
+            openFile();
+        }
+    }
+
+    /**
+     * Compresses the log file to a new file named after the log file and its date, and deletes it.
+     */
+    private void archiveLogFile() throws IOException {
+        String fileName = logFile.getName();
+        int extensionStart = fileName.lastIndexOf('.');
+        String baseName = extensionStart > 0 ? fileName.substring(0, extensionStart) : fileName;
+        String extension = extensionStart > 0 ? fileName.substring(extensionStart) : "";
+
+        File archive;
+        int index = 1;
+        do {
+            archive = new File(logFile.getParentFile(), baseName + "-" + fileDate + "-" + index + extension + ".gz");
+            ++index;
+        } while (archive.exists());
+
+        try (InputStream in = Files.newInputStream(logFile.toPath());
+             OutputStream out = new GZIPOutputStream(Files.newOutputStream(archive.toPath()))) {
+            byte[] bytes = new byte[8192];
+            int read;
+            while ((read = in.read(bytes)) != -1) {
+                out.write(bytes, 0, read);
+            }
+        }
+        Files.delete(logFile.toPath());
+    }
+
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+            channel = null;
+        }
+    }
+
+    private void handleError(IOException e) {
+        // Drop the buffered lines and retry with the next line; only report the first of consecutive errors
+        buffer.clear();
+        closeChannel();
+        if (!hasFailed) {
+            hasFailed = true;
+            logger.log(Level.WARNING, "Could not write to the log file '" + logFile.getPath() + "'", e);
+        }
+    }
+
+    private static LocalDate toLocalDate(long epochMillis) {
+        return Instant.ofEpochMilli(epochMillis).atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+}
@@ -1,7 +1,6 @@
 package fr.xephi.authme.output;
 
 import com.google.common.annotations.VisibleForTesting;
-import fr.xephi.authme.util.StringUtils;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -26,17 +25,44 @@ final class LogFilterHelper {
 
     /**
      * Validate a message and return whether the message contains a sensitive AuthMe command.
+     * <p>
+     * The filters see every message logged on the server, so this method does not allocate: the text is
+     * matched in place, ignoring case, and most messages are rejected by the search for the "issued server
+     * command:" text. As all commands start with a slash, they are only compared at the positions of a slash.
      *
      * @param message The message to verify
      *
      * @return True if it is a sensitive AuthMe command, false otherwise
      */
     static boolean isSensitiveAuthMeCommand(String message) {
-        if (message == null) {
+        if (message == null || !containsIssuedCommandText(message)) {
             return false;
         }
-        String lowerMessage = message.toLowerCase();
-        return lowerMessage.contains(ISSUED_COMMAND_TEXT) && StringUtils.containsAny(lowerMessage, COMMANDS_TO_SKIP);
+        for (int i = message.indexOf('/'); i >= 0; i = message.indexOf('/', i + 1)) {
+            for (String command : COMMANDS_TO_SKIP) {
+                if (message.regionMatches(true, i, command, 0, command.length())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether the message contains the "issued server command" text, ignoring case. The search is
+     * anchored on the final colon, which is found quickly and is the same in upper and lower case.
+     *
+     * @param message the message to search in
+     * @return true if the message contains the text, false otherwise
+     */
+    private static boolean containsIssuedCommandText(String message) {
+        int colonOffset = ISSUED_COMMAND_TEXT.length() - 1;
+        for (int i = message.indexOf(':', colonOffset); i >= 0; i = message.indexOf(':', i + 1)) {
+            if (message.regionMatches(true, i - colonOffset, ISSUED_COMMAND_TEXT, 0, colonOffset)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     private static List<String> withAndWithoutAuthMePrefix(String... commands) {
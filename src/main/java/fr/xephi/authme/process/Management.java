@@ -4,13 +4,13 @@ import fr.xephi.authme.process.changepassword.AsyncChangePassword;
 import fr.xephi.authme.process.email.AsyncAddEmail;
 import fr.xephi.authme.process.email.AsyncChangeEmail;
 import fr.xephi.authme.process.join.AsynchronousJoin;
+import fr.xephi.authme.process.join.JoinAdmissionController;
 import fr.xephi.authme.process.login.AsynchronousLogin;
 import fr.xephi.authme.process.logout.AsynchronousLogout;
 import fr.xephi.authme.process.quit.AsynchronousQuit;
 import fr.xephi.authme.process.register.AsyncRegister;
 import fr.xephi.authme.process.register.executors.RegistrationExecutor;
 import fr.xephi.authme.process.unregister.AsynchronousUnregister;
-import fr.xephi.authme.service.BukkitService;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 
@@ -22,7 +22,13 @@ import javax.inject.Inject;
 public class Management {
 
     @Inject
-    private BukkitService bukkitService;
+    private PlayerTaskExecutor playerTaskExecutor;
+
+    @Inject
+    private JoinAdmissionController joinAdmissionController;
+
+    @Inject
+    private ProcessMetrics processMetrics;
 
     // Processes
     @Inject
@@ -49,50 +55,51 @@ public class Management {
 
 
     public void performLogin(Player player, String password) {
-        runTask(() -> asynchronousLogin.login(player, password));
+        runTask(player.getName(), processMetrics.measureLogin(() -> asynchronousLogin.login(player, password)));
     }
 
     public void forceLogin(Player player) {
-        runTask(() -> asynchronousLogin.forceLogin(player));
+        runTask(player.getName(), () -> asynchronousLogin.forceLogin(player));
     }
 
     public void performLogout(Player player) {
-        runTask(() -> asynchronousLogout.logout(player));
+        runTask(player.getName(), () -> asynchronousLogout.logout(player));
     }
 
     public void performRegister(Player player, RegistrationExecutor registrationExecutor) {
-        runTask(() -> asyncRegister.register(player, registrationExecutor));
+        runTask(player.getName(),
+            processMetrics.measureRegistration(() -> asyncRegister.register(player, registrationExecutor)));
     }
 
     public void performUnregister(Player player, String password) {
-        runTask(() -> asynchronousUnregister.unregister(player, password));
+        runTask(player.getName(), () -> asynchronousUnregister.unregister(player, password));
     }
 
     public void performUnregisterByAdmin(CommandSender initiator, String name, Player player) {
-        runTask(() -> asynchronousUnregister.adminUnregister(initiator, name, player));
+        runTask(name, () -> asynchronousUnregister.adminUnregister(initiator, name, player));
     }
 
     public void performJoin(Player player) {
-        runTask(() -> asynchronousJoin.processJoin(player));
+        joinAdmissionController.submit(player, processMetrics.measureJoin(() -> asynchronousJoin.processJoin(player)));
     }
 
     public void performQuit(Player player) {
-        runTask(() -> asynchronousQuit.processQuit(player));
+        runTask(player.getName(), () -> asynchronousQuit.processQuit(player));
     }
 
     public void performAddEmail(Player player, String newEmail) {
-        runTask(() -> asyncAddEmail.addEmail(player, newEmail));
+        runTask(player.getName(), () -> asyncAddEmail.addEmail(player, newEmail));
     }
 
     public void performChangeEmail(Player player, String oldEmail, String newEmail) {
-        runTask(() -> asyncChangeEmail.changeEmail(player, oldEmail, newEmail));
+        runTask(player.getName(), () -> asyncChangeEmail.changeEmail(player, oldEmail, newEmail));
     }
 
     public void performPasswordChange(Player player, String oldPassword, String newPassword) {
-        runTask(() -> asyncChangePassword.changePassword(player, oldPassword, newPassword));
+        runTask(player.getName(), () -> asyncChangePassword.changePassword(player, oldPassword, newPassword));
     }
 
-    private void runTask(Runnable runnable) {
-        bukkitService.runTaskOptionallyAsync(runnable);
+    private void runTask(String playerName, Runnable runnable) {
+        playerTaskExecutor.execute(playerName, runnable);
     }
 }
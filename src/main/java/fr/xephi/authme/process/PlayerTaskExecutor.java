@@ -0,0 +1,255 @@
+package fr.xephi.authme.process;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import fr.xephi.authme.ConsoleLogger;
+import fr.xephi.authme.initialization.SettingsDependent;
+import fr.xephi.authme.service.AsyncTaskRegistry;
+import fr.xephi.authme.settings.Settings;
+import fr.xephi.authme.settings.properties.PluginSettings;
+
+import javax.inject.Inject;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs the asynchronous processes of players: tasks of the same player are run one after the other
+ * in the order they were submitted, while tasks of different players run in parallel.
+ * <p>
+ * Each player with pending tasks has a queue; at most one task of a queue is submitted to the
+ * underlying executor at a time, and a deferred task blocks the queue until its submitter starts it.
+ * The executor is a fixed thread pool or, if configured and supported by the JVM, an executor creating
+ * a virtual thread per task.
+ */
+public class PlayerTaskExecutor implements SettingsDependent {
+
+    private final Map<String, PlayerQueue> queues = new ConcurrentHashMap<>();
+    private final AtomicInteger pendingTasks = new AtomicInteger();
+    private final ExecutorService executor;
+    private final AsyncTaskRegistry asyncTaskRegistry;
+    private boolean useAsyncTasks;
+
+    @Inject
+    PlayerTaskExecutor(Settings settings, AsyncTaskRegistry asyncTaskRegistry) {
+        this(createExecutor(settings), settings, asyncTaskRegistry);
+    }
+
+    @VisibleForTesting
+    PlayerTaskExecutor(ExecutorService executor, Settings settings, AsyncTaskRegistry asyncTaskRegistry) {
+        this.executor = executor;
+        this.asyncTaskRegistry = asyncTaskRegistry;
+        reload(settings);
+    }
+
+    /**
+     * Runs the given task after all previously submitted tasks of the same player have finished.
+     * If async tasks are disabled, the task is run immediately on the current thread.
+     *
+     * @param playerName the name of the player the task belongs to
+     * @param task the task to run
+     */
+    public void execute(String playerName, Runnable task) {
+        if (!useAsyncTasks) {
+            task.run();
+            return;
+        }
+
+        final String key = playerName.toLowerCase();
+        enqueue(key, new QueuedTask(asyncTaskRegistry.track("process of player " + key, task), null));
+    }
+
+    /**
+     * Adds a task to the player's queue whose start is decided by the caller, e.g. to limit how many
+     * such tasks run at the same time. Once all previously submitted tasks of the player have finished,
+     * {@code onTurn} is called with a runnable which starts the task; the player's later tasks wait until
+     * the task has been started and has finished, so the runnable must be run exactly once.
+     * If async tasks are disabled, {@code onTurn} is called immediately with a runnable which runs
+     * the task on the current thread.
+     *
+     * @param playerName the name of the player the task belongs to
+     * @param task the task to run
+     * @param onTurn called with the runnable starting the task when it is the player's next task
+     */
+    public void executeDeferred(String playerName, Runnable task, Consumer<Runnable> onTurn) {
+        if (!useAsyncTasks) {
+            onTurn.accept(task);
+            return;
+        }
+        enqueue(playerName.toLowerCase(), new QueuedTask(task, onTurn));
+    }
+
+    private void enqueue(String key, QueuedTask task) {
+        final boolean[] isStartRequired = new boolean[1];
+        final PlayerQueue queue = queues.compute(key, (k, existing) -> {
+            PlayerQueue result = existing == null ? new PlayerQueue() : existing;
+            result.tasks.add(task);
+            if (!result.isRunning) {
+                result.isRunning = true;
+                isStartRequired[0] = true;
+            }
+            return result;
+        });
+        pendingTasks.incrementAndGet();
+        if (isStartRequired[0]) {
+            submit(key, () -> runNext(key, queue));
+        }
+    }
+
+    /**
+     * @return the number of submitted tasks which have not finished yet
+     */
+    public int getPendingTasks() {
+        return pendingTasks.get();
+    }
+
+    /**
+     * @return the number of players with pending tasks
+     */
+    public int getQueuedPlayers() {
+        return queues.size();
+    }
+
+    /**
+     * @return the largest number of pending tasks of a single player
+     */
+    public int getMaxQueueDepth() {
+        int max = 0;
+        for (PlayerQueue queue : queues.values()) {
+            max = Math.max(max, queue.tasks.size());
+        }
+        return max;
+    }
+
+    /**
+     * Returns the number of tasks of the given player which have not been started yet.
+     *
+     * @param playerName the name of the player
+     * @return the number of waiting tasks
+     */
+    public int getQueueDepth(String playerName) {
+        PlayerQueue queue = queues.get(playerName.toLowerCase());
+        return queue == null ? 0 : queue.tasks.size();
+    }
+
+    /**
+     * Stops the threads of the executor. Pending tasks are tracked by the {@link AsyncTaskRegistry}
+     * and should be awaited beforehand, as queues submit their next task to the executor.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    @Override
+    public void reload(Settings settings) {
+        useAsyncTasks = settings.getProperty(PluginSettings.USE_ASYNC_TASKS);
+    }
+
+    private void runNext(String key, PlayerQueue queue) {
+        QueuedTask next = queue.tasks.poll();
+        if (next.onTurn == null) {
+            run(key, queue, next.task);
+            return;
+        }
+
+        // The queue is only advanced once the deferred task has been started and has run
+        Runnable trackedTask = asyncTaskRegistry.track("process of player " + key, next.task);
+        AtomicBoolean isStarted = new AtomicBoolean();
+        Runnable starter = () -> {
+            if (isStarted.compareAndSet(false, true)) {
+                submit(key, () -> run(key, queue, trackedTask));
+            }
+        };
+        try {
+            next.onTurn.accept(starter);
+        } catch (RuntimeException e) {
+            ConsoleLogger.logException("Error while deferring asynchronous task of player '" + key + "':", e);
+            starter.run();
+        }
+    }
+
+    private void run(String key, PlayerQueue queue, Runnable task) {
+        try {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                ConsoleLogger.logException("Error while running asynchronous task of player '" + key + "':", e);
+            } finally {
+                pendingTasks.decrementAndGet();
+            }
+        } finally {
+            // Advance the queue even if the task threw an Error, or the player's later tasks would never run
+            advance(key, queue);
+        }
+    }
+
+    /**
+     * Removes the queue if it is empty; otherwise, submits the next task of the player.
+     */
+    private void advance(String key, PlayerQueue queue) {
+        final boolean[] hasMoreTasks = new boolean[1];
+        queues.computeIfPresent(key, (k, existing) -> {
+            if (existing.tasks.isEmpty()) {
+                return null;
+            }
+            hasMoreTasks[0] = true;
+            return existing;
+        });
+        if (hasMoreTasks[0]) {
+            submit(key, () -> runNext(key, queue));
+        }
+    }
+
+    private void submit(String key, Runnable runnable) {
+        try {
+            executor.execute(runnable);
+        } catch (RejectedExecutionException e) {
+            // The executor has been shut down, e.g. by a task submitted while the plugin is disabled
+            ConsoleLogger.warning("Could not submit asynchronous task of player '" + key
+                + "', running it on the current thread");
+            runnable.run();
+        }
+    }
+
+    private static ExecutorService createExecutor(Settings settings) {
+        if (settings.getProperty(PluginSettings.USE_VIRTUAL_THREADS)) {
+            try {
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                ConsoleLogger.warning("Virtual threads are not supported by this Java version, using a thread pool");
+            }
+        }
+        int threads = Math.max(1, settings.getProperty(PluginSettings.ASYNC_THREAD_POOL_SIZE));
+        return Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder()
+            .setDaemon(true)
+            .setNameFormat("AuthMe-Worker-%d")
+            .build());
+    }
+
+    /**
+     * Task in a player's queue. Deferred tasks (see {@link #executeDeferred}) have a callback to which
+     * the runnable starting the task is handed; the callback of other tasks is null.
+     */
+    private static final class QueuedTask {
+        private final Runnable task;
+        private final Consumer<Runnable> onTurn;
+
+        QueuedTask(Runnable task, Consumer<Runnable> onTurn) {
+            this.task = task;
+            this.onTurn = onTurn;
+        }
+    }
+
+    /** Pending tasks of a player. The running flag is only accessed within the map's compute methods. */
+    private static final class PlayerQueue {
+        private final Queue<QueuedTask> tasks = new ConcurrentLinkedQueue<>();
+        private boolean isRunning;
+    }
+}
@@ -0,0 +1,72 @@
+package fr.xephi.authme.process;
+
+import fr.xephi.authme.util.LatencyHistogram;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the latency of the login, registration and join processes, from the moment they are submitted
+ * until their asynchronous part has finished. This includes the time spent in the queues.
+ */
+public class ProcessMetrics {
+
+    private final LatencyHistogram loginLatency = new LatencyHistogram();
+    private final LatencyHistogram registrationLatency = new LatencyHistogram();
+    private final LatencyHistogram joinLatency = new LatencyHistogram();
+
+    ProcessMetrics() {
+    }
+
+    /**
+     * Wraps the given login process so that its latency is recorded once it has run.
+     *
+     * @param process the login process
+     * @return the measured process
+     */
+    Runnable measureLogin(Runnable process) {
+        return measure(loginLatency, process);
+    }
+
+    /**
+     * Wraps the given registration process so that its latency is recorded once it has run.
+     *
+     * @param process the registration process
+     * @return the measured process
+     */
+    Runnable measureRegistration(Runnable process) {
+        return measure(registrationLatency, process);
+    }
+
+    /**
+     * Wraps the given join process so that its latency is recorded once it has run.
+     *
+     * @param process the join process
+     * @return the measured process
+     */
+    Runnable measureJoin(Runnable process) {
+        return measure(joinLatency, process);
+    }
+
+    public LatencyHistogram.Snapshot getLoginLatency() {
+        return loginLatency.getSnapshot();
+    }
+
+    public LatencyHistogram.Snapshot getRegistrationLatency() {
+        return registrationLatency.getSnapshot();
+    }
+
+    public LatencyHistogram.Snapshot getJoinLatency() {
+        return joinLatency.getSnapshot();
+    }
+
+    private static Runnable measure(LatencyHistogram histogram, Runnable process) {
+        final long submitTime = System.nanoTime();
+        return () -> {
+            try {
+                process.run();
+            } finally {
+                histogram.record(System.nanoTime() - submitTime, TimeUnit.NANOSECONDS);
+            }
+        };
+    }
+}
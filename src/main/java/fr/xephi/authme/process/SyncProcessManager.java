@@ -5,7 +5,6 @@ import fr.xephi.authme.process.logout.ProcessSynchronousPlayerLogout;
 import fr.xephi.authme.process.quit.ProcessSyncronousPlayerQuit;
 import fr.xephi.authme.process.register.ProcessSyncEmailRegister;
 import fr.xephi.authme.process.register.ProcessSyncPasswordRegister;
-import fr.xephi.authme.service.BukkitService;
 import org.bukkit.entity.Player;
 
 import javax.inject.Inject;
@@ -15,13 +14,15 @@ import javax.inject.Inject;
  * These synchronous processes are a continuation of the associated async processes; they only
  * contain certain tasks which may only be run synchronously (most interactions with Bukkit).
  * These synchronous tasks should never be called aside from the asynchronous processes.
+ * <p>
+ * The tasks are run through the {@link SyncTaskQueue}, which limits the time spent on them per tick.
  *
  * @see Management
  */
 public class SyncProcessManager {
 
     @Inject
-    private BukkitService bukkitService;
+    private SyncTaskQueue syncTaskQueue;
 
     @Inject
     private ProcessSyncEmailRegister processSyncEmailRegister;
@@ -56,6 +57,6 @@ public class SyncProcessManager {
     }
 
     private void runTask(Runnable runnable) {
-        bukkitService.scheduleSyncTaskFromOptionallyAsyncTask(runnable);
+        syncTaskQueue.submit(runnable);
     }
 }
@@ -0,0 +1,173 @@
+package fr.xephi.authme.process;
+
+import fr.xephi.authme.ConsoleLogger;
+import fr.xephi.authme.initialization.SettingsDependent;
+import fr.xephi.authme.service.BukkitService;
+import fr.xephi.authme.settings.Settings;
+import fr.xephi.authme.settings.properties.PluginSettings;
+
+import javax.inject.Inject;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Queue of tasks to run on the main thread, drained under a time budget per server tick.
+ * <p>
+ * Instead of scheduling one Bukkit task per process, tasks are queued and a single task runs them
+ * in FIFO order. Once the configured budget of a tick is used up, the remaining tasks are run
+ * in the following ticks, so that many logins finishing at the same time do not stall the server.
+ */
+public class SyncTaskQueue implements SettingsDependent {
+
+    private final BukkitService bukkitService;
+    private final Queue<QueuedTask> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean isDrainScheduled = new AtomicBoolean();
+    private final AtomicInteger queueLength = new AtomicInteger();
+    private final AtomicLong executedTasks = new AtomicLong();
+    private final AtomicLong carriedOverTicks = new AtomicLong();
+    private volatile long lastLagNanos;
+    private volatile long maxLagNanos;
+
+    private boolean useAsyncTasks;
+    private long tickBudgetNanos;
+
+    @Inject
+    SyncTaskQueue(BukkitService bukkitService, Settings settings) {
+        this.bukkitService = bukkitService;
+        reload(settings);
+    }
+
+    /**
+     * Queues the task to be run on the main thread. If async tasks are disabled, the caller
+     * already is on the main thread and the task is run immediately.
+     *
+     * @param task the task to run
+     */
+    public void submit(Runnable task) {
+        if (!useAsyncTasks) {
+            task.run();
+            return;
+        }
+        tasks.add(new QueuedTask(task, System.nanoTime()));
+        queueLength.incrementAndGet();
+        scheduleDrain();
+    }
+
+    /**
+     * @return the number of tasks waiting to be run
+     */
+    public int getQueueLength() {
+        return queueLength.get();
+    }
+
+    /**
+     * @return the number of tasks run since the start
+     */
+    public long getExecutedTasks() {
+        return executedTasks.get();
+    }
+
+    /**
+     * @return the number of ticks after which tasks were left in the queue because the budget was used up
+     */
+    public long getCarriedOverTicks() {
+        return carriedOverTicks.get();
+    }
+
+    /**
+     * @return the time the most recently run task waited in the queue, in milliseconds
+     */
+    public long getLastLagMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(lastLagNanos);
+    }
+
+    /**
+     * @return the longest time a task waited in the queue, in milliseconds
+     */
+    public long getMaxLagMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxLagNanos);
+    }
+
+    @Override
+    public void reload(Settings settings) {
+        useAsyncTasks = settings.getProperty(PluginSettings.USE_ASYNC_TASKS);
+        tickBudgetNanos = TimeUnit.MILLISECONDS.toNanos(settings.getProperty(PluginSettings.SYNC_TASK_TICK_BUDGET));
+    }
+
+    private void scheduleDrain() {
+        if (isDrainScheduled.compareAndSet(false, true)) {
+            bukkitService.scheduleSyncDelayedTask(this::drain);
+        }
+    }
+
+    /**
+     * Runs queued tasks until the queue is empty or the budget of the tick is used up. At least
+     * one task is run per tick.
+     */
+    private void drain() {
+        boolean isCarriedOver = false;
+        try {
+            isCarriedOver = runTasks();
+        } finally {
+            // Also reset the flag if a task threw an Error, so that the queue keeps being drained
+            if (!isCarriedOver) {
+                isDrainScheduled.set(false);
+                // A task may have been added after the queue was found empty but before the flag was reset
+                if (!tasks.isEmpty()) {
+                    scheduleDrain();
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs queued tasks for the current tick.
+     *
+     * @return true if tasks were left in the queue and a drain in the next tick was scheduled,
+     *         false if the queue is empty
+     */
+    private boolean runTasks() {
+        final long start = System.nanoTime();
+        QueuedTask task;
+        while ((task = tasks.poll()) != null) {
+            queueLength.decrementAndGet();
+            long now = System.nanoTime();
+            recordLag(now - task.enqueuedAt);
+            try {
+                task.runnable.run();
+            } catch (RuntimeException e) {
+                ConsoleLogger.logException("Error while running synchronous task:", e);
+            } finally {
+                executedTasks.incrementAndGet();
+            }
+
+            if (tickBudgetNanos > 0 && System.nanoTime() - start >= tickBudgetNanos && !tasks.isEmpty()) {
+                carriedOverTicks.incrementAndGet();
+                bukkitService.scheduleSyncDelayedTask(this::drain);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void recordLag(long lagNanos) {
+        lastLagNanos = lagNanos;
+        if (lagNanos > maxLagNanos) {
+            maxLagNanos = lagNanos;
+        }
+    }
+
+    private static final class QueuedTask {
+        private final Runnable runnable;
+        private final long enqueuedAt;
+
+        QueuedTask(Runnable runnable, long enqueuedAt) {
+            this.runnable = runnable;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package fr.xephi.authme.process.join;
 
 import fr.xephi.authme.ConsoleLogger;
 import fr.xephi.authme.data.SessionManager;
+import fr.xephi.authme.data.auth.JoinSnapshot;
 import fr.xephi.authme.data.auth.PlayerAuth;
 import fr.xephi.authme.data.auth.PlayerCache;
 import fr.xephi.authme.data.limbo.LimboCache;
@@ -11,6 +12,7 @@ import fr.xephi.authme.message.MessageKey;
 import fr.xephi.authme.permission.AuthGroupType;
 import fr.xephi.authme.permission.PlayerStatePermission;
 import fr.xephi.authme.process.AsynchronousProcess;
+import fr.xephi.authme.process.PlayerTaskExecutor;
 import fr.xephi.authme.process.login.AsynchronousLogin;
 import fr.xephi.authme.service.BukkitService;
 import fr.xephi.authme.service.CommonService;
@@ -68,6 +70,9 @@ public class AsynchronousJoin implements AsynchronousProcess {
     @Inject
     private AsynchronousLogin asynchronousLogin;
 
+    @Inject
+    private PlayerTaskExecutor playerTaskExecutor;
+
     @Inject
     private CommandManager commandManager;
 
@@ -108,7 +113,9 @@ public class AsynchronousJoin implements AsynchronousProcess {
             return;
         }
 
-        final boolean isAuthAvailable = database.isAuthAvailable(name);
+        // Registration status, logged flag and last IP are retrieved with a single query
+        final JoinSnapshot snapshot = database.getJoinSnapshot(name);
+        final boolean isAuthAvailable = snapshot.isRegistered();
 
         if (isAuthAvailable) {
             limboCache.addPlayerData(player);
@@ -126,18 +133,17 @@ public class AsynchronousJoin implements AsynchronousProcess {
             }
 
             // Session logic
-            if (sessionManager.hasSession(name) || database.isLogged(name)) {
-                PlayerAuth auth = database.getAuth(name);
+            if (sessionManager.hasSession(name) || snapshot.isLogged()) {
+                PlayerAuth auth = snapshot.getAuth();
                 database.setUnlogged(name);
                 playerCache.removePlayer(name);
-                if (auth != null) {
-                    if (auth.getIp().equals(ip)) {
-                        service.send(player, MessageKey.SESSION_RECONNECTION);
-                        bukkitService.runTaskOptionallyAsync(() -> asynchronousLogin.forceLogin(player));
-                        return;
-                    } else {
-                        service.send(player, MessageKey.SESSION_EXPIRED);
-                    }
+                if (auth.getIp().equals(ip)) {
+                    service.send(player, MessageKey.SESSION_RECONNECTION);
+                    // Queued behind the join, so that it cannot overtake the player's other processes
+                    playerTaskExecutor.execute(player.getName(), () -> asynchronousLogin.forceLogin(player));
+                    return;
+                } else {
+                    service.send(player, MessageKey.SESSION_EXPIRED);
                 }
             }
         } else {
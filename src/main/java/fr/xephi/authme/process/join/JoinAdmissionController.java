@@ -0,0 +1,227 @@
+package fr.xephi.authme.process.join;
+
+import fr.xephi.authme.data.SessionManager;
+import fr.xephi.authme.initialization.SettingsDependent;
+import fr.xephi.authme.message.MessageKey;
+import fr.xephi.authme.process.PlayerTaskExecutor;
+import fr.xephi.authme.service.BukkitService;
+import fr.xephi.authme.service.CommonService;
+import fr.xephi.authme.settings.Settings;
+import fr.xephi.authme.settings.properties.PluginSettings;
+import org.bukkit.entity.Player;
+
+import javax.inject.Inject;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits the number of join processes which run at the same time.
+ * <p>
+ * Each join process queries the data source and writes the player's limbo data to disk; when many players
+ * join at once (e.g. after a restart behind a proxy) running all of them in parallel exhausts the
+ * connection pool. Joins beyond the limit wait in a queue and are started in the order the players joined,
+ * players with a valid session first, as running joins finish. Players are asked to wait while they are
+ * queued and are kicked if the queue is full.
+ */
+public class JoinAdmissionController implements SettingsDependent {
+
+    private final PlayerTaskExecutor playerTaskExecutor;
+    private final BukkitService bukkitService;
+    private final SessionManager sessionManager;
+    private final CommonService service;
+
+    private final Deque<PendingJoin> sessionQueue = new ArrayDeque<>();
+    private final Deque<PendingJoin> regularQueue = new ArrayDeque<>();
+    private final AtomicLong admittedJoins = new AtomicLong();
+    private final AtomicLong queuedJoins = new AtomicLong();
+    private final AtomicLong rejectedJoins = new AtomicLong();
+    private int activeJoins;
+
+    private int maxConcurrentJoins;
+    private int maxQueuedJoins;
+
+    @Inject
+    JoinAdmissionController(PlayerTaskExecutor playerTaskExecutor, BukkitService bukkitService,
+                            SessionManager sessionManager, CommonService service, Settings settings) {
+        this.playerTaskExecutor = playerTaskExecutor;
+        this.bukkitService = bukkitService;
+        this.sessionManager = sessionManager;
+        this.service = service;
+        reload(settings);
+    }
+
+    /**
+     * Runs the join process of the given player as soon as the number of running join processes allows it.
+     * The join takes its place in the player's queue of processes right away, so that processes the player
+     * starts while the join waits for admission (e.g. a login) are run after it.
+     *
+     * @param player the player who joined
+     * @param joinProcess the join process to run
+     */
+    public void submit(Player player, Runnable joinProcess) {
+        final PendingJoin join = new PendingJoin(player, joinProcess);
+        playerTaskExecutor.executeDeferred(player.getName(), () -> runJoin(join), starter -> admit(join, starter));
+    }
+
+    /**
+     * @return the number of join processes which have been started
+     */
+    public long getAdmittedJoins() {
+        return admittedJoins.get();
+    }
+
+    /**
+     * @return the number of joins which had to wait in the queue
+     */
+    public long getQueuedJoins() {
+        return queuedJoins.get();
+    }
+
+    /**
+     * @return the number of players kicked because the queue was full
+     */
+    public long getRejectedJoins() {
+        return rejectedJoins.get();
+    }
+
+    /**
+     * @return the number of join processes currently running
+     */
+    public synchronized int getActiveJoins() {
+        return activeJoins;
+    }
+
+    /**
+     * @return the number of joins currently waiting in the queue
+     */
+    public synchronized int getQueueLength() {
+        return sessionQueue.size() + regularQueue.size();
+    }
+
+    @Override
+    public void reload(Settings settings) {
+        final boolean hasNewCapacity;
+        synchronized (this) {
+            int previousMax = maxConcurrentJoins;
+            maxConcurrentJoins = settings.getProperty(PluginSettings.MAX_CONCURRENT_JOINS);
+            maxQueuedJoins = settings.getProperty(PluginSettings.MAX_QUEUED_JOINS);
+            hasNewCapacity = maxConcurrentJoins <= 0 || maxConcurrentJoins > previousMax;
+        }
+        if (hasNewCapacity) {
+            startQueuedJoins();
+        }
+    }
+
+    /**
+     * Starts the join if the number of running joins allows it, and otherwise adds it to the queue or
+     * rejects it if the queue is full. Called when the join is the next process of the player.
+     *
+     * @param join the join to admit
+     * @param starter the runnable starting the join process in the player's queue
+     */
+    private void admit(PendingJoin join, Runnable starter) {
+        join.starter = starter;
+        final Player player = join.player;
+        final int position;
+        synchronized (this) {
+            if (maxConcurrentJoins <= 0 || activeJoins < maxConcurrentJoins) {
+                ++activeJoins;
+                position = 0;
+            } else if (maxQueuedJoins > 0 && getQueueLength() >= maxQueuedJoins) {
+                position = -1;
+            } else if (sessionManager.hasSession(player.getName())) {
+                sessionQueue.add(join);
+                position = sessionQueue.size();
+            } else {
+                regularQueue.add(join);
+                position = getQueueLength();
+            }
+        }
+
+        if (position == 0) {
+            start(join);
+        } else if (position < 0) {
+            rejectedJoins.incrementAndGet();
+            bukkitService.scheduleSyncDelayedTask(
+                () -> player.kickPlayer(service.retrieveSingleMessage(MessageKey.JOIN_QUEUE_FULL)));
+            skip(join);
+        } else {
+            queuedJoins.incrementAndGet();
+            service.send(player, MessageKey.JOIN_QUEUED, String.valueOf(position));
+        }
+    }
+
+    private void start(PendingJoin join) {
+        admittedJoins.incrementAndGet();
+        join.isAdmitted = true;
+        join.starter.run();
+    }
+
+    /**
+     * Releases the player's queue of processes without running the join.
+     */
+    private static void skip(PendingJoin join) {
+        join.starter.run();
+    }
+
+    private void runJoin(PendingJoin join) {
+        if (join.isAdmitted) {
+            try {
+                join.process.run();
+            } finally {
+                finish();
+            }
+        }
+    }
+
+    private void finish() {
+        synchronized (this) {
+            --activeJoins;
+        }
+        startQueuedJoins();
+    }
+
+    /**
+     * Starts queued joins while there is capacity. Players who left while waiting are skipped.
+     */
+    private void startQueuedJoins() {
+        while (true) {
+            PendingJoin next;
+            boolean isOnline;
+            synchronized (this) {
+                if (maxConcurrentJoins > 0 && activeJoins >= maxConcurrentJoins) {
+                    return;
+                }
+                next = sessionQueue.poll();
+                if (next == null) {
+                    next = regularQueue.poll();
+                }
+                if (next == null) {
+                    return;
+                }
+                isOnline = next.player.isOnline();
+                if (isOnline) {
+                    ++activeJoins;
+                }
+            }
+            if (isOnline) {
+                start(next);
+            } else {
+                skip(next);
+            }
+        }
+    }
+
+    private static final class PendingJoin {
+        private final Player player;
+        private final Runnable process;
+        private Runnable starter;
+        private boolean isAdmitted;
+
+        PendingJoin(Player player, Runnable process) {
+            this.player = player;
+            this.process = process;
+        }
+    }
+}
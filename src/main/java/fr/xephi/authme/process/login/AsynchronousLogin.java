@@ -3,6 +3,7 @@ package fr.xephi.authme.process.login;
 import com.google.common.annotations.VisibleForTesting;
 import fr.xephi.authme.ConsoleLogger;
 import fr.xephi.authme.data.CaptchaManager;
+import fr.xephi.authme.data.HashingBudgetManager;
 import fr.xephi.authme.data.TempbanManager;
 import fr.xephi.authme.data.auth.PlayerAuth;
 import fr.xephi.authme.data.auth.PlayerCache;
@@ -70,6 +71,9 @@ public class AsynchronousLogin implements AsynchronousProcess {
     @Inject
     private TempbanManager tempbanManager;
 
+    @Inject
+    private HashingBudgetManager hashingBudgetManager;
+
     @Inject
     private LimboPlayerTaskManager limboPlayerTaskManager;
 
@@ -165,11 +169,24 @@ public class AsynchronousLogin implements AsynchronousProcess {
 
         final String ip = PlayerUtils.getPlayerIp(player);
 
+        // Reject the attempt before any hashing if too much time is spent on checking passwords. This is
+        // done before counting the attempt, so that throttled attempts do not lead to a captcha or tempban.
+        final long reservedHashTime = hashingBudgetManager.tryAcquire(ip);
+        if (reservedHashTime == HashingBudgetManager.REJECTED) {
+            service.send(player, MessageKey.LOGIN_THROTTLED);
+            return false;
+        }
+
         // Increase the counts here before knowing the result of the login.
         captchaManager.increaseCount(name);
         tempbanManager.increaseCount(ip, name);
 
-        if (passwordSecurity.comparePassword(password, auth.getPassword(), player.getName())) {
+        final long hashStart = System.nanoTime();
+        final boolean isPasswordValid =
+            passwordSecurity.comparePassword(password, auth.getPassword(), player.getName());
+        hashingBudgetManager.recordHashDuration(ip, reservedHashTime, System.nanoTime() - hashStart);
+
+        if (isPasswordValid) {
             return true;
         } else {
             handleWrongPassword(player, ip);
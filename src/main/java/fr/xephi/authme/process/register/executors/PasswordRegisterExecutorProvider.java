@@ -2,6 +2,7 @@ package fr.xephi.authme.process.register.executors;
 
 import fr.xephi.authme.data.auth.PlayerAuth;
 import fr.xephi.authme.message.MessageKey;
+import fr.xephi.authme.process.PlayerTaskExecutor;
 import fr.xephi.authme.process.SyncProcessManager;
 import fr.xephi.authme.process.login.AsynchronousLogin;
 import fr.xephi.authme.security.PasswordSecurity;
@@ -50,6 +51,9 @@ class PasswordRegisterExecutorProvider {
     @Inject
     private AsynchronousLogin asynchronousLogin;
 
+    @Inject
+    private PlayerTaskExecutor playerTaskExecutor;
+
     PasswordRegisterExecutorProvider() {
     }
 
@@ -98,7 +102,8 @@ class PasswordRegisterExecutorProvider {
         public void executePostPersistAction() {
             if (performLoginAfterRegister()) {
                 if (commonService.getProperty(PluginSettings.USE_ASYNC_TASKS)) {
-                    bukkitService.runTaskAsynchronously(() -> asynchronousLogin.forceLogin(player));
+                    // Queue the login behind the player's other processes, like Management#forceLogin does
+                    playerTaskExecutor.execute(player.getName(), () -> asynchronousLogin.forceLogin(player));
                 } else {
                     bukkitService.scheduleSyncDelayedTask(() -> asynchronousLogin.forceLogin(player), SYNC_LOGIN_DELAY);
                 }
@@ -6,6 +6,7 @@ import fr.xephi.authme.initialization.Reloadable;
 import fr.xephi.authme.initialization.factory.Factory;
 import fr.xephi.authme.security.crypts.EncryptionMethod;
 import fr.xephi.authme.security.crypts.HashedPassword;
+import fr.xephi.authme.service.MainThreadBlockingDetector;
 import fr.xephi.authme.settings.Settings;
 import fr.xephi.authme.settings.properties.SecuritySettings;
 import org.bukkit.plugin.PluginManager;
@@ -31,6 +32,9 @@ public class PasswordSecurity implements Reloadable {
     @Inject
     private Factory<EncryptionMethod> hashAlgorithmFactory;
 
+    @Inject
+    private MainThreadBlockingDetector blockingDetector;
+
     private HashAlgorithm algorithm;
     private Collection<HashAlgorithm> legacyAlgorithms;
 
@@ -53,9 +57,12 @@ public class PasswordSecurity implements Reloadable {
      * @return The password hash
      */
     public HashedPassword computeHash(String password, String playerName) {
+        long start = System.nanoTime();
         String playerLowerCase = playerName.toLowerCase();
         EncryptionMethod method = initializeEncryptionMethodWithEvent(algorithm, playerLowerCase);
-        return method.computeHash(password, playerLowerCase);
+        HashedPassword hashedPassword = method.computeHash(password, playerLowerCase);
+        blockingDetector.recordCall("PasswordSecurity#computeHash", start);
+        return hashedPassword;
     }
 
     /**
@@ -81,10 +88,13 @@ public class PasswordSecurity implements Reloadable {
      * @return True if the password matches, false otherwise
      */
     public boolean comparePassword(String password, HashedPassword hashedPassword, String playerName) {
+        long start = System.nanoTime();
         EncryptionMethod method = initializeEncryptionMethodWithEvent(algorithm, playerName);
         String playerLowerCase = playerName.toLowerCase();
-        return methodMatches(method, password, hashedPassword, playerLowerCase)
+        boolean isMatch = methodMatches(method, password, hashedPassword, playerLowerCase)
             || compareWithLegacyHashes(password, hashedPassword, playerLowerCase);
+        blockingDetector.recordCall("PasswordSecurity#comparePassword", start);
+        return isMatch;
     }
 
     /**
@@ -1,5 +1,6 @@
 package fr.xephi.authme.security.crypts;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.escape.Escaper;
 import com.google.common.io.BaseEncoding;
 import com.google.common.net.UrlEscapers;
@@ -11,12 +12,12 @@ import fr.xephi.authme.security.crypts.description.SaltType;
 import fr.xephi.authme.security.crypts.description.Usage;
 
 import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
 import javax.crypto.spec.SecretKeySpec;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.util.Arrays;
-import java.util.Calendar;
 import java.util.concurrent.TimeUnit;
 
 @Recommendation(Usage.DOES_NOT_WORK)
@@ -28,6 +29,8 @@ public class TwoFactor extends UnsaltedMethod {
     private static final int BYTES_PER_SCRATCH_CODE = 4;
 
     private static final int TIME_PRECISION = 3;
+    private static final long TIME_STEP_MILLIS = TimeUnit.SECONDS.toMillis(30);
+    private static final int CODE_MODULUS = 1_000_000;
     private static final String CRYPTO_ALGO = "HmacSHA1";
 
     public static String getQRBarcodeURL(String user, String host, String secret) {
@@ -64,28 +67,31 @@ public class TwoFactor extends UnsaltedMethod {
     }
 
     private boolean checkPassword(String secretKey, String userInput)
-            throws NoSuchAlgorithmException, InvalidKeyException {
+            throws NoSuchAlgorithmException, InvalidKeyException, ShortBufferException {
         Integer code = Ints.tryParse(userInput);
-        if (code == null) {
-            //code is not an integer
+        if (code == null || code < 0 || code >= CODE_MODULUS) {
+            //code is not an integer or cannot be a valid code
             return false;
         }
 
-        long currentTime = Calendar.getInstance().getTimeInMillis() / TimeUnit.SECONDS.toMillis(30);
-        return check_code(secretKey, code, currentTime);
+        long currentTime = System.currentTimeMillis() / TIME_STEP_MILLIS;
+        return checkCode(secretKey, code, currentTime);
     }
 
-    private boolean check_code(String secret, long code, long t)
-            throws NoSuchAlgorithmException, InvalidKeyException {
+    @VisibleForTesting
+    boolean checkCode(String secret, int code, long timeStep)
+            throws NoSuchAlgorithmException, InvalidKeyException, ShortBufferException {
+        // The Mac and the buffer are shared by all time steps of the window, but not kept beyond this check
+        // so that the secret does not stay in memory
         byte[] decodedKey = BaseEncoding.base32().decode(secret);
+        Mac mac = Mac.getInstance(CRYPTO_ALGO);
+        mac.init(new SecretKeySpec(decodedKey, CRYPTO_ALGO));
+        byte[] hash = new byte[mac.getMacLength()];
 
         // Window is used to check codes generated in the near past.
         // You can use this value to tune how far you're willing to go.
-        int window = TIME_PRECISION;
-        for (int i = -window; i <= window; ++i) {
-            long hash = verify_code(decodedKey, t + i);
-
-            if (hash == code) {
+        for (long t = timeStep - TIME_PRECISION; t <= timeStep + TIME_PRECISION; ++t) {
+            if (computeCode(mac, hash, t) == code) {
                 return true;
             }
         }
@@ -94,32 +100,18 @@ public class TwoFactor extends UnsaltedMethod {
         return false;
     }
 
-    private int verify_code(byte[] key, long t) throws NoSuchAlgorithmException, InvalidKeyException {
-        byte[] data = new byte[8];
-        long value = t;
-        for (int i = 8; i-- > 0; value >>>= 8) {
-            data[i] = (byte) value;
+    private static int computeCode(Mac mac, byte[] hash, long t) throws ShortBufferException {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            mac.update((byte) (t >>> shift));
         }
-
-        SecretKeySpec signKey = new SecretKeySpec(key, CRYPTO_ALGO);
-        Mac mac = Mac.getInstance(CRYPTO_ALGO);
-        mac.init(signKey);
-        byte[] hash = mac.doFinal(data);
-
-        int offset = hash[20 - 1] & 0xF;
-
-        // We're using a long because Java hasn't got unsigned int.
-        long truncatedHash = 0;
-        for (int i = 0; i < 4; ++i) {
-            truncatedHash <<= 8;
-            // We are dealing with signed bytes:
-            // we just keep the first byte.
-            truncatedHash |= (hash[offset + i] & 0xFF);
-        }
-
-        truncatedHash &= 0x7FFF_FFFF;
-        truncatedHash %= 1_000_000;
-
-        return (int) truncatedHash;
+        mac.doFinal(hash, 0);
+
+        // Dynamic truncation: take 31 bits at the offset given by the low nibble of the last byte
+        int offset = hash[hash.length - 1] & 0xF;
+        int truncatedHash = (hash[offset] & 0x7F) << 24
+            | (hash[offset + 1] & 0xFF) << 16
+            | (hash[offset + 2] & 0xFF) << 8
+            | (hash[offset + 3] & 0xFF);
+        return truncatedHash % CODE_MODULUS;
     }
 }
@@ -78,13 +78,40 @@ public class WHIRLPOOL extends UnsaltedMethod {
      */
     protected static final int R = 10;
 
+    /**
+     * The size of a message block (in bytes).
+     */
+    private static final int BLOCK_BYTES = 64;
+
+    /**
+     * Offset of the 256-bit message length in the last padded block.
+     */
+    private static final int LENGTH_OFFSET = 32;
+
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
     /**
      * The substitution box.
      */
     private static final String sbox = "\u1823\uc6E8\u87B8\u014F\u36A6\ud2F5\u796F\u9152" + "\u60Bc\u9B8E\uA30c\u7B35\u1dE0\ud7c2\u2E4B\uFE57" + "\u1577\u37E5\u9FF0\u4AdA\u58c9\u290A\uB1A0\u6B85" + "\uBd5d\u10F4\ucB3E\u0567\uE427\u418B\uA77d\u95d8" + "\uFBEE\u7c66\udd17\u479E\ucA2d\uBF07\uAd5A\u8333" + "\u6302\uAA71\uc819\u49d9\uF2E3\u5B88\u9A26\u32B0" + "\uE90F\ud580\uBEcd\u3448\uFF7A\u905F\u2068\u1AAE" + "\uB454\u9322\u64F1\u7312\u4008\uc3Ec\udBA1\u8d3d" + "\u9700\ucF2B\u7682\ud61B\uB5AF\u6A50\u45F3\u30EF" + "\u3F55\uA2EA\u65BA\u2Fc0\udE1c\uFd4d\u9275\u068A" + "\uB2E6\u0E1F\u62d4\uA896\uF9c5\u2559\u8472\u394c" + "\u5E78\u388c\ud1A5\uE261\uB321\u9c1E\u43c7\uFc04" + "\u5199\u6d0d\uFAdF\u7E24\u3BAB\ucE11\u8F4E\uB7EB" + "\u3c81\u94F7\uB913\u2cd3\uE76E\uc403\u5644\u7FA9" + "\u2ABB\uc153\udc0B\u9d6c\u3174\uF646\uAc89\u14E1" + "\u163A\u6909\u70B6\ud0Ed\ucc42\u98A4\u285c\uF886";
 
-    private static final long[][] C = new long[8][256];
-    private static final long[] rc = new long[R + 1];
+    /*
+     * The eight circulant tables C_t[x] = S[x].cir(1, 1, 4, 1, 8, 5, 2, 9) rotr 8t, kept as separate arrays
+     * so that every lookup in the round function is a single array access.
+     */
+    private static final long[] C0 = new long[256];
+    private static final long[] C1 = new long[256];
+    private static final long[] C2 = new long[256];
+    private static final long[] C3 = new long[256];
+    private static final long[] C4 = new long[256];
+    private static final long[] C5 = new long[256];
+    private static final long[] C6 = new long[256];
+    private static final long[] C7 = new long[256];
+
+    /**
+     * The round constants, RC[r] being used in round r + 1.
+     */
+    private static final long[] RC = new long[R];
 
     static {
         for (int x = 0; x < 256; x++) {
@@ -104,291 +131,297 @@ public class WHIRLPOOL extends UnsaltedMethod {
                 v8 ^= 0x11dL;
             }
             long v9 = v8 ^ v1;
-            /*
-             * build the circulant table C[0][x] = S[x].[1, 1, 4, 1, 8, 5, 2,
-             * 9]:
-             */
-            C[0][x] = (v1 << 56) | (v1 << 48) | (v4 << 40) | (v1 << 32) | (v8 << 24) | (v5 << 16) | (v2 << 8) | (v9);
-            /*
-             * build the remaining circulant tables C[t][x] = C[0][x] rotr t
-             */
-            for (int t = 1; t < 8; t++) {
-                C[t][x] = (C[t - 1][x] >>> 8) | ((C[t - 1][x] << 56));
-            }
+            long v = (v1 << 56) | (v1 << 48) | (v4 << 40) | (v1 << 32) | (v8 << 24) | (v5 << 16) | (v2 << 8) | (v9);
+            C0[x] = v;
+            C1[x] = Long.rotateRight(v, 8);
+            C2[x] = Long.rotateRight(v, 16);
+            C3[x] = Long.rotateRight(v, 24);
+            C4[x] = Long.rotateRight(v, 32);
+            C5[x] = Long.rotateRight(v, 40);
+            C6[x] = Long.rotateRight(v, 48);
+            C7[x] = Long.rotateRight(v, 56);
         }
-        /*
-         * build the round constants:
-         */
-        rc[0] = 0L; /*
-                     * not used (assigment kept only to properly initialize all
-                     * variables)
-                     */
-        for (int r = 1; r <= R; r++) {
-            int i = 8 * (r - 1);
-            rc[r] = (C[0][i] & 0xff00000000000000L) ^ (C[1][i + 1] & 0x00ff000000000000L) ^ (C[2][i + 2] & 0x0000ff0000000000L) ^ (C[3][i + 3] & 0x000000ff00000000L) ^ (C[4][i + 4] & 0x00000000ff000000L) ^ (C[5][i + 5] & 0x0000000000ff0000L) ^ (C[6][i + 6] & 0x000000000000ff00L) ^ (C[7][i + 7] & 0x00000000000000ffL);
+        for (int r = 0; r < R; r++) {
+            int i = 8 * r;
+            RC[r] = (C0[i] & 0xff00000000000000L) ^ (C1[i + 1] & 0x00ff000000000000L)
+                ^ (C2[i + 2] & 0x0000ff0000000000L) ^ (C3[i + 3] & 0x000000ff00000000L)
+                ^ (C4[i + 4] & 0x00000000ff000000L) ^ (C5[i + 5] & 0x0000000000ff0000L)
+                ^ (C6[i + 6] & 0x000000000000ff00L) ^ (C7[i + 7] & 0x00000000000000ffL);
         }
     }
 
-    /**
-     * Global number of hashed bits (256-bit counter).
-     */
-    protected final byte[] bitLength = new byte[32];
-
     /**
      * Buffer of data to hash.
      */
-    protected final byte[] buffer = new byte[64];
+    private final byte[] buffer = new byte[BLOCK_BYTES];
 
     /**
-     * Current number of bits on the buffer.
+     * The hashing state.
      */
-    protected int bufferBits = 0;
+    private final long[] hash = new long[8];
 
     /**
-     * Current (possibly incomplete) byte slot on the buffer.
+     * Current number of bytes on the buffer.
      */
-    protected int bufferPos = 0;
+    private int bufferPos = 0;
 
     /**
-     * The hashing state.
+     * Global number of hashed bytes.
      */
-    protected final long[] hash = new long[8];
-    protected final long[] K = new long[8];
-    protected final long[] L = new long[8];
-    protected final long[] block = new long[8];
-    protected final long[] state = new long[8];
+    private long byteCount = 0;
 
     public WHIRLPOOL() {
     }
 
     protected static String display(byte[] array) {
         char[] val = new char[2 * array.length];
-        String hex = "0123456789ABCDEF";
         for (int i = 0; i < array.length; i++) {
             int b = array[i] & 0xff;
-            val[2 * i] = hex.charAt(b >>> 4);
-            val[2 * i + 1] = hex.charAt(b & 15);
+            val[2 * i] = HEX_DIGITS[b >>> 4];
+            val[2 * i + 1] = HEX_DIGITS[b & 15];
         }
         return String.valueOf(val);
     }
 
     /**
-     * The core Whirlpool transform.
+     * The core Whirlpool transform. The eight 64-bit words of the key schedule and of the cipher state are kept
+     * in local variables and each round is fully unrolled over them, so no temporary arrays are involved.
      */
-    protected void processBuffer() {
-        /*
-         * map the buffer to a block:
-         */
-        for (int i = 0, j = 0; i < 8; i++, j += 8) {
-            block[i] = (((long) buffer[j]) << 56) ^ (((long) buffer[j + 1] & 0xffL) << 48) ^ (((long) buffer[j + 2] & 0xffL) << 40) ^ (((long) buffer[j + 3] & 0xffL) << 32) ^ (((long) buffer[j + 4] & 0xffL) << 24) ^ (((long) buffer[j + 5] & 0xffL) << 16) ^ (((long) buffer[j + 6] & 0xffL) << 8) ^ (((long) buffer[j + 7] & 0xffL));
-        }
-        /*
-         * compute and apply K^0 to the cipher state:
-         */
-        for (int i = 0; i < 8; i++) {
-            state[i] = block[i] ^ (K[i] = hash[i]);
-        }
-        /*
-         * iterate over all rounds:
-         */
-        for (int r = 1; r <= R; r++) {
-            /*
-             * compute K^r from K^{r-1}:
-             */
-            for (int i = 0; i < 8; i++) {
-                L[i] = 0L;
-                for (int t = 0, s = 56; t < 8; t++, s -= 8) {
-                    L[i] ^= C[t][(int) (K[(i - t) & 7] >>> s) & 0xff];
-                }
-            }
-            for (int i = 0; i < 8; i++) {
-                K[i] = L[i];
-            }
-            K[0] ^= rc[r];
-            /*
-             * apply the r-th round transformation:
-             */
-            for (int i = 0; i < 8; i++) {
-                L[i] = K[i];
-                for (int t = 0, s = 56; t < 8; t++, s -= 8) {
-                    L[i] ^= C[t][(int) (state[(i - t) & 7] >>> s) & 0xff];
-                }
-            }
-            for (int i = 0; i < 8; i++) {
-                state[i] = L[i];
-            }
-        }
-        /*
-         * apply the Miyaguchi-Preneel compression function:
-         */
-        for (int i = 0; i < 8; i++) {
-            hash[i] ^= state[i] ^ block[i];
+    private void processBuffer() {
+        final byte[] buf = buffer;
+        final long[] h = hash;
+
+        // map the buffer to a block
+        final long b0 = readLong(buf, 0);
+        final long b1 = readLong(buf, 8);
+        final long b2 = readLong(buf, 16);
+        final long b3 = readLong(buf, 24);
+        final long b4 = readLong(buf, 32);
+        final long b5 = readLong(buf, 40);
+        final long b6 = readLong(buf, 48);
+        final long b7 = readLong(buf, 56);
+
+        // compute and apply K^0 to the cipher state
+        long k0 = h[0];
+        long k1 = h[1];
+        long k2 = h[2];
+        long k3 = h[3];
+        long k4 = h[4];
+        long k5 = h[5];
+        long k6 = h[6];
+        long k7 = h[7];
+        long s0 = b0 ^ k0;
+        long s1 = b1 ^ k1;
+        long s2 = b2 ^ k2;
+        long s3 = b3 ^ k3;
+        long s4 = b4 ^ k4;
+        long s5 = b5 ^ k5;
+        long s6 = b6 ^ k6;
+        long s7 = b7 ^ k7;
+
+        for (int r = 0; r < R; r++) {
+            // compute K^r from K^{r-1}
+            long l0 = C0[(int) (k0 >>> 56)] ^ C1[(int) (k7 >>> 48) & 0xff] ^ C2[(int) (k6 >>> 40) & 0xff]
+                ^ C3[(int) (k5 >>> 32) & 0xff] ^ C4[(int) (k4 >>> 24) & 0xff] ^ C5[(int) (k3 >>> 16) & 0xff]
+                ^ C6[(int) (k2 >>> 8) & 0xff] ^ C7[(int) k1 & 0xff] ^ RC[r];
+            long l1 = C0[(int) (k1 >>> 56)] ^ C1[(int) (k0 >>> 48) & 0xff] ^ C2[(int) (k7 >>> 40) & 0xff]
+                ^ C3[(int) (k6 >>> 32) & 0xff] ^ C4[(int) (k5 >>> 24) & 0xff] ^ C5[(int) (k4 >>> 16) & 0xff]
+                ^ C6[(int) (k3 >>> 8) & 0xff] ^ C7[(int) k2 & 0xff];
+            long l2 = C0[(int) (k2 >>> 56)] ^ C1[(int) (k1 >>> 48) & 0xff] ^ C2[(int) (k0 >>> 40) & 0xff]
+                ^ C3[(int) (k7 >>> 32) & 0xff] ^ C4[(int) (k6 >>> 24) & 0xff] ^ C5[(int) (k5 >>> 16) & 0xff]
+                ^ C6[(int) (k4 >>> 8) & 0xff] ^ C7[(int) k3 & 0xff];
+            long l3 = C0[(int) (k3 >>> 56)] ^ C1[(int) (k2 >>> 48) & 0xff] ^ C2[(int) (k1 >>> 40) & 0xff]
+                ^ C3[(int) (k0 >>> 32) & 0xff] ^ C4[(int) (k7 >>> 24) & 0xff] ^ C5[(int) (k6 >>> 16) & 0xff]
+                ^ C6[(int) (k5 >>> 8) & 0xff] ^ C7[(int) k4 & 0xff];
+            long l4 = C0[(int) (k4 >>> 56)] ^ C1[(int) (k3 >>> 48) & 0xff] ^ C2[(int) (k2 >>> 40) & 0xff]
+                ^ C3[(int) (k1 >>> 32) & 0xff] ^ C4[(int) (k0 >>> 24) & 0xff] ^ C5[(int) (k7 >>> 16) & 0xff]
+                ^ C6[(int) (k6 >>> 8) & 0xff] ^ C7[(int) k5 & 0xff];
+            long l5 = C0[(int) (k5 >>> 56)] ^ C1[(int) (k4 >>> 48) & 0xff] ^ C2[(int) (k3 >>> 40) & 0xff]
+                ^ C3[(int) (k2 >>> 32) & 0xff] ^ C4[(int) (k1 >>> 24) & 0xff] ^ C5[(int) (k0 >>> 16) & 0xff]
+                ^ C6[(int) (k7 >>> 8) & 0xff] ^ C7[(int) k6 & 0xff];
+            long l6 = C0[(int) (k6 >>> 56)] ^ C1[(int) (k5 >>> 48) & 0xff] ^ C2[(int) (k4 >>> 40) & 0xff]
+                ^ C3[(int) (k3 >>> 32) & 0xff] ^ C4[(int) (k2 >>> 24) & 0xff] ^ C5[(int) (k1 >>> 16) & 0xff]
+                ^ C6[(int) (k0 >>> 8) & 0xff] ^ C7[(int) k7 & 0xff];
+            long l7 = C0[(int) (k7 >>> 56)] ^ C1[(int) (k6 >>> 48) & 0xff] ^ C2[(int) (k5 >>> 40) & 0xff]
+                ^ C3[(int) (k4 >>> 32) & 0xff] ^ C4[(int) (k3 >>> 24) & 0xff] ^ C5[(int) (k2 >>> 16) & 0xff]
+                ^ C6[(int) (k1 >>> 8) & 0xff] ^ C7[(int) k0 & 0xff];
+
+            // apply the r-th round transformation
+            long m0 = C0[(int) (s0 >>> 56)] ^ C1[(int) (s7 >>> 48) & 0xff] ^ C2[(int) (s6 >>> 40) & 0xff]
+                ^ C3[(int) (s5 >>> 32) & 0xff] ^ C4[(int) (s4 >>> 24) & 0xff] ^ C5[(int) (s3 >>> 16) & 0xff]
+                ^ C6[(int) (s2 >>> 8) & 0xff] ^ C7[(int) s1 & 0xff] ^ l0;
+            long m1 = C0[(int) (s1 >>> 56)] ^ C1[(int) (s0 >>> 48) & 0xff] ^ C2[(int) (s7 >>> 40) & 0xff]
+                ^ C3[(int) (s6 >>> 32) & 0xff] ^ C4[(int) (s5 >>> 24) & 0xff] ^ C5[(int) (s4 >>> 16) & 0xff]
+                ^ C6[(int) (s3 >>> 8) & 0xff] ^ C7[(int) s2 & 0xff] ^ l1;
+            long m2 = C0[(int) (s2 >>> 56)] ^ C1[(int) (s1 >>> 48) & 0xff] ^ C2[(int) (s0 >>> 40) & 0xff]
+                ^ C3[(int) (s7 >>> 32) & 0xff] ^ C4[(int) (s6 >>> 24) & 0xff] ^ C5[(int) (s5 >>> 16) & 0xff]
+                ^ C6[(int) (s4 >>> 8) & 0xff] ^ C7[(int) s3 & 0xff] ^ l2;
+            long m3 = C0[(int) (s3 >>> 56)] ^ C1[(int) (s2 >>> 48) & 0xff] ^ C2[(int) (s1 >>> 40) & 0xff]
+                ^ C3[(int) (s0 >>> 32) & 0xff] ^ C4[(int) (s7 >>> 24) & 0xff] ^ C5[(int) (s6 >>> 16) & 0xff]
+                ^ C6[(int) (s5 >>> 8) & 0xff] ^ C7[(int) s4 & 0xff] ^ l3;
+            long m4 = C0[(int) (s4 >>> 56)] ^ C1[(int) (s3 >>> 48) & 0xff] ^ C2[(int) (s2 >>> 40) & 0xff]
+                ^ C3[(int) (s1 >>> 32) & 0xff] ^ C4[(int) (s0 >>> 24) & 0xff] ^ C5[(int) (s7 >>> 16) & 0xff]
+                ^ C6[(int) (s6 >>> 8) & 0xff] ^ C7[(int) s5 & 0xff] ^ l4;
+            long m5 = C0[(int) (s5 >>> 56)] ^ C1[(int) (s4 >>> 48) & 0xff] ^ C2[(int) (s3 >>> 40) & 0xff]
+                ^ C3[(int) (s2 >>> 32) & 0xff] ^ C4[(int) (s1 >>> 24) & 0xff] ^ C5[(int) (s0 >>> 16) & 0xff]
+                ^ C6[(int) (s7 >>> 8) & 0xff] ^ C7[(int) s6 & 0xff] ^ l5;
+            long m6 = C0[(int) (s6 >>> 56)] ^ C1[(int) (s5 >>> 48) & 0xff] ^ C2[(int) (s4 >>> 40) & 0xff]
+                ^ C3[(int) (s3 >>> 32) & 0xff] ^ C4[(int) (s2 >>> 24) & 0xff] ^ C5[(int) (s1 >>> 16) & 0xff]
+                ^ C6[(int) (s0 >>> 8) & 0xff] ^ C7[(int) s7 & 0xff] ^ l6;
+            long m7 = C0[(int) (s7 >>> 56)] ^ C1[(int) (s6 >>> 48) & 0xff] ^ C2[(int) (s5 >>> 40) & 0xff]
+                ^ C3[(int) (s4 >>> 32) & 0xff] ^ C4[(int) (s3 >>> 24) & 0xff] ^ C5[(int) (s2 >>> 16) & 0xff]
+                ^ C6[(int) (s1 >>> 8) & 0xff] ^ C7[(int) s0 & 0xff] ^ l7;
+
+            k0 = l0;
+            k1 = l1;
+            k2 = l2;
+            k3 = l3;
+            k4 = l4;
+            k5 = l5;
+            k6 = l6;
+            k7 = l7;
+            s0 = m0;
+            s1 = m1;
+            s2 = m2;
+            s3 = m3;
+            s4 = m4;
+            s5 = m5;
+            s6 = m6;
+            s7 = m7;
         }
+
+        // apply the Miyaguchi-Preneel compression function
+        h[0] ^= s0 ^ b0;
+        h[1] ^= s1 ^ b1;
+        h[2] ^= s2 ^ b2;
+        h[3] ^= s3 ^ b3;
+        h[4] ^= s4 ^ b4;
+        h[5] ^= s5 ^ b5;
+        h[6] ^= s6 ^ b6;
+        h[7] ^= s7 ^ b7;
+    }
+
+    private static long readLong(byte[] buf, int offset) {
+        return ((long) buf[offset] << 56)
+            | (((long) buf[offset + 1] & 0xffL) << 48)
+            | (((long) buf[offset + 2] & 0xffL) << 40)
+            | (((long) buf[offset + 3] & 0xffL) << 32)
+            | (((long) buf[offset + 4] & 0xffL) << 24)
+            | (((long) buf[offset + 5] & 0xffL) << 16)
+            | (((long) buf[offset + 6] & 0xffL) << 8)
+            | ((long) buf[offset + 7] & 0xffL);
     }
 
     /**
      * Initialize the hashing state.
      */
     public void NESSIEinit() {
-        Arrays.fill(bitLength, (byte) 0);
-        bufferBits = bufferPos = 0;
-        buffer[0] = 0;
         Arrays.fill(hash, 0L);
+        bufferPos = 0;
+        byteCount = 0;
     }
 
     /**
      * Delivers input data to the hashing algorithm.
      *
-     * @param source     plaintext data to hash.
-     * @param sourceBits how many bits of plaintext to process.
-     *                   <p>
-     *                   This method maintains the invariant: bufferBits &lt; 512
-     *                   </p>
+     * @param source plaintext data to hash
+     * @param offset offset of the first byte to process
+     * @param length number of bytes to process
      */
-    public void NESSIEadd(byte[] source, long sourceBits) {
-        /*
-         * sourcePos | +-------+-------+------- ||||||||||||||||||||| source
-         * +-------+-------+-------
-         * +-------+-------+-------+-------+-------+-------
-         * |||||||||||||||||||||| buffer
-         * +-------+-------+-------+-------+-------+------- | bufferPos
-         */
-        int sourcePos = 0; // index of leftmost source byte containing data (1
-        // to 8 bits).
-        int sourceGap = (8 - ((int) sourceBits & 7)) & 7; // space on
-        // source[sourcePos].
-        int bufferRem = bufferBits & 7; // occupied bits on buffer[bufferPos].
-        int b;
-        // tally the length of the added data:
-        long value = sourceBits;
-        for (int i = 31, carry = 0; i >= 0; i--) {
-            carry += (bitLength[i] & 0xff) + ((int) value & 0xff);
-            bitLength[i] = (byte) carry;
-            carry >>>= 8;
-            value >>>= 8;
-        }
-        // process data in chunks of 8 bits:
-        while (sourceBits > 8) { // at least source[sourcePos] and
-            // source[sourcePos+1] contain data.
-            // take a byte from the source:
-            b = ((source[sourcePos] << sourceGap) & 0xff) | ((source[sourcePos + 1] & 0xff) >>> (8 - sourceGap));
-            if (b < 0 || b >= 256) {
-                throw new RuntimeException("LOGIC ERROR");
-            }
-            // process this byte:
-            buffer[bufferPos++] |= b >>> bufferRem;
-            bufferBits += 8 - bufferRem; // bufferBits = 8*bufferPos;
-            if (bufferBits == 512) {
-                // process data block:
+    public void NESSIEadd(byte[] source, int offset, int length) {
+        byteCount += length;
+        int pos = offset;
+        int remaining = length;
+        while (remaining > 0) {
+            int chunk = Math.min(remaining, BLOCK_BYTES - bufferPos);
+            System.arraycopy(source, pos, buffer, bufferPos, chunk);
+            bufferPos += chunk;
+            pos += chunk;
+            remaining -= chunk;
+            if (bufferPos == BLOCK_BYTES) {
                 processBuffer();
-                // reset buffer:
-                bufferBits = bufferPos = 0;
+                bufferPos = 0;
             }
-            buffer[bufferPos] = (byte) ((b << (8 - bufferRem)) & 0xff);
-            bufferBits += bufferRem;
-            // proceed to remaining data:
-            sourceBits -= 8;
-            sourcePos++;
         }
-        // now 0 <= sourceBits <= 8;
-        // furthermore, all data (if any is left) is in source[sourcePos].
-        if (sourceBits > 0) {
-            b = (source[sourcePos] << sourceGap) & 0xff; // bits are
-            // left-justified on b.
-            // process the remaining bits:
-            buffer[bufferPos] |= b >>> bufferRem;
-        } else {
-            b = 0;
-        }
-        if (bufferRem + sourceBits < 8) {
-            // all remaining data fits on buffer[bufferPos], and there still
-            // remains some space.
-            bufferBits += sourceBits;
-        } else {
-            // buffer[bufferPos] is full:
-            bufferPos++;
-            bufferBits += 8 - bufferRem; // bufferBits = 8*bufferPos;
-            sourceBits -= 8 - bufferRem;
-            // now 0 <= sourceBits < 8; furthermore, all data is in
-            // source[sourcePos].
-            if (bufferBits == 512) {
-                // process data block:
+    }
+
+    /**
+     * Delivers string input data to the hashing algorithm. Only the lower eight bits of each character
+     * are taken into account, as the hashes of existing accounts have been created this way.
+     *
+     * @param source plaintext data to hash (ASCII text string)
+     */
+    public void NESSIEadd(String source) {
+        final int length = source.length();
+        byteCount += length;
+        for (int i = 0; i < length; i++) {
+            buffer[bufferPos++] = (byte) source.charAt(i);
+            if (bufferPos == BLOCK_BYTES) {
                 processBuffer();
-                // reset buffer:
-                bufferBits = bufferPos = 0;
+                bufferPos = 0;
             }
-            buffer[bufferPos] = (byte) ((b << (8 - bufferRem)) & 0xff);
-            bufferBits += (int) sourceBits;
         }
     }
 
     /**
-     * <p>
-     * Get the hash value from the hashing state.
-     * </p>
-     * <p>
-     * This method uses the invariant: bufferBits &lt; 512
-     * </p>
-     * @param digest byte[]
+     * Pads the remaining data and processes the final block(s). Afterwards the digest is in {@link #hash}.
      */
-    public void NESSIEfinalize(byte[] digest) {
-        // append a '1'-bit:
-        buffer[bufferPos] |= 0x80 >>> (bufferBits & 7);
-        bufferPos++; // all remaining bits on the current byte are set to zero.
-        // pad with zero bits to complete 512N + 256 bits:
-        if (bufferPos > 32) {
-            while (bufferPos < 64) {
-                buffer[bufferPos++] = 0;
-            }
-            // process data block:
+    private void finish() {
+        // append a '1'-bit
+        buffer[bufferPos++] = (byte) 0x80;
+        // pad with zero bits to complete 512N + 256 bits
+        if (bufferPos > LENGTH_OFFSET) {
+            Arrays.fill(buffer, bufferPos, BLOCK_BYTES, (byte) 0);
             processBuffer();
-            // reset buffer:
             bufferPos = 0;
         }
-        while (bufferPos < 32) {
-            buffer[bufferPos++] = 0;
+        Arrays.fill(buffer, bufferPos, BLOCK_BYTES - 9, (byte) 0);
+        // append the 256-bit length of the hashed data (in bits)
+        buffer[BLOCK_BYTES - 9] = (byte) (byteCount >>> 61);
+        long bitLength = byteCount << 3;
+        for (int i = BLOCK_BYTES - 1; i >= BLOCK_BYTES - 8; i--, bitLength >>>= 8) {
+            buffer[i] = (byte) bitLength;
         }
-        // append bit length of hashed data:
-        System.arraycopy(bitLength, 0, buffer, 32, 32);
-        // process data block:
         processBuffer();
-        // return the completed message digest:
+    }
+
+    /**
+     * Get the hash value from the hashing state.
+     *
+     * @param digest the array to write the digest to (at least {@link #DIGESTBYTES} long)
+     */
+    public void NESSIEfinalize(byte[] digest) {
+        finish();
         for (int i = 0, j = 0; i < 8; i++, j += 8) {
             long h = hash[i];
-            digest[j] = (byte) (h >>> 56);
-            digest[j + 1] = (byte) (h >>> 48);
-            digest[j + 2] = (byte) (h >>> 40);
-            digest[j + 3] = (byte) (h >>> 32);
-            digest[j + 4] = (byte) (h >>> 24);
-            digest[j + 5] = (byte) (h >>> 16);
-            digest[j + 6] = (byte) (h >>> 8);
-            digest[j + 7] = (byte) (h);
+            for (int k = 7; k >= 0; k--, h >>>= 8) {
+                digest[j + k] = (byte) h;
+            }
         }
     }
 
     /**
-     * Delivers string input data to the hashing algorithm.
+     * Get the hash value from the hashing state as upper-case hexadecimal string.
      *
-     * @param source plaintext data to hash (ASCII text string).
-     *               This method maintains the invariant: bufferBits &lt; 512
+     * @return the digest in hexadecimal notation
      */
-    public void NESSIEadd(String source) {
-        if (source.length() > 0) {
-            byte[] data = new byte[source.length()];
-            for (int i = 0; i < source.length(); i++) {
-                data[i] = (byte) source.charAt(i);
+    public String NESSIEfinalizeHex() {
+        finish();
+        char[] val = new char[2 * DIGESTBYTES];
+        for (int i = 0, j = 0; i < 8; i++, j += 16) {
+            long h = hash[i];
+            for (int k = 15; k >= 0; k--, h >>>= 4) {
+                val[j + k] = HEX_DIGITS[(int) h & 15];
             }
-            NESSIEadd(data, 8 * data.length);
         }
+        return new String(val);
     }
 
     @Override
     public String computeHash(String password) {
-        byte[] digest = new byte[DIGESTBYTES];
         NESSIEinit();
         NESSIEadd(password);
-        NESSIEfinalize(digest);
-        return display(digest);
+        return NESSIEfinalizeHex();
     }
 
 }
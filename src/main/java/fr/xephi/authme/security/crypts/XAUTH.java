@@ -7,12 +7,7 @@ import fr.xephi.authme.security.crypts.description.Usage;
 public class XAUTH extends HexSaltedMethod {
 
     private static String getWhirlpool(String message) {
-        WHIRLPOOL w = new WHIRLPOOL();
-        byte[] digest = new byte[WHIRLPOOL.DIGESTBYTES];
-        w.NESSIEinit();
-        w.NESSIEadd(message);
-        w.NESSIEfinalize(digest);
-        return WHIRLPOOL.display(digest);
+        return new WHIRLPOOL().computeHash(message);
     }
 
     @Override
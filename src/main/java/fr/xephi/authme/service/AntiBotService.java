@@ -1,5 +1,6 @@
 package fr.xephi.authme.service;
 
+import fr.xephi.authme.initialization.HasCleanup;
 import fr.xephi.authme.initialization.SettingsDependent;
 import fr.xephi.authme.message.MessageKey;
 import fr.xephi.authme.message.Messages;
@@ -7,36 +8,50 @@ import fr.xephi.authme.permission.AdminPermission;
 import fr.xephi.authme.permission.PermissionsManager;
 import fr.xephi.authme.settings.Settings;
 import fr.xephi.authme.settings.properties.ProtectionSettings;
+import fr.xephi.authme.util.InternetProtocolUtils;
+import fr.xephi.authme.util.expiring.SlidingWindowCounter;
 import org.bukkit.scheduler.BukkitTask;
 
 import javax.inject.Inject;
-import java.time.Instant;
-import java.time.temporal.ChronoUnit;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import static fr.xephi.authme.service.BukkitService.TICKS_PER_MINUTE;
 import static fr.xephi.authme.service.BukkitService.TICKS_PER_SECOND;
 
 /**
  * The AntiBot Service Management class.
+ * <p>
+ * Joins are counted in a sliding window over the configured interval, both globally and per subnet.
+ * The number of subnet counters is limited so that memory stays bounded no matter how many addresses
+ * join; once the limit is reached, joins from new subnets are only counted globally until idle counters
+ * have been cleaned up.
  */
-public class AntiBotService implements SettingsDependent {
+public class AntiBotService implements SettingsDependent, HasCleanup {
+
+    /** Number of buckets the interval is split into for the join rate counters. */
+    private static final int WINDOW_BUCKETS = 10;
+    /** Maximum number of subnets whose join rate is tracked. */
+    private static final int MAX_TRACKED_SUBNETS = 10_000;
 
     // Instances
     private final Messages messages;
     private final PermissionsManager permissionsManager;
     private final BukkitService bukkitService;
-    private final CopyOnWriteArrayList<String> antibotKicked = new CopyOnWriteArrayList<>();
+    private final Set<String> antibotKicked = ConcurrentHashMap.newKeySet();
+    private final Map<String, SlidingWindowCounter> subnetJoinCounters = new ConcurrentHashMap<>();
     // Settings
     private int duration;
     private int sensibility;
+    private int subnetSensibility;
     private int interval;
     // Service status
-    private AntiBotStatus antiBotStatus;
+    private volatile AntiBotStatus antiBotStatus;
     private boolean startup;
     private BukkitTask disableTask;
-    private Instant lastFlaggedJoin;
-    private int flagged = 0;
+    private volatile SlidingWindowCounter joinCounter;
 
     @Inject
     AntiBotService(Settings settings, Messages messages, PermissionsManager permissionsManager,
@@ -47,7 +62,6 @@ public class AntiBotService implements SettingsDependent {
         this.bukkitService = bukkitService;
         // Initial status
         disableTask = null;
-        flagged = 0;
         antiBotStatus = AntiBotStatus.DISABLED;
         startup = true;
         // Load settings and start if required
@@ -59,7 +73,10 @@ public class AntiBotService implements SettingsDependent {
         // Load settings
         duration = settings.getProperty(ProtectionSettings.ANTIBOT_DURATION);
         sensibility = settings.getProperty(ProtectionSettings.ANTIBOT_SENSIBILITY);
+        subnetSensibility = settings.getProperty(ProtectionSettings.ANTIBOT_SUBNET_SENSIBILITY);
         interval = settings.getProperty(ProtectionSettings.ANTIBOT_INTERVAL);
+        joinCounter = new SlidingWindowCounter(interval, TimeUnit.SECONDS, WINDOW_BUCKETS);
+        subnetJoinCounters.clear();
 
         // Stop existing protection
         stopProtection();
@@ -83,7 +100,7 @@ public class AntiBotService implements SettingsDependent {
         }
     }
 
-    private void startProtection() {
+    private synchronized void startProtection() {
         // Disable existing antibot session
         stopProtection();
         // Enable the new session
@@ -98,14 +115,14 @@ public class AntiBotService implements SettingsDependent {
         disableTask = bukkitService.runTaskLater(this::stopProtection, duration * TICKS_PER_MINUTE);
     }
 
-    private void stopProtection() {
+    private synchronized void stopProtection() {
         if (antiBotStatus != AntiBotStatus.ACTIVE) {
             return;
         }
 
         // Change status
         antiBotStatus = AntiBotStatus.LISTENING;
-        flagged = 0;
+        joinCounter.clear();
         antibotKicked.clear();
 
         // Cancel auto-disable task
@@ -149,27 +166,52 @@ public class AntiBotService implements SettingsDependent {
      * @return if the player should be kicked
      */
     public boolean shouldKick() {
+        return shouldKick(null);
+    }
+
+    /**
+     * Returns if a player joining from the given address should be kicked due to antibot service.
+     *
+     * @param address the IP address of the player, or null to only check the global join rate
+     * @return if the player should be kicked
+     */
+    public boolean shouldKick(String address) {
         if (antiBotStatus == AntiBotStatus.DISABLED) {
             return false;
         } else if (antiBotStatus == AntiBotStatus.ACTIVE) {
             return true;
         }
 
-        if (lastFlaggedJoin == null) {
-            lastFlaggedJoin = Instant.now();
-        }
-        if (ChronoUnit.SECONDS.between(lastFlaggedJoin, Instant.now()) <= interval) {
-            flagged++;
-        } else {
-            // reset to 1 because this player is also count as not registered
-            flagged = 1;
-            lastFlaggedJoin = null;
-        }
-        if (flagged > sensibility) {
+        final long now = System.currentTimeMillis();
+        if (joinCounter.increment(now) > sensibility) {
             startProtection();
             return true;
         }
-        return false;
+        if (address == null || subnetSensibility <= 0) {
+            return false;
+        }
+        final SlidingWindowCounter subnetCounter = getSubnetJoinCounter(InternetProtocolUtils.getSubnet(address));
+        return subnetCounter != null && subnetCounter.increment(now) > subnetSensibility;
+    }
+
+    @Override
+    public void performCleanup() {
+        // Counters without joins in the interval behave exactly like new ones, so we can drop them
+        final long now = System.currentTimeMillis();
+        subnetJoinCounters.values().removeIf(counter -> counter.total(now) == 0);
+    }
+
+    /**
+     * Returns the join counter of the given subnet, creating it if necessary. Returns null if the maximum
+     * number of tracked subnets is reached.
+     */
+    private SlidingWindowCounter getSubnetJoinCounter(String subnet) {
+        SlidingWindowCounter counter = subnetJoinCounters.get(subnet);
+        if (counter == null && subnetJoinCounters.size() < MAX_TRACKED_SUBNETS) {
+            counter = subnetJoinCounters.computeIfAbsent(subnet,
+                k -> new SlidingWindowCounter(interval, TimeUnit.SECONDS, WINDOW_BUCKETS));
+        }
+        return counter;
     }
 
     /**
@@ -191,7 +233,7 @@ public class AntiBotService implements SettingsDependent {
      * @param name the name to add
      */
     public void addPlayerKick(String name) {
-        antibotKicked.addIfAbsent(name.toLowerCase());
+        antibotKicked.add(name.toLowerCase());
     }
 
     public enum AntiBotStatus {
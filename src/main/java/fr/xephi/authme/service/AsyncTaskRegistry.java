@@ -0,0 +1,188 @@
+package fr.xephi.authme.service;
+
+import fr.xephi.authme.ConsoleLogger;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Keeps track of the asynchronous tasks submitted by AuthMe, from the moment they are submitted
+ * until they have finished, so that the plugin can wait for them when it shuts down.
+ * Tasks which could not be scheduled or which have been cancelled before running are not waited for.
+ * Tasks handed to a scheduler which have not started when the plugin shuts down are taken over and run
+ * by the thread waiting for them, as the scheduler may not start them anymore (Bukkit's scheduler only
+ * dispatches asynchronous tasks from the main thread, which is blocked while the plugin is disabled).
+ */
+public class AsyncTaskRegistry {
+
+    /** Interval in milliseconds in which pending tasks are checked for cancellation while waiting. */
+    private static final long CANCELLATION_CHECK_INTERVAL_MILLIS = 100;
+
+    private final Set<TrackedTask> pendingTasks = ConcurrentHashMap.newKeySet();
+
+    @Inject
+    public AsyncTaskRegistry() {
+    }
+
+    /**
+     * Registers the given task as pending and returns a runnable which runs it and marks it as finished.
+     * The returned runnable must be run, or be {@link TrackedTask#cancel cancelled} if it cannot be run;
+     * it only runs the task the first time it is run.
+     *
+     * @param name the name of the task, used when reporting tasks which did not finish
+     * @param task the task to track
+     * @return the runnable to submit instead of the task
+     */
+    public TrackedTask track(String name, Runnable task) {
+        TrackedTask trackedTask = new TrackedTask(name, task);
+        pendingTasks.add(trackedTask);
+        return trackedTask;
+    }
+
+    /**
+     * @return the number of tracked tasks which have not finished yet
+     */
+    public int getPendingCount() {
+        removeCancelledTasks();
+        return pendingTasks.size();
+    }
+
+    /**
+     * Waits until all pending tasks, including the ones submitted while waiting, have finished
+     * or the timeout has elapsed. Tasks which are still waiting to be started by their scheduler
+     * are removed from it and run on the current thread.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit the unit of the timeout
+     * @return the names of the tasks which have not finished (empty list if all have finished)
+     */
+    public List<String> awaitAll(long timeout, TimeUnit unit) {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        try {
+            while (getPendingCount() > 0) {
+                runUnstartedScheduledTasks();
+                long remainingNanos = deadline - System.nanoTime();
+                if (remainingNanos <= 0) {
+                    break;
+                }
+                CompletableFuture<?>[] futures = pendingTasks.stream()
+                    .map(task -> task.future)
+                    .toArray(CompletableFuture<?>[]::new);
+                try {
+                    CompletableFuture.allOf(futures).get(Math.min(remainingNanos,
+                        TimeUnit.MILLISECONDS.toNanos(CANCELLATION_CHECK_INTERVAL_MILLIS)), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    // Check for cancelled and newly scheduled tasks and wait again
+                }
+            }
+        } catch (ExecutionException e) {
+            // Report the tasks that are still pending
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<String> unfinishedTasks = new ArrayList<>();
+        for (TrackedTask task : pendingTasks) {
+            unfinishedTasks.add(task.name);
+        }
+        return unfinishedTasks;
+    }
+
+    private void removeCancelledTasks() {
+        for (TrackedTask task : pendingTasks) {
+            if (!task.isStarted.get() && task.cancellationCheck.getAsBoolean()) {
+                task.cancel();
+            }
+        }
+    }
+
+    private void runUnstartedScheduledTasks() {
+        for (TrackedTask task : pendingTasks) {
+            if (task.canceller != null && task.isStarted.compareAndSet(false, true)) {
+                task.canceller.run();
+                try {
+                    task.runTask();
+                } catch (RuntimeException e) {
+                    ConsoleLogger.logException("Error while running task '" + task.name + "' on shutdown:", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a readable name for the given task based on its class.
+     *
+     * @param task the task
+     * @return the name of the task
+     */
+    public static String describe(Runnable task) {
+        String name = task.getClass().getName();
+        int lambdaIndex = name.indexOf("$$Lambda");
+        if (lambdaIndex > 0) {
+            name = name.substring(0, lambdaIndex);
+        }
+        return name.substring(name.lastIndexOf('.') + 1);
+    }
+
+    /**
+     * Runnable wrapping a tracked task, marking it as finished once it has run.
+     */
+    public final class TrackedTask implements Runnable {
+        private final String name;
+        private final Runnable task;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        private final AtomicBoolean isStarted = new AtomicBoolean();
+        private volatile BooleanSupplier cancellationCheck = () -> false;
+        private volatile Runnable canceller;
+
+        private TrackedTask(String name, Runnable task) {
+            this.name = name;
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            // The task may already have been run by the thread waiting for the pending tasks
+            if (isStarted.compareAndSet(false, true)) {
+                runTask();
+            }
+        }
+
+        /**
+         * Marks the task as finished without running it, e.g. if it could not be scheduled.
+         */
+        public void cancel() {
+            pendingTasks.remove(this);
+            future.complete(null);
+        }
+
+        /**
+         * Sets the scheduler callbacks of the task, once it has been handed to a scheduler. Tasks which have
+         * been cancelled by the scheduler before they were started are no longer waited for; tasks which are
+         * still waiting to be started on shutdown are removed from the scheduler and run by the waiting thread.
+         *
+         * @param cancellationCheck returns whether the scheduler has cancelled the task
+         * @param canceller removes the task from the scheduler
+         */
+        public void setScheduler(BooleanSupplier cancellationCheck, Runnable canceller) {
+            this.cancellationCheck = cancellationCheck;
+            this.canceller = canceller;
+        }
+
+        private void runTask() {
+            try {
+                task.run();
+            } finally {
+                cancel();
+            }
+        }
+    }
+}
@@ -38,13 +38,15 @@ public class BukkitService implements SettingsDependent {
     public static final int TICKS_PER_MINUTE = 60 * TICKS_PER_SECOND;
 
     private final AuthMe authMe;
+    private final AsyncTaskRegistry asyncTaskRegistry;
     private final boolean getOnlinePlayersIsCollection;
     private Method getOnlinePlayers;
     private boolean useAsyncTasks;
 
     @Inject
-    BukkitService(AuthMe authMe, Settings settings) {
+    BukkitService(AuthMe authMe, AsyncTaskRegistry asyncTaskRegistry, Settings settings) {
         this.authMe = authMe;
+        this.asyncTaskRegistry = asyncTaskRegistry;
         getOnlinePlayersIsCollection = initializeOnlinePlayersIsCollectionField();
         reload(settings);
     }
@@ -133,7 +135,8 @@ public class BukkitService implements SettingsDependent {
      * <b>Asynchronous tasks should never access any API in Bukkit. Great care
      * should be taken to assure the thread-safety of asynchronous tasks.</b>
      * <p>
-     * Returns a task that will run asynchronously.
+     * Returns a task that will run asynchronously. The task is tracked by the {@link AsyncTaskRegistry}
+     * until it has finished or has been cancelled.
      *
      * @param task the task to be run
      * @return a BukkitTask that contains the id number
@@ -141,7 +144,20 @@ public class BukkitService implements SettingsDependent {
      * @throws IllegalArgumentException if task is null
      */
     public BukkitTask runTaskAsynchronously(Runnable task) {
-        return Bukkit.getScheduler().runTaskAsynchronously(authMe, task);
+        AsyncTaskRegistry.TrackedTask trackedTask = asyncTaskRegistry.track(AsyncTaskRegistry.describe(task), task);
+        final BukkitTask bukkitTask;
+        try {
+            bukkitTask = Bukkit.getScheduler().runTaskAsynchronously(authMe, trackedTask);
+        } catch (RuntimeException e) {
+            // The task will never run, e.g. because the plugin is already disabled
+            trackedTask.cancel();
+            throw e;
+        }
+        final int taskId = bukkitTask.getTaskId();
+        trackedTask.setScheduler(
+            () -> !Bukkit.getScheduler().isQueued(taskId) && !Bukkit.getScheduler().isCurrentlyRunning(taskId),
+            () -> Bukkit.getScheduler().cancelTask(taskId));
+        return bukkitTask;
     }
 
     /**
@@ -178,6 +194,21 @@ public class BukkitService implements SettingsDependent {
         return task.runTaskTimer(authMe, delay, period);
     }
 
+    /**
+     * Returns the number of tasks of AuthMe which are queued or running in the Bukkit scheduler.
+     *
+     * @return the number of pending tasks
+     */
+    public int countPendingTasks() {
+        int count = 0;
+        for (BukkitTask task : Bukkit.getScheduler().getPendingTasks()) {
+            if (task.getOwner() == authMe) {
+                ++count;
+            }
+        }
+        return count;
+    }
+
     /**
      * Broadcast a message to all players.
      *
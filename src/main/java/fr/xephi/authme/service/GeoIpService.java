@@ -1,10 +1,13 @@
 package fr.xephi.authme.service;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.maxmind.geoip.Country;
 import com.maxmind.geoip.LookupService;
 import fr.xephi.authme.ConsoleLogger;
 import fr.xephi.authme.initialization.DataFolder;
-import fr.xephi.authme.util.FileUtils;
+import fr.xephi.authme.settings.Settings;
+import fr.xephi.authme.settings.properties.ProtectionSettings;
+import fr.xephi.authme.util.StringUtils;
 
 import javax.inject.Inject;
 import java.io.File;
@@ -12,125 +15,278 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.net.InetAddress;
 import java.net.URL;
 import java.net.URLConnection;
+import java.net.UnknownHostException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.zip.GZIPInputStream;
 
 import static com.maxmind.geoip.LookupService.GEOIP_MEMORY_CACHE;
 
+/**
+ * Looks up the country of IP addresses with the GeoLite database.
+ * <p>
+ * The database is downloaded and loaded on a background thread; lookups never wait for it
+ * and return the "unknown" value until it is available. Once a newer database has been loaded,
+ * the lookup service is swapped and subsequent lookups use it. Results are kept in a fixed-size
+ * cache indexed by the numeric IP address; a new result replaces the one in its slot.
+ */
 public class GeoIpService {
     private static final String LICENSE =
         "[LICENSE] This product uses data from the GeoLite API created by MaxMind, available at http://www.maxmind.com";
     private static final String GEOIP_URL =
         "http://geolite.maxmind.com/download/geoip/database/GeoLiteCountry/GeoIP.dat.gz";
-    private LookupService lookupService;
-    private Thread downloadTask;
+    private static final long MAX_DATA_AGE = TimeUnit.DAYS.toMillis(30);
+    private static final long RETRY_DELAY = TimeUnit.HOURS.toMillis(1);
+    /** Number of slots of the lookup cache; must be a power of two. */
+    private static final int CACHE_SIZE = 4096;
 
     private final File dataFile;
+    private final boolean isDownloadEnabled;
+    private final AtomicBoolean isLoading = new AtomicBoolean();
+    private volatile LookupService lookupService;
+    private volatile AtomicReferenceArray<CachedCountry> cache = new AtomicReferenceArray<>(CACHE_SIZE);
+    private volatile long nextUpdateCheck;
 
     @Inject
-    GeoIpService(@DataFolder File dataFolder) {
-        this.dataFile = new File(dataFolder, "GeoIP.dat");
+    GeoIpService(@DataFolder File dataFolder, Settings settings) {
+        String databaseFile = settings.getProperty(ProtectionSettings.GEOIP_DATABASE_FILE);
+        this.isDownloadEnabled = StringUtils.isEmpty(databaseFile);
+        this.dataFile = isDownloadEnabled ? new File(dataFolder, "GeoIP.dat") : resolve(dataFolder, databaseFile);
         // Fires download of recent data or the initialization of the look up service
-        isDataAvailable();
+        startBackgroundLoad();
     }
 
     @VisibleForTesting
     GeoIpService(@DataFolder File dataFolder, LookupService lookupService) {
         this.dataFile = dataFolder;
+        this.isDownloadEnabled = false;
         this.lookupService = lookupService;
+        this.nextUpdateCheck = Long.MAX_VALUE;
     }
 
     /**
-     * Download (if absent or old) the GeoIpLite data file and then try to load it.
+     * Resolves the given path against the data folder, unless it is absolute.
      *
-     * @return True if the data is available, false otherwise.
+     * @param dataFolder the data folder of the plugin
+     * @param path the configured path
+     * @return the file
      */
-    private synchronized boolean isDataAvailable() {
-        if (downloadTask != null && downloadTask.isAlive()) {
-            return false;
+    private static File resolve(File dataFolder, String path) {
+        File file = new File(path);
+        return file.isAbsolute() ? file : new File(dataFolder, path);
+    }
+
+    /**
+     * Get the country code of the given IP address.
+     *
+     * @param ip textual IP address to lookup.
+     *
+     * @return two-character ISO 3166-1 alpha code for the country.
+     */
+    public String getCountryCode(String ip) {
+        CachedCountry country = lookUp(ip);
+        return country == null ? "--" : country.code;
+    }
+
+    /**
+     * Get the country name of the given IP address.
+     *
+     * @param ip textual IP address to lookup.
+     *
+     * @return The name of the country.
+     */
+    public String getCountryName(String ip) {
+        CachedCountry country = lookUp(ip);
+        return country == null ? "N/A" : country.name;
+    }
+
+    /**
+     * Returns the country of the given IP address from the cache or the lookup service.
+     *
+     * @param ip the IP address to look up
+     * @return the country, or null if the IP address is local or no data is available yet
+     */
+    private CachedCountry lookUp(String ip) {
+        if ("127.0.0.1".equals(ip)) {
+            return null;
         }
-        if (lookupService != null) {
-            return true;
+        final LookupService service = lookupService;
+        if (System.currentTimeMillis() > nextUpdateCheck) {
+            startBackgroundLoad();
+        }
+        if (service == null) {
+            return null;
         }
 
-        if (dataFile.exists()) {
-            boolean dataIsOld = (System.currentTimeMillis() - dataFile.lastModified()) > TimeUnit.DAYS.toMillis(30);
-            if (!dataIsOld) {
-                try {
-                    lookupService = new LookupService(dataFile, GEOIP_MEMORY_CACHE);
-                    ConsoleLogger.info(LICENSE);
-                    return true;
-                } catch (IOException e) {
-                    ConsoleLogger.logException("Failed to load GeoLiteAPI database", e);
-                    return false;
-                }
-            } else {
-                FileUtils.delete(dataFile);
+        final AtomicReferenceArray<CachedCountry> currentCache = cache;
+        final long ipv4 = parseIpv4(ip);
+        if (ipv4 >= 0) {
+            final int index = indexOf((int) ipv4);
+            CachedCountry cached = currentCache.get(index);
+            if (cached == null || cached.ipv6 != null || cached.ipv4 != (int) ipv4) {
+                cached = new CachedCountry((int) ipv4, null, service.getCountry(ip));
+                currentCache.set(index, cached);
             }
+            return cached;
+        }
+        final byte[] ipv6 = parseIpv6(ip);
+        if (ipv6 == null) {
+            return new CachedCountry(0, null, service.getCountry(ip));
+        }
+        final int index = indexOf(Arrays.hashCode(ipv6));
+        CachedCountry cached = currentCache.get(index);
+        if (cached == null || !Arrays.equals(cached.ipv6, ipv6)) {
+            cached = new CachedCountry(0, ipv6, service.getCountry(ip));
+            currentCache.set(index, cached);
+        }
+        return cached;
+    }
+
+    private void startBackgroundLoad() {
+        if (isLoading.compareAndSet(false, true)) {
+            Thread loadTask = new Thread(this::loadDatabase, "AuthMe-GeoIP");
+            loadTask.setDaemon(true);
+            loadTask.start();
         }
-        // Ok, let's try to download the data file!
-        downloadTask = createDownloadTask();
-        downloadTask.start();
-        return false;
     }
 
-    private Thread createDownloadTask() {
-        return new Thread(new Runnable() {
-            @Override
-            public void run() {
+    /**
+     * Downloads the data file if it is absent or old and loads it. The current lookup service
+     * keeps being used until the new one has been loaded.
+     */
+    private void loadDatabase() {
+        try {
+            if (isDownloadEnabled && isOutdated()) {
                 try {
-                    URL downloadUrl = new URL(GEOIP_URL);
-                    URLConnection conn = downloadUrl.openConnection();
-                    conn.setConnectTimeout(10000);
-                    conn.connect();
-                    InputStream input = conn.getInputStream();
-                    if (conn.getURL().toString().endsWith(".gz")) {
-                        input = new GZIPInputStream(input);
-                    }
-                    OutputStream output = new FileOutputStream(dataFile);
-                    byte[] buffer = new byte[2048];
-                    int length = input.read(buffer);
-                    while (length >= 0) {
-                        output.write(buffer, 0, length);
-                        length = input.read(buffer);
-                    }
-                    output.close();
-                    input.close();
+                    downloadDatabase();
                 } catch (IOException e) {
+                    // Keep using the old data file if there is one
                     ConsoleLogger.logException("Could not download GeoLiteAPI database", e);
                 }
             }
-        });
+            if (!dataFile.exists()) {
+                ConsoleLogger.warning("GeoIP database '" + dataFile + "' is not available");
+                nextUpdateCheck = System.currentTimeMillis() + RETRY_DELAY;
+                return;
+            }
+            final boolean isFirstLoad = lookupService == null;
+            final LookupService newService = new LookupService(dataFile, GEOIP_MEMORY_CACHE);
+            cache = new AtomicReferenceArray<>(CACHE_SIZE);
+            lookupService = newService;
+            // Outdated data (failed download) is checked again after the retry delay
+            nextUpdateCheck = isDownloadEnabled
+                ? Math.max(dataFile.lastModified() + MAX_DATA_AGE, System.currentTimeMillis() + RETRY_DELAY)
+                : Long.MAX_VALUE;
+            if (isFirstLoad) {
+                ConsoleLogger.info(LICENSE);
+            }
+        } catch (IOException e) {
+            ConsoleLogger.logException("Failed to load GeoLiteAPI database", e);
+            nextUpdateCheck = System.currentTimeMillis() + RETRY_DELAY;
+        } finally {
+            isLoading.set(false);
+        }
+    }
+
+    private boolean isOutdated() {
+        return !dataFile.exists() || System.currentTimeMillis() - dataFile.lastModified() > MAX_DATA_AGE;
+    }
+
+    private void downloadDatabase() throws IOException {
+        // Download to a temporary file so that an interrupted download does not replace the current data
+        File tempFile = new File(dataFile.getParentFile(), dataFile.getName() + ".download");
+        URL downloadUrl = new URL(GEOIP_URL);
+        URLConnection conn = downloadUrl.openConnection();
+        conn.setConnectTimeout(10000);
+        conn.connect();
+        InputStream input = conn.getInputStream();
+        if (conn.getURL().toString().endsWith(".gz")) {
+            input = new GZIPInputStream(input);
+        }
+        try (InputStream in = input; OutputStream output = new FileOutputStream(tempFile)) {
+            byte[] buffer = new byte[2048];
+            int length = in.read(buffer);
+            while (length >= 0) {
+                output.write(buffer, 0, length);
+                length = in.read(buffer);
+            }
+        }
+        Files.move(tempFile.toPath(), dataFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static int indexOf(int hash) {
+        int h = hash * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (CACHE_SIZE - 1);
     }
 
     /**
-     * Get the country code of the given IP address.
-     *
-     * @param ip textual IP address to lookup.
+     * Parses the given text as IPv4 address in dotted-decimal notation.
      *
-     * @return two-character ISO 3166-1 alpha code for the country.
+     * @param ip the textual IP address
+     * @return the address as unsigned 32-bit number, or -1 if the text is not an IPv4 address
      */
-    public String getCountryCode(String ip) {
-        if (!"127.0.0.1".equals(ip) && isDataAvailable()) {
-            return lookupService.getCountry(ip).getCode();
+    @VisibleForTesting
+    static long parseIpv4(String ip) {
+        long result = 0;
+        int parts = 0;
+        int value = -1;
+        for (int i = 0; i < ip.length(); ++i) {
+            char c = ip.charAt(i);
+            if (c >= '0' && c <= '9') {
+                value = (value < 0 ? 0 : value * 10) + (c - '0');
+                if (value > 255) {
+                    return -1;
+                }
+            } else if (c == '.' && value >= 0 && parts < 3) {
+                result = (result << 8) | value;
+                ++parts;
+                value = -1;
+            } else {
+                return -1;
+            }
         }
-        return "--";
+        return parts == 3 && value >= 0 ? (result << 8) | value : -1;
     }
 
     /**
-     * Get the country name of the given IP address.
-     *
-     * @param ip textual IP address to lookup.
+     * Returns the bytes of the given IPv6 address without performing any DNS lookups.
      *
-     * @return The name of the country.
+     * @param ip the textual IP address
+     * @return the bytes of the address, or null if the text is not an IPv6 address
      */
-    public String getCountryName(String ip) {
-        if (!"127.0.0.1".equals(ip) && isDataAvailable()) {
-            return lookupService.getCountry(ip).getName();
+    private static byte[] parseIpv6(String ip) {
+        if (ip.indexOf(':') < 0) {
+            return null;
+        }
+        // Text containing a colon is parsed as IPv6 literal by InetAddress, without name resolution
+        try {
+            return InetAddress.getByName(ip).getAddress();
+        } catch (UnknownHostException e) {
+            return null;
         }
-        return "N/A";
     }
 
+    /**
+     * Result of a country lookup for an IP address.
+     */
+    private static final class CachedCountry {
+        private final int ipv4;
+        private final byte[] ipv6;
+        private final String code;
+        private final String name;
+
+        CachedCountry(int ipv4, byte[] ipv6, Country country) {
+            this.ipv4 = ipv4;
+            this.ipv6 = ipv6;
+            this.code = country.getCode();
+            this.name = country.getName();
+        }
+    }
 }
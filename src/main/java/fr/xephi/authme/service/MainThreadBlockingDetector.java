@@ -0,0 +1,191 @@
+package fr.xephi.authme.service;
+
+import com.google.common.annotations.VisibleForTesting;
+import fr.xephi.authme.ConsoleLogger;
+import fr.xephi.authme.initialization.SettingsDependent;
+import fr.xephi.authme.settings.Settings;
+import fr.xephi.authme.settings.properties.PluginSettings;
+import org.bukkit.Bukkit;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Detects blocking calls (database access, hashing) which are performed on the main server thread.
+ * Calls are aggregated by operation and call site, i.e. the first method outside of the data source
+ * and security classes and of libraries such as Guava's cache, and warnings are logged at most once
+ * per interval for each call site.
+ */
+public class MainThreadBlockingDetector implements SettingsDependent {
+
+    private static final int SAMPLE_STACK_TRACE_DEPTH = 8;
+    private static final String[] IGNORED_CLASS_PREFIXES = {
+        "fr.xephi.authme.datasource.", "fr.xephi.authme.security.", "fr.xephi.authme.libs.", "com.google.",
+        "java.", "javax.", "sun.", "com.sun.", "jdk."
+    };
+
+    private final Map<String, CallSiteStats> callSites = new ConcurrentHashMap<>();
+    private final BooleanSupplier primaryThreadCheck;
+    private volatile boolean isEnabled;
+    private long warningIntervalMillis;
+
+    @Inject
+    MainThreadBlockingDetector(Settings settings) {
+        this(settings, Bukkit::isPrimaryThread);
+    }
+
+    @VisibleForTesting
+    MainThreadBlockingDetector(Settings settings, BooleanSupplier primaryThreadCheck) {
+        this.primaryThreadCheck = primaryThreadCheck;
+        reload(settings);
+    }
+
+    /**
+     * Records a blocking call if it was performed on the main thread. To be called once the call is done.
+     *
+     * @param operation the name of the blocking operation
+     * @param startNanos the value of {@link System#nanoTime()} when the call was started
+     */
+    public void recordCall(String operation, long startNanos) {
+        if (!isEnabled || !primaryThreadCheck.getAsBoolean()) {
+            return;
+        }
+        record(operation, System.nanoTime() - startNanos, new Throwable().getStackTrace());
+    }
+
+    @VisibleForTesting
+    void record(String operation, long duration, StackTraceElement[] stackTrace) {
+        int callSiteIndex = findCallSite(stackTrace);
+        String callSite = callSiteIndex < 0
+            ? "unknown"
+            : stackTrace[callSiteIndex].getClassName() + "#" + stackTrace[callSiteIndex].getMethodName();
+        CallSiteStats stats = callSites.computeIfAbsent(operation + " @ " + callSite,
+            k -> new CallSiteStats(operation, callSite, stackTrace, Math.max(callSiteIndex, 0)));
+        stats.count.increment();
+        stats.totalNanos.add(duration);
+        stats.maxNanos.accumulateAndGet(duration, Math::max);
+
+        long now = System.currentTimeMillis();
+        long lastWarning = stats.lastWarning.get();
+        if ((lastWarning == 0 || now - lastWarning >= warningIntervalMillis)
+            && stats.lastWarning.compareAndSet(lastWarning, now)) {
+            ConsoleLogger.warning("Blocking call " + operation + " on the main thread from " + callSite + " took "
+                + TimeUnit.NANOSECONDS.toMillis(duration) + " ms (" + stats.getCount() + " calls so far)");
+        }
+    }
+
+    /**
+     * @return true if the detection is enabled, false otherwise
+     */
+    public boolean isEnabled() {
+        return isEnabled;
+    }
+
+    /**
+     * Returns the call sites with the highest total time spent on the main thread.
+     *
+     * @param limit the maximum number of call sites to return
+     * @return the worst call sites, sorted by total time descending
+     */
+    public List<CallSiteStats> getWorstCallSites(int limit) {
+        return callSites.values().stream()
+            .sorted(Comparator.comparingLong(CallSiteStats::getTotalNanos).reversed())
+            .limit(limit)
+            .collect(Collectors.toList());
+    }
+
+    @Override
+    public void reload(Settings settings) {
+        isEnabled = settings.getProperty(PluginSettings.DETECT_MAIN_THREAD_CALLS);
+        warningIntervalMillis = TimeUnit.SECONDS.toMillis(
+            settings.getProperty(PluginSettings.MAIN_THREAD_WARNING_INTERVAL));
+    }
+
+    /**
+     * Returns the index of the call site in the stack trace.
+     *
+     * @param stackTrace the stack trace of the call
+     * @return index of the first frame which is not ignored, or -1 if there is none
+     */
+    private static int findCallSite(StackTraceElement[] stackTrace) {
+        for (int i = 0; i < stackTrace.length; ++i) {
+            if (!isIgnored(stackTrace[i].getClassName())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isIgnored(String className) {
+        if (className.equals(MainThreadBlockingDetector.class.getName())) {
+            return true;
+        }
+        for (String prefix : IGNORED_CLASS_PREFIXES) {
+            if (className.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Statistics of the blocking calls of one operation from one call site.
+     */
+    public static final class CallSiteStats {
+        private final String operation;
+        private final String callSite;
+        private final List<String> sampleStackTrace;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final AtomicLong lastWarning = new AtomicLong();
+
+        CallSiteStats(String operation, String callSite, StackTraceElement[] stackTrace, int callSiteIndex) {
+            this.operation = operation;
+            this.callSite = callSite;
+            this.sampleStackTrace = new ArrayList<>();
+            Arrays.stream(stackTrace)
+                .skip(callSiteIndex)
+                .filter(element -> !element.getClassName().equals(MainThreadBlockingDetector.class.getName()))
+                .limit(SAMPLE_STACK_TRACE_DEPTH)
+                .forEach(element -> sampleStackTrace.add(element.toString()));
+        }
+
+        public String getOperation() {
+            return operation;
+        }
+
+        public String getCallSite() {
+            return callSite;
+        }
+
+        /**
+         * @return the stack trace of the first recorded call, starting at the call site (first frames only)
+         */
+        public List<String> getSampleStackTrace() {
+            return sampleStackTrace;
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        public long getMaxNanos() {
+            return maxNanos.get();
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package fr.xephi.authme.service;
+
+import com.google.common.cache.CacheStats;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.zaxxer.hikari.metrics.PoolStats;
+import fr.xephi.authme.ConsoleLogger;
+import fr.xephi.authme.data.HashingBudgetManager;
+import fr.xephi.authme.data.TempbanManager;
+import fr.xephi.authme.data.auth.PlayerCache;
+import fr.xephi.authme.datasource.CacheDataSource;
+import fr.xephi.authme.datasource.DataSource;
+import fr.xephi.authme.datasource.DataSourceUtils;
+import fr.xephi.authme.datasource.InstrumentedDataSource;
+import fr.xephi.authme.datasource.MySQL;
+import fr.xephi.authme.datasource.PoolMetrics;
+import fr.xephi.authme.initialization.DataFolder;
+import fr.xephi.authme.process.PlayerTaskExecutor;
+import fr.xephi.authme.process.ProcessMetrics;
+import fr.xephi.authme.process.SyncTaskQueue;
+import fr.xephi.authme.process.join.JoinAdmissionController;
+import fr.xephi.authme.settings.Settings;
+import fr.xephi.authme.settings.properties.PluginSettings;
+import fr.xephi.authme.util.LatencyHistogram;
+import fr.xephi.authme.util.PrometheusTextBuilder;
+
+import javax.inject.Inject;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static fr.xephi.authme.service.BukkitService.TICKS_PER_SECOND;
+
+/**
+ * Exports AuthMe's metrics in the Prometheus text format, to a file on an interval and/or through
+ * a local HTTP endpoint. The metrics are collected from the existing counters when they are exported.
+ */
+public class PrometheusExporter {
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    @Inject
+    private Settings settings;
+    @Inject
+    private BukkitService bukkitService;
+    @Inject
+    @DataFolder
+    private File dataFolder;
+    @Inject
+    private DataSource dataSource;
+    @Inject
+    private PlayerCache playerCache;
+    @Inject
+    private ProcessMetrics processMetrics;
+    @Inject
+    private JoinAdmissionController joinAdmissionController;
+    @Inject
+    private PlayerTaskExecutor playerTaskExecutor;
+    @Inject
+    private SyncTaskQueue syncTaskQueue;
+    @Inject
+    private HashingBudgetManager hashingBudgetManager;
+    @Inject
+    private AntiBotService antiBotService;
+    @Inject
+    private TempbanManager tempbanManager;
+
+    private HttpServer httpServer;
+
+    PrometheusExporter() {
+    }
+
+    /**
+     * Starts the file and HTTP exports which are enabled in the settings.
+     */
+    public void start() {
+        int fileInterval = settings.getProperty(PluginSettings.PROMETHEUS_FILE_INTERVAL);
+        if (fileInterval > 0) {
+            File file = new File(dataFolder, settings.getProperty(PluginSettings.PROMETHEUS_FILE));
+            long intervalTicks = (long) fileInterval * TICKS_PER_SECOND;
+            bukkitService.runTaskTimerAsynchronously(() -> writeFile(file), intervalTicks, intervalTicks);
+        }
+
+        int port = settings.getProperty(PluginSettings.PROMETHEUS_PORT);
+        if (port > 0) {
+            startHttpServer(settings.getProperty(PluginSettings.PROMETHEUS_BIND_ADDRESS), port);
+        }
+    }
+
+    /**
+     * Stops the HTTP endpoint, if it has been started.
+     */
+    public void stop() {
+        if (httpServer != null) {
+            httpServer.stop(0);
+            httpServer = null;
+        }
+    }
+
+    /**
+     * Collects the current metrics.
+     *
+     * @return the metrics in the Prometheus text format
+     */
+    public String collectMetrics() {
+        PrometheusTextBuilder builder = new PrometheusTextBuilder()
+            .addGauge("authme_logged_in_players", "Number of players who are logged in", playerCache.getLogged())
+            .addSummary("authme_login_duration_seconds", "Time from submitting a login until it is processed",
+                processMetrics.getLoginLatency())
+            .addSummary("authme_registration_duration_seconds",
+                "Time from submitting a registration until it is processed", processMetrics.getRegistrationLatency())
+            .addSummary("authme_join_duration_seconds", "Time from a player joining until the join is processed",
+                processMetrics.getJoinLatency())
+            .addCounter("authme_joins_admitted_total", "Join processes which have been started",
+                joinAdmissionController.getAdmittedJoins())
+            .addCounter("authme_joins_queued_total", "Joins which had to wait for processing",
+                joinAdmissionController.getQueuedJoins())
+            .addCounter("authme_joins_rejected_total", "Joins which were rejected because the queue was full",
+                joinAdmissionController.getRejectedJoins())
+            .addGauge("authme_join_queue_length", "Joins waiting for processing",
+                joinAdmissionController.getQueueLength())
+            .addGauge("authme_player_tasks_pending", "Login, registration and other player tasks waiting to run, "
+                + "including password hashing", playerTaskExecutor.getPendingTasks())
+            .addGauge("authme_sync_task_queue_length", "Tasks waiting to run on the main thread",
+                syncTaskQueue.getQueueLength())
+            .addGauge("authme_hashing_cost_seconds", "Average time needed to hash a password",
+                hashingBudgetManager.getCostEstimate() / (double) TimeUnit.SECONDS.toNanos(1))
+            .addCounter("authme_hashing_rejections_total", "Login attempts rejected by the hashing budget", "scope",
+                createMap("global", hashingBudgetManager.getGlobalRejections(),
+                    "subnet", hashingBudgetManager.getSubnetRejections(),
+                    "address", hashingBudgetManager.getAddressRejections()))
+            .addGauge("authme_antibot_status", "Current state of the anti-bot protection", "status",
+                getAntiBotStatuses())
+            .addCounter("authme_tempbans_total", "Players which have been tempbanned for failed logins",
+                tempbanManager.getTempbanCount())
+            .addGauge("authme_tempban_tracked_addresses", "IP addresses with recent failed logins",
+                tempbanManager.getTrackedAddressCount());
+        addDataSourceMetrics(builder);
+        return builder.build();
+    }
+
+    private void addDataSourceMetrics(PrometheusTextBuilder builder) {
+        CacheDataSource cacheDataSource = DataSourceUtils.unwrap(dataSource, CacheDataSource.class);
+        if (cacheDataSource != null) {
+            CacheStats stats = cacheDataSource.getCachedAuths().stats();
+            builder.addGauge("authme_cache_size", "Entries in the data source cache",
+                    cacheDataSource.getCachedAuths().size())
+                .addCounter("authme_cache_hits_total", "Data source cache hits", stats.hitCount())
+                .addCounter("authme_cache_misses_total", "Data source cache misses", stats.missCount())
+                .addCounter("authme_cache_evictions_total", "Data source cache evictions", stats.evictionCount());
+        }
+
+        MySQL mySql = DataSourceUtils.unwrap(dataSource, MySQL.class);
+        if (mySql != null) {
+            PoolMetrics poolMetrics = mySql.getPoolMetrics();
+            PoolStats poolStats = poolMetrics.getPoolStats();
+            if (poolStats != null) {
+                builder.addGauge("authme_pool_connections", "Connections of the database pool", "state",
+                    createMap("active", poolStats.getActiveConnections(), "idle", poolStats.getIdleConnections(),
+                        "pending", poolStats.getPendingThreads()));
+            }
+            builder.addSummary("authme_pool_acquire_seconds", "Time needed to get a connection from the pool",
+                    poolMetrics.getAcquireTime())
+                .addCounter("authme_pool_timeouts_total", "Failed attempts to get a connection from the pool",
+                    poolMetrics.getTimeouts());
+        }
+
+        InstrumentedDataSource instrumentedSource = DataSourceUtils.unwrap(dataSource, InstrumentedDataSource.class);
+        if (instrumentedSource != null) {
+            Map<String, LatencyHistogram.Snapshot> snapshots = new LinkedHashMap<>();
+            instrumentedSource.getStatistics().forEach((operation, stats) ->
+                snapshots.put(operation, stats.getSnapshot()));
+            builder.addSummary("authme_datasource_operation_seconds", "Duration of data source operations",
+                "operation", snapshots);
+        }
+    }
+
+    private Map<String, Integer> getAntiBotStatuses() {
+        AntiBotService.AntiBotStatus currentStatus = antiBotService.getAntiBotStatus();
+        Map<String, Integer> statuses = new LinkedHashMap<>();
+        for (AntiBotService.AntiBotStatus status : AntiBotService.AntiBotStatus.values()) {
+            statuses.put(status.name().toLowerCase(), status == currentStatus ? 1 : 0);
+        }
+        return statuses;
+    }
+
+    private void writeFile(File file) {
+        // Write to a temporary file first so that collectors never read a partially written file
+        File tempFile = new File(file.getPath() + ".tmp");
+        try {
+            Files.write(tempFile.toPath(), collectMetrics().getBytes(StandardCharsets.UTF_8));
+            Files.move(tempFile.toPath(), file.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            ConsoleLogger.logException("Could not write metrics to '" + file.getPath() + "':", e);
+        }
+    }
+
+    private void startHttpServer(String bindAddress, int port) {
+        try {
+            httpServer = HttpServer.create(new InetSocketAddress(bindAddress, port), 0);
+            httpServer.createContext("/metrics", this::handleRequest);
+            httpServer.start();
+            ConsoleLogger.info("Serving metrics on http://" + bindAddress + ":" + port + "/metrics");
+        } catch (IOException e) {
+            ConsoleLogger.logException("Could not start the metrics endpoint on port " + port + ":", e);
+        }
+    }
+
+    private void handleRequest(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] response = collectMetrics().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(response);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static <V> Map<String, V> createMap(String key1, V value1, String key2, V value2, String key3, V value3) {
+        Map<String, V> map = new LinkedHashMap<>();
+        map.put(key1, value1);
+        map.put(key2, value2);
+        map.put(key3, value3);
+        return map;
+    }
+}
@@ -68,6 +68,13 @@ public class RecoveryCodeService implements SettingsDependent, HasCleanup {
         recoveryCodes.remove(player);
     }
 
+    /**
+     * @return the number of stored recovery codes, including expired codes which have not been removed yet
+     */
+    public int getCodeCount() {
+        return recoveryCodes.size();
+    }
+
     @Override
     public void reload(Settings settings) {
         recoveryCodeLength = settings.getProperty(SecuritySettings.RECOVERY_CODE_LENGTH);
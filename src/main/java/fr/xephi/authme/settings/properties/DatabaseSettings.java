@@ -106,6 +106,31 @@ public class DatabaseSettings implements SettingsHolder {
     public static final Property<Integer> MYSQL_POOL_SIZE =
         newProperty("DataSource.poolSize", -1);
 
+    @Comment({"MySQL: statements taking longer than this number of milliseconds are logged",
+        "with the operation and the parameter types (not their values); 0 to disable"})
+    public static final Property<Integer> MYSQL_SLOW_QUERY_THRESHOLD =
+        newProperty("DataSource.slowQueryThreshold", 0);
+
+    @Comment({"MySQL: interval in minutes at which the connection pool statistics are logged",
+        "(connection acquire time, active, idle and pending connections, timeouts); 0 to disable"})
+    public static final Property<Integer> MYSQL_POOL_LOG_INTERVAL =
+        newProperty("DataSource.poolStatsLogInterval", 0);
+
+    @Comment({"MySQL: log a warning with a stack trace if a connection is used for longer than",
+        "this number of milliseconds, which may be a connection leak; 0 to disable, min. 2000"})
+    public static final Property<Integer> MYSQL_LEAK_DETECTION_THRESHOLD =
+        newProperty("DataSource.leakDetectionThreshold", 0);
+
+    @Comment({"Record call counts, errors and latencies of all database operations",
+        "Only enable this to investigate performance problems"})
+    public static final Property<Boolean> ENABLE_METRICS =
+        newProperty("DataSource.metrics.enabled", false);
+
+    @Comment({"Interval in minutes at which a summary of the database metrics is logged",
+        "0 to disable"})
+    public static final Property<Integer> METRICS_LOG_INTERVAL =
+        newProperty("DataSource.metrics.logInterval", 15);
+
     private DatabaseSettings() {
     }
 
@@ -78,6 +78,82 @@ public class PluginSettings implements SettingsHolder {
     public static final Property<Boolean> USE_ASYNC_TASKS =
         newProperty("settings.useAsyncTasks", true);
 
+    @Comment({
+        "Maximum time in milliseconds per server tick spent on finishing logins, registrations,",
+        "logouts and quits on the main thread; remaining work continues on the next ticks.",
+        "0 to finish all pending work in the same tick"
+    })
+    public static final Property<Integer> SYNC_TASK_TICK_BUDGET =
+        newProperty("settings.syncTaskTickBudget", 10);
+
+    @Comment({
+        "Number of threads processing logins, registrations and other player actions",
+        "asynchronously. The actions of one player always run one after the other.",
+        "Changes require a restart"
+    })
+    public static final Property<Integer> ASYNC_THREAD_POOL_SIZE =
+        newProperty("settings.asyncThreads", 4);
+
+    @Comment({
+        "Use a virtual thread per asynchronous action instead of the thread pool above",
+        "(requires Java 21 or newer). Changes require a restart"
+    })
+    public static final Property<Boolean> USE_VIRTUAL_THREADS =
+        newProperty("settings.useVirtualThreads", false);
+
+    @Comment({
+        "Maximum number of players whose join is processed at the same time (0 for no limit).",
+        "Further joins wait in a queue, players with a valid session first. Lowering this avoids",
+        "exhausting the database connections when many players join at once, e.g. after a restart"
+    })
+    public static final Property<Integer> MAX_CONCURRENT_JOINS =
+        newProperty("settings.joinAdmission.maxConcurrentJoins", 0);
+
+    @Comment("Maximum number of waiting joins; further players are kicked (0 for no limit)")
+    public static final Property<Integer> MAX_QUEUED_JOINS =
+        newProperty("settings.joinAdmission.maxQueuedJoins", 0);
+
+    @Comment({
+        "Detect database and hashing calls on the main server thread, which block the server.",
+        "Offending call sites are logged and listed in /authme debug mainthread.",
+        "Database calls are only detected if this is enabled on startup"
+    })
+    public static final Property<Boolean> DETECT_MAIN_THREAD_CALLS =
+        newProperty("settings.mainThreadDetection.enabled", false);
+
+    @Comment("Minimum number of seconds between two warnings for the same call site")
+    public static final Property<Integer> MAIN_THREAD_WARNING_INTERVAL =
+        newProperty("settings.mainThreadDetection.warningInterval", 300);
+
+    @Comment({
+        "Measure the time spent in each of AuthMe's event handlers and how often they cancel",
+        "the event. View the results with /authme debug listeners. Only applied on startup"
+    })
+    public static final Property<Boolean> PROFILE_LISTENERS =
+        newProperty("settings.listenerProfiling.enabled", false);
+
+    @Comment({
+        "Interval in seconds in which metrics are written to a file in the Prometheus text format,",
+        "e.g. for the textfile collector of the node exporter. 0 to disable"
+    })
+    public static final Property<Integer> PROMETHEUS_FILE_INTERVAL =
+        newProperty("settings.prometheus.fileInterval", 0);
+
+    @Comment("File to write the metrics to, relative to the AuthMe folder")
+    public static final Property<String> PROMETHEUS_FILE =
+        newProperty("settings.prometheus.file", "metrics.prom");
+
+    @Comment({
+        "Port of the HTTP endpoint (/metrics) which serves metrics in the Prometheus text format.",
+        "0 to disable. Changes to the exporter settings are only applied on restart"
+    })
+    public static final Property<Integer> PROMETHEUS_PORT =
+        newProperty("settings.prometheus.port", 0);
+
+    @Comment("Address the HTTP endpoint listens on; use 0.0.0.0 to listen on all interfaces")
+    public static final Property<String> PROMETHEUS_BIND_ADDRESS =
+        newProperty("settings.prometheus.bindAddress", "127.0.0.1");
+
     private PluginSettings() {
     }
 
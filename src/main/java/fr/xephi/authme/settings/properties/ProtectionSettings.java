@@ -33,6 +33,13 @@ public class ProtectionSettings implements SettingsHolder {
     public static final Property<List<String>> COUNTRIES_BLACKLIST =
         newListProperty("Protection.countriesBlacklist", "A1");
 
+    @Comment({
+        "Path to a GeoIP country database (GeoIP.dat) to use instead of downloading it,",
+        "relative to the AuthMe folder unless absolute. Leave empty to download and update it",
+        "automatically"})
+    public static final Property<String> GEOIP_DATABASE_FILE =
+        newProperty("Protection.geoIpDatabaseFile", "");
+
     @Comment("Do we need to enable automatic antibot system?")
     public static final Property<Boolean> ENABLE_ANTIBOT =
         newProperty("Protection.enableAntiBot", true);
@@ -47,6 +54,13 @@ public class ProtectionSettings implements SettingsHolder {
     public static final Property<Integer> ANTIBOT_SENSIBILITY =
         newProperty("Protection.antiBotSensibility", 10);
 
+    @Comment({
+        "Max number of players from the same subnet (/24 for IPv4, /48 for IPv6) allowed to",
+        "join in the interval; further joins from that subnet are kicked without enabling",
+        "the AntiBot system for everyone. 0 to disable"})
+    public static final Property<Integer> ANTIBOT_SUBNET_SENSIBILITY =
+        newProperty("Protection.antiBotSubnetSensibility", 0);
+
     @Comment("Duration in minutes of the antibot automatic system")
     public static final Property<Integer> ANTIBOT_DURATION =
         newProperty("Protection.antiBotDuration", 10);
@@ -28,6 +28,17 @@ public class SecuritySettings implements SettingsHolder {
     public static final Property<Boolean> USE_LOGGING =
         newProperty("Security.console.logConsole", true);
 
+    @Comment({
+        "Maximum size of the log file in megabytes; when it is exceeded the file is compressed",
+        "and a new one is started. 0 to disable"
+    })
+    public static final Property<Integer> LOG_FILE_MAX_SIZE =
+        newProperty("Security.console.logRotation.maxSize", 0);
+
+    @Comment("Compress the log file and start a new one every day?")
+    public static final Property<Boolean> LOG_FILE_ROTATE_DAILY =
+        newProperty("Security.console.logRotation.daily", false);
+
     @Comment("Enable captcha when a player uses wrong password too many times")
     public static final Property<Boolean> USE_CAPTCHA =
         newProperty("Security.captcha.useCaptcha", false);
@@ -106,6 +117,24 @@ public class SecuritySettings implements SettingsHolder {
     public static final Property<Integer> TEMPBAN_MINUTES_BEFORE_RESET =
         newProperty("Security.tempban.minutesBeforeCounterReset", 480);
 
+    @Comment({"Limit the CPU time spent on checking passwords on /login. Attempts beyond the budget",
+        "are rejected before the password is hashed, protecting the server from login floods"})
+    public static final Property<Boolean> USE_HASHING_BUDGET =
+        newProperty("Security.hashingBudget.enabled", false);
+
+    @Comment({"Milliseconds of hashing time per second allowed for all players together",
+        "1000 corresponds to one fully used CPU core"})
+    public static final Property<Integer> HASHING_BUDGET_GLOBAL =
+        newProperty("Security.hashingBudget.globalMillisPerSecond", 2000);
+
+    @Comment("Milliseconds of hashing time per second allowed for one network (/24 or /48)")
+    public static final Property<Integer> HASHING_BUDGET_PER_SUBNET =
+        newProperty("Security.hashingBudget.subnetMillisPerSecond", 500);
+
+    @Comment("Milliseconds of hashing time per second allowed for one IP address")
+    public static final Property<Integer> HASHING_BUDGET_PER_IP =
+        newProperty("Security.hashingBudget.ipMillisPerSecond", 250);
+
     @Comment("Number of characters a recovery code should have (0 to disable)")
     public static final Property<Integer> RECOVERY_CODE_LENGTH =
         newProperty("Security.recoveryCode.length", 8);
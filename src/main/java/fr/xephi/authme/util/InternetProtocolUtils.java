@@ -0,0 +1,38 @@
+package fr.xephi.authme.util;
+
+/**
+ * Utility class for IP address strings.
+ */
+public final class InternetProtocolUtils {
+
+    /** Number of leading hextets of an IPv6 address forming its /48 network. */
+    private static final int IPV6_SUBNET_GROUPS = 3;
+
+    // Utility class
+    private InternetProtocolUtils() {
+    }
+
+    /**
+     * Returns the network prefix of the given address which is used to group addresses of the same provider:
+     * the /24 network for IPv4 addresses (e.g. "192.168.4" for "192.168.4.20") and the /48 network
+     * for IPv6 addresses (e.g. "2001:db8:85a3" for "2001:db8:85a3:0:0:8a2e:370:7334").
+     * The address is expected in the format of {@link java.net.InetAddress#getHostAddress()}.
+     *
+     * @param address the IP address to process
+     * @return the subnet prefix of the address, or the address itself if it is not recognized
+     */
+    public static String getSubnet(String address) {
+        if (address.indexOf(':') >= 0) {
+            int end = -1;
+            for (int i = 0; i < IPV6_SUBNET_GROUPS; ++i) {
+                end = address.indexOf(':', end + 1);
+                if (end < 0) {
+                    return address;
+                }
+            }
+            return address.substring(0, end);
+        }
+        int lastDot = address.lastIndexOf('.');
+        return lastDot > 0 ? address.substring(0, lastDot) : address;
+    }
+}
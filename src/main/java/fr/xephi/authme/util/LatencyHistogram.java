@@ -0,0 +1,162 @@
+package fr.xephi.authme.util;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of durations in microseconds. Like HdrHistogram, values are grouped in buckets
+ * whose width grows with the magnitude of the value: each power of two is split into 16 buckets,
+ * so recorded values are precise to about 6%.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a duration.
+     *
+     * @param duration the duration
+     * @param unit the time unit of the duration
+     */
+    public void record(long duration, TimeUnit unit) {
+        long micros = Math.max(0, unit.toMicros(duration));
+        buckets.incrementAndGet(getBucketIndex(micros));
+        count.increment();
+        total.add(micros);
+        max.accumulateAndGet(micros, Math::max);
+    }
+
+    /**
+     * @return the number of recorded values
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Creates a snapshot of the recorded values. Values recorded while the snapshot is being created
+     * may or may not be included.
+     *
+     * @return snapshot of the histogram
+     */
+    public Snapshot getSnapshot() {
+        long[] counts = new long[BUCKET_COUNT];
+        long snapshotCount = 0;
+        for (int i = 0; i < BUCKET_COUNT; ++i) {
+            counts[i] = buckets.get(i);
+            snapshotCount += counts[i];
+        }
+        long snapshotTotal = total.sum();
+        return new Snapshot(snapshotCount, snapshotTotal, getPercentile(counts, snapshotCount, 0.5),
+            getPercentile(counts, snapshotCount, 0.95), getPercentile(counts, snapshotCount, 0.99), max.get());
+    }
+
+    static int getBucketIndex(long micros) {
+        if (micros < SUB_BUCKET_COUNT) {
+            return (int) micros;
+        }
+        int highestBit = 63 - Long.numberOfLeadingZeros(micros);
+        int shift = highestBit - SUB_BUCKET_BITS;
+        int subBucket = (int) ((micros >>> shift) & (SUB_BUCKET_COUNT - 1));
+        return (shift + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    static long getHighestValueInBucket(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        long lowestValue = (long) (SUB_BUCKET_COUNT + index % SUB_BUCKET_COUNT) << shift;
+        return lowestValue + (1L << shift) - 1;
+    }
+
+    private static long getPercentile(long[] counts, long totalCount, double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        long threshold = Math.max(1, (long) Math.ceil(totalCount * percentile));
+        long cumulativeCount = 0;
+        for (int i = 0; i < counts.length; ++i) {
+            cumulativeCount += counts[i];
+            if (cumulativeCount >= threshold) {
+                return getHighestValueInBucket(i);
+            }
+        }
+        return getHighestValueInBucket(counts.length - 1);
+    }
+
+    /**
+     * Snapshot of a histogram. All durations are in microseconds.
+     */
+    public static final class Snapshot {
+        private final long count;
+        private final long total;
+        private final long mean;
+        private final long median;
+        private final long percentile95;
+        private final long percentile99;
+        private final long max;
+
+        Snapshot(long count, long total, long median, long percentile95, long percentile99, long max) {
+            this.count = count;
+            this.total = total;
+            this.mean = count == 0 ? 0 : total / count;
+            this.median = median;
+            this.percentile95 = percentile95;
+            this.percentile99 = percentile99;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @return the exact sum of all recorded durations
+         */
+        public long getTotal() {
+            return total;
+        }
+
+        public long getMean() {
+            return mean;
+        }
+
+        public long getMedian() {
+            return median;
+        }
+
+        public long getPercentile95() {
+            return percentile95;
+        }
+
+        public long getPercentile99() {
+            return percentile99;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        @Override
+        public String toString() {
+            return "count " + count + ", mean " + formatMillis(mean) + ", p50 " + formatMillis(median)
+                + ", p95 " + formatMillis(percentile95) + ", p99 " + formatMillis(percentile99)
+                + ", max " + formatMillis(max);
+        }
+
+        private static String formatMillis(long micros) {
+            return String.format(Locale.ROOT, "%.2f ms", micros / 1000.0);
+        }
+    }
+}
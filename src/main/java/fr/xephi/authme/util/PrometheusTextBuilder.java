@@ -0,0 +1,154 @@
+package fr.xephi.authme.util;
+
+import java.util.Map;
+
+/**
+ * Builds metrics in the Prometheus text exposition format (version 0.0.4).
+ * Latencies are exported as summaries in seconds, as recommended by Prometheus.
+ */
+public class PrometheusTextBuilder {
+
+    private static final double MICROS_PER_SECOND = 1_000_000.0;
+
+    private final StringBuilder text = new StringBuilder();
+
+    /**
+     * Adds a counter, i.e. a value which only increases. The name should end with "_total".
+     *
+     * @param name the metric name
+     * @param help the description of the metric
+     * @param value the value
+     * @return this builder
+     */
+    public PrometheusTextBuilder addCounter(String name, String help, double value) {
+        appendHeader(name, help, "counter");
+        appendSample(name, "", value);
+        return this;
+    }
+
+    /**
+     * Adds a counter with one sample for each value of the given label.
+     *
+     * @param name the metric name
+     * @param help the description of the metric
+     * @param labelName the name of the label
+     * @param valuesByLabel the values, by label value
+     * @return this builder
+     */
+    public PrometheusTextBuilder addCounter(String name, String help, String labelName,
+                                            Map<String, ? extends Number> valuesByLabel) {
+        appendLabelledSamples(name, help, "counter", labelName, valuesByLabel);
+        return this;
+    }
+
+    /**
+     * Adds a gauge, i.e. a value which can go up and down.
+     *
+     * @param name the metric name
+     * @param help the description of the metric
+     * @param value the value
+     * @return this builder
+     */
+    public PrometheusTextBuilder addGauge(String name, String help, double value) {
+        appendHeader(name, help, "gauge");
+        appendSample(name, "", value);
+        return this;
+    }
+
+    /**
+     * Adds a gauge with one sample for each value of the given label.
+     *
+     * @param name the metric name
+     * @param help the description of the metric
+     * @param labelName the name of the label
+     * @param valuesByLabel the values, by label value
+     * @return this builder
+     */
+    public PrometheusTextBuilder addGauge(String name, String help, String labelName,
+                                          Map<String, ? extends Number> valuesByLabel) {
+        appendLabelledSamples(name, help, "gauge", labelName, valuesByLabel);
+        return this;
+    }
+
+    /**
+     * Adds a summary of the given latencies.
+     *
+     * @param name the metric name, which should end with "_seconds"
+     * @param help the description of the metric
+     * @param snapshot the latencies
+     * @return this builder
+     */
+    public PrometheusTextBuilder addSummary(String name, String help, LatencyHistogram.Snapshot snapshot) {
+        appendHeader(name, help, "summary");
+        appendSummarySamples(name, "", snapshot);
+        return this;
+    }
+
+    /**
+     * Adds a summary with the latencies for each value of the given label.
+     *
+     * @param name the metric name, which should end with "_seconds"
+     * @param help the description of the metric
+     * @param labelName the name of the label
+     * @param snapshotsByLabel the latencies, by label value
+     * @return this builder
+     */
+    public PrometheusTextBuilder addSummary(String name, String help, String labelName,
+                                            Map<String, LatencyHistogram.Snapshot> snapshotsByLabel) {
+        appendHeader(name, help, "summary");
+        for (Map.Entry<String, LatencyHistogram.Snapshot> entry : snapshotsByLabel.entrySet()) {
+            appendSummarySamples(name, formatLabel(labelName, entry.getKey()), entry.getValue());
+        }
+        return this;
+    }
+
+    /**
+     * @return the metrics in the text exposition format
+     */
+    public String build() {
+        return text.toString();
+    }
+
+    private void appendHeader(String name, String help, String type) {
+        text.append("# HELP ").append(name).append(' ').append(help.replace("\\", "\\\\").replace("\n", "\\n"))
+            .append('\n')
+            .append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private void appendLabelledSamples(String name, String help, String type, String labelName,
+                                       Map<String, ? extends Number> valuesByLabel) {
+        appendHeader(name, help, type);
+        for (Map.Entry<String, ? extends Number> entry : valuesByLabel.entrySet()) {
+            appendSample(name, formatLabel(labelName, entry.getKey()), entry.getValue().doubleValue());
+        }
+    }
+
+    private void appendSummarySamples(String name, String label, LatencyHistogram.Snapshot snapshot) {
+        String labelPrefix = label.isEmpty() ? "" : label + ",";
+        appendSample(name, labelPrefix + "quantile=\"0.5\"", snapshot.getMedian() / MICROS_PER_SECOND);
+        appendSample(name, labelPrefix + "quantile=\"0.95\"", snapshot.getPercentile95() / MICROS_PER_SECOND);
+        appendSample(name, labelPrefix + "quantile=\"0.99\"", snapshot.getPercentile99() / MICROS_PER_SECOND);
+        appendSample(name + "_sum", label, snapshot.getTotal() / MICROS_PER_SECOND);
+        appendSample(name + "_count", label, snapshot.getCount());
+    }
+
+    private void appendSample(String name, String labels, double value) {
+        text.append(name);
+        if (!labels.isEmpty()) {
+            text.append('{').append(labels).append('}');
+        }
+        text.append(' ').append(formatValue(value)).append('\n');
+    }
+
+    private static String formatLabel(String labelName, String labelValue) {
+        String escapedValue = labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+        return labelName + "=\"" + escapedValue + "\"";
+    }
+
+    private static String formatValue(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+}
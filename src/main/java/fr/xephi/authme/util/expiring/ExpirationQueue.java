@@ -0,0 +1,80 @@
+package fr.xephi.authme.util.expiring;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Index of the entries of an expiring collection, ordered by expiration timestamp.
+ * <p>
+ * Each insertion into the collection adds a node with the key, the stored value and its expiration.
+ * Nodes are not removed when the key is overwritten or removed from the collection; instead, a node
+ * only removes its key from the map if the map still holds the very same value. This way, removing
+ * all expired entries only needs to look at the nodes which have expired.
+ *
+ * @param <K> the key type
+ * @param <V> the type of the values stored in the map
+ */
+final class ExpirationQueue<K, V> {
+
+    private final ConcurrentSkipListSet<Node<K, V>> nodes = new ConcurrentSkipListSet<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * Registers a value which has been stored in the map.
+     *
+     * @param key the key of the value
+     * @param value the value that was stored (must be the same instance as in the map)
+     * @param expiration the expiration timestamp of the value
+     */
+    void add(K key, V value, long expiration) {
+        nodes.add(new Node<>(key, value, expiration, sequence.getAndIncrement()));
+    }
+
+    /**
+     * Removes all entries from the map which have expired at the given time.
+     *
+     * @param map the map to remove the entries from
+     * @param currentTime the current time in milliseconds
+     */
+    void removeExpired(Map<K, V> map, long currentTime) {
+        Iterator<Node<K, V>> iterator = nodes.iterator();
+        while (iterator.hasNext()) {
+            Node<K, V> node = iterator.next();
+            if (node.expiration >= currentTime) {
+                return;
+            }
+            iterator.remove();
+            map.remove(node.key, node.value);
+        }
+    }
+
+    /**
+     * Removes all nodes.
+     */
+    void clear() {
+        nodes.clear();
+    }
+
+    private static final class Node<K, V> implements Comparable<Node<K, V>> {
+
+        private final K key;
+        private final V value;
+        private final long expiration;
+        private final long sequence;
+
+        Node(K key, V value, long expiration, long sequence) {
+            this.key = key;
+            this.value = value;
+            this.expiration = expiration;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Node<K, V> other) {
+            int result = Long.compare(expiration, other.expiration);
+            return result != 0 ? result : Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -17,7 +17,8 @@ import java.util.concurrent.TimeUnit;
  * An expiration of {@code <= 0} will make the map expire all entries
  * immediately after insertion. Note that the map does not remove expired
  * entries automatically; this is only done when calling
- * {@link #removeExpiredEntries()}.
+ * {@link #removeExpiredEntries()}. The entries are indexed by expiration,
+ * so this only costs time in proportion to the number of expired entries.
  *
  * @param <K> the key type
  * @param <V> the value type
@@ -25,6 +26,7 @@ import java.util.concurrent.TimeUnit;
 public class ExpiringMap<K, V> {
 
     protected final Map<K, ExpiringEntry<V>> entries = new ConcurrentHashMap<>();
+    private final ExpirationQueue<K, ExpiringEntry<V>> expirationQueue = new ExpirationQueue<>();
     private long expirationMillis;
 
     /**
@@ -64,7 +66,9 @@ public class ExpiringMap<K, V> {
      */
     public void put(K key, V value) {
         long expiration = System.currentTimeMillis() + expirationMillis;
-        entries.put(key, new ExpiringEntry<>(value, expiration));
+        ExpiringEntry<V> entry = new ExpiringEntry<>(value, expiration);
+        entries.put(key, entry);
+        expirationQueue.add(key, entry, expiration);
     }
 
     /**
@@ -80,7 +84,7 @@ public class ExpiringMap<K, V> {
      * Removes all entries which have expired from the internal structure.
      */
     public void removeExpiredEntries() {
-        entries.entrySet().removeIf(entry -> System.currentTimeMillis() > entry.getValue().getExpiration());
+        expirationQueue.removeExpired(entries, System.currentTimeMillis());
     }
 
     /**
@@ -94,6 +98,16 @@ public class ExpiringMap<K, V> {
         this.expirationMillis = unit.toMillis(duration);
     }
 
+    /**
+     * Returns the number of entries in this map, including expired entries which have
+     * not been removed yet.
+     *
+     * @return the number of stored entries
+     */
+    public int size() {
+        return entries.size();
+    }
+
     /**
      * Returns whether this map is empty. This reflects the state of the
      * internal map, which may contain expired entries only. The result
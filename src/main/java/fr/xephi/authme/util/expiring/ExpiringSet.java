@@ -11,7 +11,8 @@ import java.util.concurrent.TimeUnit;
  * <p>
  * Internally, expired entries are not guaranteed to be cleared automatically.
  * A cleanup of all expired entries may be triggered with
- * {@link #removeExpiredEntries()}. Adding an entry that is already present
+ * {@link #removeExpiredEntries()}, which only costs time in proportion to
+ * the number of expired entries. Adding an entry that is already present
  * effectively resets its expiration.
  *
  * @param <E> the type of the entries
@@ -19,6 +20,7 @@ import java.util.concurrent.TimeUnit;
 public class ExpiringSet<E> {
 
     private Map<E, Long> entries = new ConcurrentHashMap<>();
+    private final ExpirationQueue<E, Long> expirationQueue = new ExpirationQueue<>();
     private long expirationMillis;
 
     /**
@@ -37,7 +39,9 @@ public class ExpiringSet<E> {
      * @param entry the entry to add
      */
     public void add(E entry) {
-        entries.put(entry, System.currentTimeMillis() + expirationMillis);
+        Long expiration = System.currentTimeMillis() + expirationMillis;
+        entries.put(entry, expiration);
+        expirationQueue.add(entry, expiration, expiration);
     }
 
     /**
@@ -72,13 +76,14 @@ public class ExpiringSet<E> {
      */
     public void clear() {
         entries.clear();
+        expirationQueue.clear();
     }
 
     /**
      * Removes all entries which have expired from the internal structure.
      */
     public void removeExpiredEntries() {
-        entries.entrySet().removeIf(entry -> System.currentTimeMillis() > entry.getValue());
+        expirationQueue.removeExpired(entries, System.currentTimeMillis());
     }
 
     /**
@@ -112,6 +117,16 @@ public class ExpiringSet<E> {
         this.expirationMillis = unit.toMillis(duration);
     }
 
+    /**
+     * Returns the number of entries in this set, including expired entries which have
+     * not been removed yet.
+     *
+     * @return the number of stored entries
+     */
+    public int size() {
+        return entries.size();
+    }
+
     /**
      * Returns whether this map is empty. This reflects the state of the
      * internal map, which may contain expired entries only. The result
@@ -0,0 +1,151 @@
+package fr.xephi.authme.util.expiring;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts events over a sliding window of time without any locks.
+ * <p>
+ * The window is split into a fixed number of buckets kept in a ring. Each bucket holds the index of the
+ * time slot it belongs to and the number of events in that slot, packed into one long so that both are
+ * updated with a single compare-and-set. Buckets of past slots are reset lazily when they are reused.
+ * Counting an event is O(1) and computing the total is O(buckets), regardless of the number of events.
+ */
+public class SlidingWindowCounter {
+
+    /** Number of bits of a bucket's value used for the count; the remaining upper bits hold the slot. */
+    private static final int COUNT_BITS = 24;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+    private static final long SLOT_MASK = (1L << (Long.SIZE - COUNT_BITS)) - 1;
+
+    private final AtomicLongArray buckets;
+    private final long bucketMillis;
+
+    /**
+     * Constructor.
+     *
+     * @param window the duration of the window
+     * @param unit the time unit in which {@code window} is expressed
+     * @param bucketCount the number of buckets to split the window into
+     */
+    public SlidingWindowCounter(long window, TimeUnit unit, int bucketCount) {
+        if (bucketCount <= 0) {
+            throw new IllegalArgumentException("Bucket count must be positive, got " + bucketCount);
+        }
+        this.buckets = new AtomicLongArray(bucketCount);
+        this.bucketMillis = Math.max(1, unit.toMillis(window) / bucketCount);
+        clear();
+    }
+
+    /**
+     * Counts an event at the current time and returns the number of events in the window.
+     *
+     * @return the total of the window, including the new event
+     */
+    public int increment() {
+        return increment(System.currentTimeMillis());
+    }
+
+    /**
+     * Counts an event at the given time and returns the number of events in the window ending at that time.
+     *
+     * @param currentTime the time of the event in milliseconds
+     * @return the total of the window, including the new event
+     */
+    public int increment(long currentTime) {
+        add(currentTime, 1);
+        return total(currentTime);
+    }
+
+    /**
+     * Counts the given number of events at the given time.
+     *
+     * @param currentTime the time of the events in milliseconds
+     * @param amount the number of events to add
+     */
+    public void add(long currentTime, int amount) {
+        final long slot = toSlot(currentTime);
+        final int index = indexOf(slot);
+        long value;
+        long newValue;
+        do {
+            value = buckets.get(index);
+            long count = slotOf(value) == slot ? value & COUNT_MASK : 0;
+            newValue = (slot << COUNT_BITS) | Math.min(COUNT_MASK, count + amount);
+        } while (!buckets.compareAndSet(index, value, newValue));
+    }
+
+    /**
+     * Removes the events counted by the other counter from this counter, bucket by bucket. Both counters
+     * must have been created with the same window and bucket count.
+     *
+     * @param other the counter whose events should be removed from this counter
+     */
+    public void subtract(SlidingWindowCounter other) {
+        final int length = buckets.length();
+        for (int i = 0; i < length; ++i) {
+            final long otherValue = other.buckets.get(i);
+            long value;
+            long newValue;
+            do {
+                value = buckets.get(i);
+                if (slotOf(value) != slotOf(otherValue)) {
+                    break;
+                }
+                long count = value & COUNT_MASK;
+                newValue = value - Math.min(count, otherValue & COUNT_MASK);
+            } while (!buckets.compareAndSet(i, value, newValue));
+        }
+    }
+
+    /**
+     * @return the number of events in the window ending now
+     */
+    public int total() {
+        return total(System.currentTimeMillis());
+    }
+
+    /**
+     * Returns the number of events in the window ending at the given time.
+     *
+     * @param currentTime the end of the window in milliseconds
+     * @return the total of the window
+     */
+    public int total(long currentTime) {
+        final long currentSlot = toSlot(currentTime);
+        final int length = buckets.length();
+        long total = 0;
+        for (int i = 0; i < length; ++i) {
+            long value = buckets.get(i);
+            long age = (currentSlot - slotOf(value)) & SLOT_MASK;
+            if (age < length) {
+                total += value & COUNT_MASK;
+            }
+        }
+        return (int) Math.min(Integer.MAX_VALUE, total);
+    }
+
+    /**
+     * Removes all counted events.
+     */
+    public void clear() {
+        // Mark all buckets with a slot which is far from any current slot
+        final int length = buckets.length();
+        long staleSlot = (toSlot(System.currentTimeMillis()) + (SLOT_MASK >>> 1)) & SLOT_MASK;
+        for (int i = 0; i < length; ++i) {
+            buckets.set(i, staleSlot << COUNT_BITS);
+        }
+    }
+
+    private long toSlot(long currentTime) {
+        return (currentTime / bucketMillis) & SLOT_MASK;
+    }
+
+    private int indexOf(long slot) {
+        return (int) (slot % buckets.length());
+    }
+
+    private static long slotOf(long value) {
+        return value >>> COUNT_BITS;
+    }
+}
@@ -1,29 +1,65 @@
 package fr.xephi.authme.util.expiring;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 /**
- * Keeps a count per key which expires after a configurable amount of time.
+ * Keeps a count per key over a sliding window of time.
  * <p>
- * Once the expiration of an entry has been reached, the counter resets
- * to 0. The counter returns 0 rather than {@code null} for any given key.
+ * Each key is counted with a {@link SlidingWindowCounter}, so increments are made in time buckets:
+ * once a bucket is older than the configured duration, the increments it holds are no longer counted.
+ * The counter returns 0 rather than {@code null} for any given key.
+ * <p>
+ * A further counter keeps the sum of all keys so that {@link #total()} does not need to iterate
+ * over the entries. Increments are O(1) and lock-free; reading a count is O(buckets).
+ *
+ * @param <K> the key type
  */
-public class TimedCounter<K> extends ExpiringMap<K, Integer> {
+public class TimedCounter<K> {
+
+    /** Number of buckets the duration is split into. */
+    private static final int BUCKET_COUNT = 10;
+
+    private final Map<K, SlidingWindowCounter> counters = new ConcurrentHashMap<>();
+    private volatile SlidingWindowCounter totalCounter;
+    private long durationMillis;
 
     /**
      * Constructor.
      *
-     * @param duration the duration of time after which entries expire
+     * @param duration the duration of time after which increments expire
      * @param unit the time unit in which {@code duration} is expressed
      */
     public TimedCounter(long duration, TimeUnit unit) {
-        super(duration, unit);
+        this.durationMillis = unit.toMillis(duration);
+        this.totalCounter = newCounter();
     }
 
-    @Override
-    public Integer get(K key) {
-        Integer value = super.get(key);
-        return value == null ? 0 : value;
+    /**
+     * Returns the count of the given key.
+     *
+     * @param key the key to look up
+     * @return the number of non-expired increments for the key
+     */
+    public int get(K key) {
+        SlidingWindowCounter counter = counters.get(key);
+        return counter == null ? 0 : counter.total();
+    }
+
+    /**
+     * Sets the count of the given key, replacing any previous count.
+     *
+     * @param key the key to set the count for
+     * @param value the count to set
+     */
+    public void put(K key, int value) {
+        remove(key);
+        if (value > 0) {
+            long currentTime = System.currentTimeMillis();
+            counters.computeIfAbsent(key, k -> newCounter()).add(currentTime, value);
+            totalCounter.add(currentTime, value);
+        }
     }
 
     /**
@@ -32,19 +68,67 @@ public class TimedCounter<K> extends ExpiringMap<K, Integer> {
      * @param key the key to increment the counter for
      */
     public void increment(K key) {
-        put(key, get(key) + 1);
+        long currentTime = System.currentTimeMillis();
+        counters.computeIfAbsent(key, k -> newCounter()).add(currentTime, 1);
+        totalCounter.add(currentTime, 1);
+    }
+
+    /**
+     * Removes the count of the given key, if available.
+     *
+     * @param key the key to remove the count for
+     */
+    public void remove(K key) {
+        SlidingWindowCounter counter = counters.remove(key);
+        if (counter != null) {
+            totalCounter.subtract(counter);
+        }
     }
 
     /**
-     * Calculates the total of all non-expired entries in this counter.
+     * Calculates the total of all non-expired increments in this counter.
      *
      * @return the total of all valid entries
      */
     public int total() {
+        return totalCounter.total();
+    }
+
+    /**
+     * Removes all keys whose increments have all expired.
+     */
+    public void removeExpiredEntries() {
         long currentTime = System.currentTimeMillis();
-        return entries.values().stream()
-            .filter(entry -> currentTime <= entry.getExpiration())
-            .map(ExpiringEntry::getValue)
-            .reduce(0, Integer::sum);
+        counters.values().removeIf(counter -> counter.total(currentTime) == 0);
+    }
+
+    /**
+     * Sets a new duration after which increments expire. As the time buckets depend
+     * on the duration, all counts are reset if the duration changes.
+     *
+     * @param duration the duration of time after which increments expire
+     * @param unit the time unit in which {@code duration} is expressed
+     */
+    public synchronized void setExpiration(long duration, TimeUnit unit) {
+        long newDurationMillis = unit.toMillis(duration);
+        if (newDurationMillis != durationMillis) {
+            durationMillis = newDurationMillis;
+            counters.clear();
+            totalCounter = newCounter();
+        }
+    }
+
+    /**
+     * Returns whether this counter has no keys. This may be false if the increments
+     * of all keys have expired but {@link #removeExpiredEntries()} has not run yet.
+     *
+     * @return true if there are no keys, false otherwise
+     */
+    public boolean isEmpty() {
+        return counters.isEmpty();
+    }
+
+    private SlidingWindowCounter newCounter() {
+        return new SlidingWindowCounter(durationMillis, TimeUnit.MILLISECONDS, BUCKET_COUNT);
     }
 }
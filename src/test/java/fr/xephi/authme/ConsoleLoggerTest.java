@@ -89,6 +89,7 @@ public class ConsoleLoggerTest {
         // then
         verify(logger, times(2)).info(anyString());
         verifyNoMoreInteractions(logger);
+        ConsoleLogger.close(); // writes the pending lines
         List<String> loggedLines = Files.readAllLines(logFile.toPath(), StandardCharsets.UTF_8);
         assertThat(loggedLines, hasSize(2));
         assertThat(loggedLines.get(0), containsString("[FINE] Logging a FINE message"));
@@ -127,6 +128,7 @@ public class ConsoleLoggerTest {
         verify(logger).info("Info text");
         verify(logger).warning("Exception occurred: [IllegalStateException]: Test exception message");
         verifyNoMoreInteractions(logger);
+        ConsoleLogger.close(); // writes the pending lines
         List<String> loggedLines = Files.readAllLines(logFile.toPath(), StandardCharsets.UTF_8);
         assertThat(loggedLines.size(), greaterThan(3));
         assertThat(loggedLines.get(0), containsString("[INFO] Info text"));
@@ -156,6 +158,7 @@ public class ConsoleLoggerTest {
             new Object[]{"5", "foxes", "3", "dogs", "null"});
         verify(logger).info("[DEBUG] Too little too late");
 
+        ConsoleLogger.close(); // writes the pending lines
         List<String> loggedLines = Files.readAllLines(logFile.toPath(), StandardCharsets.UTF_8);
         assertThat(loggedLines, contains(
             containsString("[DEBUG] Got {0} entries {test}"),
@@ -174,6 +177,10 @@ public class ConsoleLoggerTest {
         Settings settings = mock(Settings.class);
         given(settings.getProperty(SecuritySettings.USE_LOGGING)).willReturn(logToFile);
         given(settings.getProperty(PluginSettings.LOG_LEVEL)).willReturn(logLevel);
+        if (logToFile) {
+            given(settings.getProperty(SecuritySettings.LOG_FILE_MAX_SIZE)).willReturn(0);
+            given(settings.getProperty(SecuritySettings.LOG_FILE_ROTATE_DAILY)).willReturn(false);
+        }
         return settings;
     }
 }
@@ -0,0 +1,157 @@
+package fr.xephi.authme.data;
+
+import fr.xephi.authme.settings.Settings;
+import fr.xephi.authme.settings.properties.SecuritySettings;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Test for {@link HashingBudgetManager}.
+ */
+public class HashingBudgetManagerTest {
+
+    @Test
+    public void shouldAlwaysAdmitIfDisabled() {
+        // given
+        Settings settings = mockSettings(1, 1, 1);
+        given(settings.getProperty(SecuritySettings.USE_HASHING_BUDGET)).willReturn(false);
+        HashingBudgetManager manager = new HashingBudgetManager(settings);
+
+        // when
+        for (int i = 0; i < 20; ++i) {
+            long reserved = manager.tryAcquire("127.0.0.1");
+            assertThat(reserved, not(equalTo(HashingBudgetManager.REJECTED)));
+            manager.recordHashDuration("127.0.0.1", reserved, TimeUnit.SECONDS.toNanos(1));
+        }
+
+        // then
+        assertThat(manager.getAdmittedCount(), equalTo(0L));
+        assertThat(manager.getTrackedAddresses(), equalTo(0));
+    }
+
+    @Test
+    public void shouldRejectAddressWithExhaustedBudget() {
+        // given
+        HashingBudgetManager manager = new HashingBudgetManager(mockSettings(10_000, 10_000, 1));
+        String address = "10.20.30.40";
+
+        // when / then
+        assertThat(manager.tryAcquire(address), not(equalTo(HashingBudgetManager.REJECTED)));
+        assertThat(manager.tryAcquire(address), equalTo(HashingBudgetManager.REJECTED));
+        assertThat(manager.tryAcquire("10.20.30.41"), not(equalTo(HashingBudgetManager.REJECTED)));
+        assertThat(manager.tryAcquire("192.168.0.1"), not(equalTo(HashingBudgetManager.REJECTED)));
+        assertThat(manager.getAdmittedCount(), equalTo(3L));
+        assertThat(manager.getAddressRejections(), equalTo(1L));
+        assertThat(manager.getSubnetRejections(), equalTo(0L));
+        assertThat(manager.getGlobalRejections(), equalTo(0L));
+    }
+
+    @Test
+    public void shouldRejectSubnetWithExhaustedBudget() {
+        // given
+        HashingBudgetManager manager = new HashingBudgetManager(mockSettings(10_000, 1, 10_000));
+
+        // when / then
+        assertThat(manager.tryAcquire("10.20.30.40"), not(equalTo(HashingBudgetManager.REJECTED)));
+        assertThat(manager.tryAcquire("10.20.30.41"), equalTo(HashingBudgetManager.REJECTED));
+        assertThat(manager.tryAcquire("10.20.31.41"), not(equalTo(HashingBudgetManager.REJECTED)));
+        assertThat(manager.getSubnetRejections(), equalTo(1L));
+        assertThat(manager.getTrackedSubnets(), equalTo(2));
+    }
+
+    @Test
+    public void shouldRejectWhenGlobalBudgetIsExhausted() {
+        // given
+        HashingBudgetManager manager = new HashingBudgetManager(mockSettings(1, 10_000, 10_000));
+
+        // when / then
+        assertThat(manager.tryAcquire("10.20.30.40"), not(equalTo(HashingBudgetManager.REJECTED)));
+        assertThat(manager.tryAcquire("172.16.0.3"), equalTo(HashingBudgetManager.REJECTED));
+        assertThat(manager.getGlobalRejections(), equalTo(1L));
+        assertThat(manager.getGlobalBudget(), lessThan(0L));
+    }
+
+    @Test
+    public void shouldAdaptToActualHashingTime() {
+        // given
+        HashingBudgetManager manager = new HashingBudgetManager(mockSettings(10_000, 10_000, 10));
+        String address = "10.20.30.40";
+        long initialEstimate = manager.getCostEstimate();
+
+        // when
+        for (int i = 0; i < 30; ++i) {
+            long reserved = manager.tryAcquire(address);
+            assertThat(reserved, not(equalTo(HashingBudgetManager.REJECTED)));
+            manager.recordHashDuration(address, reserved, 1000);
+        }
+
+        // then
+        assertThat(manager.getCostEstimate(), lessThan(initialEstimate / 10));
+    }
+
+    @Test
+    public void shouldCorrectAgainstReservedCost() {
+        // given
+        HashingBudgetManager manager = new HashingBudgetManager(mockSettings(10, 10_000, 10_000));
+        long initialBudget = manager.getGlobalBudget();
+        long firstReservation = manager.tryAcquire("10.20.30.40");
+        // Another attempt changes the cost estimate while the first password is being checked
+        manager.recordHashDuration("172.16.0.3", manager.tryAcquire("172.16.0.3"), 0);
+
+        // when
+        manager.recordHashDuration("10.20.30.40", firstReservation, firstReservation);
+
+        // then
+        assertThat(manager.getCostEstimate(), lessThan(firstReservation));
+        assertThat(manager.getGlobalBudget(), greaterThanOrEqualTo(initialBudget - firstReservation));
+    }
+
+    @Test
+    public void shouldNotLimitForNonPositiveRates() {
+        // given
+        HashingBudgetManager manager = new HashingBudgetManager(mockSettings(0, 0, 0));
+
+        // when
+        for (int i = 0; i < 100; ++i) {
+            assertThat(manager.tryAcquire("10.20.30.40"), not(equalTo(HashingBudgetManager.REJECTED)));
+        }
+
+        // then
+        assertThat(manager.getTrackedAddresses(), equalTo(0));
+        assertThat(manager.getTrackedSubnets(), equalTo(0));
+        assertThat(manager.getGlobalBudget(), equalTo(-1L));
+    }
+
+    @Test
+    public void shouldRemoveUnusedBuckets() {
+        // given
+        HashingBudgetManager manager = new HashingBudgetManager(mockSettings(10_000, 1000, 1000));
+        manager.recordHashDuration("10.20.30.40", manager.tryAcquire("10.20.30.40"), 0);
+        manager.recordHashDuration("10.20.30.41", manager.tryAcquire("10.20.30.41"), TimeUnit.SECONDS.toNanos(5));
+
+        // when
+        manager.performCleanup();
+
+        // then
+        assertThat(manager.getTrackedAddresses(), equalTo(1));
+        assertThat(manager.getTrackedSubnets(), equalTo(1));
+    }
+
+    private static Settings mockSettings(int globalMillis, int subnetMillis, int ipMillis) {
+        Settings settings = mock(Settings.class);
+        given(settings.getProperty(SecuritySettings.USE_HASHING_BUDGET)).willReturn(true);
+        given(settings.getProperty(SecuritySettings.HASHING_BUDGET_GLOBAL)).willReturn(globalMillis);
+        given(settings.getProperty(SecuritySettings.HASHING_BUDGET_PER_SUBNET)).willReturn(subnetMillis);
+        given(settings.getProperty(SecuritySettings.HASHING_BUDGET_PER_IP)).willReturn(ipMillis);
+        return settings;
+    }
+}
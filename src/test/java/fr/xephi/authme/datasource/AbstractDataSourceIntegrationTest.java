@@ -1,5 +1,6 @@
 package fr.xephi.authme.datasource;
 
+import fr.xephi.authme.data.auth.JoinSnapshot;
 import fr.xephi.authme.data.auth.PlayerAuth;
 import fr.xephi.authme.security.crypts.HashedPassword;
 import org.junit.Test;
@@ -105,6 +106,31 @@ public abstract class AbstractDataSourceIntegrationTest {
         assertThat(userAuth.getPassword(), equalToHash("b28c32f624a4eb161d6adc9acb5bfc5b", "f750ba32"));
     }
 
+    @Test
+    public void shouldGetJoinSnapshot() {
+        // given
+        DataSource dataSource = getDataSource();
+        dataSource.setLogged("user");
+
+        // when
+        JoinSnapshot invalidSnapshot = dataSource.getJoinSnapshot("notInDB");
+        JoinSnapshot bobbySnapshot = dataSource.getJoinSnapshot("Bobby");
+        JoinSnapshot userSnapshot = dataSource.getJoinSnapshot("user");
+
+        // then
+        assertThat(invalidSnapshot.isRegistered(), equalTo(false));
+        assertThat(invalidSnapshot.getAuth(), nullValue());
+
+        assertThat(bobbySnapshot.isRegistered(), equalTo(true));
+        assertThat(bobbySnapshot.isLogged(), equalTo(false));
+        assertThat(bobbySnapshot.getAuth(), hasAuthBasicData("bobby", "Bobby", "your@email.com", "123.45.67.89"));
+        assertThat(bobbySnapshot.getAuth().getLastLogin(), equalTo(1449136800L));
+
+        assertThat(userSnapshot.isRegistered(), equalTo(true));
+        assertThat(userSnapshot.isLogged(), equalTo(true));
+        assertThat(userSnapshot.getAuth(), hasAuthBasicData("user", "user", "user@example.org", "34.56.78.90"));
+    }
+
     @Test
     public void shouldCountAuthsByEmail() {
         // given
@@ -238,6 +264,26 @@ public abstract class AbstractDataSourceIntegrationTest {
         assertThat(dataSource.getAuth("user"), hasAuthLocation(143, -42.12, 29.47, "the_end"));
     }
 
+    @Test
+    public void shouldUpdateLastLocsInBatch() {
+        // given
+        DataSource dataSource = getDataSource();
+        PlayerAuth user = PlayerAuth.builder()
+            .name("user").locX(143).locY(-42.12).locZ(29.47)
+            .locWorld("the_end").build();
+        PlayerAuth bobby = PlayerAuth.builder()
+            .name("bobby").locX(-8).locY(64).locZ(12.5)
+            .locWorld("world_nether").build();
+
+        // when
+        boolean response = dataSource.updateQuitLocs(Arrays.asList(user, bobby));
+
+        // then
+        assertThat(response, equalTo(true));
+        assertThat(dataSource.getAuth("user"), hasAuthLocation(143, -42.12, 29.47, "the_end"));
+        assertThat(dataSource.getAuth("bobby"), hasAuthLocation(-8, 64, 12.5, "world_nether"));
+    }
+
     @Test
     public void shouldDeletePlayers() {
         // given
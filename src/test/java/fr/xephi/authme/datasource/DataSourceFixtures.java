@@ -0,0 +1,162 @@
+package fr.xephi.authme.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import fr.xephi.authme.TestHelper;
+import fr.xephi.authme.settings.Settings;
+import fr.xephi.authme.settings.properties.DatabaseSettings;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates data sources on the embedded databases used by the integration tests (H2 and sqlite-jdbc),
+ * for load tests and benchmarks which cannot access the package-private test constructors.
+ */
+public final class DataSourceFixtures {
+
+    /** Hash in the SHA256 format which is set as password of the accounts inserted by {@link #insertAccounts}. */
+    private static final String ACCOUNT_PASSWORD_HASH =
+        "$SHA$11aa0706173d7272$dbba96681c2ae4e0bfdf226d70fbbc5e4ee3d8071faa613bc533fe8a64817d10";
+
+    private DataSourceFixtures() {
+    }
+
+    /**
+     * Creates a MySQL data source backed by an in-memory H2 database in MySQL mode. The table is created
+     * with the statements of sql-initialize.sql, so the settings must use the default table and column names.
+     *
+     * @param settings the settings to create the data source with
+     * @param databaseName the name of the in-memory database (an existing database with this name is reset)
+     * @param poolSize the maximum number of connections of the pool
+     * @return the data source
+     */
+    public static MySQL createMySqlOnH2(Settings settings, String databaseName, int poolSize)
+        throws IOException, SQLException {
+        HikariDataSource hikariSource = new HikariDataSource();
+        hikariSource.setPoolName("AuthMeH2Pool");
+        hikariSource.setDataSourceClassName("org.h2.jdbcx.JdbcDataSource");
+        hikariSource.setConnectionTestQuery("VALUES 1");
+        hikariSource.addDataSourceProperty("URL", getH2Url(databaseName));
+        hikariSource.addDataSourceProperty("user", "sa");
+        hikariSource.addDataSourceProperty("password", "sa");
+        hikariSource.setMaximumPoolSize(poolSize);
+
+        MySQL mySql = new MySQL(settings, hikariSource);
+        // The pool is started lazily, so the metrics can still be registered
+        hikariSource.setMetricsTrackerFactory(mySql.getPoolMetrics());
+        try (Connection connection = hikariSource.getConnection();
+             Statement st = connection.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS authme");
+            st.execute(readSqlInitialize());
+        } catch (SQLException e) {
+            hikariSource.close();
+            throw e;
+        }
+        return mySql;
+    }
+
+    /**
+     * Creates a SQLite data source on the given database file. The table is created as on a server start.
+     *
+     * @param settings the settings to create the data source with
+     * @param databaseFile the file of the database (created if it does not exist)
+     * @return the data source
+     */
+    public static SQLite createSqLite(Settings settings, File databaseFile) throws SQLException {
+        Connection connection = openSqLiteConnection(databaseFile);
+        SQLite sqLite = new SQLite(settings, connection);
+        try {
+            sqLite.setup();
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+        return sqLite;
+    }
+
+    /**
+     * Opens a new connection to the in-memory H2 database of a data source created with
+     * {@link #createMySqlOnH2}, e.g. to fill it with {@link #insertAccounts}.
+     *
+     * @param databaseName the name of the in-memory database
+     * @return the connection
+     */
+    public static Connection openH2Connection(String databaseName) throws SQLException {
+        return DriverManager.getConnection(getH2Url(databaseName), "sa", "sa");
+    }
+
+    /**
+     * Opens a new connection to the given SQLite database file.
+     *
+     * @param databaseFile the file of the database
+     * @return the connection
+     */
+    public static Connection openSqLiteConnection(File databaseFile) throws SQLException {
+        return DriverManager.getConnection("jdbc:sqlite:" + databaseFile.getPath());
+    }
+
+    /**
+     * Inserts the accounts "player0" to "player{count - 1}" with batched statements in one transaction, which is
+     * much faster than saving them one by one. Every four consecutive accounts share an IP address, and the
+     * last login is one minute earlier for each account, starting at the current time.
+     *
+     * @param settings the settings with the table and column names
+     * @param connection the connection to the database
+     * @param count the number of accounts to insert
+     */
+    public static void insertAccounts(Settings settings, Connection connection, int count) throws SQLException {
+        Columns col = new Columns(settings);
+        String sql = "INSERT INTO " + settings.getProperty(DatabaseSettings.MYSQL_TABLE) + " ("
+            + col.NAME + ", " + col.REAL_NAME + ", " + col.PASSWORD + ", " + col.IP + ", "
+            + col.LAST_LOGIN + ", " + col.EMAIL + ") VALUES (?, ?, ?, ?, ?, ?);";
+        long now = System.currentTimeMillis();
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (PreparedStatement pst = connection.prepareStatement(sql)) {
+            for (int i = 0; i < count; ++i) {
+                pst.setString(1, "player" + i);
+                pst.setString(2, "Player" + i);
+                pst.setString(3, ACCOUNT_PASSWORD_HASH);
+                pst.setString(4, getAccountIp(i));
+                pst.setLong(5, now - TimeUnit.MINUTES.toMillis(i));
+                pst.setString(6, "player" + i + "@example.org");
+                pst.addBatch();
+                if (i % 1000 == 999) {
+                    pst.executeBatch();
+                }
+            }
+            pst.executeBatch();
+            connection.commit();
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Returns the IP address of the given account inserted by {@link #insertAccounts}.
+     *
+     * @param accountNumber the number of the account
+     * @return the IP address of the account
+     */
+    public static String getAccountIp(int accountNumber) {
+        int address = accountNumber / 4;
+        return "10." + (address >> 16 & 0xFF) + "." + (address >> 8 & 0xFF) + "." + (address & 0xFF);
+    }
+
+    private static String getH2Url(String databaseName) {
+        return "jdbc:h2:mem:" + databaseName + ";MODE=MySQL";
+    }
+
+    private static String readSqlInitialize() throws IOException {
+        Path sqlInitFile = TestHelper.getJarPath(TestHelper.PROJECT_ROOT + "datasource/sql-initialize.sql");
+        return new String(Files.readAllBytes(sqlInitFile));
+    }
+}
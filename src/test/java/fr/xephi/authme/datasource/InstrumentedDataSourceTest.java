@@ -0,0 +1,77 @@
+package fr.xephi.authme.datasource;
+
+import fr.xephi.authme.data.auth.PlayerAuth;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.Arrays;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Test for {@link InstrumentedDataSource}.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class InstrumentedDataSourceTest {
+
+    @InjectMocks
+    private InstrumentedDataSource instrumentedDataSource;
+
+    @Mock
+    private DataSource source;
+
+    @Test
+    public void shouldDelegateAndCountCalls() {
+        // given
+        PlayerAuth auth = mock(PlayerAuth.class);
+        given(source.getAuth("bobby")).willReturn(auth);
+        given(source.getAllAuthsByIp("127.0.0.1")).willReturn(Arrays.asList("bobby", "tom"));
+
+        // when
+        PlayerAuth result1 = instrumentedDataSource.getAuth("bobby");
+        instrumentedDataSource.getAuth("bobby");
+        instrumentedDataSource.getAllAuthsByIp("127.0.0.1");
+        instrumentedDataSource.setLogged("tom");
+
+        // then
+        assertThat(result1, sameInstance(auth));
+        verify(source).setLogged("tom");
+        assertThat(instrumentedDataSource.getStatistics().keySet(),
+            contains("getAllAuthsByIp", "getAuth", "setLogged"));
+        InstrumentedDataSource.OperationStats getAuthStats = instrumentedDataSource.getStatistics().get("getAuth");
+        assertThat(getAuthStats.getCallCount(), equalTo(2L));
+        assertThat(getAuthStats.getErrorCount(), equalTo(0L));
+        assertThat(getAuthStats.getSnapshot().getCount(), equalTo(2L));
+    }
+
+    @Test
+    public void shouldCountErrors() {
+        // given
+        IllegalStateException exception = new IllegalStateException("Test exception");
+        given(source.getAccountsRegistered()).willThrow(exception);
+
+        // when
+        try {
+            instrumentedDataSource.getAccountsRegistered();
+            fail("Expected exception to be thrown");
+        } catch (IllegalStateException e) {
+            assertThat(e, sameInstance(exception));
+        }
+
+        // then
+        InstrumentedDataSource.OperationStats stats =
+            instrumentedDataSource.getStatistics().get("getAccountsRegistered");
+        assertThat(stats.getCallCount(), equalTo(1L));
+        assertThat(stats.getErrorCount(), equalTo(1L));
+    }
+}
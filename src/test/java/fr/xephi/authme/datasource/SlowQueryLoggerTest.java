@@ -0,0 +1,80 @@
+package fr.xephi.authme.datasource;
+
+import fr.xephi.authme.TestHelper;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.logging.Logger;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Test for {@link SlowQueryLogger}.
+ */
+public class SlowQueryLoggerTest {
+
+    @Test
+    public void shouldLogSlowStatementWithParameterTypes() throws SQLException {
+        // given
+        Logger logger = TestHelper.setupLogger();
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        given(connection.prepareStatement("SELECT * FROM authme WHERE username=? AND ip=?;")).willReturn(statement);
+        given(statement.executeQuery()).willReturn(resultSet);
+        Connection wrappedConnection = new SlowQueryLogger(0, MySQL.class).wrap(connection);
+
+        // when
+        PreparedStatement pst = wrappedConnection.prepareStatement("SELECT * FROM authme WHERE username=? AND ip=?;");
+        pst.setString(1, "bobby");
+        pst.setNull(2, 0);
+        ResultSet result = pst.executeQuery();
+
+        // then
+        assertThat(result, sameInstance(resultSet));
+        verify(statement).setString(1, "bobby");
+        verify(statement).setNull(2, 0);
+        ArgumentCaptor<String> messageCaptor = ArgumentCaptor.forClass(String.class);
+        verify(logger).warning(messageCaptor.capture());
+        assertThat(messageCaptor.getValue(), matchesPattern("Slow query in unknown operation: took \\d+ ms; "
+            + "SELECT \\* FROM authme WHERE username=\\? AND ip=\\?; with parameters \\[String, null]"));
+    }
+
+    @Test
+    public void shouldNotLogFastStatements() throws SQLException {
+        // given
+        Logger logger = TestHelper.setupLogger();
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        given(connection.prepareStatement(anyString())).willReturn(statement);
+        Connection wrappedConnection = new SlowQueryLogger(60_000, MySQL.class).wrap(connection);
+
+        // when
+        wrappedConnection.prepareStatement("DELETE FROM authme;").executeUpdate();
+
+        // then
+        verify(statement).executeUpdate();
+        verify(logger, never()).warning(anyString());
+    }
+
+    @Test
+    public void shouldAnonymizeStringLiterals() {
+        // given / when
+        String result = SlowQueryLogger.anonymize("UPDATE authme SET email='test@example.org' WHERE id='it\\'s';");
+
+        // then
+        assertThat(result, equalTo("UPDATE authme SET email='?' WHERE id='?';"));
+    }
+}
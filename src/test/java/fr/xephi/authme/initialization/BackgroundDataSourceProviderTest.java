@@ -0,0 +1,79 @@
+package fr.xephi.authme.initialization;
+
+import fr.xephi.authme.datasource.DataSource;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Test for {@link BackgroundDataSourceProvider}.
+ */
+public class BackgroundDataSourceProviderTest {
+
+    @Test
+    public void shouldCreateAndInitializeDataSource() {
+        // given
+        DataSource dataSource = mock(DataSource.class);
+        StartupReport startupReport = new StartupReport();
+
+        // when
+        DataSource result = new BackgroundDataSourceProvider(
+            () -> dataSource, DataSource::purgeLogged, startupReport).get();
+
+        // then
+        assertThat(result, sameInstance(dataSource));
+        verify(dataSource).purgeLogged();
+        assertThat(startupReport.getPhases(), containsString("data source: "));
+        assertThat(startupReport.getPhases(), containsString("data source init: "));
+    }
+
+    @Test
+    public void shouldPropagateException() {
+        // given
+        IllegalStateException exception = new IllegalStateException("Test exception");
+        BackgroundDataSourceProvider provider = new BackgroundDataSourceProvider(() -> {
+            throw exception;
+        }, dataSource -> { }, new StartupReport());
+
+        // when
+        try {
+            provider.get();
+            fail("Expected exception to be thrown");
+        } catch (IllegalStateException e) {
+            // then
+            assertThat(e, sameInstance(exception));
+        }
+    }
+
+    @Test
+    public void shouldCloseCreatedDataSource() {
+        // given
+        DataSource dataSource = mock(DataSource.class);
+        BackgroundDataSourceProvider provider =
+            new BackgroundDataSourceProvider(() -> dataSource, source -> { }, new StartupReport());
+
+        // when
+        provider.closeIfCreated();
+
+        // then
+        verify(dataSource).close();
+    }
+
+    @Test
+    public void shouldNotFailClosingIfCreationFailed() {
+        // given
+        BackgroundDataSourceProvider provider = new BackgroundDataSourceProvider(() -> {
+            throw new IllegalStateException("Test exception");
+        }, dataSource -> { }, new StartupReport());
+
+        // when
+        provider.closeIfCreated();
+
+        // then - no exception
+    }
+}
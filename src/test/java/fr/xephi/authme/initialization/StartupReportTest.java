@@ -0,0 +1,45 @@
+package fr.xephi.authme.initialization;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Test for {@link StartupReport}.
+ */
+public class StartupReportTest {
+
+    @Test
+    public void shouldRecordPhases() {
+        // given
+        StartupReport startupReport = new StartupReport();
+        startupReport.record("settings", 12);
+
+        // when
+        int result = startupReport.measure("services", () -> 3);
+
+        // then
+        assertThat(result, equalTo(3));
+        assertThat(startupReport.getPhases(), startsWith("settings: 12 ms, services: "));
+    }
+
+    @Test
+    public void shouldRecordPhaseOfFailingTask() {
+        // given
+        StartupReport startupReport = new StartupReport();
+
+        // when
+        try {
+            startupReport.measure("listeners", () -> {
+                throw new IllegalStateException("Test exception");
+            });
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        // then
+        assertThat(startupReport.getPhases(), startsWith("listeners: "));
+    }
+}
@@ -3,34 +3,27 @@ package fr.xephi.authme.initialization;
 import fr.xephi.authme.AuthMe;
 import fr.xephi.authme.ReflectionTestUtils;
 import fr.xephi.authme.datasource.DataSource;
-import org.bukkit.Server;
-import org.bukkit.plugin.Plugin;
+import fr.xephi.authme.service.AsyncTaskRegistry;
 import org.bukkit.plugin.PluginLogger;
 import org.bukkit.plugin.java.JavaPlugin;
-import org.bukkit.scheduler.BukkitScheduler;
-import org.bukkit.scheduler.BukkitWorker;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
-import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
-import java.util.Arrays;
-import java.util.List;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
 
-import static org.hamcrest.Matchers.contains;
-import static org.junit.Assert.assertThat;
-import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
-import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.spy;
-import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 
 /**
  * Test for {@link TaskCloser}.
@@ -38,118 +31,109 @@ import static org.mockito.Mockito.verify;
 @RunWith(MockitoJUnitRunner.class)
 public class TaskCloserTest {
 
-    private static final int[] ACTIVE_WORKERS_ID = {2, 5};
-
-    private TaskCloser taskCloser;
     @Mock
     private AuthMe authMe;
     @Mock
     private PluginLogger logger;
     @Mock
-    private BukkitScheduler bukkitScheduler;
-    @Mock
     private DataSource dataSource;
+    @Mock
+    private AsyncTaskRegistry asyncTaskRegistry;
 
     @Before
     public void initAuthMe() {
-        Server server = mock(Server.class);
-        given(server.getScheduler()).willReturn(bukkitScheduler);
-        ReflectionTestUtils.setField(JavaPlugin.class, authMe, "server", server);
         ReflectionTestUtils.setField(JavaPlugin.class, authMe, "logger", logger);
-        taskCloser = spy(new TaskCloser(authMe, dataSource));
     }
 
     @Test
-    public void shouldWaitForTasksToClose() throws InterruptedException {
+    public void shouldWaitForTasksToClose() {
         // given
-        doNothing().when(taskCloser).sleep(); // avoid sleeping in tests
-        mockActiveWorkers();
-        given(bukkitScheduler.isCurrentlyRunning(ACTIVE_WORKERS_ID[0])).willReturn(false);
-        given(bukkitScheduler.isCurrentlyRunning(ACTIVE_WORKERS_ID[1]))
-            .willReturn(true) // first time
-            .willReturn(false); // second time
+        given(asyncTaskRegistry.getPendingCount()).willReturn(2);
+        given(asyncTaskRegistry.awaitAll(anyLong(), any(TimeUnit.class))).willReturn(Collections.emptyList());
+        TaskCloser taskCloser = new TaskCloser(authMe, dataSource, asyncTaskRegistry);
 
         // when
         taskCloser.run();
 
         // then
-        verify(bukkitScheduler, times(3)).isQueued(anyInt());
-        ArgumentCaptor<Integer> taskIds = ArgumentCaptor.forClass(Integer.class);
-        verify(bukkitScheduler, times(3)).isCurrentlyRunning(taskIds.capture());
-        assertThat(taskIds.getAllValues(), contains(ACTIVE_WORKERS_ID[0], ACTIVE_WORKERS_ID[1], ACTIVE_WORKERS_ID[1]));
-        verify(taskCloser, times(2)).sleep();
+        verify(asyncTaskRegistry).awaitAll(60L, TimeUnit.SECONDS);
+        verify(logger, never()).log(eq(Level.WARNING), any(String.class), any(Object.class));
         verify(dataSource).close();
     }
 
     @Test
-    public void shouldAbortForNeverEndingTask() throws InterruptedException {
+    public void shouldReportUnfinishedTasks() {
         // given
-        doNothing().when(taskCloser).sleep(); // avoid sleeping in tests
-        mockActiveWorkers();
-        // This task never ends
-        given(bukkitScheduler.isCurrentlyRunning(ACTIVE_WORKERS_ID[0])).willReturn(true);
-        given(bukkitScheduler.isCurrentlyRunning(ACTIVE_WORKERS_ID[1])).willReturn(false);
+        given(asyncTaskRegistry.getPendingCount()).willReturn(1);
+        given(asyncTaskRegistry.awaitAll(anyLong(), any(TimeUnit.class)))
+            .willReturn(Collections.singletonList("AsynchronousLogin"));
+        TaskCloser taskCloser = new TaskCloser(authMe, dataSource, asyncTaskRegistry);
 
         // when
         taskCloser.run();
 
         // then
-        verify(bukkitScheduler, times(3)).isQueued(anyInt());
-        verify(bukkitScheduler, times(61)).isCurrentlyRunning(anyInt());
-        verify(taskCloser, times(60)).sleep();
+        verify(logger).log(Level.WARNING, "Async tasks did not finish in time: {0}",
+            Collections.singletonList("AsynchronousLogin"));
         verify(dataSource).close();
     }
 
     @Test
-    public void shouldStopForInterruptedThread() throws InterruptedException, ExecutionException {
-        // Note ljacqu 20160827: This test must be run in its own thread because we throw an InterruptedException.
-        // Somehow the java.nio.Files API used in tests that are run subsequently don't like this and fail otherwise.
-        ExecutorService executor = Executors.newSingleThreadExecutor();
-        executor.submit(new Runnable() {
-            @Override
-            public void run() {
-                try {
-                    shouldStopForInterruptedThread0();
-                } catch (Exception e) {
-                    throw new IllegalStateException(e);
-                }
-            }
-        }).get();
+    public void shouldCloseDataSourceWithoutPendingTasks() {
+        // given
+        TaskCloser taskCloser = new TaskCloser(authMe, dataSource, asyncTaskRegistry);
+
+        // when
+        taskCloser.run();
+
+        // then
+        verify(asyncTaskRegistry, never()).awaitAll(anyLong(), any(TimeUnit.class));
+        verify(dataSource).close();
     }
 
-    /** Test implementation for {@link #shouldStopForInterruptedThread()}. */
-    private void shouldStopForInterruptedThread0() throws InterruptedException {
+    @Test
+    public void shouldAwaitTasksWithoutClosingDataSource() {
         // given
-        taskCloser = spy(new TaskCloser(authMe, null));
-        // First two times do nothing, third time throw exception when we sleep
-        doNothing().doNothing().doThrow(InterruptedException.class).when(taskCloser).sleep();
-        mockActiveWorkers();
-        given(bukkitScheduler.isCurrentlyRunning(anyInt())).willReturn(true);
+        given(asyncTaskRegistry.getPendingCount()).willReturn(1);
+        given(asyncTaskRegistry.awaitAll(anyLong(), any(TimeUnit.class))).willReturn(Collections.emptyList());
+        TaskCloser taskCloser = new TaskCloser(authMe, dataSource, asyncTaskRegistry);
 
         // when
-        taskCloser.run();
+        taskCloser.awaitTasks();
 
         // then
-        verify(bukkitScheduler, times(4)).isCurrentlyRunning(anyInt());
-        verify(taskCloser, times(3)).sleep();
+        verify(asyncTaskRegistry).awaitAll(60L, TimeUnit.SECONDS);
+        verifyZeroInteractions(dataSource);
     }
 
-    private void mockActiveWorkers() {
-        Plugin otherOwner = mock(Plugin.class);
-        List<BukkitWorker> tasks = Arrays.asList(
-            mockBukkitWorker(authMe, ACTIVE_WORKERS_ID[0], false),
-            mockBukkitWorker(otherOwner, 3, false),
-            mockBukkitWorker(authMe, ACTIVE_WORKERS_ID[1], false),
-            mockBukkitWorker(authMe, 7, true),
-            mockBukkitWorker(otherOwner, 11, true));
-        given(bukkitScheduler.getActiveWorkers()).willReturn(tasks);
+    @Test
+    public void shouldRunTaskWhichWasQueuedButNeverDispatched() {
+        // given
+        AsyncTaskRegistry registry = new AsyncTaskRegistry();
+        Runnable task = mock(Runnable.class);
+        Runnable canceller = mock(Runnable.class);
+        registry.track("backup", task).setScheduler(() -> false, canceller);
+        TaskCloser taskCloser = new TaskCloser(authMe, dataSource, registry);
+
+        // when
+        taskCloser.run();
+
+        // then
+        verify(canceller).run();
+        verify(task).run();
+        verify(logger, never()).log(eq(Level.WARNING), any(String.class), any(Object.class));
+        verify(dataSource).close();
     }
 
-    private BukkitWorker mockBukkitWorker(Plugin owner, int taskId, boolean isQueued) {
-        BukkitWorker worker = mock(BukkitWorker.class);
-        given(worker.getOwner()).willReturn(owner);
-        given(worker.getTaskId()).willReturn(taskId);
-        given(bukkitScheduler.isQueued(taskId)).willReturn(isQueued);
-        return worker;
+    @Test
+    public void shouldHandleMissingDependencies() {
+        // given
+        TaskCloser taskCloser = new TaskCloser(authMe, null, null);
+
+        // when
+        taskCloser.run();
+
+        // then
+        verifyZeroInteractions(logger);
     }
 }
@@ -0,0 +1,46 @@
+package fr.xephi.authme.listener;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Test for {@link JoinVerdictCache}.
+ */
+public class JoinVerdictCacheTest {
+
+    @Test
+    public void shouldReturnVerdictOnce() {
+        // given
+        JoinVerdictCache cache = new JoinVerdictCache();
+        cache.addVerifiedJoin("Bobby", "12.34.56.78", true);
+        cache.addVerifiedJoin("Tester", "12.34.56.78", false);
+
+        // when
+        Boolean verdict1 = cache.removeVerifiedJoin("Bobby", "12.34.56.78");
+        Boolean verdict2 = cache.removeVerifiedJoin("Bobby", "12.34.56.78");
+        Boolean verdict3 = cache.removeVerifiedJoin("Tester", "12.34.56.78");
+
+        // then
+        assertThat(verdict1, equalTo(true));
+        assertThat(verdict2, nullValue());
+        assertThat(verdict3, equalTo(false));
+    }
+
+    @Test
+    public void shouldNotReturnVerdictForOtherAddressOrCasing() {
+        // given
+        JoinVerdictCache cache = new JoinVerdictCache();
+        cache.addVerifiedJoin("Bobby", "12.34.56.78", true);
+
+        // when
+        Boolean otherAddress = cache.removeVerifiedJoin("Bobby", "12.34.56.79");
+        Boolean otherCasing = cache.removeVerifiedJoin("bobby", "12.34.56.78");
+
+        // then
+        assertThat(otherAddress, nullValue());
+        assertThat(otherCasing, nullValue());
+    }
+}
@@ -0,0 +1,127 @@
+package fr.xephi.authme.listener;
+
+import fr.xephi.authme.AuthMe;
+import fr.xephi.authme.settings.Settings;
+import fr.xephi.authme.settings.properties.PluginSettings;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.plugin.EventExecutor;
+import org.bukkit.plugin.PluginManager;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+/**
+ * Test for {@link ListenerProfiler}.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class ListenerProfilerTest {
+
+    @InjectMocks
+    private ListenerProfiler listenerProfiler;
+
+    @Mock
+    private PluginManager pluginManager;
+
+    @Mock
+    private AuthMe plugin;
+
+    @Mock
+    private Settings settings;
+
+    @Test
+    public void shouldRegisterListenerDirectlyIfDisabled() {
+        // given
+        given(settings.getProperty(PluginSettings.PROFILE_LISTENERS)).willReturn(false);
+        Listener listener = new CancellingListener();
+
+        // when
+        listenerProfiler.registerEvents(listener);
+
+        // then
+        verify(pluginManager).registerEvents(listener, plugin);
+        verifyNoMoreInteractions(pluginManager);
+        assertThat(listenerProfiler.isEnabled(), equalTo(false));
+    }
+
+    @Test
+    public void shouldRecordInvocationsAndCancellations() throws Exception {
+        // given
+        given(settings.getProperty(PluginSettings.PROFILE_LISTENERS)).willReturn(true);
+        CancellingListener listener = new CancellingListener();
+        listenerProfiler.registerEvents(listener);
+        ArgumentCaptor<EventExecutor> executorCaptor = ArgumentCaptor.forClass(EventExecutor.class);
+        verify(pluginManager).registerEvent(eq(BlockBreakEvent.class), eq(listener), eq(EventPriority.LOWEST),
+            executorCaptor.capture(), eq(plugin), eq(true));
+        EventExecutor executor = executorCaptor.getValue();
+
+        // when
+        executor.execute(listener, new BlockBreakEvent(mock(Block.class), mock(Player.class)));
+        BlockBreakEvent cancelledEvent = new BlockBreakEvent(mock(Block.class), mock(Player.class));
+        cancelledEvent.setCancelled(true);
+        executor.execute(listener, cancelledEvent);
+
+        // then
+        assertThat(listener.invocations, equalTo(2));
+        List<ListenerProfiler.Profile> profiles = listenerProfiler.getHandlerProfiles();
+        assertThat(profiles, hasSize(1));
+        ListenerProfiler.Profile profile = profiles.get(0);
+        assertThat(profile.getHandler(), equalTo("CancellingListener#onBlockBreak"));
+        assertThat(profile.getEventType(), equalTo("BlockBreakEvent"));
+        assertThat(profile.getInvocations(), equalTo(2L));
+        // the second event was already cancelled
+        assertThat(profile.getCancellations(), equalTo(1L));
+
+        List<ListenerProfiler.Profile> eventTypeProfiles = listenerProfiler.getEventTypeProfiles();
+        assertThat(eventTypeProfiles, hasSize(1));
+        assertThat(eventTypeProfiles.get(0).getHandler(), equalTo("1 handlers"));
+        assertThat(eventTypeProfiles.get(0).getInvocations(), equalTo(2L));
+    }
+
+    @Test
+    public void shouldClearProfiles() throws Exception {
+        // given
+        given(settings.getProperty(PluginSettings.PROFILE_LISTENERS)).willReturn(true);
+        CancellingListener listener = new CancellingListener();
+        listenerProfiler.registerEvents(listener);
+        ArgumentCaptor<EventExecutor> executorCaptor = ArgumentCaptor.forClass(EventExecutor.class);
+        verify(pluginManager).registerEvent(eq(BlockBreakEvent.class), eq(listener), any(EventPriority.class),
+            executorCaptor.capture(), eq(plugin), eq(true));
+        executorCaptor.getValue().execute(listener, new BlockBreakEvent(mock(Block.class), mock(Player.class)));
+
+        // when
+        listenerProfiler.reset();
+
+        // then
+        assertThat(listenerProfiler.getHandlerProfiles(), hasSize(0));
+    }
+
+    private static final class CancellingListener implements Listener {
+        private int invocations;
+
+        @EventHandler(priority = EventPriority.LOWEST, ignoreCancelled = true)
+        public void onBlockBreak(BlockBreakEvent event) {
+            ++invocations;
+            event.setCancelled(true);
+        }
+    }
+}
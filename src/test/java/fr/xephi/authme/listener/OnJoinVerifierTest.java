@@ -37,8 +37,10 @@ import java.util.List;
 import static org.hamcrest.Matchers.equalTo;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.verifyZeroInteractions;
@@ -273,6 +275,20 @@ public class OnJoinVerifierTest {
         verifyZeroInteractions(dataSource);
     }
 
+    @Test
+    public void shouldRejectConnectingNameWithWrongCasing() throws FailedVerificationException {
+        // given
+        PlayerAuth auth = PlayerAuth.builder().name("bobby").realName("Bobby").build();
+        given(settings.getProperty(RegistrationSettings.PREVENT_OTHER_CASE)).willReturn(true);
+
+        // expect
+        expectValidationExceptionWith(MessageKey.INVALID_NAME_CASE, "Bobby", "BOBBY");
+
+        // when / then
+        onJoinVerifier.checkNameCasing("BOBBY", auth);
+        verifyZeroInteractions(dataSource);
+    }
+
     @Test
     public void shouldUpdateMissingRealName() throws FailedVerificationException {
         // given
@@ -376,14 +392,14 @@ public class OnJoinVerifierTest {
         Player player = newPlayerWithName("Bobby");
         boolean isAuthAvailable = false;
         given(permissionsManager.hasPermission(player, PlayerStatePermission.BYPASS_ANTIBOT)).willReturn(false);
-        given(antiBotService.shouldKick()).willReturn(false);
+        given(antiBotService.shouldKick("1.2.3.4")).willReturn(false);
 
         // when
-        onJoinVerifier.checkAntibot(player, isAuthAvailable);
+        onJoinVerifier.checkAntibot(player, isAuthAvailable, "1.2.3.4");
 
         // then
         verify(permissionsManager).hasPermission(player, PlayerStatePermission.BYPASS_ANTIBOT);
-        verify(antiBotService).shouldKick();
+        verify(antiBotService).shouldKick("1.2.3.4");
     }
 
     @Test
@@ -393,7 +409,7 @@ public class OnJoinVerifierTest {
         boolean isAuthAvailable = true;
 
         // when
-        onJoinVerifier.checkAntibot(player, isAuthAvailable);
+        onJoinVerifier.checkAntibot(player, isAuthAvailable, "1.2.3.4");
 
         // then
         verifyZeroInteractions(permissionsManager, antiBotService);
@@ -407,7 +423,7 @@ public class OnJoinVerifierTest {
         given(permissionsManager.hasPermission(player, PlayerStatePermission.BYPASS_ANTIBOT)).willReturn(true);
 
         // when
-        onJoinVerifier.checkAntibot(player, isAuthAvailable);
+        onJoinVerifier.checkAntibot(player, isAuthAvailable, "1.2.3.4");
 
         // then
         verify(permissionsManager).hasPermission(player, PlayerStatePermission.BYPASS_ANTIBOT);
@@ -420,19 +436,39 @@ public class OnJoinVerifierTest {
         Player player = newPlayerWithName("D3");
         boolean isAuthAvailable = false;
         given(permissionsManager.hasPermission(player, PlayerStatePermission.BYPASS_ANTIBOT)).willReturn(false);
-        given(antiBotService.shouldKick()).willReturn(true);
+        given(antiBotService.shouldKick("1.2.3.4")).willReturn(true);
+        given(antiBotService.getAntiBotStatus()).willReturn(AntiBotService.AntiBotStatus.ACTIVE);
 
         // when / then
         try {
-            onJoinVerifier.checkAntibot(player, isAuthAvailable);
+            onJoinVerifier.checkAntibot(player, isAuthAvailable, "1.2.3.4");
             fail("Expected exception to be thrown");
         } catch (FailedVerificationException e) {
             verify(permissionsManager).hasPermission(player, PlayerStatePermission.BYPASS_ANTIBOT);
-            verify(antiBotService).shouldKick();
+            verify(antiBotService).shouldKick("1.2.3.4");
+            verify(antiBotService).addPlayerKick("D3");
         }
 
     }
 
+    @Test
+    public void shouldNotRecordKickForBusySubnet() {
+        // given
+        Player player = newPlayerWithName("Sub");
+        given(permissionsManager.hasPermission(player, PlayerStatePermission.BYPASS_ANTIBOT)).willReturn(false);
+        given(antiBotService.shouldKick("1.2.3.4")).willReturn(true);
+        given(antiBotService.getAntiBotStatus()).willReturn(AntiBotService.AntiBotStatus.LISTENING);
+
+        // when / then
+        try {
+            onJoinVerifier.checkAntibot(player, false, "1.2.3.4");
+            fail("Expected exception to be thrown");
+        } catch (FailedVerificationException e) {
+            assertThat(e.getReason(), equalTo(MessageKey.KICK_ANTIBOT));
+            verify(antiBotService, never()).addPlayerKick(anyString());
+        }
+    }
+
     /**
      * Tests various scenarios in which the country check should not take place.
      */
@@ -19,6 +19,7 @@ import org.bukkit.World;
 import org.bukkit.entity.Player;
 import org.bukkit.event.entity.EntityDamageByEntityEvent;
 import org.bukkit.event.player.AsyncPlayerChatEvent;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
 import org.bukkit.event.player.PlayerBedEnterEvent;
 import org.bukkit.event.player.PlayerCommandPreprocessEvent;
 import org.bukkit.event.player.PlayerDropItemEvent;
@@ -44,6 +45,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.UUID;
 
 import static fr.xephi.authme.listener.EventCancelVerifier.withServiceMock;
 import static org.hamcrest.Matchers.contains;
@@ -52,6 +54,7 @@ import static org.hamcrest.Matchers.equalTo;
 import static org.junit.Assert.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.doThrow;
@@ -95,6 +98,8 @@ public class PlayerListenerTest {
     private TeleportationService teleportationService;
     @Mock
     private ValidationService validationService;
+    @Mock
+    private JoinVerdictCache joinVerdictCache;
 
     /**
      * #831: If a player is kicked because of "logged in from another location", the kick
@@ -560,7 +565,7 @@ public class PlayerListenerTest {
         verify(onJoinVerifier).refusePlayerForFullServer(event);
         verify(onJoinVerifier).checkSingleSession(name);
         verify(onJoinVerifier).checkIsValidName(name);
-        verify(onJoinVerifier).checkAntibot(player, true);
+        verify(onJoinVerifier).checkAntibot(player, true, ip);
         verify(onJoinVerifier).checkKickNonRegistered(true);
         verify(onJoinVerifier).checkNameCasing(player, auth);
         verify(onJoinVerifier).checkPlayerCountry(true, ip);
@@ -596,6 +601,74 @@ public class PlayerListenerTest {
         verify(event).setResult(PlayerLoginEvent.Result.KICK_OTHER);
     }
 
+    @Test
+    public void shouldRunSlowVerificationsInAsyncPreLogin() throws FailedVerificationException {
+        // given
+        String name = "someone";
+        String ip = "12.34.56.78";
+        AsyncPlayerPreLoginEvent event = spy(new AsyncPlayerPreLoginEvent(name, mockAddrWithIp(ip), UUID.randomUUID()));
+        given(validationService.isUnrestricted(name)).willReturn(false);
+        PlayerAuth auth = PlayerAuth.builder().name(name).build();
+        given(dataSource.getAuth(name)).willReturn(auth);
+
+        // when
+        listener.onAsyncPlayerPreLogin(event);
+
+        // then
+        verify(onJoinVerifier).checkIsValidName(name);
+        verify(onJoinVerifier).checkKickNonRegistered(true);
+        verify(onJoinVerifier).checkNameCasing(name, auth);
+        verify(onJoinVerifier).checkPlayerCountry(true, ip);
+        verify(joinVerdictCache).addVerifiedJoin(name, ip, true);
+        verify(event, never()).disallow(any(AsyncPlayerPreLoginEvent.Result.class), anyString());
+    }
+
+    @Test
+    public void shouldDisallowAsyncPreLoginForFailedVerification() throws FailedVerificationException {
+        // given
+        String name = "someone";
+        String ip = "12.34.56.78";
+        AsyncPlayerPreLoginEvent event = spy(new AsyncPlayerPreLoginEvent(name, mockAddrWithIp(ip), UUID.randomUUID()));
+        given(validationService.isUnrestricted(name)).willReturn(false);
+        given(dataSource.getAuth(name)).willReturn(null);
+        FailedVerificationException exception = new FailedVerificationException(MessageKey.COUNTRY_BANNED_ERROR);
+        doThrow(exception).when(onJoinVerifier).checkPlayerCountry(false, ip);
+        String message = "Your country is banned";
+        given(messages.retrieveSingle(exception.getReason(), exception.getArgs())).willReturn(message);
+
+        // when
+        listener.onAsyncPlayerPreLogin(event);
+
+        // then
+        verify(event).disallow(AsyncPlayerPreLoginEvent.Result.KICK_OTHER, message);
+        verifyZeroInteractions(joinVerdictCache);
+    }
+
+    @Test
+    public void shouldUseVerdictFromAsyncPreLogin() throws FailedVerificationException {
+        // given
+        String name = "someone";
+        Player player = mockPlayerWithName(name);
+        String ip = "12.34.56.78";
+        PlayerLoginEvent event = spy(new PlayerLoginEvent(player, "", mockAddrWithIp(ip)));
+        given(validationService.isUnrestricted(name)).willReturn(false);
+        given(onJoinVerifier.refusePlayerForFullServer(event)).willReturn(false);
+        given(joinVerdictCache.removeVerifiedJoin(name, ip)).willReturn(false);
+
+        // when
+        listener.onPlayerLogin(event);
+
+        // then
+        verify(onJoinVerifier).checkSingleSession(name);
+        verify(onJoinVerifier).checkIsValidName(name);
+        verify(onJoinVerifier).checkAntibot(player, false, ip);
+        verify(onJoinVerifier, never()).checkKickNonRegistered(anyBoolean());
+        verify(onJoinVerifier, never()).checkPlayerCountry(anyBoolean(), anyString());
+        verifyZeroInteractions(dataSource);
+        verify(teleportationService).teleportOnJoin(player);
+        verifyNoModifyingCalls(event);
+    }
+
     private static Player mockPlayerWithName(String name) {
         Player player = mock(Player.class);
         given(player.getName()).willReturn(name);
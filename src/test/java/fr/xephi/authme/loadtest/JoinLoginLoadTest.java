@@ -0,0 +1,194 @@
+package fr.xephi.authme.loadtest;
+
+import fr.xephi.authme.datasource.DataSourceUtils;
+import fr.xephi.authme.datasource.InstrumentedDataSource;
+import fr.xephi.authme.datasource.MySQL;
+import fr.xephi.authme.process.ProcessMetrics;
+import fr.xephi.authme.process.SyncTaskQueue;
+import fr.xephi.authme.service.MainThreadBlockingDetector;
+import org.bukkit.entity.Player;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.empty;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Load test of the join, login and quit processes: simulated players join a simulated server with a real database
+ * according to the {@link LoadScenario scenarios}, after which the throughput, the latencies, the load of the main
+ * thread and the lock contention are printed. The test fails if a task or an event handler threw an exception.
+ * <p>
+ * The test is skipped unless the {@code loadTests} profile is active, e.g. run it offline with
+ * {@code mvn -o test -DloadTests -Dtest=JoinLoginLoadTest}. It is configured with the following system properties:
+ * <ul>
+ *   <li>loadtest.scenarios: comma-separated scenarios to run (default: join,login,quit,botwave)</li>
+ *   <li>loadtest.backend: database to use, h2 or sqlite (default: h2)</li>
+ *   <li>loadtest.players: number of players per scenario (default: 250)</li>
+ *   <li>loadtest.joinsPerMinute: rate at which the players join (default: 500)</li>
+ *   <li>loadtest.loginDelay: milliseconds between the join and the login of a player (default: 1000)</li>
+ *   <li>loadtest.sessionTime: milliseconds between the join and the quit of a player (default: 5000)</li>
+ *   <li>loadtest.botAddresses: number of IP addresses the bots of the bot wave join from (default: 4)</li>
+ *   <li>loadtest.timeout: seconds to wait for the processing of a scenario to finish (default: 300)</li>
+ * </ul>
+ */
+public class JoinLoginLoadTest {
+
+    private static final boolean RUN_LOAD_TESTS = "true".equals(System.getProperty("project.runLoadTests"));
+    private static final String PASSWORD = "loadtest_password";
+
+    private static final String SCENARIOS = System.getProperty("loadtest.scenarios", "join,login,quit,botwave");
+    private static final String BACKEND = System.getProperty("loadtest.backend", "h2");
+    private static final int PLAYERS = Integer.getInteger("loadtest.players", 250);
+    private static final int JOINS_PER_MINUTE = Integer.getInteger("loadtest.joinsPerMinute", 500);
+    private static final int LOGIN_DELAY_MILLIS = Integer.getInteger("loadtest.loginDelay", 1000);
+    private static final int SESSION_TIME_MILLIS = Integer.getInteger("loadtest.sessionTime", 5000);
+    private static final int BOT_ADDRESSES = Integer.getInteger("loadtest.botAddresses", 4);
+    private static final int TIMEOUT_SECONDS = Integer.getInteger("loadtest.timeout", 300);
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void shouldRunScenariosWithoutFailures() throws Exception {
+        assumeTrue(RUN_LOAD_TESTS);
+
+        // when
+        List<Throwable> failures = new ArrayList<>();
+        for (String name : SCENARIOS.split(",")) {
+            failures.addAll(runScenario(LoadScenario.fromName(name.trim())));
+        }
+
+        // then
+        failures.forEach(Throwable::printStackTrace);
+        assertThat(failures, empty());
+    }
+
+    private List<Throwable> runScenario(LoadScenario scenario) throws Exception {
+        try (LoadTestEnvironment environment =
+                 new LoadTestEnvironment(temporaryFolder.newFolder(), BACKEND, scenario::configure)) {
+            List<Player> players = createPlayers(environment, scenario);
+            LockContentionMonitor contentionMonitor = new LockContentionMonitor();
+            ScheduledExecutorService generator = Executors.newSingleThreadScheduledExecutor();
+            CountDownLatch pendingActions = new CountDownLatch(players.size()
+                * (1 + (scenario.logsIn() ? 1 : 0) + (scenario.quits() ? 1 : 0)));
+
+            // when
+            contentionMonitor.start();
+            long start = System.nanoTime();
+            long joinInterval = scenario.isBurst() ? 0 : TimeUnit.MINUTES.toMicros(1) / JOINS_PER_MINUTE;
+            for (int i = 0; i < players.size(); ++i) {
+                Player player = players.get(i);
+                long joinTime = i * joinInterval;
+                schedule(generator, pendingActions, joinTime, () -> environment.join(player));
+                if (scenario.logsIn()) {
+                    schedule(generator, pendingActions, joinTime + TimeUnit.MILLISECONDS.toMicros(LOGIN_DELAY_MILLIS),
+                        () -> environment.login(player, PASSWORD));
+                }
+                if (scenario.quits()) {
+                    schedule(generator, pendingActions, joinTime + TimeUnit.MILLISECONDS.toMicros(SESSION_TIME_MILLIS),
+                        () -> environment.quit(player));
+                }
+            }
+            pendingActions.await();
+            long lastAction = System.nanoTime();
+            generator.shutdown();
+            if (!environment.awaitIdle(TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS))) {
+                throw new IllegalStateException("Scenario " + scenario.getName() + " did not finish within "
+                    + TIMEOUT_SECONDS + " seconds");
+            }
+            long end = System.nanoTime();
+
+            // then
+            printReport(scenario, environment, contentionMonitor, end - start, end - lastAction);
+            return environment.getFailures();
+        }
+    }
+
+    private static List<Player> createPlayers(LoadTestEnvironment environment, LoadScenario scenario) {
+        List<Player> players = new ArrayList<>(PLAYERS);
+        for (int i = 0; i < PLAYERS; ++i) {
+            int number = i + 1;
+            String ip = scenario.isBurst()
+                ? "10.66.0." + (i % BOT_ADDRESSES + 1)
+                : "10." + (number >> 16 & 0xFF) + "." + (number >> 8 & 0xFF) + "." + (number & 0xFF);
+            Player player = environment.createPlayer(scenario.getName() + "_" + i, ip);
+            if (scenario.isRegistered()) {
+                environment.registerAccount(player, PASSWORD);
+            }
+            players.add(player);
+        }
+        return players;
+    }
+
+    private static void schedule(ScheduledExecutorService generator, CountDownLatch pendingActions,
+                                 long delayMicros, Runnable action) {
+        generator.schedule(() -> {
+            try {
+                action.run();
+            } finally {
+                pendingActions.countDown();
+            }
+        }, delayMicros, TimeUnit.MICROSECONDS);
+    }
+
+    private static void printReport(LoadScenario scenario, LoadTestEnvironment environment,
+                                    LockContentionMonitor contentionMonitor, long elapsedNanos, long drainNanos) {
+        double seconds = elapsedNanos / 1e9;
+        ProcessMetrics processMetrics = environment.getProcessMetrics();
+        long joins = processMetrics.getJoinLatency().getCount();
+        long logins = processMetrics.getLoginLatency().getCount();
+
+        System.out.println();
+        System.out.println("=== Load test scenario '" + scenario.getName() + "': " + PLAYERS + " players, backend "
+            + BACKEND + " ===");
+        System.out.println(String.format(Locale.ROOT,
+            "Elapsed: %.1f s (%.1f s after the last action); joins: %d (%.1f/s), logins: %d (%.1f/s), quits: %d",
+            seconds, drainNanos / 1e9, joins, joins / seconds, logins, logins / seconds, environment.getQuits()));
+        System.out.println("Refused at login: " + environment.getRefusedLogins()
+            + ", kicked: " + environment.getKicks());
+        System.out.println("Join latency: " + processMetrics.getJoinLatency());
+        System.out.println("Login latency: " + processMetrics.getLoginLatency());
+
+        SyncTaskQueue syncTaskQueue = environment.getSingleton(SyncTaskQueue.class);
+        System.out.println("Main thread task delay: " + environment.getScheduler().getMainThreadDelay());
+        System.out.println("Main thread task run time: " + environment.getScheduler().getMainThreadRunTime());
+        System.out.println("Sync task queue: " + syncTaskQueue.getExecutedTasks() + " tasks, max lag "
+            + syncTaskQueue.getMaxLagMillis() + " ms, " + syncTaskQueue.getCarriedOverTicks() + " carried over ticks");
+
+        InstrumentedDataSource instrumentedSource =
+            DataSourceUtils.unwrap(environment.getDataSource(), InstrumentedDataSource.class);
+        for (Map.Entry<String, InstrumentedDataSource.OperationStats> entry
+            : instrumentedSource.getStatistics().entrySet()) {
+            System.out.println("DataSource#" + entry.getKey() + ": " + entry.getValue().getSnapshot()
+                + ", errors " + entry.getValue().getErrorCount());
+        }
+        MySQL mySql = DataSourceUtils.unwrap(environment.getDataSource(), MySQL.class);
+        if (mySql != null) {
+            System.out.println("Connection pool: " + mySql.getPoolMetrics().getSummary());
+        }
+
+        for (MainThreadBlockingDetector.CallSiteStats callSite
+            : environment.getSingleton(MainThreadBlockingDetector.class).getWorstCallSites(5)) {
+            System.out.println(String.format(Locale.ROOT, "Blocking call on main thread: %s @ %s, %d calls, %d ms",
+                callSite.getOperation(), callSite.getCallSite(), callSite.getCount(),
+                TimeUnit.NANOSECONDS.toMillis(callSite.getTotalNanos())));
+        }
+        contentionMonitor.getContention().stream()
+            .limit(8)
+            .forEach(contention -> System.out.println("Lock contention: " + contention));
+
+        System.out.println("Warnings logged: " + environment.getWarnings().size()
+            + ", failures: " + environment.getFailures().size());
+    }
+}
@@ -0,0 +1,96 @@
+package fr.xephi.authme.loadtest;
+
+import fr.xephi.authme.settings.Settings;
+import fr.xephi.authme.settings.properties.ProtectionSettings;
+
+/**
+ * Scenarios of the join/login load test.
+ */
+enum LoadScenario {
+
+    /** Unregistered players join the server at the configured rate. */
+    JOIN("join", false, false, false),
+
+    /** Registered players join the server at the configured rate and log in. */
+    LOGIN("login", true, true, false),
+
+    /** Registered players join the server at the configured rate, log in and quit after the session time. */
+    QUIT("quit", true, true, true),
+
+    /**
+     * Unregistered players join all at once from a few addresses, with the anti bot protection enabled
+     * from the start.
+     */
+    BOT_WAVE("botwave", false, false, false) {
+        @Override
+        void configure(Settings settings) {
+            settings.setProperty(ProtectionSettings.ENABLE_ANTIBOT, true);
+            settings.setProperty(ProtectionSettings.ANTIBOT_DELAY, 0);
+        }
+
+        @Override
+        boolean isBurst() {
+            return true;
+        }
+    };
+
+    private final String name;
+    private final boolean isRegistered;
+    private final boolean logsIn;
+    private final boolean quits;
+
+    LoadScenario(String name, boolean isRegistered, boolean logsIn, boolean quits) {
+        this.name = name;
+        this.isRegistered = isRegistered;
+        this.logsIn = logsIn;
+        this.quits = quits;
+    }
+
+    /**
+     * Returns the scenario with the given name.
+     *
+     * @param name the name of the scenario, e.g. "login"
+     * @return the scenario
+     */
+    static LoadScenario fromName(String name) {
+        for (LoadScenario scenario : values()) {
+            if (scenario.name.equalsIgnoreCase(name)) {
+                return scenario;
+            }
+        }
+        throw new IllegalArgumentException("Unknown load test scenario '" + name + "'");
+    }
+
+    /**
+     * Adjusts the settings for the scenario. By default, the anti bot protection is disabled as it would
+     * kick players joining at a high rate.
+     *
+     * @param settings the settings to adjust
+     */
+    void configure(Settings settings) {
+        settings.setProperty(ProtectionSettings.ENABLE_ANTIBOT, false);
+    }
+
+    /**
+     * @return true if all players join at once, false if they join at the configured rate
+     */
+    boolean isBurst() {
+        return false;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    boolean isRegistered() {
+        return isRegistered;
+    }
+
+    boolean logsIn() {
+        return logsIn;
+    }
+
+    boolean quits() {
+        return quits;
+    }
+}
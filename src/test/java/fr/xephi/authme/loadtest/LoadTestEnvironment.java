@@ -0,0 +1,441 @@
+package fr.xephi.authme.loadtest;
+
+import ch.jalu.configme.resource.YamlFileResource;
+import ch.jalu.injector.Injector;
+import ch.jalu.injector.InjectorBuilder;
+import com.google.common.io.Files;
+import com.google.common.net.InetAddresses;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import fr.xephi.authme.AuthMe;
+import fr.xephi.authme.ConsoleLogger;
+import fr.xephi.authme.ReflectionTestUtils;
+import fr.xephi.authme.TestHelper;
+import fr.xephi.authme.command.CommandHandler;
+import fr.xephi.authme.data.auth.PlayerAuth;
+import fr.xephi.authme.datasource.CacheDataSource;
+import fr.xephi.authme.datasource.DataSource;
+import fr.xephi.authme.datasource.DataSourceFixtures;
+import fr.xephi.authme.datasource.InstrumentedDataSource;
+import fr.xephi.authme.initialization.DataFolder;
+import fr.xephi.authme.initialization.factory.FactoryDependencyHandler;
+import fr.xephi.authme.process.PlayerTaskExecutor;
+import fr.xephi.authme.process.ProcessMetrics;
+import fr.xephi.authme.process.SyncTaskQueue;
+import fr.xephi.authme.process.join.JoinAdmissionController;
+import fr.xephi.authme.security.PasswordSecurity;
+import fr.xephi.authme.service.MainThreadBlockingDetector;
+import fr.xephi.authme.settings.Settings;
+import fr.xephi.authme.settings.properties.DatabaseSettings;
+import fr.xephi.authme.settings.properties.PluginSettings;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.bukkit.event.player.PlayerCommandPreprocessEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerKickEvent;
+import org.bukkit.event.player.PlayerLoginEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.plugin.PluginDescriptionFile;
+import org.bukkit.plugin.PluginManager;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.plugin.java.JavaPluginLoader;
+import org.mockito.Answers;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static fr.xephi.authme.settings.properties.AuthMeSettingsRetriever.buildConfigurationData;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * AuthMe running on a simulated server: the services are created with the injector as on a real server, with a
+ * simulated scheduler and plugin manager and a real database. Players are mocks which join, log in and quit by
+ * the events and commands the server would fire.
+ */
+class LoadTestEnvironment implements AutoCloseable {
+
+    private static final int IDLE_CHECKS = 5;
+    private static final long IDLE_CHECK_INTERVAL_MILLIS = 20;
+
+    private final Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+    private final Queue<String> warnings = new ConcurrentLinkedQueue<>();
+    private final Map<String, Player> onlinePlayers = new ConcurrentHashMap<>();
+    private final AtomicInteger pendingPreLogins = new AtomicInteger();
+    private final LongAdder refusedLogins = new LongAdder();
+    private final LongAdder kicks = new LongAdder();
+    private final LongAdder quits = new LongAdder();
+    private final SimulatedScheduler scheduler = new SimulatedScheduler(8, failures);
+    private final SimulatedEventBus eventBus = new SimulatedEventBus(failures);
+    private final ExecutorService preLoginExecutor = Executors.newCachedThreadPool(
+        new ThreadFactoryBuilder().setNameFormat("User Authenticator #%d").setDaemon(true).build());
+    private final Server server;
+    private final Server previousServer;
+    private final Location location;
+    private final Settings settings;
+    private final DataSource backend;
+    private final DataSource dataSource;
+    private final Injector injector;
+
+    /**
+     * Constructor.
+     *
+     * @param dataFolder the (empty) data folder of the plugin
+     * @param backendType the database to use: "h2" (MySQL on H2) or "sqlite"
+     * @param settingsCustomizer adjusts the settings before the services are created
+     */
+    LoadTestEnvironment(File dataFolder, String backendType, Consumer<Settings> settingsCustomizer) throws Exception {
+        ConsoleLogger.setLogger(createLogger());
+
+        PluginManager pluginManager = eventBus.createPluginManager();
+        server = mock(Server.class, withSettings().stubOnly().defaultAnswer(Answers.RETURNS_MOCKS));
+        given(server.getLogger()).willReturn(Logger.getAnonymousLogger());
+        given(server.getScheduler()).willReturn(scheduler.createBukkitScheduler());
+        given(server.getPluginManager()).willReturn(pluginManager);
+        given(server.isPrimaryThread()).willAnswer(invocation -> scheduler.isPrimaryThread());
+        given(server.getOnlinePlayers()).willAnswer(invocation -> new ArrayList<>(onlinePlayers.values()));
+        given(server.getPlayerExact(anyString())).willAnswer(
+            invocation -> onlinePlayers.get(invocation.<String>getArgument(0).toLowerCase()));
+        given(server.getPlayer(anyString())).willAnswer(
+            invocation -> onlinePlayers.get(invocation.<String>getArgument(0).toLowerCase()));
+        given(server.getMaxPlayers()).willReturn(Integer.MAX_VALUE);
+        // Bukkit's server is global: keep the previous one so that it can be restored when closing
+        previousServer = ReflectionTestUtils.getFieldValue(Bukkit.class, null, "server");
+        ReflectionTestUtils.setField(Bukkit.class, null, "server", server);
+
+        World world = mock(World.class, withSettings().stubOnly().defaultAnswer(Answers.RETURNS_MOCKS));
+        given(world.getName()).willReturn("world");
+        location = new Location(world, 0, 64, 0);
+
+        File configFile = new File(dataFolder, "config.yml");
+        Files.copy(TestHelper.getJarFile(TestHelper.PROJECT_ROOT + "config.test.yml"), configFile);
+        settings = new Settings(dataFolder, new YamlFileResource(configFile), null, buildConfigurationData());
+        settings.setProperty(PluginSettings.DETECT_MAIN_THREAD_CALLS, true);
+        settingsCustomizer.accept(settings);
+
+        LoadTestPlugin plugin = new LoadTestPlugin(new JavaPluginLoader(server), dataFolder);
+        ReflectionTestUtils.setField(JavaPlugin.class, plugin, "isEnabled", true);
+
+        injector = new InjectorBuilder()
+            .addHandlers(new FactoryDependencyHandler())
+            .addDefaultHandlers("fr.xephi.authme")
+            .create();
+        injector.provide(DataFolder.class, dataFolder);
+        injector.register(Server.class, server);
+        injector.register(PluginManager.class, pluginManager);
+        injector.register(AuthMe.class, plugin);
+        injector.register(Settings.class, settings);
+
+        // Wrap the database as the data source provider does
+        backend = createBackend(backendType, dataFolder);
+        DataSource wrappedSource =
+            new InstrumentedDataSource(backend, injector.getSingleton(MainThreadBlockingDetector.class));
+        if (settings.getProperty(DatabaseSettings.USE_CACHING)) {
+            wrappedSource = new CacheDataSource(wrappedSource);
+        }
+        dataSource = wrappedSource;
+        injector.register(DataSource.class, dataSource);
+
+        plugin.initialize(injector);
+    }
+
+    /**
+     * Creates a player which is not yet online.
+     *
+     * @param name the name of the player
+     * @param ip the IP address of the player
+     * @return the player
+     */
+    Player createPlayer(String name, String ip) {
+        Player player = mock(Player.class, withSettings().stubOnly().defaultAnswer(Answers.RETURNS_MOCKS));
+        given(player.getName()).willReturn(name);
+        given(player.getDisplayName()).willReturn(name);
+        given(player.getUniqueId()).willReturn(UUID.nameUUIDFromBytes(name.getBytes(StandardCharsets.UTF_8)));
+        // Pass the name as host name so that no reverse lookup is performed
+        InetAddress address = createAddress(name, ip);
+        given(player.getAddress()).willReturn(new InetSocketAddress(address, 25565));
+        given(player.getServer()).willReturn(server);
+        given(player.getWorld()).willReturn(location.getWorld());
+        given(player.getLocation()).willAnswer(invocation -> location.clone());
+        given(player.isOnline()).willAnswer(invocation -> onlinePlayers.containsKey(name.toLowerCase()));
+        willAnswer(invocation -> {
+            kick(player, invocation.getArgument(0));
+            return null;
+        }).given(player).kickPlayer(any());
+        return player;
+    }
+
+    /**
+     * Registers an account for the given player directly in the database.
+     *
+     * @param player the player to register
+     * @param password the password of the account
+     */
+    void registerAccount(Player player, String password) {
+        PlayerAuth auth = PlayerAuth.builder()
+            .name(player.getName().toLowerCase())
+            .realName(player.getName())
+            .password(injector.getSingleton(PasswordSecurity.class).computeHash(password, player.getName()))
+            .ip(player.getAddress().getAddress().getHostAddress())
+            .lastLogin(System.currentTimeMillis())
+            .build();
+        backend.saveAuth(auth);
+    }
+
+    /**
+     * Lets the player join as the server does: the pre-login event is fired asynchronously, then the login and
+     * join events are fired on the main thread if the player has not been refused.
+     *
+     * @param player the player to join
+     */
+    void join(Player player) {
+        pendingPreLogins.incrementAndGet();
+        preLoginExecutor.execute(() -> {
+            try {
+                InetAddress address = player.getAddress().getAddress();
+                AsyncPlayerPreLoginEvent preLoginEvent =
+                    new AsyncPlayerPreLoginEvent(player.getName(), address, player.getUniqueId());
+                eventBus.callEvent(preLoginEvent);
+                if (preLoginEvent.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+                    refusedLogins.increment();
+                    return;
+                }
+                scheduler.runOnMainThread(() -> {
+                    PlayerLoginEvent loginEvent = new PlayerLoginEvent(player, "localhost", address);
+                    eventBus.callEvent(loginEvent);
+                    if (loginEvent.getResult() != PlayerLoginEvent.Result.ALLOWED) {
+                        refusedLogins.increment();
+                        return;
+                    }
+                    onlinePlayers.put(player.getName().toLowerCase(), player);
+                    eventBus.callEvent(new PlayerJoinEvent(player, player.getName() + " joined the game"));
+                });
+            } finally {
+                pendingPreLogins.decrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * Lets the player run the login command on the main thread, if the player is online.
+     *
+     * @param player the player to log in
+     * @param password the password to log in with
+     */
+    void login(Player player, String password) {
+        scheduler.runOnMainThread(() -> {
+            if (player.isOnline()) {
+                PlayerCommandPreprocessEvent event = new PlayerCommandPreprocessEvent(player, "/login " + password);
+                eventBus.callEvent(event);
+                if (!event.isCancelled()) {
+                    injector.getSingleton(CommandHandler.class)
+                        .processCommand(player, "login", new String[]{password});
+                }
+            }
+        });
+    }
+
+    /**
+     * Lets the player leave the server, if the player is online.
+     *
+     * @param player the player to quit
+     */
+    void quit(Player player) {
+        scheduler.runOnMainThread(() -> {
+            if (onlinePlayers.remove(player.getName().toLowerCase()) != null) {
+                quits.increment();
+                eventBus.callEvent(new PlayerQuitEvent(player, player.getName() + " left the game"));
+            }
+        });
+    }
+
+    /**
+     * Waits until no process and no immediate task is waiting or running anymore. Delayed and repeating tasks,
+     * such as the timeout and message tasks of unauthenticated players, are not waited for.
+     *
+     * @param timeoutMillis the maximum time to wait
+     * @return true if the processing has finished, false if the timeout has been reached
+     */
+    boolean awaitIdle(long timeoutMillis) throws InterruptedException {
+        PlayerTaskExecutor playerTaskExecutor = injector.getSingleton(PlayerTaskExecutor.class);
+        JoinAdmissionController joinAdmissionController = injector.getSingleton(JoinAdmissionController.class);
+        SyncTaskQueue syncTaskQueue = injector.getSingleton(SyncTaskQueue.class);
+
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        int idleChecks = 0;
+        // Tasks move between the queues, so the state has to be idle a few times in a row
+        while (idleChecks < IDLE_CHECKS) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            boolean isIdle = pendingPreLogins.get() == 0
+                && scheduler.isIdle()
+                && joinAdmissionController.getActiveJoins() == 0
+                && joinAdmissionController.getQueueLength() == 0
+                && playerTaskExecutor.getPendingTasks() == 0
+                && syncTaskQueue.getQueueLength() == 0;
+            idleChecks = isIdle ? idleChecks + 1 : 0;
+            Thread.sleep(IDLE_CHECK_INTERVAL_MILLIS);
+        }
+        return true;
+    }
+
+    <T> T getSingleton(Class<T> clazz) {
+        return injector.getSingleton(clazz);
+    }
+
+    ProcessMetrics getProcessMetrics() {
+        return injector.getSingleton(ProcessMetrics.class);
+    }
+
+    SimulatedScheduler getScheduler() {
+        return scheduler;
+    }
+
+    DataSource getDataSource() {
+        return dataSource;
+    }
+
+    /**
+     * @return the number of players who have been refused in the pre-login or login event
+     */
+    long getRefusedLogins() {
+        return refusedLogins.sum();
+    }
+
+    /**
+     * @return the number of players who have been kicked after joining
+     */
+    long getKicks() {
+        return kicks.sum();
+    }
+
+    /**
+     * @return the number of players who have quit (without being kicked)
+     */
+    long getQuits() {
+        return quits.sum();
+    }
+
+    /**
+     * @return the exceptions thrown by tasks and event handlers
+     */
+    List<Throwable> getFailures() {
+        return new ArrayList<>(failures);
+    }
+
+    /**
+     * @return the messages logged with level warning or above
+     */
+    List<String> getWarnings() {
+        return new ArrayList<>(warnings);
+    }
+
+    @Override
+    public void close() throws Exception {
+        try {
+            scheduler.shutdown();
+            preLoginExecutor.shutdownNow();
+            injector.getSingleton(PlayerTaskExecutor.class).shutdown();
+            dataSource.close();
+            preLoginExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        } finally {
+            ReflectionTestUtils.setField(Bukkit.class, null, "server", previousServer);
+            TestHelper.setupLogger();
+        }
+    }
+
+    private void kick(Player player, String reason) {
+        if (onlinePlayers.remove(player.getName().toLowerCase()) != null) {
+            kicks.increment();
+            PlayerKickEvent kickEvent = new PlayerKickEvent(player, reason, player.getName() + " left the game");
+            eventBus.callEvent(kickEvent);
+            eventBus.callEvent(new PlayerQuitEvent(player, kickEvent.getLeaveMessage()));
+        }
+    }
+
+    private DataSource createBackend(String backendType, File dataFolder) throws IOException, SQLException {
+        switch (backendType) {
+            case "h2":
+                return DataSourceFixtures.createMySqlOnH2(settings, "loadtest", 10);
+            case "sqlite":
+                return DataSourceFixtures.createSqLite(settings, new File(dataFolder, "authme.db"));
+            default:
+                throw new IllegalArgumentException("Unknown backend '" + backendType + "', expected h2 or sqlite");
+        }
+    }
+
+    private Logger createLogger() {
+        Logger logger = Logger.getAnonymousLogger();
+        logger.setUseParentHandlers(false);
+        logger.addHandler(new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                if (record.getLevel().intValue() >= Level.WARNING.intValue()) {
+                    warnings.add(record.getMessage());
+                }
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+        return logger;
+    }
+
+    private static InetAddress createAddress(String hostName, String ip) {
+        try {
+            return InetAddress.getByAddress(hostName, InetAddresses.forString(ip).getAddress());
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid IP address '" + ip + "'", e);
+        }
+    }
+
+    /**
+     * Plugin which gives access to the initialization steps of AuthMe.
+     */
+    private static final class LoadTestPlugin extends AuthMe {
+
+        LoadTestPlugin(JavaPluginLoader loader, File dataFolder) {
+            super(loader, new PluginDescriptionFile("AuthMe", "N/A", AuthMe.class.getCanonicalName()),
+                dataFolder, null);
+        }
+
+        void initialize(Injector injector) {
+            instantiateServices(injector);
+            registerEventListeners(injector);
+        }
+    }
+}
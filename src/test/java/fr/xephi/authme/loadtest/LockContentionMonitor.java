@@ -0,0 +1,85 @@
+package fr.xephi.authme.loadtest;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Measures how often and how long threads were blocked on monitors (synchronized) or waiting (e.g. for a
+ * {@link java.util.concurrent.locks.Lock} or a pool) during a load test. The values are aggregated by thread
+ * name, with numbers replaced by '#' so that the threads of a pool are grouped together.
+ */
+class LockContentionMonitor {
+
+    private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    private final Map<Long, ThreadInfo> initialInfos = new HashMap<>();
+
+    /**
+     * Enables the contention monitoring of the JVM if needed and records the current values of all threads.
+     */
+    void start() {
+        if (threadBean.isThreadContentionMonitoringSupported()) {
+            threadBean.setThreadContentionMonitoringEnabled(true);
+        }
+        initialInfos.clear();
+        for (ThreadInfo info : threadBean.getThreadInfo(threadBean.getAllThreadIds())) {
+            if (info != null) {
+                initialInfos.put(info.getThreadId(), info);
+            }
+        }
+    }
+
+    /**
+     * Returns the contention since {@link #start()} per thread group, sorted by blocked time descending.
+     * Threads which have terminated in the meantime are not included.
+     *
+     * @return the contention of all thread groups
+     */
+    List<Contention> getContention() {
+        Map<String, Contention> contentionByGroup = new HashMap<>();
+        for (ThreadInfo info : threadBean.getThreadInfo(threadBean.getAllThreadIds())) {
+            if (info == null) {
+                continue;
+            }
+            ThreadInfo initial = initialInfos.get(info.getThreadId());
+            Contention contention = contentionByGroup.computeIfAbsent(
+                info.getThreadName().replaceAll("\\d+", "#"), Contention::new);
+            ++contention.threads;
+            contention.blockedCount += info.getBlockedCount() - (initial == null ? 0 : initial.getBlockedCount());
+            contention.blockedMillis += info.getBlockedTime() - (initial == null ? 0 : initial.getBlockedTime());
+            contention.waitedCount += info.getWaitedCount() - (initial == null ? 0 : initial.getWaitedCount());
+            contention.waitedMillis += info.getWaitedTime() - (initial == null ? 0 : initial.getWaitedTime());
+        }
+        List<Contention> result = new ArrayList<>(contentionByGroup.values());
+        result.sort(Comparator.comparingLong((Contention contention) -> contention.blockedMillis)
+            .thenComparingLong(contention -> contention.blockedCount).reversed());
+        return result;
+    }
+
+    /**
+     * Contention of a group of threads. Times are only meaningful if the JVM supports contention monitoring.
+     */
+    static final class Contention {
+        private final String threadName;
+        private int threads;
+        private long blockedCount;
+        private long blockedMillis;
+        private long waitedCount;
+        private long waitedMillis;
+
+        Contention(String threadName) {
+            this.threadName = threadName;
+        }
+
+        @Override
+        public String toString() {
+            return threadName + " (" + threads + " threads): blocked " + blockedCount + " times for "
+                + blockedMillis + " ms, waited " + waitedCount + " times for " + waitedMillis + " ms";
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package fr.xephi.authme.loadtest;
+
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.PluginManager;
+import org.mockito.Answers;
+import org.mockito.invocation.InvocationOnMock;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Simulates the event handling of the plugin manager: the event handlers of the registered listeners are called
+ * by priority on the calling thread, as on a real server. Exceptions thrown by handlers are collected.
+ */
+class SimulatedEventBus {
+
+    private final List<RegisteredHandler> handlers = new CopyOnWriteArrayList<>();
+    private final Map<Class<?>, List<RegisteredHandler>> handlersByEvent = new ConcurrentHashMap<>();
+    private final Queue<Throwable> failures;
+
+    /**
+     * Constructor.
+     *
+     * @param failures the queue to add exceptions thrown by event handlers to
+     */
+    SimulatedEventBus(Queue<Throwable> failures) {
+        this.failures = failures;
+    }
+
+    /**
+     * Creates a plugin manager which registers listeners and calls events on this event bus.
+     * Other methods return default values, i.e. no other plugins are present.
+     *
+     * @return the plugin manager
+     */
+    PluginManager createPluginManager() {
+        return mock(PluginManager.class, withSettings().stubOnly().defaultAnswer(this::answer));
+    }
+
+    /**
+     * Registers the event handlers of the given listener.
+     *
+     * @param listener the listener to register
+     */
+    void registerEvents(Listener listener) {
+        for (Method method : listener.getClass().getMethods()) {
+            EventHandler annotation = method.getAnnotation(EventHandler.class);
+            if (annotation != null && method.getParameterCount() == 1
+                && Event.class.isAssignableFrom(method.getParameterTypes()[0])) {
+                handlers.add(new RegisteredHandler(listener, method, annotation));
+            }
+        }
+        handlersByEvent.clear();
+    }
+
+    /**
+     * Calls the handlers of the given event.
+     *
+     * @param event the event to call
+     */
+    void callEvent(Event event) {
+        List<RegisteredHandler> eventHandlers = handlersByEvent.computeIfAbsent(event.getClass(), this::findHandlers);
+        for (RegisteredHandler handler : eventHandlers) {
+            if (handler.annotation.ignoreCancelled() && event instanceof Cancellable
+                && ((Cancellable) event).isCancelled()) {
+                continue;
+            }
+            try {
+                handler.method.invoke(handler.listener, event);
+            } catch (InvocationTargetException e) {
+                failures.add(e.getCause());
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private List<RegisteredHandler> findHandlers(Class<?> eventClass) {
+        List<RegisteredHandler> eventHandlers = new ArrayList<>();
+        for (RegisteredHandler handler : handlers) {
+            if (handler.method.getParameterTypes()[0].isAssignableFrom(eventClass)) {
+                eventHandlers.add(handler);
+            }
+        }
+        eventHandlers.sort(Comparator.comparing(handler -> handler.annotation.priority()));
+        return eventHandlers;
+    }
+
+    private Object answer(InvocationOnMock invocation) throws Throwable {
+        switch (invocation.getMethod().getName()) {
+            case "registerEvents":
+                registerEvents(invocation.getArgument(0));
+                return null;
+            case "callEvent":
+                callEvent(invocation.getArgument(0));
+                return null;
+            default:
+                return Answers.RETURNS_DEFAULTS.answer(invocation);
+        }
+    }
+
+    private static final class RegisteredHandler {
+        private final Listener listener;
+        private final Method method;
+        private final EventHandler annotation;
+
+        RegisteredHandler(Listener listener, Method method, EventHandler annotation) {
+            this.listener = listener;
+            this.method = method;
+            this.annotation = annotation;
+        }
+    }
+}
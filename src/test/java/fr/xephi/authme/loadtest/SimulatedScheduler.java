@@ -0,0 +1,272 @@
+package fr.xephi.authme.loadtest;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import fr.xephi.authme.util.LatencyHistogram;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.scheduler.BukkitTask;
+import org.mockito.invocation.InvocationOnMock;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Simulates the Bukkit scheduler with one main thread and a pool of asynchronous threads. Delays and periods
+ * are converted from ticks to milliseconds; unlike on a real server, main thread tasks are not grouped into ticks.
+ * <p>
+ * For each main thread task, the time between its planned and its actual start and its run time are recorded,
+ * which shows how busy the main thread is. Exceptions thrown by tasks are collected instead of being logged.
+ */
+class SimulatedScheduler {
+
+    private static final long MILLIS_PER_TICK = 50;
+
+    private final ScheduledThreadPoolExecutor mainThreadExecutor;
+    private final ScheduledThreadPoolExecutor asyncExecutor;
+    private final Map<Integer, SimulatedTask> tasks = new ConcurrentHashMap<>();
+    private final AtomicInteger taskIds = new AtomicInteger();
+    private final AtomicInteger immediateTasks = new AtomicInteger();
+    private final LatencyHistogram mainThreadDelay = new LatencyHistogram();
+    private final LatencyHistogram mainThreadRunTime = new LatencyHistogram();
+    private final Queue<Throwable> failures;
+    private volatile Thread mainThread;
+
+    /**
+     * Constructor.
+     *
+     * @param asyncThreads the number of threads for asynchronous tasks
+     * @param failures the queue to add exceptions thrown by tasks to
+     */
+    SimulatedScheduler(int asyncThreads, Queue<Throwable> failures) {
+        this.failures = failures;
+        mainThreadExecutor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "Server thread");
+            thread.setDaemon(true);
+            mainThread = thread;
+            return thread;
+        });
+        asyncExecutor = new ScheduledThreadPoolExecutor(asyncThreads, new ThreadFactoryBuilder()
+            .setNameFormat("Craft Scheduler Thread - %d")
+            .setDaemon(true)
+            .build());
+    }
+
+    /**
+     * Creates a Bukkit scheduler which schedules all tasks on this simulated scheduler.
+     *
+     * @return the Bukkit scheduler
+     */
+    BukkitScheduler createBukkitScheduler() {
+        return mock(BukkitScheduler.class, withSettings().stubOnly().defaultAnswer(this::answer));
+    }
+
+    /**
+     * @return true if the current thread is the simulated main thread, false otherwise
+     */
+    boolean isPrimaryThread() {
+        return Thread.currentThread() == mainThread;
+    }
+
+    /**
+     * Runs the given task on the main thread as soon as possible, e.g. to fire an event like the server would.
+     *
+     * @param task the task to run
+     */
+    void runOnMainThread(Runnable task) {
+        schedule(null, task, true, 0, -1);
+    }
+
+    /**
+     * @return true if no task without delay is waiting or running, false otherwise
+     */
+    boolean isIdle() {
+        return immediateTasks.get() == 0;
+    }
+
+    /**
+     * @return the time between the planned and the actual start of main thread tasks
+     */
+    LatencyHistogram.Snapshot getMainThreadDelay() {
+        return mainThreadDelay.getSnapshot();
+    }
+
+    /**
+     * @return the run time of main thread tasks
+     */
+    LatencyHistogram.Snapshot getMainThreadRunTime() {
+        return mainThreadRunTime.getSnapshot();
+    }
+
+    /**
+     * Cancels all tasks and stops the threads.
+     */
+    void shutdown() throws InterruptedException {
+        tasks.values().forEach(SimulatedTask::cancel);
+        mainThreadExecutor.shutdownNow();
+        asyncExecutor.shutdownNow();
+        mainThreadExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        asyncExecutor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    private Object answer(InvocationOnMock invocation) {
+        Method method = invocation.getMethod();
+        Object[] args = invocation.getArguments();
+        switch (method.getName()) {
+            case "cancelTask":
+                SimulatedTask task = tasks.get((Integer) args[0]);
+                if (task != null) {
+                    task.cancel();
+                }
+                return null;
+            case "cancelTasks":
+            case "cancelAllTasks":
+                tasks.values().forEach(SimulatedTask::cancel);
+                return null;
+            case "getPendingTasks":
+                return new ArrayList<BukkitTask>(tasks.values());
+            case "isQueued":
+            case "isCurrentlyRunning":
+                return tasks.containsKey((Integer) args[0]);
+            case "callSyncMethod":
+                return callOnMainThread((Callable<?>) args[1]);
+            default:
+                break;
+        }
+
+        if (args.length < 2 || !(args[1] instanceof Runnable)) {
+            throw new UnsupportedOperationException("Scheduler method " + method + " is not simulated");
+        }
+        boolean isSync = !method.getName().contains("Async");
+        long delay = args.length > 2 ? (Long) args[2] : 0;
+        // As in Bukkit, a period of 0 means that the task is repeated every tick
+        long period = args.length > 3 ? Math.max(1, (Long) args[3]) : -1;
+        SimulatedTask task = schedule((Plugin) args[0], (Runnable) args[1], isSync, delay, period);
+        return method.getReturnType() == int.class ? task.getTaskId() : task;
+    }
+
+    private Future<?> callOnMainThread(Callable<?> callable) {
+        immediateTasks.incrementAndGet();
+        return mainThreadExecutor.submit(() -> {
+            try {
+                return callable.call();
+            } finally {
+                immediateTasks.decrementAndGet();
+            }
+        });
+    }
+
+    private SimulatedTask schedule(Plugin owner, Runnable runnable, boolean isSync, long delayTicks,
+                                   long periodTicks) {
+        long delayMillis = Math.max(0, delayTicks) * MILLIS_PER_TICK;
+        boolean isImmediate = delayMillis == 0 && periodTicks < 0;
+        SimulatedTask task = new SimulatedTask(taskIds.incrementAndGet(), owner, isSync, runnable, isImmediate,
+            System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis), periodTicks * MILLIS_PER_TICK);
+        tasks.put(task.getTaskId(), task);
+        if (isImmediate) {
+            immediateTasks.incrementAndGet();
+        }
+
+        ScheduledThreadPoolExecutor executor = isSync ? mainThreadExecutor : asyncExecutor;
+        if (periodTicks < 0) {
+            task.future = executor.schedule(() -> run(task), delayMillis, TimeUnit.MILLISECONDS);
+        } else {
+            task.future = executor.scheduleAtFixedRate(() -> run(task), delayMillis,
+                periodTicks * MILLIS_PER_TICK, TimeUnit.MILLISECONDS);
+        }
+        if (task.isCancelled) {
+            task.cancel();
+        }
+        return task;
+    }
+
+    private void run(SimulatedTask task) {
+        try {
+            if (task.isCancelled) {
+                return;
+            }
+            long start = System.nanoTime();
+            if (task.isSync) {
+                mainThreadDelay.record(Math.max(0, start - task.plannedStart), TimeUnit.NANOSECONDS);
+            }
+            try {
+                task.runnable.run();
+            } catch (RuntimeException | Error e) {
+                failures.add(e);
+            }
+            if (task.isSync) {
+                mainThreadRunTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+            task.plannedStart += TimeUnit.MILLISECONDS.toNanos(task.periodMillis);
+        } finally {
+            if (task.periodMillis < 0) {
+                tasks.remove(task.getTaskId());
+            }
+            if (task.isImmediate) {
+                immediateTasks.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Task of the simulated scheduler.
+     */
+    private final class SimulatedTask implements BukkitTask {
+        private final int taskId;
+        private final Plugin owner;
+        private final boolean isSync;
+        private final Runnable runnable;
+        private final boolean isImmediate;
+        private final long periodMillis;
+        private volatile long plannedStart;
+        private volatile boolean isCancelled;
+        private volatile Future<?> future;
+
+        SimulatedTask(int taskId, Plugin owner, boolean isSync, Runnable runnable, boolean isImmediate,
+                      long plannedStart, long periodMillis) {
+            this.taskId = taskId;
+            this.owner = owner;
+            this.isSync = isSync;
+            this.runnable = runnable;
+            this.isImmediate = isImmediate;
+            this.plannedStart = plannedStart;
+            this.periodMillis = periodMillis;
+        }
+
+        @Override
+        public int getTaskId() {
+            return taskId;
+        }
+
+        @Override
+        public Plugin getOwner() {
+            return owner;
+        }
+
+        @Override
+        public boolean isSync() {
+            return isSync;
+        }
+
+        @Override
+        public void cancel() {
+            isCancelled = true;
+            tasks.remove(taskId);
+            // Immediate tasks are not removed from the executor, so that they are still counted down when run
+            Future<?> scheduledFuture = future;
+            if (!isImmediate && scheduledFuture != null) {
+                scheduledFuture.cancel(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package fr.xephi.authme.output;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.Matchers.arrayWithSize;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Test for {@link AsyncLogWriter}.
+ */
+public class AsyncLogWriterTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void shouldWriteAllLinesOnClose() throws IOException {
+        // given
+        File logFile = new File(temporaryFolder.newFolder(), "authme.log");
+        AsyncLogWriter writer = new AsyncLogWriter(logFile, mock(Logger.class));
+        writer.start();
+
+        // when
+        for (int i = 0; i < 1000; ++i) {
+            writer.write("Line " + i);
+        }
+        writer.close();
+        writer.write("Written after close");
+
+        // then
+        List<String> lines = Files.readAllLines(logFile.toPath(), StandardCharsets.UTF_8);
+        assertThat(lines, hasSize(1000));
+        assertThat(lines.get(0), matchesPattern("\\[\\d{2}-\\d{2} \\d{2}:\\d{2}:\\d{2}]: Line 0"));
+        assertThat(lines.get(999).endsWith(": Line 999"), equalTo(true));
+    }
+
+    @Test
+    public void shouldRotateFileExceedingMaxSize() throws IOException {
+        // given
+        File folder = temporaryFolder.newFolder();
+        File logFile = new File(folder, "authme.log");
+        AsyncLogWriter writer = new AsyncLogWriter(logFile, mock(Logger.class));
+        writer.setRotation(100, false);
+        writer.start();
+
+        // when
+        writer.write("First line, which is long enough to fill most of the log file");
+        writer.write("Second line, which no longer fits into the first file");
+        writer.close();
+
+        // then
+        File[] archives = folder.listFiles((dir, name) -> name.endsWith(".log.gz"));
+        assertThat(archives, arrayWithSize(1));
+        assertThat(archives[0].getName(), matchesPattern("authme-\\d{4}-\\d{2}-\\d{2}-1\\.log\\.gz"));
+        String archivedText = readGzipFile(archives[0]);
+        assertThat(archivedText.endsWith(": First line, which is long enough to fill most of the log file"),
+            equalTo(true));
+        List<String> lines = Files.readAllLines(logFile.toPath(), StandardCharsets.UTF_8);
+        assertThat(lines, hasSize(1));
+        assertThat(lines.get(0).endsWith(": Second line, which no longer fits into the first file"), equalTo(true));
+    }
+
+    private static String readGzipFile(File file) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+            new GZIPInputStream(Files.newInputStream(file.toPath())), StandardCharsets.UTF_8))) {
+            return reader.lines().collect(Collectors.joining("\n"));
+        }
+    }
+}
@@ -10,6 +10,7 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
 import static org.junit.Assert.assertThat;
 
 /**
@@ -42,6 +43,29 @@ public class LogFilterHelperTest {
 
     }
 
+    @Test
+    public void shouldDetectSensitiveCommands() {
+        // given / when / then
+        assertThat(LogFilterHelper.isSensitiveAuthMeCommand("Bobby issued server command: /login test123"),
+            equalTo(true));
+        assertThat(LogFilterHelper.isSensitiveAuthMeCommand("Bobby ISSUED server Command: /L test"), equalTo(true));
+        assertThat(LogFilterHelper.isSensitiveAuthMeCommand("Tim issued server command: /AuthMe:Register pw pw"),
+            equalTo(true));
+        assertThat(LogFilterHelper.isSensitiveAuthMeCommand("Tim issued server command: /help /reg foo"),
+            equalTo(true));
+    }
+
+    @Test
+    public void shouldNotDetectOtherMessages() {
+        // given / when / then
+        assertThat(LogFilterHelper.isSensitiveAuthMeCommand(null), equalTo(false));
+        assertThat(LogFilterHelper.isSensitiveAuthMeCommand(""), equalTo(false));
+        assertThat(LogFilterHelper.isSensitiveAuthMeCommand("Bobby issued server command: /help"), equalTo(false));
+        assertThat(LogFilterHelper.isSensitiveAuthMeCommand("Bobby issued server command: /login"), equalTo(false));
+        assertThat(LogFilterHelper.isSensitiveAuthMeCommand("Bobby issued server command:"), equalTo(false));
+        assertThat(LogFilterHelper.isSensitiveAuthMeCommand("Bobby said: /login test123"), equalTo(false));
+    }
+
     private static CommandDescription getCommand(String label) {
         return findCommandWithLabel(label, ALL_COMMANDS);
     }
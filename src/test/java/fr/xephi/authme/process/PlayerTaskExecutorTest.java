@@ -0,0 +1,240 @@
+package fr.xephi.authme.process;
+
+import fr.xephi.authme.TestHelper;
+import fr.xephi.authme.service.AsyncTaskRegistry;
+import fr.xephi.authme.settings.Settings;
+import fr.xephi.authme.settings.properties.PluginSettings;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+/**
+ * Test for {@link PlayerTaskExecutor}.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class PlayerTaskExecutorTest {
+
+    @Mock
+    private ExecutorService executorService;
+    @Mock
+    private Settings settings;
+
+    @BeforeClass
+    public static void initLogger() {
+        TestHelper.setupLogger();
+    }
+
+    @Test
+    public void shouldRunTaskImmediatelyWithoutAsyncTasks() {
+        // given
+        PlayerTaskExecutor executor = createExecutor(false);
+        List<Integer> executed = new ArrayList<>();
+
+        // when
+        executor.execute("Bobby", () -> executed.add(1));
+
+        // then
+        assertThat(executed, contains(1));
+        verifyZeroInteractions(executorService);
+    }
+
+    @Test
+    public void shouldRunTasksOfPlayerInOrder() {
+        // given
+        PlayerTaskExecutor executor = createExecutor(true);
+        List<Integer> executed = new ArrayList<>();
+        executor.execute("Bobby", () -> executed.add(1));
+        executor.execute("bobby", () -> executed.add(2));
+        executor.execute("BOBBY", () -> executed.add(3));
+        ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+        verify(executorService).execute(captor.capture());
+        assertThat(executed, empty());
+        assertThat(executor.getQueueDepth("bobby"), equalTo(3));
+        assertThat(executor.getPendingTasks(), equalTo(3));
+
+        // when
+        captor.getValue().run();
+
+        // then
+        assertThat(executed, contains(1));
+        verify(executorService, times(2)).execute(captor.capture());
+
+        // when (2)
+        captor.getValue().run();
+        verify(executorService, times(3)).execute(captor.capture());
+        captor.getValue().run();
+
+        // then (2)
+        assertThat(executed, contains(1, 2, 3));
+        assertThat(executor.getQueuedPlayers(), equalTo(0));
+        assertThat(executor.getPendingTasks(), equalTo(0));
+        verify(executorService, times(3)).execute(captor.capture());
+    }
+
+    @Test
+    public void shouldRunTasksOfDifferentPlayersIndependently() {
+        // given
+        PlayerTaskExecutor executor = createExecutor(true);
+        List<String> executed = new ArrayList<>();
+        executor.execute("Alice", () -> executed.add("alice1"));
+        executor.execute("Bobby", () -> executed.add("bobby1"));
+        executor.execute("Alice", () -> executed.add("alice2"));
+        ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+        verify(executorService, times(2)).execute(captor.capture());
+        assertThat(executor.getQueuedPlayers(), equalTo(2));
+        assertThat(executor.getMaxQueueDepth(), equalTo(2));
+
+        // when
+        captor.getAllValues().get(1).run();
+
+        // then
+        assertThat(executed, contains("bobby1"));
+        assertThat(executor.getQueuedPlayers(), equalTo(1));
+        assertThat(executor.getQueueDepth("bobby"), equalTo(0));
+    }
+
+    @Test
+    public void shouldContinueAfterFailingTask() {
+        // given
+        PlayerTaskExecutor executor = createExecutor(true);
+        List<Integer> executed = new ArrayList<>();
+        executor.execute("Bobby", () -> {
+            throw new IllegalStateException("Test exception");
+        });
+        executor.execute("Bobby", () -> executed.add(2));
+        ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+        verify(executorService).execute(captor.capture());
+
+        // when
+        captor.getValue().run();
+        verify(executorService, times(2)).execute(captor.capture());
+        captor.getValue().run();
+
+        // then
+        assertThat(executed, contains(2));
+        assertThat(executor.getPendingTasks(), equalTo(0));
+    }
+
+    @Test
+    public void shouldAdvanceQueueAfterError() {
+        // given
+        PlayerTaskExecutor executor = createExecutor(true);
+        List<Integer> executed = new ArrayList<>();
+        executor.execute("Bobby", () -> {
+            throw new NoClassDefFoundError("Test error");
+        });
+        executor.execute("Bobby", () -> executed.add(2));
+        ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+        verify(executorService).execute(captor.capture());
+
+        // when
+        try {
+            captor.getValue().run();
+            fail("Expected error to be thrown");
+        } catch (NoClassDefFoundError e) {
+            // expected
+        }
+
+        // then
+        verify(executorService, times(2)).execute(captor.capture());
+        captor.getValue().run();
+        assertThat(executed, contains(2));
+        assertThat(executor.getPendingTasks(), equalTo(0));
+        assertThat(executor.getQueuedPlayers(), equalTo(0));
+    }
+
+    @Test
+    public void shouldRunTasksOnCurrentThreadIfRejected() {
+        // given
+        PlayerTaskExecutor executor = createExecutor(true);
+        List<Integer> executed = new ArrayList<>();
+        executor.execute("Bobby", () -> executed.add(1));
+        executor.execute("Bobby", () -> executed.add(2));
+        ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+        verify(executorService).execute(captor.capture());
+        doThrow(RejectedExecutionException.class).when(executorService).execute(any(Runnable.class));
+
+        // when
+        captor.getValue().run();
+        executor.execute("Bobby", () -> executed.add(3));
+
+        // then
+        assertThat(executed, contains(1, 2, 3));
+        assertThat(executor.getPendingTasks(), equalTo(0));
+        assertThat(executor.getQueuedPlayers(), equalTo(0));
+    }
+
+    @Test
+    public void shouldRunLoginSubmittedWhileJoinIsQueuedAfterJoin() {
+        // given
+        PlayerTaskExecutor executor = createExecutor(true);
+        List<String> executed = new ArrayList<>();
+        List<Runnable> starters = new ArrayList<>();
+        executor.executeDeferred("Bobby", () -> executed.add("join"), starters::add);
+        ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+        verify(executorService).execute(captor.capture());
+        captor.getValue().run();
+        assertThat(starters, hasSize(1));
+
+        // when - the join waits for admission while the player logs in
+        executor.execute("Bobby", () -> executed.add("login"));
+
+        // then
+        verify(executorService).execute(any(Runnable.class));
+        assertThat(executed, empty());
+        assertThat(executor.getQueueDepth("Bobby"), equalTo(1));
+
+        // when (2) - the join is admitted
+        starters.get(0).run();
+        verify(executorService, times(2)).execute(captor.capture());
+        captor.getValue().run();
+        verify(executorService, times(3)).execute(captor.capture());
+        captor.getValue().run();
+
+        // then (2)
+        assertThat(executed, contains("join", "login"));
+        assertThat(executor.getPendingTasks(), equalTo(0));
+        assertThat(executor.getQueuedPlayers(), equalTo(0));
+    }
+
+    @Test
+    public void shouldHandDeferredTaskToCallerWithoutAsyncTasks() {
+        // given
+        PlayerTaskExecutor executor = createExecutor(false);
+        List<Runnable> starters = new ArrayList<>();
+        Runnable task = () -> { };
+
+        // when
+        executor.executeDeferred("Bobby", task, starters::add);
+
+        // then
+        assertThat(starters, contains(task));
+        verifyZeroInteractions(executorService);
+    }
+
+    private PlayerTaskExecutor createExecutor(boolean useAsyncTasks) {
+        given(settings.getProperty(PluginSettings.USE_ASYNC_TASKS)).willReturn(useAsyncTasks);
+        return new PlayerTaskExecutor(executorService, settings, new AsyncTaskRegistry());
+    }
+}
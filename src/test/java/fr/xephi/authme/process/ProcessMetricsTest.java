@@ -0,0 +1,50 @@
+package fr.xephi.authme.process;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Test for {@link ProcessMetrics}.
+ */
+public class ProcessMetricsTest {
+
+    @Test
+    public void shouldRecordLatencyOnceProcessHasRun() {
+        // given
+        ProcessMetrics processMetrics = new ProcessMetrics();
+        int[] runs = new int[1];
+        Runnable login = processMetrics.measureLogin(() -> ++runs[0]);
+
+        // when
+        assertThat(processMetrics.getLoginLatency().getCount(), equalTo(0L));
+        login.run();
+
+        // then
+        assertThat(runs[0], equalTo(1));
+        assertThat(processMetrics.getLoginLatency().getCount(), equalTo(1L));
+        assertThat(processMetrics.getJoinLatency().getCount(), equalTo(0L));
+    }
+
+    @Test
+    public void shouldRecordLatencyOfFailingProcess() {
+        // given
+        ProcessMetrics processMetrics = new ProcessMetrics();
+        Runnable join = processMetrics.measureJoin(() -> {
+            throw new IllegalStateException("Test exception");
+        });
+
+        // when
+        try {
+            join.run();
+            fail("Expected exception to be thrown");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        // then
+        assertThat(processMetrics.getJoinLatency().getCount(), equalTo(1L));
+    }
+}
@@ -0,0 +1,168 @@
+package fr.xephi.authme.process;
+
+import fr.xephi.authme.TestHelper;
+import fr.xephi.authme.service.BukkitService;
+import fr.xephi.authme.settings.Settings;
+import fr.xephi.authme.settings.properties.PluginSettings;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+/**
+ * Test for {@link SyncTaskQueue}.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class SyncTaskQueueTest {
+
+    @Mock
+    private BukkitService bukkitService;
+    @Mock
+    private Settings settings;
+
+    @BeforeClass
+    public static void initLogger() {
+        TestHelper.setupLogger();
+    }
+
+    @Test
+    public void shouldRunTaskImmediatelyWithoutAsyncTasks() {
+        // given
+        SyncTaskQueue queue = createQueue(false, 10);
+        List<Integer> executed = new ArrayList<>();
+
+        // when
+        queue.submit(() -> executed.add(1));
+
+        // then
+        assertThat(executed, contains(1));
+        verifyZeroInteractions(bukkitService);
+    }
+
+    @Test
+    public void shouldRunQueuedTasksInOrderInOneTick() {
+        // given
+        SyncTaskQueue queue = createQueue(true, 10);
+        List<Integer> executed = new ArrayList<>();
+        queue.submit(() -> executed.add(1));
+        queue.submit(() -> executed.add(2));
+        queue.submit(() -> executed.add(3));
+        assertThat(executed, empty());
+        assertThat(queue.getQueueLength(), equalTo(3));
+
+        // when
+        TestHelper.runSyncDelayedTask(bukkitService);
+
+        // then
+        assertThat(executed, contains(1, 2, 3));
+        assertThat(queue.getQueueLength(), equalTo(0));
+        assertThat(queue.getExecutedTasks(), equalTo(3L));
+        assertThat(queue.getCarriedOverTicks(), equalTo(0L));
+    }
+
+    @Test
+    public void shouldCarryOverTasksBeyondBudget() {
+        // given
+        SyncTaskQueue queue = createQueue(true, 1);
+        List<Integer> executed = new ArrayList<>();
+        queue.submit(() -> {
+            sleep(5);
+            executed.add(1);
+        });
+        queue.submit(() -> executed.add(2));
+        queue.submit(() -> executed.add(3));
+        ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+        verify(bukkitService).scheduleSyncDelayedTask(captor.capture());
+
+        // when
+        captor.getValue().run();
+
+        // then
+        assertThat(executed, contains(1));
+        assertThat(queue.getQueueLength(), equalTo(2));
+        assertThat(queue.getCarriedOverTicks(), equalTo(1L));
+        verify(bukkitService, times(2)).scheduleSyncDelayedTask(captor.capture());
+
+        // when (2)
+        captor.getValue().run();
+
+        // then (2)
+        assertThat(executed, contains(1, 2, 3));
+        assertThat(queue.getQueueLength(), equalTo(0));
+    }
+
+    @Test
+    public void shouldContinueAfterFailingTask() {
+        // given
+        SyncTaskQueue queue = createQueue(true, 0);
+        List<Integer> executed = new ArrayList<>();
+        queue.submit(() -> {
+            throw new IllegalStateException("Test exception");
+        });
+        queue.submit(() -> executed.add(2));
+
+        // when
+        TestHelper.runSyncDelayedTask(bukkitService);
+
+        // then
+        assertThat(executed, contains(2));
+        assertThat(queue.getExecutedTasks(), equalTo(2L));
+    }
+
+    @Test
+    public void shouldKeepDrainingAfterTaskThrowingError() {
+        // given
+        SyncTaskQueue queue = createQueue(true, 0);
+        List<Integer> executed = new ArrayList<>();
+        queue.submit(() -> {
+            throw new NoClassDefFoundError("Test error");
+        });
+        queue.submit(() -> executed.add(2));
+        ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+        verify(bukkitService).scheduleSyncDelayedTask(captor.capture());
+
+        // when
+        try {
+            captor.getValue().run();
+            fail("Expected error to be thrown");
+        } catch (NoClassDefFoundError e) {
+            // expected
+        }
+        queue.submit(() -> executed.add(3));
+
+        // then
+        verify(bukkitService, times(2)).scheduleSyncDelayedTask(captor.capture());
+        captor.getValue().run();
+        assertThat(executed, contains(2, 3));
+        assertThat(queue.getQueueLength(), equalTo(0));
+    }
+
+    private SyncTaskQueue createQueue(boolean useAsyncTasks, int budgetMillis) {
+        given(settings.getProperty(PluginSettings.USE_ASYNC_TASKS)).willReturn(useAsyncTasks);
+        given(settings.getProperty(PluginSettings.SYNC_TASK_TICK_BUDGET)).willReturn(budgetMillis);
+        return new SyncTaskQueue(bukkitService, settings);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package fr.xephi.authme.process.join;
+
+import fr.xephi.authme.data.SessionManager;
+import fr.xephi.authme.message.MessageKey;
+import fr.xephi.authme.process.PlayerTaskExecutor;
+import fr.xephi.authme.service.BukkitService;
+import fr.xephi.authme.service.CommonService;
+import fr.xephi.authme.settings.Settings;
+import fr.xephi.authme.settings.properties.PluginSettings;
+import org.bukkit.entity.Player;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Test for {@link JoinAdmissionController}.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class JoinAdmissionControllerTest {
+
+    @Mock
+    private PlayerTaskExecutor playerTaskExecutor;
+    @Mock
+    private BukkitService bukkitService;
+    @Mock
+    private SessionManager sessionManager;
+    @Mock
+    private CommonService service;
+    @Mock
+    private Settings settings;
+
+    private final List<Runnable> startedJoins = new ArrayList<>();
+
+    @Test
+    public void shouldStartAllJoinsWithoutLimit() {
+        // given
+        JoinAdmissionController controller = createController(0, 0);
+        Player bobby = mockPlayer("Bobby");
+        Player alice = mockPlayer("Alice");
+
+        // when
+        controller.submit(bobby, () -> { });
+        controller.submit(alice, () -> { });
+
+        // then
+        verify(playerTaskExecutor).executeDeferred(eq("Bobby"), any(Runnable.class), any(Consumer.class));
+        verify(playerTaskExecutor).executeDeferred(eq("Alice"), any(Runnable.class), any(Consumer.class));
+        assertThat(startedJoins, hasSize(2));
+        assertThat(controller.getAdmittedJoins(), equalTo(2L));
+        assertThat(controller.getActiveJoins(), equalTo(2));
+    }
+
+    @Test
+    public void shouldQueueJoinsBeyondLimitAndStartThemInOrder() {
+        // given
+        JoinAdmissionController controller = createController(1, 0);
+        List<String> executed = new ArrayList<>();
+        Player bobby = mockPlayer("Bobby");
+        Player alice = mockPlayer("Alice");
+        Player charlie = mockPlayer("Charlie");
+        given(alice.isOnline()).willReturn(true);
+        given(charlie.isOnline()).willReturn(true);
+        given(sessionManager.hasSession("Charlie")).willReturn(true);
+
+        // when
+        controller.submit(bobby, () -> executed.add("Bobby"));
+        controller.submit(alice, () -> executed.add("Alice"));
+        controller.submit(charlie, () -> executed.add("Charlie"));
+
+        // then
+        assertThat(controller.getQueueLength(), equalTo(2));
+        assertThat(controller.getQueuedJoins(), equalTo(2L));
+        verify(service).send(alice, MessageKey.JOIN_QUEUED, "1");
+        verify(service).send(charlie, MessageKey.JOIN_QUEUED, "1");
+
+        // when (2) - run the admitted joins one after the other
+        assertThat(startedJoins, hasSize(1));
+        startedJoins.get(0).run();
+        assertThat(startedJoins, hasSize(2));
+        startedJoins.get(1).run();
+        assertThat(startedJoins, hasSize(3));
+        startedJoins.get(2).run();
+
+        // then (2) - player with session comes first
+        assertThat(executed, contains("Bobby", "Charlie", "Alice"));
+        assertThat(controller.getActiveJoins(), equalTo(0));
+        assertThat(controller.getQueueLength(), equalTo(0));
+        assertThat(controller.getAdmittedJoins(), equalTo(3L));
+    }
+
+    @Test
+    public void shouldSkipQueuedPlayerWhoLeft() {
+        // given
+        JoinAdmissionController controller = createController(1, 0);
+        List<String> executed = new ArrayList<>();
+        Player bobby = mockPlayer("Bobby");
+        Player alice = mockPlayer("Alice");
+        given(alice.isOnline()).willReturn(false);
+        controller.submit(bobby, () -> executed.add("Bobby"));
+        controller.submit(alice, () -> executed.add("Alice"));
+        assertThat(startedJoins, hasSize(1));
+
+        // when
+        startedJoins.get(0).run();
+
+        // then - Alice's join is released without being run, so that her other processes are not blocked
+        assertThat(startedJoins, hasSize(2));
+        startedJoins.get(1).run();
+        assertThat(executed, contains("Bobby"));
+        assertThat(controller.getAdmittedJoins(), equalTo(1L));
+        assertThat(controller.getQueueLength(), equalTo(0));
+        assertThat(controller.getActiveJoins(), equalTo(0));
+    }
+
+    @Test
+    public void shouldRejectJoinIfQueueIsFull() {
+        // given
+        JoinAdmissionController controller = createController(1, 1);
+        controller.submit(mockPlayer("Bobby"), () -> { });
+        controller.submit(mockPlayer("Alice"), () -> { });
+        Player charlie = mockPlayer("Charlie");
+        given(service.retrieveSingleMessage(MessageKey.JOIN_QUEUE_FULL)).willReturn("Too busy");
+
+        // when
+        controller.submit(charlie, () -> { });
+
+        // then
+        assertThat(controller.getRejectedJoins(), equalTo(1L));
+        assertThat(controller.getQueueLength(), equalTo(1));
+        ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+        verify(bukkitService).scheduleSyncDelayedTask(captor.capture());
+        captor.getValue().run();
+        verify(charlie).kickPlayer("Too busy");
+        assertThat(startedJoins, hasSize(2));
+        assertThat(controller.getAdmittedJoins(), equalTo(1L));
+    }
+
+    @Test
+    public void shouldTakePlaceInPlayerQueueWhileWaitingForAdmission() {
+        // given
+        JoinAdmissionController controller = createController(1, 0);
+        controller.submit(mockPlayer("Bobby"), () -> { });
+        Player alice = mockPlayer("Alice");
+        given(alice.isOnline()).willReturn(true);
+
+        // when
+        controller.submit(alice, () -> { });
+
+        // then - the join is in Alice's queue, so a login submitted now would only run after it
+        verify(playerTaskExecutor).executeDeferred(eq("Alice"), any(Runnable.class), any(Consumer.class));
+        assertThat(controller.getQueueLength(), equalTo(1));
+        assertThat(startedJoins, hasSize(1));
+
+        // when (2)
+        startedJoins.get(0).run();
+
+        // then (2)
+        assertThat(startedJoins, hasSize(2));
+        assertThat(controller.getQueueLength(), equalTo(0));
+    }
+
+    /**
+     * Makes the mocked executor hand each join to the controller right away, as if the player had no other
+     * processes, and records the joins the controller starts (or releases) instead of running them.
+     */
+    @SuppressWarnings("unchecked")
+    private JoinAdmissionController createController(int maxConcurrentJoins, int maxQueuedJoins) {
+        doAnswer(invocation -> {
+            Runnable task = invocation.getArgument(1);
+            Consumer<Runnable> onTurn = invocation.getArgument(2);
+            onTurn.accept(() -> startedJoins.add(task));
+            return null;
+        }).when(playerTaskExecutor).executeDeferred(anyString(), any(Runnable.class), any(Consumer.class));
+        given(settings.getProperty(PluginSettings.MAX_CONCURRENT_JOINS)).willReturn(maxConcurrentJoins);
+        given(settings.getProperty(PluginSettings.MAX_QUEUED_JOINS)).willReturn(maxQueuedJoins);
+        return new JoinAdmissionController(playerTaskExecutor, bukkitService, sessionManager, service, settings);
+    }
+
+    private static Player mockPlayer(String name) {
+        Player player = mock(Player.class);
+        given(player.getName()).willReturn(name);
+        return player;
+    }
+}
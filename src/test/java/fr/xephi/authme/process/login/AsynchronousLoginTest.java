@@ -1,6 +1,9 @@
 package fr.xephi.authme.process.login;
 
 import fr.xephi.authme.TestHelper;
+import fr.xephi.authme.data.CaptchaManager;
+import fr.xephi.authme.data.HashingBudgetManager;
+import fr.xephi.authme.data.TempbanManager;
 import fr.xephi.authme.data.auth.PlayerAuth;
 import fr.xephi.authme.data.auth.PlayerCache;
 import fr.xephi.authme.datasource.DataSource;
@@ -8,6 +11,7 @@ import fr.xephi.authme.events.AuthMeAsyncPreLoginEvent;
 import fr.xephi.authme.message.MessageKey;
 import fr.xephi.authme.permission.PermissionsManager;
 import fr.xephi.authme.permission.PlayerStatePermission;
+import fr.xephi.authme.security.PasswordSecurity;
 import fr.xephi.authme.service.CommonService;
 import fr.xephi.authme.service.BukkitService;
 import fr.xephi.authme.settings.properties.DatabaseSettings;
@@ -32,11 +36,14 @@ import java.util.Collection;
 import static org.hamcrest.Matchers.equalTo;
 import static org.junit.Assert.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.internal.verification.VerificationModeFactory.only;
@@ -63,6 +70,14 @@ public class AsynchronousLoginTest {
     private BukkitService bukkitService;
     @Mock
     private PermissionsManager permissionsManager;
+    @Mock
+    private PasswordSecurity passwordSecurity;
+    @Mock
+    private CaptchaManager captchaManager;
+    @Mock
+    private TempbanManager tempbanManager;
+    @Mock
+    private HashingBudgetManager hashingBudgetManager;
 
     @BeforeClass
     public static void initLogger() {
@@ -177,6 +192,52 @@ public class AsynchronousLoginTest {
     }
 
 
+    @Test
+    public void shouldRejectThrottledLoginWithoutCountingAttempt() {
+        // given
+        String name = "tracy";
+        Player player = mockPlayer(name);
+        String ip = "10.20.30.40";
+        TestHelper.mockPlayerIp(player, ip);
+        given(dataSource.getAuth(name)).willReturn(PlayerAuth.builder().name(name).password("hash", null).build());
+        mockLoginPreconditions();
+        given(hashingBudgetManager.tryAcquire(ip)).willReturn(HashingBudgetManager.REJECTED);
+
+        // when
+        asynchronousLogin.login(player, "password");
+
+        // then
+        verify(commonService).send(player, MessageKey.LOGIN_THROTTLED);
+        verifyZeroInteractions(passwordSecurity, tempbanManager);
+        verify(captchaManager, never()).increaseCount(anyString());
+        verify(hashingBudgetManager, never()).recordHashDuration(anyString(), anyLong(), anyLong());
+    }
+
+    @Test
+    public void shouldCorrectHashingBudgetWithReservedCost() {
+        // given
+        String name = "tracy";
+        Player player = mockPlayer(name);
+        String ip = "10.20.30.40";
+        TestHelper.mockPlayerIp(player, ip);
+        PlayerAuth auth = PlayerAuth.builder().name(name).password("hash", null).build();
+        given(dataSource.getAuth(name)).willReturn(auth);
+        mockLoginPreconditions();
+        long reservedCost = 12_345L;
+        given(hashingBudgetManager.tryAcquire(ip)).willReturn(reservedCost);
+        given(passwordSecurity.comparePassword("wrong", auth.getPassword(), name)).willReturn(false);
+        given(commonService.getProperty(RestrictionSettings.KICK_ON_WRONG_PASSWORD)).willReturn(false);
+
+        // when
+        asynchronousLogin.login(player, "wrong");
+
+        // then
+        verify(captchaManager).increaseCount(name);
+        verify(tempbanManager).increaseCount(ip, name);
+        verify(hashingBudgetManager).recordHashDuration(eq(ip), eq(reservedCost), anyLong());
+        verify(commonService).send(player, MessageKey.WRONG_PASSWORD);
+    }
+
     @Test
     public void shouldPassMaxLoginPerIpCheck() {
         // given
@@ -241,6 +302,12 @@ public class AsynchronousLoginTest {
         verify(bukkitService).getOnlinePlayers();
     }
 
+    private void mockLoginPreconditions() {
+        given(commonService.getProperty(DatabaseSettings.MYSQL_COL_GROUP)).willReturn("");
+        given(commonService.getProperty(RestrictionSettings.MAX_LOGIN_PER_IP)).willReturn(0);
+        given(commonService.getProperty(PluginSettings.USE_ASYNC_TASKS)).willReturn(true);
+    }
+
     private static Player mockPlayer(String name) {
         Player player = mock(Player.class);
         given(player.getName()).willReturn(name);
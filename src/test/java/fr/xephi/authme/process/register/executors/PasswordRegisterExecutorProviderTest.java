@@ -3,6 +3,7 @@ package fr.xephi.authme.process.register.executors;
 import fr.xephi.authme.TestHelper;
 import fr.xephi.authme.data.auth.PlayerAuth;
 import fr.xephi.authme.message.MessageKey;
+import fr.xephi.authme.process.PlayerTaskExecutor;
 import fr.xephi.authme.process.SyncProcessManager;
 import fr.xephi.authme.process.login.AsynchronousLogin;
 import fr.xephi.authme.security.PasswordSecurity;
@@ -18,6 +19,7 @@ import org.bukkit.World;
 import org.bukkit.entity.Player;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
@@ -28,6 +30,7 @@ import static fr.xephi.authme.AuthMeMatchers.hasAuthLocation;
 import static org.hamcrest.Matchers.equalTo;
 import static org.junit.Assert.assertThat;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
@@ -54,6 +57,8 @@ public class PasswordRegisterExecutorProviderTest {
     private SyncProcessManager syncProcessManager;
     @Mock
     private AsynchronousLogin asynchronousLogin;
+    @Mock
+    private PlayerTaskExecutor playerTaskExecutor;
 
     @Test
     public void shouldCheckPasswordValidity() {
@@ -129,6 +134,26 @@ public class PasswordRegisterExecutorProviderTest {
         verify(syncProcessManager).processSyncPasswordRegister(player);
     }
 
+    @Test
+    public void shouldQueueLoginBehindPlayerProcesses() {
+        // given
+        given(commonService.getProperty(RegistrationSettings.FORCE_LOGIN_AFTER_REGISTER)).willReturn(false);
+        given(commonService.getProperty(PluginSettings.USE_ASYNC_TASKS)).willReturn(true);
+        Player player = mockPlayerWithName("Quinn");
+        RegistrationExecutor executor = passwordRegisterExecutorProvider.new PasswordRegisterExecutor(player, "pass", null);
+
+        // when
+        executor.executePostPersistAction();
+
+        // then
+        ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+        verify(playerTaskExecutor).execute(eq("Quinn"), captor.capture());
+        verifyZeroInteractions(bukkitService, asynchronousLogin);
+        captor.getValue().run();
+        verify(asynchronousLogin).forceLogin(player);
+        verify(syncProcessManager).processSyncPasswordRegister(player);
+    }
+
     @Test
     public void shouldNotLogPlayerIn() {
         // given
@@ -140,7 +165,7 @@ public class PasswordRegisterExecutorProviderTest {
         executor.executePostPersistAction();
 
         // then
-        verifyZeroInteractions(bukkitService, asynchronousLogin);
+        verifyZeroInteractions(bukkitService, asynchronousLogin, playerTaskExecutor);
         verify(syncProcessManager).processSyncPasswordRegister(player);
     }
 
@@ -10,6 +10,7 @@ import fr.xephi.authme.initialization.factory.FactoryDependencyHandler;
 import fr.xephi.authme.security.crypts.EncryptionMethod;
 import fr.xephi.authme.security.crypts.HashedPassword;
 import fr.xephi.authme.security.crypts.JOOMLA;
+import fr.xephi.authme.service.MainThreadBlockingDetector;
 import fr.xephi.authme.settings.Settings;
 import fr.xephi.authme.settings.properties.HooksSettings;
 import fr.xephi.authme.settings.properties.SecuritySettings;
@@ -61,6 +62,9 @@ public class PasswordSecurityTest {
     @Mock
     private EncryptionMethod method;
 
+    @Mock
+    private MainThreadBlockingDetector blockingDetector;
+
     private Class<?> caughtClassInEvent;
 
     @BeforeClass
@@ -91,6 +95,7 @@ public class PasswordSecurityTest {
         injector.register(Settings.class, settings);
         injector.register(DataSource.class, dataSource);
         injector.register(PluginManager.class, pluginManager);
+        injector.register(MainThreadBlockingDetector.class, blockingDetector);
     }
 
     @Test
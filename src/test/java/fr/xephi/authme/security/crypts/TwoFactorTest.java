@@ -60,4 +60,39 @@ public class TwoFactorTest {
         // then
         assertThat(result, equalTo(false));
     }
+
+    @Test
+    public void shouldAcceptCodesWithinTimeWindow() throws Exception {
+        // given
+        // Base32 of the RFC 4226 test secret "12345678901234567890"; the code for counter 1 is 287082
+        String secret = "GEZDGNBVGY3TQOJQGEZDGNBVGY3TQOJQ";
+        int code = 287082;
+        TwoFactor twoFactor = new TwoFactor();
+
+        // when / then
+        assertThat(twoFactor.checkCode(secret, code, 1), equalTo(true));
+        assertThat(twoFactor.checkCode(secret, code, 4), equalTo(true));
+        assertThat(twoFactor.checkCode(secret, code, -2), equalTo(true));
+        assertThat(twoFactor.checkCode(secret, code, 5), equalTo(false));
+        assertThat(twoFactor.checkCode(secret, 755224, 3), equalTo(true));
+        assertThat(twoFactor.checkCode(secret, 755224, 4), equalTo(false));
+    }
+
+    @Test
+    public void shouldNotAcceptCodeForOtherSecret() throws Exception {
+        // given
+        TwoFactor twoFactor = new TwoFactor();
+        String secret = "GEZDGNBVGY3TQOJQGEZDGNBVGY3TQOJQ";
+        String otherSecret = "3AK6Y4KWGRLJMEQW";
+
+        // when
+        boolean firstResult = twoFactor.checkCode(secret, 287082, 1);
+        boolean otherResult = twoFactor.checkCode(otherSecret, 287082, 1);
+        boolean firstResultAgain = twoFactor.checkCode(secret, 287082, 1);
+
+        // then
+        assertThat(firstResult, equalTo(true));
+        assertThat(otherResult, equalTo(false));
+        assertThat(firstResultAgain, equalTo(true));
+    }
 }
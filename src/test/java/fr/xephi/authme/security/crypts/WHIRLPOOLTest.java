@@ -1,5 +1,13 @@
 package fr.xephi.authme.security.crypts;
 
+import com.google.common.base.Strings;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
 /**
  * Test for {@link WHIRLPOOL}.
  */
@@ -13,4 +21,42 @@ public class WHIRLPOOLTest extends AbstractEncryptionMethodTest {
             "CBFEFB3DD7FC6D7F88E006955CFFE07758C74216A825A355D67AE352DA99D8F17FA00CB5CB6875A90BAB4992121E786F57E7B3602232002752925E4DC545C414"); // âË_3(íù*
     }
 
+    @Test
+    public void shouldMatchIsoTestVectors() {
+        // given
+        WHIRLPOOL whirlpool = new WHIRLPOOL();
+
+        // when / then
+        assertThat(whirlpool.computeHash(""), equalTo(
+            "19FA61D75522A4669B44E39C1D2E1726C530232130D407F89AFEE0964997F7A73E83BE698B288FEBCF88E3E03C4F0757EA8964E59B63D93708B138CC42A66EB3"));
+        assertThat(whirlpool.computeHash("a"), equalTo(
+            "8ACA2602792AEC6F11A67206531FB7D7F0DFF59413145E6973C45001D0087B42D11BC645413AEFF63A42391A39145A591A92200D560195E53B478584FDAE231A"));
+        assertThat(whirlpool.computeHash("abc"), equalTo(
+            "4E2448A4C6F486BB16B6562C73B4020BF3043E3A731BCE721AE1B303D97E6D4C7181EEBDB6C57E277D0E34957114CBD6C797FC9D95D8B582D225292076D4EEF5"));
+        assertThat(whirlpool.computeHash("message digest"), equalTo(
+            "378C84A4126E2DC6E56DCC7458377AAC838D00032230F53CE1F5700C0FFB4D3B8421557659EF55C106B4B52AC5A4AAA692ED920052838F3362E86DBD37A8903E"));
+        assertThat(whirlpool.computeHash("abcdefghijklmnopqrstuvwxyz"), equalTo(
+            "F1D754662636FFE92C82EBB9212A484A8D38631EAD4238F5442EE13B8054E41B08BF2A9251C30B6A0B8AAE86177AB4A6F68F673E7207865D5D9819A3DBA4EB3B"));
+        assertThat(whirlpool.computeHash(Strings.repeat("a", 1_000_000)), equalTo(
+            "0C99005BEB57EFF50A7CF005560DDF5D29057FD86B20BFD62DECA0F1CCEA4AF51FC15490EDDC47AF32BB2B66C34FF9AD8C6008AD677F77126953B226E4ED8B01"));
+    }
+
+    @Test
+    public void shouldProduceSameDigestForChunkedInput() {
+        // given
+        byte[] message = Strings.repeat("1234567890", 20).getBytes(StandardCharsets.US_ASCII);
+        WHIRLPOOL whirlpool = new WHIRLPOOL();
+        byte[] digest = new byte[WHIRLPOOL.DIGESTBYTES];
+
+        // when
+        whirlpool.NESSIEinit();
+        whirlpool.NESSIEadd(message, 0, 13);
+        whirlpool.NESSIEadd(message, 13, 64);
+        whirlpool.NESSIEadd(message, 77, message.length - 77);
+        whirlpool.NESSIEfinalize(digest);
+
+        // then
+        assertThat(WHIRLPOOL.display(digest),
+            equalTo(whirlpool.computeHash(new String(message, StandardCharsets.US_ASCII))));
+    }
 }
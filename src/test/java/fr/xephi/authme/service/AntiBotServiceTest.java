@@ -3,6 +3,7 @@ package fr.xephi.authme.service;
 import ch.jalu.injector.testing.BeforeInjecting;
 import ch.jalu.injector.testing.DelayedInjectionRunner;
 import ch.jalu.injector.testing.InjectDelayed;
+import fr.xephi.authme.ReflectionTestUtils;
 import fr.xephi.authme.message.MessageKey;
 import fr.xephi.authme.message.Messages;
 import fr.xephi.authme.permission.AdminPermission;
@@ -18,8 +19,10 @@ import org.mockito.Mock;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import static fr.xephi.authme.TestHelper.runSyncDelayedTaskWithDelay;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.equalTo;
 import static org.junit.Assert.assertThat;
 import static org.mockito.ArgumentMatchers.any;
@@ -54,6 +57,7 @@ public class AntiBotServiceTest {
         given(settings.getProperty(ProtectionSettings.ANTIBOT_DURATION)).willReturn(10);
         given(settings.getProperty(ProtectionSettings.ANTIBOT_INTERVAL)).willReturn(5);
         given(settings.getProperty(ProtectionSettings.ANTIBOT_SENSIBILITY)).willReturn(5);
+        given(settings.getProperty(ProtectionSettings.ANTIBOT_SUBNET_SENSIBILITY)).willReturn(0);
         given(settings.getProperty(ProtectionSettings.ENABLE_ANTIBOT)).willReturn(true);
         given(settings.getProperty(ProtectionSettings.ANTIBOT_DELAY)).willReturn(8);
     }
@@ -160,6 +164,76 @@ public class AntiBotServiceTest {
         assertThat(antiBotService.getAntiBotStatus(), equalTo(AntiBotService.AntiBotStatus.ACTIVE));
     }
 
+    @Test
+    public void shouldKickJoinsFromBusySubnet() {
+        // given
+        given(settings.getProperty(ProtectionSettings.ANTIBOT_SENSIBILITY)).willReturn(10);
+        given(settings.getProperty(ProtectionSettings.ANTIBOT_SUBNET_SENSIBILITY)).willReturn(2);
+        reset(bukkitService);
+        AntiBotService antiBotService = new AntiBotService(settings, messages, permissionsManager, bukkitService);
+        runSyncDelayedTaskWithDelay(bukkitService);
+
+        // when
+        boolean result1 = antiBotService.shouldKick("127.0.4.1");
+        boolean result2 = antiBotService.shouldKick("127.0.4.2");
+        boolean result3 = antiBotService.shouldKick("127.0.4.3");
+        boolean result4 = antiBotService.shouldKick("127.0.5.3");
+        boolean result5 = antiBotService.shouldKick("2001:db8:85a3::8a2e:370:7334");
+
+        // then
+        assertThat(result1, equalTo(false));
+        assertThat(result2, equalTo(false));
+        assertThat(result3, equalTo(true));
+        assertThat(result4, equalTo(false));
+        assertThat(result5, equalTo(false));
+        assertThat(antiBotService.getAntiBotStatus(), equalTo(AntiBotService.AntiBotStatus.LISTENING));
+    }
+
+    @Test
+    public void shouldCountSubnetsWithSameHashCodeSeparately() {
+        // given
+        given(settings.getProperty(ProtectionSettings.ANTIBOT_SENSIBILITY)).willReturn(10);
+        given(settings.getProperty(ProtectionSettings.ANTIBOT_SUBNET_SENSIBILITY)).willReturn(2);
+        reset(bukkitService);
+        AntiBotService antiBotService = new AntiBotService(settings, messages, permissionsManager, bukkitService);
+        runSyncDelayedTaskWithDelay(bukkitService);
+        assertThat("17.42.10".hashCode(), equalTo("17.50.178".hashCode()));
+
+        // when
+        boolean result1 = antiBotService.shouldKick("17.42.10.1");
+        boolean result2 = antiBotService.shouldKick("17.42.10.2");
+        boolean result3 = antiBotService.shouldKick("17.50.178.1");
+        boolean result4 = antiBotService.shouldKick("17.50.178.2");
+
+        // then
+        assertThat(result1, equalTo(false));
+        assertThat(result2, equalTo(false));
+        assertThat(result3, equalTo(false));
+        assertThat(result4, equalTo(false));
+    }
+
+    @Test
+    public void shouldRemoveIdleSubnetCounters() throws InterruptedException {
+        // given
+        given(settings.getProperty(ProtectionSettings.ANTIBOT_SENSIBILITY)).willReturn(10);
+        given(settings.getProperty(ProtectionSettings.ANTIBOT_SUBNET_SENSIBILITY)).willReturn(2);
+        given(settings.getProperty(ProtectionSettings.ANTIBOT_INTERVAL)).willReturn(0);
+        reset(bukkitService);
+        AntiBotService antiBotService = new AntiBotService(settings, messages, permissionsManager, bukkitService);
+        runSyncDelayedTaskWithDelay(bukkitService);
+        antiBotService.shouldKick("127.0.4.1");
+        Map<String, ?> counters = ReflectionTestUtils.getFieldValue(
+            AntiBotService.class, antiBotService, "subnetJoinCounters");
+        assertThat(counters.keySet(), contains("127.0.4"));
+
+        // when - the interval of 0 seconds makes the window 10 ms long
+        Thread.sleep(20);
+        antiBotService.performCleanup();
+
+        // then
+        assertThat(counters.isEmpty(), equalTo(true));
+    }
+
     @Test
     @SuppressWarnings({"unchecked", "rawtypes"})
     public void shouldInformPlayersOnActivation() {
@@ -0,0 +1,148 @@
+package fr.xephi.authme.service;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Test for {@link AsyncTaskRegistry}.
+ */
+public class AsyncTaskRegistryTest {
+
+    @Test
+    public void shouldTrackTaskUntilFinished() {
+        // given
+        AsyncTaskRegistry registry = new AsyncTaskRegistry();
+        int[] runs = new int[1];
+
+        // when
+        Runnable tracked = registry.track("test", () -> ++runs[0]);
+
+        // then
+        assertThat(registry.getPendingCount(), equalTo(1));
+        tracked.run();
+        assertThat(runs[0], equalTo(1));
+        assertThat(registry.getPendingCount(), equalTo(0));
+    }
+
+    @Test
+    public void shouldMarkFailingTaskAsFinished() {
+        // given
+        AsyncTaskRegistry registry = new AsyncTaskRegistry();
+        Runnable tracked = registry.track("failing", () -> {
+            throw new IllegalStateException("Test exception");
+        });
+
+        // when
+        try {
+            tracked.run();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        // then
+        assertThat(registry.getPendingCount(), equalTo(0));
+    }
+
+    @Test
+    public void shouldWaitForPendingTasks() throws InterruptedException {
+        // given
+        AsyncTaskRegistry registry = new AsyncTaskRegistry();
+        CountDownLatch latch = new CountDownLatch(1);
+        Runnable tracked = registry.track("waiting", () -> {
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Thread thread = new Thread(tracked);
+        thread.start();
+
+        // when
+        latch.countDown();
+        List<String> unfinished = registry.awaitAll(5, TimeUnit.SECONDS);
+
+        // then
+        assertThat(unfinished, empty());
+        thread.join();
+    }
+
+    @Test
+    public void shouldReturnUnfinishedTasksAfterTimeout() {
+        // given
+        AsyncTaskRegistry registry = new AsyncTaskRegistry();
+        registry.track("never run", () -> { });
+
+        // when
+        List<String> unfinished = registry.awaitAll(10, TimeUnit.MILLISECONDS);
+
+        // then
+        assertThat(unfinished, contains("never run"));
+    }
+
+    @Test
+    public void shouldNotWaitForCancelledTask() {
+        // given
+        AsyncTaskRegistry registry = new AsyncTaskRegistry();
+        AsyncTaskRegistry.TrackedTask notScheduled = registry.track("not scheduled", () -> { });
+        AsyncTaskRegistry.TrackedTask cancelled = registry.track("cancelled", () -> { });
+        registry.track("pending", () -> { });
+        boolean[] isCancelled = new boolean[1];
+        cancelled.setScheduler(() -> isCancelled[0], () -> { });
+
+        // when
+        notScheduled.cancel();
+        isCancelled[0] = true;
+        List<String> unfinished = registry.awaitAll(10, TimeUnit.MILLISECONDS);
+
+        // then
+        assertThat(unfinished, contains("pending"));
+    }
+
+    @Test
+    public void shouldRunScheduledTaskWhichWasNotStarted() {
+        // given
+        AsyncTaskRegistry registry = new AsyncTaskRegistry();
+        int[] runs = new int[1];
+        int[] cancellations = new int[1];
+        AsyncTaskRegistry.TrackedTask tracked = registry.track("queued", () -> ++runs[0]);
+        tracked.setScheduler(() -> false, () -> ++cancellations[0]);
+
+        // when
+        List<String> unfinished = registry.awaitAll(5, TimeUnit.SECONDS);
+
+        // then
+        assertThat(unfinished, empty());
+        assertThat(runs[0], equalTo(1));
+        assertThat(cancellations[0], equalTo(1));
+
+        // when (2) - the scheduler starts the task after all
+        tracked.run();
+
+        // then (2)
+        assertThat(runs[0], equalTo(1));
+    }
+
+    @Test
+    public void shouldDescribeTasks() {
+        // given
+        Runnable lambda = () -> { };
+        Runnable anonymous = new Runnable() {
+            @Override
+            public void run() {
+            }
+        };
+
+        // when / then
+        assertThat(AsyncTaskRegistry.describe(lambda), equalTo("AsyncTaskRegistryTest"));
+        assertThat(AsyncTaskRegistry.describe(anonymous), equalTo("AsyncTaskRegistryTest$1"));
+    }
+}
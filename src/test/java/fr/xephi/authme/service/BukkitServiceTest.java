@@ -15,6 +15,7 @@ import org.bukkit.scheduler.BukkitTask;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnitRunner;
@@ -23,8 +24,11 @@ import java.util.Collection;
 
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
@@ -39,6 +43,7 @@ import static org.mockito.Mockito.verifyZeroInteractions;
 public class BukkitServiceTest {
 
     private BukkitService bukkitService;
+    private AsyncTaskRegistry asyncTaskRegistry;
 
     @Mock
     private AuthMe authMe;
@@ -54,7 +59,8 @@ public class BukkitServiceTest {
         ReflectionTestUtils.setField(Bukkit.class, null, "server", server);
         given(server.getScheduler()).willReturn(scheduler);
         given(settings.getProperty(PluginSettings.USE_ASYNC_TASKS)).willReturn(true);
-        bukkitService = new BukkitService(authMe, settings);
+        asyncTaskRegistry = new AsyncTaskRegistry();
+        bukkitService = new BukkitService(authMe, asyncTaskRegistry, settings);
     }
 
     /**
@@ -237,16 +243,62 @@ public class BukkitServiceTest {
     @Test
     public void shouldRunTaskAsynchronously() {
         // given
-        Runnable task = () -> {/* noop */};
+        Runnable task = mock(Runnable.class);
         BukkitTask bukkitTask = mock(BukkitTask.class);
-        given(scheduler.runTaskAsynchronously(authMe, task)).willReturn(bukkitTask);
+        given(bukkitTask.getTaskId()).willReturn(13);
+        given(scheduler.runTaskAsynchronously(eq(authMe), any(Runnable.class))).willReturn(bukkitTask);
+        given(scheduler.isQueued(13)).willReturn(true);
 
         // when
         BukkitTask resultingTask = bukkitService.runTaskAsynchronously(task);
 
         // then
         assertThat(resultingTask, equalTo(bukkitTask));
-        verify(scheduler, only()).runTaskAsynchronously(authMe, task);
+        assertThat(asyncTaskRegistry.getPendingCount(), equalTo(1));
+        ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler, only()).runTaskAsynchronously(eq(authMe), captor.capture());
+        captor.getValue().run();
+        verify(task).run();
+        assertThat(asyncTaskRegistry.getPendingCount(), equalTo(0));
+    }
+
+    @Test
+    public void shouldNotTrackTaskWhichCouldNotBeScheduled() {
+        // given
+        Runnable task = mock(Runnable.class);
+        IllegalStateException exception = new IllegalStateException("Plugin attempted to register task while disabled");
+        given(scheduler.runTaskAsynchronously(eq(authMe), any(Runnable.class))).willThrow(exception);
+
+        // when
+        try {
+            bukkitService.runTaskAsynchronously(task);
+            fail("Expected exception to be thrown");
+        } catch (IllegalStateException e) {
+            assertThat(e, sameInstance(exception));
+        }
+
+        // then
+        assertThat(asyncTaskRegistry.getPendingCount(), equalTo(0));
+        verifyZeroInteractions(task);
+    }
+
+    @Test
+    public void shouldNotTrackCancelledTask() {
+        // given
+        Runnable task = mock(Runnable.class);
+        BukkitTask bukkitTask = mock(BukkitTask.class);
+        given(bukkitTask.getTaskId()).willReturn(7);
+        given(scheduler.runTaskAsynchronously(eq(authMe), any(Runnable.class))).willReturn(bukkitTask);
+        given(scheduler.isQueued(7)).willReturn(true);
+        bukkitService.runTaskAsynchronously(task);
+        assertThat(asyncTaskRegistry.getPendingCount(), equalTo(1));
+
+        // when
+        given(scheduler.isQueued(7)).willReturn(false);
+
+        // then
+        assertThat(asyncTaskRegistry.getPendingCount(), equalTo(0));
+        verifyZeroInteractions(task);
     }
 
     @Test
@@ -2,6 +2,10 @@ package fr.xephi.authme.service;
 
 import com.maxmind.geoip.Country;
 import com.maxmind.geoip.LookupService;
+import fr.xephi.authme.ReflectionTestUtils;
+import fr.xephi.authme.TestHelper;
+import fr.xephi.authme.settings.Settings;
+import fr.xephi.authme.settings.properties.ProtectionSettings;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -19,6 +23,7 @@ import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 /**
@@ -41,6 +46,37 @@ public class GeoIpServiceTest {
         geoIpService = new GeoIpService(dataFolder, lookupService);
     }
 
+    @Test
+    public void shouldResolveRelativeDatabaseFileAgainstDataFolder() {
+        // given
+        TestHelper.setupLogger();
+        Settings settings = mock(Settings.class);
+        given(settings.getProperty(ProtectionSettings.GEOIP_DATABASE_FILE)).willReturn("geo/GeoIP.dat");
+
+        // when
+        GeoIpService service = new GeoIpService(dataFolder, settings);
+
+        // then
+        File dataFile = ReflectionTestUtils.getFieldValue(GeoIpService.class, service, "dataFile");
+        assertThat(dataFile, equalTo(new File(dataFolder, "geo/GeoIP.dat")));
+    }
+
+    @Test
+    public void shouldKeepAbsoluteDatabaseFile() throws IOException {
+        // given
+        TestHelper.setupLogger();
+        File databaseFile = new File(temporaryFolder.newFolder(), "GeoIP.dat").getAbsoluteFile();
+        Settings settings = mock(Settings.class);
+        given(settings.getProperty(ProtectionSettings.GEOIP_DATABASE_FILE)).willReturn(databaseFile.getPath());
+
+        // when
+        GeoIpService service = new GeoIpService(dataFolder, settings);
+
+        // then
+        File dataFile = ReflectionTestUtils.getFieldValue(GeoIpService.class, service, "dataFile");
+        assertThat(dataFile, equalTo(databaseFile));
+    }
+
     @Test
     public void shouldGetCountry() {
         // given
@@ -101,4 +137,59 @@ public class GeoIpServiceTest {
         verify(lookupService, never()).getCountry(ip);
     }
 
+    @Test
+    public void shouldCacheLookupResults() {
+        // given
+        String ip = "98.76.54.32";
+        Country country = mock(Country.class);
+        given(country.getCode()).willReturn("YY");
+        given(country.getName()).willReturn("Yland");
+        given(lookupService.getCountry(ip)).willReturn(country);
+
+        // when
+        String code1 = geoIpService.getCountryCode(ip);
+        String name = geoIpService.getCountryName(ip);
+        String code2 = geoIpService.getCountryCode(ip);
+
+        // then
+        assertThat(code1, equalTo("YY"));
+        assertThat(name, equalTo("Yland"));
+        assertThat(code2, equalTo("YY"));
+        verify(lookupService, times(1)).getCountry(ip);
+    }
+
+    @Test
+    public void shouldCacheIpv6LookupResults() {
+        // given
+        String ip = "2001:db8::ff00:42:8329";
+        String otherIp = "2001:db8::ff00:42:8330";
+        Country country = mock(Country.class);
+        given(country.getCode()).willReturn("ZZ");
+        given(lookupService.getCountry(anyString())).willReturn(country);
+
+        // when
+        geoIpService.getCountryCode(ip);
+        geoIpService.getCountryCode("2001:0db8:0000:0000:0000:ff00:0042:8329");
+        geoIpService.getCountryCode(otherIp);
+
+        // then
+        verify(lookupService, times(1)).getCountry(ip);
+        verify(lookupService, times(1)).getCountry(otherIp);
+        verify(lookupService, times(2)).getCountry(anyString());
+    }
+
+    @Test
+    public void shouldParseIpv4Addresses() {
+        // given / when / then
+        assertThat(GeoIpService.parseIpv4("1.2.3.4"), equalTo(0x01020304L));
+        assertThat(GeoIpService.parseIpv4("255.255.255.255"), equalTo(0xFFFFFFFFL));
+        assertThat(GeoIpService.parseIpv4("0.0.0.0"), equalTo(0L));
+        assertThat(GeoIpService.parseIpv4("256.1.1.1"), equalTo(-1L));
+        assertThat(GeoIpService.parseIpv4("1.2.3"), equalTo(-1L));
+        assertThat(GeoIpService.parseIpv4("1.2..3"), equalTo(-1L));
+        assertThat(GeoIpService.parseIpv4("1.2.3.4."), equalTo(-1L));
+        assertThat(GeoIpService.parseIpv4("localhost"), equalTo(-1L));
+        assertThat(GeoIpService.parseIpv4("::1"), equalTo(-1L));
+    }
+
 }
@@ -0,0 +1,118 @@
+package fr.xephi.authme.service;
+
+import fr.xephi.authme.TestHelper;
+import fr.xephi.authme.settings.Settings;
+import fr.xephi.authme.settings.properties.PluginSettings;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.Assert.assertThat;
+import static org.mockito.BDDMockito.given;
+
+/**
+ * Test for {@link MainThreadBlockingDetector}.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class MainThreadBlockingDetectorTest {
+
+    @Mock
+    private Settings settings;
+
+    @BeforeClass
+    public static void setUpLogger() {
+        TestHelper.setupLogger();
+    }
+
+    @Test
+    public void shouldAggregateCallsOnMainThreadByCallSite() {
+        // given
+        given(settings.getProperty(PluginSettings.DETECT_MAIN_THREAD_CALLS)).willReturn(true);
+        given(settings.getProperty(PluginSettings.MAIN_THREAD_WARNING_INTERVAL)).willReturn(300);
+        MainThreadBlockingDetector detector = new MainThreadBlockingDetector(settings, () -> true);
+        long start = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(20);
+
+        // when
+        detector.recordCall("DataSource#getAuth", start);
+        detector.recordCall("DataSource#getAuth", start);
+
+        // then
+        List<MainThreadBlockingDetector.CallSiteStats> callSites = detector.getWorstCallSites(5);
+        assertThat(callSites, hasSize(1));
+        MainThreadBlockingDetector.CallSiteStats stats = callSites.get(0);
+        assertThat(stats.getOperation(), equalTo("DataSource#getAuth"));
+        assertThat(stats.getCallSite(),
+            equalTo(getClass().getName() + "#shouldAggregateCallsOnMainThreadByCallSite"));
+        assertThat(stats.getCount(), equalTo(2L));
+        assertThat(stats.getMaxNanos(), greaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(20)));
+        assertThat(stats.getSampleStackTrace().isEmpty(), equalTo(false));
+    }
+
+    @Test
+    public void shouldSkipLibraryFramesWhenFindingCallSite() {
+        // given
+        given(settings.getProperty(PluginSettings.DETECT_MAIN_THREAD_CALLS)).willReturn(true);
+        given(settings.getProperty(PluginSettings.MAIN_THREAD_WARNING_INTERVAL)).willReturn(300);
+        MainThreadBlockingDetector detector = new MainThreadBlockingDetector(settings, () -> true);
+        StackTraceElement[] stackTrace = {
+            frame("fr.xephi.authme.datasource.SQLite", "getAuth"),
+            frame("fr.xephi.authme.datasource.CacheDataSource$1", "load"),
+            frame("com.google.common.cache.LocalCache$Segment", "loadSync"),
+            frame("fr.xephi.authme.libs.com.google.common.cache.LocalCache", "get"),
+            frame("fr.xephi.authme.datasource.CacheDataSource", "getAuth"),
+            frame("fr.xephi.authme.process.join.AsynchronousJoin", "processJoin"),
+            frame("fr.xephi.authme.process.Management", "performJoin")
+        };
+
+        // when
+        detector.record("DataSource#getAuth", 1000L, stackTrace);
+
+        // then
+        MainThreadBlockingDetector.CallSiteStats stats = detector.getWorstCallSites(5).get(0);
+        assertThat(stats.getCallSite(), equalTo("fr.xephi.authme.process.join.AsynchronousJoin#processJoin"));
+        assertThat(stats.getSampleStackTrace(), contains(stackTrace[5].toString(), stackTrace[6].toString()));
+    }
+
+    @Test
+    public void shouldIgnoreCallsOutsideOfMainThread() {
+        // given
+        given(settings.getProperty(PluginSettings.DETECT_MAIN_THREAD_CALLS)).willReturn(true);
+        given(settings.getProperty(PluginSettings.MAIN_THREAD_WARNING_INTERVAL)).willReturn(300);
+        MainThreadBlockingDetector detector = new MainThreadBlockingDetector(settings, () -> false);
+
+        // when
+        detector.recordCall("PasswordSecurity#computeHash", System.nanoTime());
+
+        // then
+        assertThat(detector.getWorstCallSites(5), empty());
+    }
+
+    @Test
+    public void shouldNotRecordCallsIfDisabled() {
+        // given
+        given(settings.getProperty(PluginSettings.DETECT_MAIN_THREAD_CALLS)).willReturn(false);
+        given(settings.getProperty(PluginSettings.MAIN_THREAD_WARNING_INTERVAL)).willReturn(300);
+        MainThreadBlockingDetector detector = new MainThreadBlockingDetector(settings, () -> true);
+
+        // when
+        detector.recordCall("DataSource#getAuth", System.nanoTime());
+
+        // then
+        assertThat(detector.isEnabled(), equalTo(false));
+        assertThat(detector.getWorstCallSites(5), empty());
+    }
+
+    private static StackTraceElement frame(String className, String methodName) {
+        return new StackTraceElement(className, methodName, null, -1);
+    }
+}
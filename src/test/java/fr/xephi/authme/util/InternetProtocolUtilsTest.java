@@ -0,0 +1,40 @@
+package fr.xephi.authme.util;
+
+import fr.xephi.authme.TestHelper;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Test for {@link InternetProtocolUtils}.
+ */
+public class InternetProtocolUtilsTest {
+
+    @Test
+    public void shouldReturnIpv4Subnet() {
+        // given / when / then
+        assertThat(InternetProtocolUtils.getSubnet("192.168.4.20"), equalTo("192.168.4"));
+        assertThat(InternetProtocolUtils.getSubnet("8.8.8.8"), equalTo("8.8.8"));
+    }
+
+    @Test
+    public void shouldReturnIpv6Subnet() {
+        // given / when / then
+        assertThat(InternetProtocolUtils.getSubnet("2001:db8:85a3:0:0:8a2e:370:7334"), equalTo("2001:db8:85a3"));
+        assertThat(InternetProtocolUtils.getSubnet("fe80:0:0:0:1:2:3:4%eth0"), equalTo("fe80:0:0"));
+    }
+
+    @Test
+    public void shouldReturnUnknownFormatAsIs() {
+        // given / when / then
+        assertThat(InternetProtocolUtils.getSubnet("localhost"), equalTo("localhost"));
+        assertThat(InternetProtocolUtils.getSubnet("::1"), equalTo("::1"));
+    }
+
+    @Test
+    public void shouldHavePrivateConstructor() {
+        // given / when / then
+        TestHelper.validateHasOnlyPrivateEmptyConstructor(InternetProtocolUtils.class);
+    }
+}
@@ -0,0 +1,71 @@
+package fr.xephi.authme.util;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Test for {@link LatencyHistogram}.
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void shouldMapValuesToBuckets() {
+        // given
+        long[] values = {0, 7, 15, 16, 31, 32, 33, 1000, 123_456_789L, Long.MAX_VALUE};
+
+        // when / then
+        for (long value : values) {
+            long highestValue = LatencyHistogram.getHighestValueInBucket(LatencyHistogram.getBucketIndex(value));
+            assertThat(highestValue, greaterThanOrEqualTo(value));
+            assertThat(highestValue - value, lessThanOrEqualTo(value / 16));
+        }
+    }
+
+    @Test
+    public void shouldComputePercentiles() {
+        // given
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 100; ++i) {
+            histogram.record(i, TimeUnit.MILLISECONDS);
+        }
+
+        // when
+        LatencyHistogram.Snapshot snapshot = histogram.getSnapshot();
+
+        // then
+        assertThat(snapshot.getCount(), equalTo(100L));
+        assertThat(snapshot.getTotal(), equalTo(5_050_000L));
+        assertThat(snapshot.getMean(), equalTo(50_500L));
+        assertThat(snapshot.getMax(), equalTo(100_000L));
+        assertApproximately(snapshot.getMedian(), 50_000L);
+        assertApproximately(snapshot.getPercentile95(), 95_000L);
+        assertApproximately(snapshot.getPercentile99(), 99_000L);
+    }
+
+    @Test
+    public void shouldReturnEmptySnapshot() {
+        // given
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // when
+        LatencyHistogram.Snapshot snapshot = histogram.getSnapshot();
+
+        // then
+        assertThat(snapshot.getCount(), equalTo(0L));
+        assertThat(snapshot.getMedian(), equalTo(0L));
+        assertThat(snapshot.getMax(), equalTo(0L));
+        assertThat(snapshot.toString(),
+            equalTo("count 0, mean 0.00 ms, p50 0.00 ms, p95 0.00 ms, p99 0.00 ms, max 0.00 ms"));
+    }
+
+    private static void assertApproximately(long actual, long expected) {
+        assertThat(actual, greaterThanOrEqualTo(expected));
+        assertThat(actual, lessThanOrEqualTo(expected + expected / 16));
+    }
+}
@@ -0,0 +1,84 @@
+package fr.xephi.authme.util;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Test for {@link PrometheusTextBuilder}.
+ */
+public class PrometheusTextBuilderTest {
+
+    @Test
+    public void shouldBuildCountersAndGauges() {
+        // given
+        PrometheusTextBuilder builder = new PrometheusTextBuilder();
+
+        // when
+        String text = builder
+            .addCounter("authme_tempbans_total", "Tempbanned players", 3)
+            .addGauge("authme_hashing_cost_seconds", "Hashing time", 0.25)
+            .addGauge("authme_antibot_status", "Anti-bot \"state\"", "status",
+                ImmutableMap.of("active", 1, "dis\"abled", 0))
+            .build();
+
+        // then
+        assertThat(text, equalTo(
+            "# HELP authme_tempbans_total Tempbanned players\n"
+            + "# TYPE authme_tempbans_total counter\n"
+            + "authme_tempbans_total 3\n"
+            + "# HELP authme_hashing_cost_seconds Hashing time\n"
+            + "# TYPE authme_hashing_cost_seconds gauge\n"
+            + "authme_hashing_cost_seconds 0.25\n"
+            + "# HELP authme_antibot_status Anti-bot \"state\"\n"
+            + "# TYPE authme_antibot_status gauge\n"
+            + "authme_antibot_status{status=\"active\"} 1\n"
+            + "authme_antibot_status{status=\"dis\\\"abled\"} 0\n"));
+    }
+
+    @Test
+    public void shouldBuildSummaryInSeconds() {
+        // given
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(2, TimeUnit.SECONDS);
+        histogram.record(2, TimeUnit.SECONDS);
+
+        // when
+        String text = new PrometheusTextBuilder()
+            .addSummary("authme_datasource_operation_seconds", "Operations", "operation",
+                ImmutableMap.of("getAuth", histogram.getSnapshot()))
+            .build();
+
+        // then
+        String labels = "{operation=\"getAuth\",quantile=";
+        assertThat(text.split("\n")[2], equalTo("authme_datasource_operation_seconds" + labels + "\"0.5\"} "
+            + formatSeconds(histogram.getSnapshot().getMedian())));
+        assertThat(text.split("\n")[5], equalTo("authme_datasource_operation_seconds_sum{operation=\"getAuth\"} 4"));
+        assertThat(text.split("\n")[6], equalTo("authme_datasource_operation_seconds_count{operation=\"getAuth\"} 2"));
+    }
+
+    @Test
+    public void shouldExportExactSumOfSummary() {
+        // given
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1, TimeUnit.MICROSECONDS);
+        histogram.record(2, TimeUnit.MICROSECONDS);
+
+        // when
+        String text = new PrometheusTextBuilder()
+            .addSummary("authme_hashing_seconds", "Hashing", histogram.getSnapshot())
+            .build();
+
+        // then - the mean of 1.5 us is truncated, so the sum must not be computed from it
+        assertThat(text.split("\n")[5], equalTo("authme_hashing_seconds_sum 3.0E-6"));
+    }
+
+    private static String formatSeconds(long micros) {
+        double seconds = micros / 1_000_000.0;
+        return seconds == Math.rint(seconds) ? Long.toString((long) seconds) : Double.toString(seconds);
+    }
+}
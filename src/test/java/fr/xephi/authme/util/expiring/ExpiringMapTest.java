@@ -80,6 +80,24 @@ public class ExpiringMapTest {
         assertThat(internalMap.keySet(), containsInAnyOrder(64, 25));
     }
 
+    @Test
+    public void shouldNotRemoveEntryReplacedBeforeCleanup() {
+        // given
+        ExpiringMap<String, Integer> map = new ExpiringMap<>(-10, TimeUnit.SECONDS);
+        map.put("key", 1);
+        map.put("other", 2);
+        map.setExpiration(10, TimeUnit.MINUTES);
+        map.put("key", 3);
+
+        // when
+        map.removeExpiredEntries();
+
+        // then
+        Map<String, ?> internalMap = map.entries;
+        assertThat(internalMap.keySet(), containsInAnyOrder("key"));
+        assertThat(map.get("key"), equalTo(3));
+    }
+
     @Test
     public void shouldReturnIfIsEmpty() {
         // given
@@ -92,4 +110,17 @@ public class ExpiringMapTest {
         map.removeExpiredEntries();
         assertThat(map.isEmpty(), equalTo(true));
     }
+
+    @Test
+    public void shouldReturnSizeIncludingExpiredEntries() {
+        // given
+        ExpiringMap<String, String> map = new ExpiringMap<>(-8, TimeUnit.SECONDS);
+        map.put("hoi", "Welt");
+        map.put("hello", "World");
+
+        // when / then
+        assertThat(map.size(), equalTo(2));
+        map.removeExpiredEntries();
+        assertThat(map.size(), equalTo(0));
+    }
 }
@@ -0,0 +1,80 @@
+package fr.xephi.authme.util.expiring;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Test for {@link SlidingWindowCounter}.
+ */
+public class SlidingWindowCounterTest {
+
+    @Test
+    public void shouldCountEventsInWindow() {
+        // given
+        SlidingWindowCounter counter = new SlidingWindowCounter(10, TimeUnit.SECONDS, 10);
+        long start = 1_000_000L;
+
+        // when
+        int first = counter.increment(start);
+        int second = counter.increment(start + 500);
+        int third = counter.increment(start + 4_000);
+
+        // then
+        assertThat(first, equalTo(1));
+        assertThat(second, equalTo(2));
+        assertThat(third, equalTo(3));
+        assertThat(counter.total(start + 9_000), equalTo(3));
+    }
+
+    @Test
+    public void shouldDropEventsOutsideOfWindow() {
+        // given
+        SlidingWindowCounter counter = new SlidingWindowCounter(10, TimeUnit.SECONDS, 10);
+        long start = 1_000_000L;
+        counter.increment(start);
+        counter.increment(start);
+        counter.increment(start + 5_000);
+
+        // when
+        int total = counter.increment(start + 10_000);
+
+        // then
+        assertThat(total, equalTo(2));
+        assertThat(counter.total(start + 15_000), equalTo(1));
+        assertThat(counter.total(start + 60_000), equalTo(0));
+    }
+
+    @Test
+    public void shouldReuseBucketsOfOldSlots() {
+        // given
+        SlidingWindowCounter counter = new SlidingWindowCounter(1, TimeUnit.SECONDS, 4);
+        long start = 2_000L;
+        counter.increment(start);
+        counter.increment(start);
+
+        // when - same bucket index, one full window later
+        int total = counter.increment(start + 1_000);
+
+        // then
+        assertThat(total, equalTo(1));
+    }
+
+    @Test
+    public void shouldClearCounter() {
+        // given
+        SlidingWindowCounter counter = new SlidingWindowCounter(1, TimeUnit.MINUTES, 6);
+        counter.increment();
+        counter.increment();
+
+        // when
+        counter.clear();
+
+        // then
+        assertThat(counter.total(), equalTo(0));
+        assertThat(counter.increment(), equalTo(1));
+    }
+}
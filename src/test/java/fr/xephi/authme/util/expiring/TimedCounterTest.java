@@ -41,15 +41,69 @@ public class TimedCounterTest {
     public void shouldSumUpEntries() {
         // given
         TimedCounter<String> counter = new TimedCounter<>(90, TimeUnit.SECONDS);
-        counter.entries.put("expired", new ExpiringMap.ExpiringEntry<>(800, 0));
-        counter.entries.put("expired2", new ExpiringMap.ExpiringEntry<>(24, System.currentTimeMillis() - 100));
         counter.put("other", 10);
         counter.put("Another", 4);
+        counter.increment("other");
+        counter.increment("third");
 
         // when
         int totals = counter.total();
 
         // then
-        assertThat(totals, equalTo(14));
+        assertThat(totals, equalTo(16));
+    }
+
+    @Test
+    public void shouldUpdateTotalOnRemovalAndOverwrite() {
+        // given
+        TimedCounter<String> counter = new TimedCounter<>(5, TimeUnit.MINUTES);
+        counter.put("first", 6);
+        counter.increment("second");
+        counter.increment("second");
+
+        // when
+        counter.remove("second");
+        counter.put("first", 3);
+        counter.remove("unknown");
+
+        // then
+        assertThat(counter.total(), equalTo(3));
+        assertThat(counter.get("first"), equalTo(3));
+        assertThat(counter.get("second"), equalTo(0));
+    }
+
+    @Test
+    public void shouldExpireIncrements() throws InterruptedException {
+        // given
+        TimedCounter<String> counter = new TimedCounter<>(50, TimeUnit.MILLISECONDS);
+        counter.increment("name");
+        counter.increment("name");
+        counter.increment("other");
+
+        // when
+        Thread.sleep(120);
+        counter.removeExpiredEntries();
+
+        // then
+        assertThat(counter.get("name"), equalTo(0));
+        assertThat(counter.total(), equalTo(0));
+        assertThat(counter.isEmpty(), equalTo(true));
+    }
+
+    @Test
+    public void shouldResetCountsForNewExpiration() {
+        // given
+        TimedCounter<String> counter = new TimedCounter<>(30, TimeUnit.MINUTES);
+        counter.increment("name");
+
+        // when
+        counter.setExpiration(30, TimeUnit.MINUTES);
+        int countAfterSameExpiration = counter.get("name");
+        counter.setExpiration(20, TimeUnit.MINUTES);
+
+        // then
+        assertThat(countAfterSameExpiration, equalTo(1));
+        assertThat(counter.get("name"), equalTo(0));
+        assertThat(counter.total(), equalTo(0));
     }
 }
@@ -0,0 +1,183 @@
+package tools.benchmark;
+
+import ch.jalu.configme.properties.Property;
+import fr.xephi.authme.TestHelper;
+import fr.xephi.authme.data.auth.PlayerAuth;
+import fr.xephi.authme.datasource.CacheDataSource;
+import fr.xephi.authme.datasource.DataSource;
+import fr.xephi.authme.datasource.DataSourceFixtures;
+import fr.xephi.authme.settings.Settings;
+import tools.utils.AutoToolTask;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Scanner;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Measures the data source operations used most by the plugin for the MySQL (on H2 in MySQL mode), SQLite and
+ * caching data sources, on the same embedded databases as the integration tests, with tables of different sizes.
+ * Large tables need a bigger heap, e.g. -Xmx2g for one million rows.
+ */
+public class DataSourceBenchmark implements AutoToolTask {
+
+    private static final List<Integer> DEFAULT_TABLE_SIZES = Arrays.asList(1_000, 10_000, 100_000, 1_000_000);
+
+    private static final int READS_PER_ROUND = 2000;
+    private static final int WRITES_PER_ROUND = 200;
+    private static final int PURGED_NAMES = 10;
+    private static final int PURGES_PER_ROUND = WRITES_PER_ROUND / PURGED_NAMES;
+    /** Limits the number of rows read per round by operations which may scan the whole table. */
+    private static final int SCANNED_ROWS_PER_ROUND = 20_000_000;
+
+    @Override
+    public String getTaskName() {
+        return "benchmarkDataSource";
+    }
+
+    @Override
+    public void execute(Scanner scanner) {
+        System.out.println("Enter the table sizes, separated by commas (empty for " + DEFAULT_TABLE_SIZES + "):");
+        String input = scanner.nextLine().trim();
+        run(input.isEmpty()
+            ? DEFAULT_TABLE_SIZES
+            : Arrays.stream(input.split(",")).map(size -> Integer.valueOf(size.trim())).collect(Collectors.toList()));
+    }
+
+    @Override
+    public void executeDefault() {
+        run(DEFAULT_TABLE_SIZES);
+    }
+
+    private void run(List<Integer> tableSizes) {
+        TestHelper.setupLogger();
+        Settings settings = createSettings();
+        try {
+            for (int tableSize : tableSizes) {
+                System.out.println();
+                System.out.println("MySQL (H2), " + tableSize + " rows");
+                try (BenchmarkedSource source = createMySqlSource(settings, tableSize, false)) {
+                    runBenchmarks(source.dataSource, tableSize);
+                }
+
+                System.out.println();
+                System.out.println("SQLite, " + tableSize + " rows");
+                try (BenchmarkedSource source = createSqLiteSource(settings, tableSize)) {
+                    runBenchmarks(source.dataSource, tableSize);
+                }
+
+                System.out.println();
+                System.out.println("CacheDataSource on MySQL (H2), " + tableSize + " rows");
+                try (BenchmarkedSource source = createMySqlSource(settings, tableSize, true)) {
+                    runBenchmarks(source.dataSource, tableSize);
+                }
+            }
+        } catch (IOException | SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Runs the benchmarks of all operations. The accounts saved by the saveAuth benchmark are removed by the
+     * purgeRecords benchmark, so that the size of the table does not change for the following benchmarks.
+     *
+     * @param dataSource the data source to measure
+     * @param tableSize the number of accounts in the table
+     */
+    private static void runBenchmarks(DataSource dataSource, int tableSize) {
+        // Spread the accessed accounts over the table with a prime step
+        IntFunction<String> existingName = i -> "player" + (int) ((i * 7919L) % tableSize);
+
+        MicroBenchmark.run("getAuth", READS_PER_ROUND, i -> dataSource.getAuth(existingName.apply(i)));
+        MicroBenchmark.run("isAuthAvailable", READS_PER_ROUND,
+            i -> dataSource.isAuthAvailable(existingName.apply(i)));
+        int scansPerRound = Math.max(1, Math.min(READS_PER_ROUND, SCANNED_ROWS_PER_ROUND / tableSize));
+        MicroBenchmark.run("getAllAuthsByIp", scansPerRound,
+            i -> dataSource.getAllAuthsByIp(DataSourceFixtures.getAccountIp((int) ((i * 7919L) % tableSize))));
+        MicroBenchmark.run("updateSession", WRITES_PER_ROUND, i -> dataSource.updateSession(PlayerAuth.builder()
+            .name(existingName.apply(i))
+            .realName(existingName.apply(i))
+            .ip("127.0.0.1")
+            .lastLogin(System.currentTimeMillis())
+            .build()));
+
+        AtomicInteger savedAccounts = new AtomicInteger();
+        MicroBenchmark.run("saveAuth", WRITES_PER_ROUND, i -> dataSource.saveAuth(PlayerAuth.builder()
+            .name("saved" + savedAccounts.getAndIncrement())
+            .password("$SHA$11aa0706173d7272$dbba966", null)
+            .ip("127.0.0.1")
+            .build()));
+        AtomicInteger purgedAccounts = new AtomicInteger();
+        MicroBenchmark.run("purgeRecords (" + PURGED_NAMES + " names)", PURGES_PER_ROUND, i -> {
+            List<String> names = new ArrayList<>(PURGED_NAMES);
+            for (int j = 0; j < PURGED_NAMES; ++j) {
+                names.add("saved" + purgedAccounts.getAndIncrement());
+            }
+            dataSource.purgeRecords(names);
+            return names;
+        });
+
+        MicroBenchmark.run("getAllAuths", 1, i -> dataSource.getAllAuths().size());
+    }
+
+    private static BenchmarkedSource createMySqlSource(Settings settings, int tableSize, boolean useCache)
+        throws IOException, SQLException {
+        String databaseName = "benchmark" + tableSize;
+        DataSource dataSource = DataSourceFixtures.createMySqlOnH2(settings, databaseName, 10);
+        try (Connection connection = DataSourceFixtures.openH2Connection(databaseName)) {
+            DataSourceFixtures.insertAccounts(settings, connection, tableSize);
+        }
+        return new BenchmarkedSource(useCache ? new CacheDataSource(dataSource) : dataSource, null);
+    }
+
+    private static BenchmarkedSource createSqLiteSource(Settings settings, int tableSize)
+        throws IOException, SQLException {
+        File databaseFile = Files.createTempFile("authme-benchmark", ".db").toFile();
+        DataSource dataSource = DataSourceFixtures.createSqLite(settings, databaseFile);
+        try (Connection connection = DataSourceFixtures.openSqLiteConnection(databaseFile)) {
+            DataSourceFixtures.insertAccounts(settings, connection, tableSize);
+        }
+        return new BenchmarkedSource(dataSource, databaseFile);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Settings createSettings() {
+        Settings settings = mock(Settings.class);
+        given(settings.getProperty(any(Property.class)))
+            .willAnswer(invocation -> ((Property<?>) invocation.getArgument(0)).getDefaultValue());
+        return settings;
+    }
+
+    /**
+     * Data source under test, which is closed and whose database file is deleted after the benchmarks.
+     */
+    private static final class BenchmarkedSource implements AutoCloseable {
+        private final DataSource dataSource;
+        private final File databaseFile;
+
+        BenchmarkedSource(DataSource dataSource, File databaseFile) {
+            this.dataSource = dataSource;
+            this.databaseFile = databaseFile;
+        }
+
+        @Override
+        public void close() {
+            dataSource.close();
+            if (databaseFile != null && !databaseFile.delete()) {
+                System.out.println("Could not delete " + databaseFile);
+            }
+        }
+    }
+}
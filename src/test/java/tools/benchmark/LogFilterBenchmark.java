@@ -0,0 +1,65 @@
+package tools.benchmark;
+
+import fr.xephi.authme.output.Log4JFilter;
+import org.apache.logging.log4j.core.Filter;
+import tools.utils.AutoToolTask;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compares the log filter, which sees every message logged on the server, with its previous
+ * implementation, which created a lowercase copy of each message and searched it for every command.
+ */
+public class LogFilterBenchmark implements AutoToolTask {
+
+    private static final int OPERATIONS_PER_ROUND = 1_000_000;
+
+    private static final String[] MESSAGES = {
+        "Preparing spawn area: 84%",
+        "Can't keep up! Is the server overloaded? Running 2345ms or 46 ticks behind",
+        "[WorldEdit] Loading WorldEdit plugin v6.1.7;3be3f8e",
+        "UUID of player Bobby is 0d7a4c2e-4b8f-4c47-9b2b-3a5e2f8f6f1a",
+        "Bobby[/127.0.0.1:53212] logged in with entity id 184 at ([world]-134.5, 64.0, 223.5)",
+        "Bobby issued server command: /spawn",
+        "Bobby issued server command: /login hunter2",
+        "Bobby lost connection: Disconnected"
+    };
+
+    private static final List<String> LEGACY_COMMANDS = Arrays.asList(
+        "/login ", "/authme:login ", "/l ", "/authme:l ", "/log ", "/authme:log ", "/register ", "/authme:register ",
+        "/reg ", "/authme:reg ", "/unregister ", "/authme:unregister ", "/unreg ", "/authme:unreg ",
+        "/changepassword ", "/authme:changepassword ", "/cp ", "/authme:cp ", "/changepass ", "/authme:changepass ",
+        "/authme register ", "/authme:authme register ", "/authme reg ", "/authme:authme reg ", "/authme r ",
+        "/authme:authme r ", "/authme changepassword ", "/authme:authme changepassword ", "/authme password ",
+        "/authme:authme password ", "/authme changepass ", "/authme:authme changepass ", "/authme cp ",
+        "/authme:authme cp ");
+
+    @Override
+    public String getTaskName() {
+        return "benchmarkLogFilter";
+    }
+
+    @Override
+    public void executeDefault() {
+        Log4JFilter filter = new Log4JFilter();
+        double legacy = MicroBenchmark.run("Previous filter (toLowerCase + contains)", OPERATIONS_PER_ROUND,
+            i -> isSensitiveLegacy(MESSAGES[i % MESSAGES.length]) ? Filter.Result.DENY : Filter.Result.NEUTRAL);
+        double current = MicroBenchmark.run("Log4JFilter", OPERATIONS_PER_ROUND,
+            i -> filter.filter(null, null, null, MESSAGES[i % MESSAGES.length]));
+        System.out.format("Speedup: %.1fx%n", legacy / current);
+    }
+
+    private static boolean isSensitiveLegacy(String message) {
+        String lowerMessage = message.toLowerCase();
+        if (!lowerMessage.contains("issued server command:")) {
+            return false;
+        }
+        for (String command : LEGACY_COMMANDS) {
+            if (lowerMessage.contains(command)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,61 @@
+package tools.benchmark;
+
+import java.util.Locale;
+import java.util.function.IntFunction;
+
+/**
+ * Minimal harness for micro benchmarks: runs warm-up rounds so that the code is compiled by the JIT,
+ * then measures a number of rounds and prints the time per operation. The results of the operations
+ * are consumed so that the JIT cannot remove the measured work.
+ * <p>
+ * This is not as rigorous as JMH (no forking, no protection against constant folding of inputs), but it
+ * needs no build setup and is precise enough to compare implementations run in the same JVM.
+ */
+public final class MicroBenchmark {
+
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+
+    private static volatile int sink;
+
+    private MicroBenchmark() {
+    }
+
+    /**
+     * Runs the given operation and prints the average and best time per operation.
+     *
+     * @param name the name of the benchmark
+     * @param operationsPerRound the number of operations per round
+     * @param operation the operation to run, which receives the number of the operation in the round
+     * @return the average time per operation in nanoseconds
+     */
+    public static double run(String name, int operationsPerRound, IntFunction<?> operation) {
+        for (int round = 0; round < WARMUP_ROUNDS; ++round) {
+            runRound(operationsPerRound, operation);
+        }
+
+        long total = 0;
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < MEASURED_ROUNDS; ++round) {
+            long duration = runRound(operationsPerRound, operation);
+            total += duration;
+            best = Math.min(best, duration);
+        }
+        double average = (double) total / MEASURED_ROUNDS / operationsPerRound;
+        System.out.println(String.format(Locale.ROOT, "%-45s %10.1f ns/op (best round: %.1f ns/op)",
+            name, average, (double) best / operationsPerRound));
+        return average;
+    }
+
+    private static long runRound(int operations, IntFunction<?> operation) {
+        int hash = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < operations; ++i) {
+            Object result = operation.apply(i);
+            hash += result == null ? 0 : result.hashCode();
+        }
+        long duration = System.nanoTime() - start;
+        sink = hash;
+        return duration;
+    }
+}